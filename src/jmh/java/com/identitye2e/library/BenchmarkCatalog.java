@@ -0,0 +1,20 @@
+package com.identitye2e.library;
+
+import com.identitye2e.library.book.model.Book;
+
+/*
+Synthetic catalog shared by the benchmarks: book i has a canonical 13 digit ISBN, one of
+authorCount authors and a publication year spread over a century.
+ */
+public final class BenchmarkCatalog {
+    private BenchmarkCatalog() {
+    }
+
+    public static String isbn(int index) {
+        return Long.toString(9_780_000_000_000L + index);
+    }
+
+    public static Book book(int index, int authorCount, int copies) {
+        return new Book(isbn(index), "title-" + index, "author-" + index % authorCount, 1925 + index % 100, copies, copies);
+    }
+}
@@ -0,0 +1,38 @@
+package com.identitye2e.library;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/*
+Entry point of the JMH suite. Runs the selected benchmarks once per thread count listed in
+jmh.threads and writes each run's results as JSON to jmh.resultDirectory, so runs of two
+builds can be diffed file by file. Every other option is a regular JMH command line option,
+e.g. a benchmark regex or -p catalogSize=100000.
+ */
+public final class LibraryBenchmarks {
+    private LibraryBenchmarks() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        Path resultDirectory = Path.of(System.getProperty("jmh.resultDirectory", "target/jmh"));
+        Files.createDirectories(resultDirectory);
+        for (String threads : System.getProperty("jmh.threads", "1").split(",")) {
+            new Runner(new OptionsBuilder()
+                    .parent(commandLineOptions)
+                    .threads(Integer.parseInt(threads.trim()))
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(resultDirectory.resolve("result-threads-%s.json".formatted(threads.trim())).toString())
+                    .build())
+                    .run();
+        }
+    }
+}
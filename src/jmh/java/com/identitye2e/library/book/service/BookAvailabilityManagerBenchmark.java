@@ -0,0 +1,78 @@
+package com.identitye2e.library.book.service;
+
+import com.identitye2e.library.BenchmarkCatalog;
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.repository.BookRepository;
+import com.identitye2e.library.configuration.LibraryProperties;
+import com.identitye2e.library.infrastructure.cache.BookCache;
+import com.identitye2e.library.infrastructure.cache.CaffeineBookCache;
+import com.identitye2e.library.infrastructure.cache.IsbnBookCache;
+import com.identitye2e.library.infrastructure.persistance.BookRepositoryImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+A borrow immediately followed by a return of a random book, both managers wired the way
+ApplicationConfig wires them. A small catalog makes threads collide on the same books, a
+large one measures the uncontended path. Every book has more copies than there are threads,
+so no borrow is ever refused.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookAvailabilityManagerBenchmark {
+    private static final int COPIES = 1_000;
+    @Param({"16", "100000"})
+    public int catalogSize;
+    @Param({"STRIPED", "LOCK_FREE"})
+    public LibraryProperties.AvailabilityMode mode;
+    private BookAvailabilityManager bookAvailabilityManager;
+    private String[] isbns;
+
+    @Setup
+    public void setup() {
+        BookCache<String, Book> bookCacheByIsbn = new IsbnBookCache(100_000, 64);
+        BookRepository bookRepository = new BookRepositoryImpl(bookCacheByIsbn,
+                new CaffeineBookCache<>(10_000, Duration.ofMinutes(10), null));
+        List<Book> books = new ArrayList<>(catalogSize);
+        isbns = new String[catalogSize];
+        for (int i = 0; i < catalogSize; i++) {
+            books.add(BenchmarkCatalog.book(i, 100, COPIES));
+            isbns[i] = BenchmarkCatalog.isbn(i);
+        }
+        bookRepository.createBooks(books);
+        bookAvailabilityManager = switch (mode) {
+            case STRIPED -> new BookAvailabilityManagerImpl(bookRepository, bookCacheByIsbn);
+            case LOCK_FREE -> {
+                LockFreeBookAvailabilityManager lockFreeBookAvailabilityManager = new LockFreeBookAvailabilityManager(bookRepository);
+                bookRepository.subscribe(lockFreeBookAvailabilityManager);
+                yield lockFreeBookAvailabilityManager;
+            }
+        };
+    }
+
+    @Benchmark
+    public Book borrowAndReturn() throws Exception {
+        String isbn = isbns[ThreadLocalRandom.current().nextInt(isbns.length)];
+        bookAvailabilityManager.checkAndBorrowBook(isbn);
+        return bookAvailabilityManager.checkAndReturnBook(isbn);
+    }
+}
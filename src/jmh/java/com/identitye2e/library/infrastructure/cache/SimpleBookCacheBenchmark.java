@@ -0,0 +1,78 @@
+package com.identitye2e.library.infrastructure.cache;
+
+import com.identitye2e.library.BenchmarkCatalog;
+import com.identitye2e.library.book.model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+Cache-aside use of SimpleBookCache and SegmentedBookCache: get, and put on a miss. Keys are
+drawn uniformly from maximumSize / hitRatio books, so once warm roughly hitRatio of the gets
+hit. SimpleBookCache serialises every call on one lock, run with increasing jmh.threads to
+see where the segments pay off, e.g.
+
+    mvn verify -Pjmh -Djmh.threads=1,2,4,8,16,32,64 -Djmh.args="SimpleBookCacheBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimpleBookCacheBenchmark {
+    /*
+    Segments of the configured library.cache.segments default.
+     */
+    private static final int SEGMENTS = 64;
+    @Param({"SIMPLE", "SEGMENTED"})
+    public CacheType cacheType;
+    @Param({"10000", "100000"})
+    public int maximumSize;
+    @Param({"0.99", "0.9", "0.5"})
+    public double hitRatio;
+    private BookCache<String, Book> bookCache;
+    private Book[] books;
+
+    @Setup
+    public void setup() {
+        bookCache = switch (cacheType) {
+            case SIMPLE -> new SimpleBookCache<>(maximumSize);
+            case SEGMENTED -> new SegmentedBookCache<>(maximumSize, SEGMENTS);
+        };
+        books = new Book[(int) (maximumSize / hitRatio)];
+        for (int i = 0; i < books.length; i++) {
+            books[i] = BenchmarkCatalog.book(i, 1000, 1);
+        }
+        for (int i = 0; i < maximumSize; i++) {
+            bookCache.put(books[i].getIsbn(), books[i]);
+        }
+    }
+
+    @Benchmark
+    public Book getOrPut() {
+        Book book = books[ThreadLocalRandom.current().nextInt(books.length)];
+        Optional<Book> cached = bookCache.get(book.getIsbn());
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        bookCache.put(book.getIsbn(), book);
+        return book;
+    }
+
+    public enum CacheType {
+        SIMPLE, SEGMENTED
+    }
+}
@@ -0,0 +1,60 @@
+package com.identitye2e.library.infrastructure.collection;
+
+import com.identitye2e.library.BenchmarkCatalog;
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.model.Isbn;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ISBN lookup in ConcurrentHashMap<String, Book> against ConcurrentLongObjectMap keyed by the
+encoded ISBN, the store behind BookRepositoryImpl.getByIsbn. Both hold the same catalog and
+are probed with a freshly built String per call, the way request path params arrive, so the
+String side pays for hashing and the long side for encoding.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IsbnLookupBenchmark {
+    @Param({"100000", "1000000"})
+    public int catalogSize;
+    private ConcurrentHashMap<String, Book> stringStore;
+    private ConcurrentLongObjectMap<Book> longStore;
+
+    @Setup
+    public void setup() {
+        stringStore = new ConcurrentHashMap<>(catalogSize);
+        longStore = new ConcurrentLongObjectMap<>(ConcurrentLongObjectMap.DEFAULT_SEGMENTS, catalogSize);
+        for (int i = 0; i < catalogSize; i++) {
+            Book book = BenchmarkCatalog.book(i, 1000, 1);
+            stringStore.put(book.getIsbn(), book);
+            longStore.put(Isbn.encode(book.getIsbn()), book);
+        }
+    }
+
+    @Benchmark
+    public Book stringKeys() {
+        return stringStore.get(BenchmarkCatalog.isbn(ThreadLocalRandom.current().nextInt(catalogSize)));
+    }
+
+    @Benchmark
+    public Book longKeys() {
+        return longStore.get(Isbn.encode(BenchmarkCatalog.isbn(ThreadLocalRandom.current().nextInt(catalogSize))));
+    }
+}
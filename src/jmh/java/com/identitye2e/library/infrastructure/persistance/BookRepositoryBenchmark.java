@@ -0,0 +1,90 @@
+package com.identitye2e.library.infrastructure.persistance;
+
+import com.identitye2e.library.BenchmarkCatalog;
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.repository.BookRepository;
+import com.identitye2e.library.infrastructure.cache.CaffeineBookCache;
+import com.identitye2e.library.infrastructure.cache.IsbnBookCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+Read paths of BookRepositoryImpl behind the caches it runs with in production. hitRatio is
+the share of ISBN lookups that find a book, the others ask for ISBNs past the end of the
+catalog and go through the miss path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookRepositoryBenchmark {
+    private static final int PROBES = 1 << 16;
+    private static final int AUTHOR_PAGE_SIZE = 100;
+    @Param({"10000", "1000000"})
+    public int catalogSize;
+    @Param({"1.0", "0.5"})
+    public double hitRatio;
+    @Param({"10", "1000"})
+    public int booksPerAuthor;
+    private BookRepository bookRepository;
+    private String[] isbnProbes;
+    private String[] authorProbes;
+
+    @Setup
+    public void setup() {
+        bookRepository = new BookRepositoryImpl(new IsbnBookCache(100_000, 64),
+                new CaffeineBookCache<>(10_000, Duration.ofMinutes(10), null));
+        int authorCount = Math.max(1, catalogSize / booksPerAuthor);
+        List<Book> batch = new ArrayList<>();
+        for (int i = 0; i < catalogSize; i++) {
+            batch.add(BenchmarkCatalog.book(i, authorCount, 10));
+            if (batch.size() == 10_000) {
+                bookRepository.createBooks(batch);
+                batch.clear();
+            }
+        }
+        bookRepository.createBooks(batch);
+        SplittableRandom random = new SplittableRandom(42);
+        isbnProbes = new String[PROBES];
+        authorProbes = new String[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            int index = random.nextInt(catalogSize);
+            isbnProbes[i] = BenchmarkCatalog.isbn(random.nextDouble() < hitRatio ? index : catalogSize + index);
+            authorProbes[i] = "author-" + random.nextInt(authorCount);
+        }
+    }
+
+    @Benchmark
+    public Optional<Book> getByIsbn() {
+        return bookRepository.getByIsbn(isbnProbes[ThreadLocalRandom.current().nextInt(PROBES)]);
+    }
+
+    @Benchmark
+    public List<Book> getByAuthor() {
+        return bookRepository.getByAuthor(authorProbes[ThreadLocalRandom.current().nextInt(PROBES)]);
+    }
+
+    @Benchmark
+    public List<Book> getByAuthorFirstPage() {
+        return bookRepository.getByAuthor(authorProbes[ThreadLocalRandom.current().nextInt(PROBES)], null, AUTHOR_PAGE_SIZE);
+    }
+}
@@ -0,0 +1,65 @@
+package com.identitye2e.library.rest.v1.response;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.identitye2e.library.BenchmarkCatalog;
+import com.identitye2e.library.book.model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/*
+JSON serialization of BookResponse in the two shapes the resource produces: a page of books
+converted from the model and written as one BookPageResponse, and the same books written one
+by one as NDJSON lines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookResponseSerializationBenchmark {
+    @Param({"1", "100"})
+    public int pageSize;
+    private ObjectWriter bookResponseWriter;
+    private ObjectWriter bookPageResponseWriter;
+    private List<Book> books;
+
+    @Setup
+    public void setup() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        bookResponseWriter = objectMapper.writerFor(BookResponse.class);
+        bookPageResponseWriter = objectMapper.writerFor(BookPageResponse.class);
+        books = IntStream.range(0, pageSize).mapToObj(i -> BenchmarkCatalog.book(i, 100, 5)).toList();
+    }
+
+    @Benchmark
+    public byte[] writePage() throws JsonProcessingException {
+        return bookPageResponseWriter.writeValueAsBytes(BookPageResponse.builder()
+                .books(books.stream().map(BookResponse::from).toList())
+                .build());
+    }
+
+    @Benchmark
+    public int writeNdjsonLines() throws JsonProcessingException {
+        int bytes = 0;
+        for (Book book : books) {
+            bytes += bookResponseWriter.writeValueAsBytes(BookResponse.from(book)).length + 1;
+        }
+        return bytes;
+    }
+}
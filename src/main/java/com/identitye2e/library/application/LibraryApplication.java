@@ -3,6 +3,7 @@ package com.identitye2e.library.application;
 import com.identitye2e.library.configuration.ApplicationConfig;
 import com.identitye2e.library.configuration.ExceptionHandlersConfig;
 import com.identitye2e.library.configuration.JerseyConfig;
+import com.identitye2e.library.configuration.MetricsConfig;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
@@ -12,7 +13,8 @@ import org.springframework.context.annotation.Import;
 @Import({
         ApplicationConfig.class,
         JerseyConfig.class,
-        ExceptionHandlersConfig.class
+        ExceptionHandlersConfig.class,
+        MetricsConfig.class
 })
 @EnableAutoConfiguration
 public class LibraryApplication {
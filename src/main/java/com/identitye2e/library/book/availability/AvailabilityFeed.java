@@ -0,0 +1,14 @@
+package com.identitye2e.library.book.availability;
+
+import java.util.Set;
+
+public interface AvailabilityFeed {
+    /*
+    Streams the availability of the books with the given ISBNs and of the books by the given
+    authors to the subscriber, their current state first and then every change. A subscriber
+    that falls behind receives only the latest state of each book, never a backlog.
+     */
+    void subscribe(Set<String> isbns, Set<String> authors, AvailabilitySubscriber subscriber);
+
+    int subscriberCount();
+}
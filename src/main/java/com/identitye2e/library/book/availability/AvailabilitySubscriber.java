@@ -0,0 +1,17 @@
+package com.identitye2e.library.book.availability;
+
+/*
+Receiving end of an availability stream. Calls are made one at a time from a thread of the
+feed and may block while the client is slow to read, returning false once it is gone.
+ */
+public interface AvailabilitySubscriber {
+    boolean deliver(AvailabilityUpdate update);
+
+    /*
+    Keeps an idle connection open and detects clients that went away without an update to
+    fail on.
+     */
+    boolean heartbeat();
+
+    void close();
+}
@@ -0,0 +1,17 @@
+package com.identitye2e.library.book.availability;
+
+import com.identitye2e.library.book.model.Book;
+
+/*
+Copies of a book at one point in time, or that the book was removed from the catalog or
+moved to an author the stream does not follow.
+ */
+public record AvailabilityUpdate(String isbn, int availableCopies, int totalCopies, boolean removed) {
+    public static AvailabilityUpdate of(Book book) {
+        return new AvailabilityUpdate(book.getIsbn(), book.getAvailableCopies(), book.getTotalCopies(), false);
+    }
+
+    public static AvailabilityUpdate removed(String isbn) {
+        return new AvailabilityUpdate(isbn, 0, 0, true);
+    }
+}
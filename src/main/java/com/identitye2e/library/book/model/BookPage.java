@@ -0,0 +1,17 @@
+package com.identitye2e.library.book.model;
+
+import java.util.List;
+
+/*
+One page of a keyset paginated query, nextAfterIsbn is the key to resume from or null on
+the last page.
+ */
+public record BookPage(List<Book> books, String nextAfterIsbn) {
+    public static BookPage of(List<Book> booksAndOneMore, int limit) {
+        if (booksAndOneMore.size() <= limit) {
+            return new BookPage(booksAndOneMore, null);
+        }
+        List<Book> books = booksAndOneMore.subList(0, limit);
+        return new BookPage(books, books.get(limit - 1).getIsbn());
+    }
+}
@@ -0,0 +1,96 @@
+package com.identitye2e.library.book.model;
+
+/*
+ISBN handling shared by the REST boundary and the stores. normalize validates a raw ISBN
+once on the way in and returns its canonical ISBN-13 form, encode turns a canonical ISBN
+into the primitive key the stores and the ISBN cache are indexed by.
+ */
+public final class Isbn {
+    private static final int MAX_ENCODED_DIGITS = 15;
+    private static final int LENGTH_SHIFT = 56;
+
+    private Isbn() {
+    }
+
+    /*
+    Strips hyphens and spaces, checks the check digit and converts ISBN-10 to ISBN-13.
+     */
+    public static String normalize(String rawIsbn) {
+        if (rawIsbn == null) {
+            throw new IllegalArgumentException("Isbn is required");
+        }
+        String isbn = rawIsbn.replace("-", "").replace(" ", "");
+        if (isbn.length() == 10 && isValidIsbn10(isbn)) {
+            String isbn13 = "978" + isbn.substring(0, 9);
+            return isbn13 + isbn13CheckDigit(isbn13);
+        }
+        if (isbn.length() == 13 && (isbn.startsWith("978") || isbn.startsWith("979")) && isValidIsbn13(isbn)) {
+            return isbn;
+        }
+        throw new IllegalArgumentException("Isbn %s is not a valid ISBN-10 or ISBN-13".formatted(rawIsbn));
+    }
+
+    /*
+    Packs a string of up to 15 digits into a long as (digit count << 56) | value, so that
+    keys with leading zeros stay distinct and 0 is never a valid key. Canonical ISBN-13s
+    always take this path, no String hashing is involved.
+     */
+    public static long encode(String isbn) {
+        int length = isbn.length();
+        if (length == 0 || length > MAX_ENCODED_DIGITS) {
+            throw new IllegalArgumentException("Isbn %s cannot be encoded".formatted(isbn));
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = isbn.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("Isbn %s cannot be encoded".formatted(isbn));
+            }
+            value = value * 10 + digit;
+        }
+        return (long) length << LENGTH_SHIFT | value;
+    }
+
+    /*
+    Inverse of encode.
+     */
+    public static String decode(long key) {
+        int length = (int) (key >>> LENGTH_SHIFT);
+        String digits = Long.toString(key & ((1L << LENGTH_SHIFT) - 1));
+        return "0".repeat(length - digits.length()) + digits;
+    }
+
+    private static boolean isValidIsbn10(String isbn) {
+        int sum = 0;
+        for (int i = 0; i < 10; i++) {
+            char c = isbn.charAt(i);
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if (i == 9 && (c == 'X' || c == 'x')) {
+                digit = 10;
+            } else {
+                return false;
+            }
+            sum += (10 - i) * digit;
+        }
+        return sum % 11 == 0;
+    }
+
+    private static boolean isValidIsbn13(String isbn) {
+        for (int i = 0; i < 13; i++) {
+            if (isbn.charAt(i) < '0' || isbn.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return isbn13CheckDigit(isbn.substring(0, 12)) == isbn.charAt(12) - '0';
+    }
+
+    private static int isbn13CheckDigit(String first12Digits) {
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (first12Digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return (10 - sum % 10) % 10;
+    }
+}
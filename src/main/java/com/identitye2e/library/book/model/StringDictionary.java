@@ -0,0 +1,72 @@
+package com.identitye2e.library.book.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+Append-only dictionary handing out dense int ids for distinct strings. Every string is kept
+once, as the instance that was first seen, and everything else refers to it by id, so equal
+values coming in from separate requests collapse onto one String on the heap and compare as
+ints. Ids are never reused or released, the dictionary is meant for low-cardinality values
+like author names.
+
+Lookups of known strings are a single ConcurrentHashMap get. Registration of a new string is
+serialised, it is rare once the catalog is loaded. It takes a ReentrantLock rather than a
+monitor, a virtual thread waiting on a monitor pins its carrier thread.
+ */
+public final class StringDictionary {
+    public static final int NOT_FOUND = -1;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    /*
+    Written only under the dictionary's lock. A value is stored before its id is published in
+    ids, so whoever got hold of an id also sees the value behind it.
+     */
+    private volatile String[] values = new String[256];
+    private int size;
+
+    /*
+    Returns the id of the value, registering it first if it was never seen.
+     */
+    public int intern(String value) {
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+        lock.lock();
+        try {
+            id = ids.get(value);
+            if (id != null) {
+                return id;
+            }
+            String[] current = values;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size << 1);
+            }
+            current[size] = value;
+            values = current;
+            ids.put(value, size);
+            return size++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+    Returns the id of the value or NOT_FOUND, without registering it.
+     */
+    public int find(String value) {
+        Integer id = ids.get(value);
+        return id == null ? NOT_FOUND : id;
+    }
+
+    public String value(int id) {
+        return values[id];
+    }
+
+    public int size() {
+        return ids.size();
+    }
+}
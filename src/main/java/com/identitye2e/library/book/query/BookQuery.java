@@ -0,0 +1,120 @@
+package com.identitye2e.library.book.query;
+
+import com.identitye2e.library.book.model.Book;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/*
+Predicate over books, built from leaf comparisons and conjunctions. A query knows how to test
+a single book, which books to read in the first place is up to the BookQueryEngine's planner.
+toString renders the predicate for explain output.
+ */
+public sealed interface BookQuery {
+    boolean matches(Book book);
+
+    static BookQuery isbn(String isbn) {
+        return new IsbnIs(isbn);
+    }
+
+    static BookQuery author(String author) {
+        return new AuthorIs(author);
+    }
+
+    static BookQuery publishedBetween(int fromYear, int toYear) {
+        return new PublishedBetween(fromYear, toYear);
+    }
+
+    static BookQuery available(boolean available) {
+        return new Available(available);
+    }
+
+    /*
+    Nested conjunctions are flattened, an empty conjunction matches every book.
+     */
+    static BookQuery and(List<BookQuery> operands) {
+        List<BookQuery> flattened = new ArrayList<>();
+        for (BookQuery operand : operands) {
+            if (operand instanceof And conjunction) {
+                flattened.addAll(conjunction.operands());
+            } else {
+                flattened.add(operand);
+            }
+        }
+        return flattened.size() == 1 ? flattened.get(0) : new And(List.copyOf(flattened));
+    }
+
+    static BookQuery and(BookQuery... operands) {
+        return and(List.of(operands));
+    }
+
+    record IsbnIs(String isbn) implements BookQuery {
+        @Override
+        public boolean matches(Book book) {
+            return book.getIsbn().equals(isbn);
+        }
+
+        @Override
+        public String toString() {
+            return "isbn = '%s'".formatted(isbn);
+        }
+    }
+
+    record AuthorIs(String author) implements BookQuery {
+        @Override
+        public boolean matches(Book book) {
+            return book.getAuthor().equals(author);
+        }
+
+        @Override
+        public String toString() {
+            return "author = '%s'".formatted(author);
+        }
+    }
+
+    record PublishedBetween(int fromYear, int toYear) implements BookQuery {
+        @Override
+        public boolean matches(Book book) {
+            Integer year = book.getPublicationYear();
+            return year != null && year >= fromYear && year <= toYear;
+        }
+
+        @Override
+        public String toString() {
+            return "publicationYear between %d and %d".formatted(fromYear, toYear);
+        }
+    }
+
+    /*
+    availableCopies > 0 when available, availableCopies = 0 otherwise.
+     */
+    record Available(boolean available) implements BookQuery {
+        @Override
+        public boolean matches(Book book) {
+            return book.getAvailableCopies() > 0 == available;
+        }
+
+        @Override
+        public String toString() {
+            return available ? "availableCopies > 0" : "availableCopies = 0";
+        }
+    }
+
+    record And(List<BookQuery> operands) implements BookQuery {
+        @Override
+        public boolean matches(Book book) {
+            for (BookQuery operand : operands) {
+                if (!operand.matches(book)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return operands.isEmpty() ? "true" : operands.stream().map(BookQuery::toString).collect(Collectors.joining(" and "));
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.identitye2e.library.book.query;
+
+import com.identitye2e.library.book.model.Book;
+
+import java.util.List;
+
+public interface BookQueryEngine {
+    /*
+    Books matching the query, at most limit of them, in no particular order.
+     */
+    List<Book> execute(BookQuery query, int limit);
+
+    /*
+    The plan execute would run the query with, without running it.
+     */
+    QueryPlan explain(BookQuery query);
+}
@@ -0,0 +1,27 @@
+package com.identitye2e.library.book.query;
+
+import java.util.List;
+
+/*
+How a query is executed: the access path the candidates are read from, the predicate every
+candidate is then checked against, and the access paths the planner weighed against each
+other, cheapest first.
+ */
+public record QueryPlan(AccessPath accessPath, BookQuery filter, List<AccessPath> considered) {
+    public enum Index {
+        ISBN,
+        AUTHOR,
+        YEAR,
+        AVAILABILITY,
+        PARALLEL_SCAN
+    }
+
+    /*
+    Reads the books matching predicate through index, estimatedBooks is the number of
+    candidates it yields. Estimates are exact counts except for author lookups, which are
+    probed only up to the cheapest estimate known at that point and then report that bound.
+    predicate is null for a scan.
+     */
+    public record AccessPath(Index index, BookQuery predicate, long estimatedBooks) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.identitye2e.library.book.repository;
+
+import com.identitye2e.library.book.model.Book;
+
+/*
+Mutation of the book store. previous is null for CREATED, current is null for DELETED.
+ */
+public record BookChangeEvent(Type type, Book previous, Book current) {
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public static BookChangeEvent created(Book book) {
+        return new BookChangeEvent(Type.CREATED, null, book);
+    }
+
+    public static BookChangeEvent updated(Book previous, Book current) {
+        return new BookChangeEvent(Type.UPDATED, previous, current);
+    }
+
+    public static BookChangeEvent deleted(Book book) {
+        return new BookChangeEvent(Type.DELETED, book, null);
+    }
+
+    public String isbn() {
+        return current != null ? current.getIsbn() : previous.getIsbn();
+    }
+}
@@ -0,0 +1,19 @@
+package com.identitye2e.library.book.repository;
+
+import java.util.List;
+
+@FunctionalInterface
+public interface BookChangeListener {
+    /*
+    Invoked synchronously on the mutating thread once the store reflects the change, keep it cheap.
+     */
+    void onBookChange(BookChangeEvent event);
+
+    /*
+    Invoked instead of onBookChange for the changes of a batch, in the order they were applied.
+    Override to handle the batch as a whole.
+     */
+    default void onBookChanges(List<BookChangeEvent> events) {
+        events.forEach(this::onBookChange);
+    }
+}
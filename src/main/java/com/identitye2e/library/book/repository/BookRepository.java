@@ -6,15 +6,61 @@ import com.identitye2e.library.book.service.exceptions.BookNotFoundException;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 public interface BookRepository {
     void createBook(Book book) throws BookAlreadyExistsException;
 
+    /*
+    Creates all books that do not exist yet and returns the ones rejected as duplicates.
+    Listeners receive the created books as one batch.
+     */
+    List<Book> createBooks(List<Book> books);
+
     void removeBook(String isbn) throws BookNotFoundException;
 
     Optional<Book> getByIsbn(String isbn);
 
     List<Book> getByAuthor(String auth);
 
+    /*
+    Books of the author in ascending ISBN order starting after afterIsbn (null for the first
+    page), at most limit of them.
+     */
+    List<Book> getByAuthor(String auth, String afterIsbn, int limit);
+
+    /*
+    Stores the book whether or not its ISBN exists, creating it when missing.
+     */
     Book update(Book updatedBook);
+
+    /*
+    Replaces the stored book with change applied to it. The change runs in the book's atomic
+    section, so it sees the latest stored state and concurrent changes of the same book apply
+    one after another. A missing book is refused rather than re-created. Returns the stored
+    result.
+
+    Does not wait for the change to be durable, so callers holding their own locks can
+    release them first. Call awaitDurable before acknowledging the change.
+     */
+    Book update(String isbn, UnaryOperator<Book> change) throws BookNotFoundException;
+
+    /*
+    Waits until every change made so far is durable.
+     */
+    void awaitDurable();
+
+    void subscribe(BookChangeListener listener);
+
+    /*
+    Visits every stored book. Weakly consistent, changes made during the walk may or may not
+    be seen, listeners that need an exact view subscribe before walking.
+     */
+    void forEachBook(Consumer<Book> action);
+
+    /*
+    Number of stored books.
+     */
+    int size();
 }
@@ -0,0 +1,11 @@
+package com.identitye2e.library.book.search;
+
+import java.util.List;
+
+public interface BookCompletionIndex {
+    /*
+    Titles and authors starting with the prefix, most available first, at most limit of them.
+    Implementations may cap limit.
+     */
+    List<Completion> complete(String prefix, int limit);
+}
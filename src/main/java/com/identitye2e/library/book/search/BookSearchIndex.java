@@ -0,0 +1,11 @@
+package com.identitye2e.library.book.search;
+
+import java.util.List;
+
+public interface BookSearchIndex {
+    /*
+    ISBNs of the books whose title or author contain every term of the query, best match
+    first, at most limit of them.
+     */
+    List<String> search(String query, int limit);
+}
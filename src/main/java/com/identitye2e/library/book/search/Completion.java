@@ -0,0 +1,12 @@
+package com.identitye2e.library.book.search;
+
+/*
+A title or author suggested for a typed prefix, with the number of books carrying it and
+their available copies summed up.
+ */
+public record Completion(Type type, String text, int books, long availableCopies) {
+    public enum Type {
+        TITLE,
+        AUTHOR
+    }
+}
@@ -0,0 +1,18 @@
+package com.identitye2e.library.book.search;
+
+import java.util.List;
+
+public interface PublicationYearIndex {
+    /*
+    Positions of the books published between fromYear and toYear inclusive, by the author
+    when one is given, in year then ISBN order. Starts right after the given position, or at
+    the beginning of the range when it is null, and returns at most limit of them.
+     */
+    List<YearPosition> range(int fromYear, int toYear, String author, YearPosition after, int limit);
+
+    /*
+    Number of books published between fromYear and toYear inclusive, by the author when one
+    is given.
+     */
+    int count(int fromYear, int toYear, String author);
+}
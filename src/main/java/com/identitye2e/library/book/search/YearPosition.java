@@ -0,0 +1,21 @@
+package com.identitye2e.library.book.search;
+
+/*
+Position of a book in publication year order, books of the same year ordered by ISBN. Used as
+the key a year range page resumes after.
+ */
+public record YearPosition(int year, String isbn) {
+    private static final char SEPARATOR = ':';
+
+    public String encode() {
+        return year + String.valueOf(SEPARATOR) + isbn;
+    }
+
+    public static YearPosition decode(String encoded) {
+        int separator = encoded.indexOf(SEPARATOR);
+        if (separator < 1 || separator == encoded.length() - 1) {
+            throw new IllegalArgumentException("Year position %s is not valid".formatted(encoded));
+        }
+        return new YearPosition(Integer.parseInt(encoded.substring(0, separator)), encoded.substring(separator + 1));
+    }
+}
@@ -0,0 +1,12 @@
+package com.identitye2e.library.book.search;
+
+import com.identitye2e.library.book.model.Book;
+
+import java.util.List;
+
+/*
+One page of a publication year range query. next is the position to resume after or null on
+the last page, total counts every book in the range, not only this page.
+ */
+public record YearRangePage(List<Book> books, YearPosition next, int total) {
+}
@@ -0,0 +1,31 @@
+package com.identitye2e.library.book.service;
+
+import com.identitye2e.library.book.model.Book;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/*
+Non-blocking variant of the BookService point lookups and availability changes. Futures fail
+with the exception the blocking call would have thrown, with a RejectedExecutionException
+when the service is saturated and with a TimeoutException when no result was ready in time.
+ */
+public interface AsyncBookService {
+    CompletableFuture<Optional<Book>> findBookByISBN(String isbn);
+
+    CompletableFuture<Book> borrowBook(String isbn);
+
+    /*
+    Borrows a copy, waiting up to waitTimeout for one to be returned when none is available.
+    The wait does not count against the service timeout and holds no thread.
+     */
+    CompletableFuture<Book> borrowBookWhenAvailable(String isbn, Duration waitTimeout);
+
+    CompletableFuture<Book> returnBook(String isbn);
+
+    CompletableFuture<List<Book>> borrowBooks(List<String> isbns);
+
+    CompletableFuture<List<Book>> returnBooks(List<String> isbns);
+}
@@ -1,12 +1,36 @@
 package com.identitye2e.library.book.service;
 
 import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.service.exceptions.BatchOperationException;
 import com.identitye2e.library.book.service.exceptions.BookNotFoundException;
 import com.identitye2e.library.book.service.exceptions.InsufficientBookCopiesException;
 import com.identitye2e.library.book.service.exceptions.ReturnExceededException;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 public interface BookAvailabilityManager {
     Book checkAndBorrowBook(String isbn) throws BookNotFoundException, InsufficientBookCopiesException;
 
     Book checkAndReturnBook(String isbn) throws BookNotFoundException, ReturnExceededException;
+
+    /*
+    Borrows a copy now or, when none is available, once one is returned, queued behind
+    earlier waiters for the same book. Fails with InsufficientBookCopiesException if no copy
+    came back within the timeout, nothing blocks while the borrow waits.
+     */
+    CompletableFuture<Book> borrowBookWhenAvailable(String isbn, Duration timeout);
+
+    /*
+    Borrows every ISBN of the batch or none of them, an ISBN listed twice borrows two copies.
+     */
+    List<Book> checkAndBorrowBooks(List<String> isbns) throws BatchOperationException;
+
+    List<Book> checkAndReturnBooks(List<String> isbns) throws BatchOperationException;
+
+    /*
+    Removes the book from the catalog, never in the middle of a borrow or return of it.
+     */
+    void removeBook(String isbn) throws BookNotFoundException;
 }
@@ -1,51 +1,200 @@
 package com.identitye2e.library.book.service;
 
-import com.identitye2e.library.infrastructure.cache.BookCache;
 import com.identitye2e.library.book.model.Book;
 import com.identitye2e.library.book.repository.BookRepository;
-import com.identitye2e.library.book.service.exceptions.InsufficientBookCopiesException;
+import com.identitye2e.library.book.service.exceptions.BatchOperationException;
 import com.identitye2e.library.book.service.exceptions.BookNotFoundException;
+import com.identitye2e.library.book.service.exceptions.InsufficientBookCopiesException;
 import com.identitye2e.library.book.service.exceptions.ReturnExceededException;
-import lombok.RequiredArgsConstructor;
+import com.identitye2e.library.infrastructure.cache.BookCache;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+Borrow/return are guarded by a lock per ISBN stripe, operations on different ISBNs run in
+parallel and only operations on the same stripe contend. Configure a single stripe to get
+the previous global lock behaviour. Durability of a change is waited for after its stripe
+is released, so the stripe is never held across a journal fsync. Removal takes the stripe
+too, a book cannot disappear from under a batch that validated it.
 
+Waiting borrows queue under the stripe of their ISBN. A return hands its copies to them
+before it releases the stripe, and plain borrows of a book with waiters fail, so a returned
+copy cannot be taken by a borrower who never queued for it.
+ */
 @Slf4j
-@RequiredArgsConstructor
 public class BookAvailabilityManagerImpl implements BookAvailabilityManager{
+    public static final int DEFAULT_LOCK_STRIPES = 64;
     private final BookRepository bookRepository;
-    private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+    private final StripedLocks locks;
     private final BookCache<String, Book> bookCacheByIsbn;
+    private final BorrowWaitQueues waitQueues;
+
+    public BookAvailabilityManagerImpl(BookRepository bookRepository, BookCache<String, Book> bookCacheByIsbn) {
+        this(bookRepository, bookCacheByIsbn, DEFAULT_LOCK_STRIPES);
+    }
+
+    public BookAvailabilityManagerImpl(BookRepository bookRepository, BookCache<String, Book> bookCacheByIsbn, int lockStripes) {
+        this.bookRepository = bookRepository;
+        this.bookCacheByIsbn = bookCacheByIsbn;
+        this.locks = new StripedLocks(lockStripes);
+        this.waitQueues = new BorrowWaitQueues(this::borrowLocked, locks::lockFor, bookRepository::awaitDurable);
+    }
+
     @Override
     public Book checkAndBorrowBook(String isbn) throws BookNotFoundException, InsufficientBookCopiesException {
-        readWriteLock.writeLock().lock();
+        ReentrantLock lock = locks.lockFor(isbn);
+        Book updatedBook;
+        locks.lock(lock);
         try {
-            Book book = getBook(isbn);
-            Book updatedBook = book.borrowBook();
-            bookRepository.update(updatedBook);
-            bookCacheByIsbn.update(isbn, updatedBook);
-            log.info("Successfully borrowed a book={}", updatedBook);
-            return updatedBook;
+            if (waitQueues.hasWaiters(isbn)) {
+                throw reservedForWaiters(isbn);
+            }
+            updatedBook = borrowLocked(isbn);
         } finally {
-            readWriteLock.writeLock().unlock();
+            lock.unlock();
         }
+        bookRepository.awaitDurable();
+        log.info("Successfully borrowed a book={}", updatedBook);
+        return updatedBook;
+    }
+
+    /*
+    Borrows a copy while the caller holds the stripe of the ISBN, without waiting for durability.
+     */
+    private Book borrowLocked(String isbn) throws BookNotFoundException, InsufficientBookCopiesException {
+        Book updatedBook = getBook(isbn).borrowBook();
+        bookRepository.update(isbn, stored -> updatedBook);
+        bookCacheByIsbn.update(isbn, updatedBook);
+        return updatedBook;
+    }
+
+    private static InsufficientBookCopiesException reservedForWaiters(String isbn) {
+        return new InsufficientBookCopiesException("Copies of the book with ISBN %s are reserved for waiting borrowers.".formatted(isbn));
     }
 
     @Override
     public Book checkAndReturnBook(String isbn) throws BookNotFoundException, ReturnExceededException {
-        readWriteLock.writeLock().lock();
+        ReentrantLock lock = locks.lockFor(isbn);
+        Book updatedBook;
+        BorrowWaitQueues.HandOffs handOffs;
+        locks.lock(lock);
         try {
             Book book = getBook(isbn);
-            Book updatedBook = book.returnBook();
-            bookRepository.update(updatedBook);
+            updatedBook = book.returnBook();
+            bookRepository.update(isbn, stored -> updatedBook);
             bookCacheByIsbn.update(isbn, updatedBook);
-            log.info("Successfully return a book={}", updatedBook);
-            return updatedBook;
+            handOffs = waitQueues.handOff(isbn);
+        } finally {
+            lock.unlock();
+        }
+        bookRepository.awaitDurable();
+        log.info("Successfully return a book={}", updatedBook);
+        handOffs.complete();
+        return updatedBook;
+    }
+
+    @Override
+    public CompletableFuture<Book> borrowBookWhenAvailable(String isbn, Duration timeout) {
+        return waitQueues.borrowWhenAvailable(isbn, timeout);
+    }
+
+    /*
+    Removals are rare, the stripe is held across the journal wait of the removal.
+     */
+    @Override
+    public void removeBook(String isbn) throws BookNotFoundException {
+        ReentrantLock lock = locks.lockFor(isbn);
+        locks.lock(lock);
+        try {
+            bookRepository.removeBook(isbn);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public LockWaitStats lockWaitStats() {
+        return locks.stats();
+    }
+
+    @Override
+    public List<Book> checkAndBorrowBooks(List<String> isbns) throws BatchOperationException {
+        List<Book> borrowedBooks = applyToAll(isbns, book -> {
+            if (waitQueues.hasWaiters(book.getIsbn())) {
+                throw reservedForWaiters(book.getIsbn());
+            }
+            return book.borrowBook();
+        });
+        log.info("Successfully borrowed books={}", borrowedBooks);
+        return borrowedBooks;
+    }
+
+    @Override
+    public List<Book> checkAndReturnBooks(List<String> isbns) throws BatchOperationException {
+        List<Book> returnedBooks = applyToAll(isbns, Book::returnBook);
+        log.info("Successfully return books={}", returnedBooks);
+        return returnedBooks;
+    }
+
+    /*
+    Holds the stripes of every ISBN in the batch, acquired in stripe order, while the whole
+    batch is validated against a working copy. The store is only written once all succeed,
+    and the journal is waited on once the stripes are released. Removals take the stripes
+    as well, so every book validated is still there to be written. Waiters of the books are
+    handed the copies the batch frees before the stripes are released.
+     */
+    private List<Book> applyToAll(List<String> isbns, BookTransition transition) throws BatchOperationException {
+        List<ReentrantLock> batchLocks = locks.orderedLocksFor(isbns);
+        List<Book> results = new ArrayList<>(isbns.size());
+        List<BorrowWaitQueues.HandOffs> handOffs = new ArrayList<>();
+        batchLocks.forEach(locks::lock);
+        try {
+            Map<String, Book> workingBooks = new HashMap<>();
+            Map<String, Exception> failures = new LinkedHashMap<>();
+            for (String isbn : isbns) {
+                try {
+                    Book book = workingBooks.containsKey(isbn) ? workingBooks.get(isbn) : getBook(isbn);
+                    Book updatedBook = transition.apply(book);
+                    workingBooks.put(isbn, updatedBook);
+                    results.add(updatedBook);
+                } catch (BookNotFoundException | InsufficientBookCopiesException | ReturnExceededException e) {
+                    failures.putIfAbsent(isbn, e);
+                }
+            }
+            if (!failures.isEmpty()) {
+                throw new BatchOperationException(failures, isbns.size());
+            }
+            for (Book updatedBook : workingBooks.values()) {
+                try {
+                    bookRepository.update(updatedBook.getIsbn(), stored -> updatedBook);
+                } catch (BookNotFoundException e) {
+                    throw new IllegalStateException("Book with ISBN %s was removed while its stripe was held.".formatted(updatedBook.getIsbn()), e);
+                }
+            }
+            for (String isbn : workingBooks.keySet()) {
+                handOffs.add(waitQueues.handOff(isbn));
+            }
         } finally {
-            readWriteLock.writeLock().unlock();
+            for (int i = batchLocks.size() - 1; i >= 0; i--) {
+                batchLocks.get(i).unlock();
+            }
         }
+        bookRepository.awaitDurable();
+        handOffs.forEach(BorrowWaitQueues.HandOffs::complete);
+        return results;
+    }
+
+    @FunctionalInterface
+    private interface BookTransition {
+        Book apply(Book book) throws InsufficientBookCopiesException, ReturnExceededException;
     }
 
     private Book getBook(String isbn) throws BookNotFoundException {
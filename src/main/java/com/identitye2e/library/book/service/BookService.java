@@ -1,24 +1,74 @@
 package com.identitye2e.library.book.service;
 
 import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.model.BookPage;
+import com.identitye2e.library.book.query.BookQuery;
+import com.identitye2e.library.book.query.QueryPlan;
+import com.identitye2e.library.book.search.Completion;
+import com.identitye2e.library.book.search.YearPosition;
+import com.identitye2e.library.book.search.YearRangePage;
+import com.identitye2e.library.book.service.exceptions.BatchOperationException;
 import com.identitye2e.library.book.service.exceptions.BookAlreadyExistsException;
 import com.identitye2e.library.book.service.exceptions.BookNotFoundException;
 import com.identitye2e.library.book.service.exceptions.InsufficientBookCopiesException;
 import com.identitye2e.library.book.service.exceptions.ReturnExceededException;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface BookService {
     Book addBook(String isbn, String title, String author, Integer publicationYear, Integer availableCopies) throws BookAlreadyExistsException;
 
+    /*
+    Bulk variant of addBook, returns the books rejected because their ISBN already exists.
+     */
+    List<Book> addBooks(List<Book> books);
+
     void deleteBook(String isbn) throws BookNotFoundException;
 
     Optional<Book> findBookByISBN(String isbn);
 
     List<Book> findBooksByAuthor(String auth);
 
+    BookPage findBooksByAuthor(String auth, String afterIsbn, int limit);
+
+    /*
+    Full-text search over titles and authors, best match first.
+     */
+    List<Book> searchBooks(String query, int limit);
+
+    /*
+    Typeahead suggestions of titles and authors starting with the prefix.
+     */
+    List<Completion> completeBooks(String prefix, int limit);
+
+    /*
+    Books published between fromYear and toYear inclusive, by the author when one is given,
+    in year then ISBN order, keyset paginated.
+     */
+    YearRangePage findBooksByPublicationYear(int fromYear, int toYear, String author, YearPosition after, int limit);
+
+    /*
+    Books matching an arbitrary combination of predicates, read through the most selective
+    index available.
+     */
+    List<Book> queryBooks(BookQuery query, int limit);
+
+    QueryPlan explainQuery(BookQuery query);
+
     Book borrowBook(String isbn) throws BookNotFoundException, InsufficientBookCopiesException;
 
+    /*
+    Borrows a copy as soon as one is available, waiting up to the timeout in line with other
+    borrowers of the same book. The future fails with the exception borrowBook would have thrown.
+     */
+    CompletableFuture<Book> borrowBookWhenAvailable(String isbn, Duration timeout);
+
     Book returnBook(String isbn) throws BookNotFoundException, ReturnExceededException;
+
+    List<Book> borrowBooks(List<String> isbns) throws BatchOperationException;
+
+    List<Book> returnBooks(List<String> isbns) throws BatchOperationException;
 }
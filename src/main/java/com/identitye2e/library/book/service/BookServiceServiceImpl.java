@@ -1,7 +1,18 @@
 package com.identitye2e.library.book.service;
 
 import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.model.BookPage;
+import com.identitye2e.library.book.query.BookQuery;
+import com.identitye2e.library.book.query.BookQueryEngine;
+import com.identitye2e.library.book.query.QueryPlan;
 import com.identitye2e.library.book.repository.BookRepository;
+import com.identitye2e.library.book.search.BookCompletionIndex;
+import com.identitye2e.library.book.search.BookSearchIndex;
+import com.identitye2e.library.book.search.Completion;
+import com.identitye2e.library.book.search.PublicationYearIndex;
+import com.identitye2e.library.book.search.YearPosition;
+import com.identitye2e.library.book.search.YearRangePage;
+import com.identitye2e.library.book.service.exceptions.BatchOperationException;
 import com.identitye2e.library.book.service.exceptions.BookAlreadyExistsException;
 import com.identitye2e.library.book.service.exceptions.BookNotFoundException;
 import com.identitye2e.library.book.service.exceptions.InsufficientBookCopiesException;
@@ -9,8 +20,10 @@ import com.identitye2e.library.book.service.exceptions.ReturnExceededException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -18,6 +31,10 @@ public class BookServiceServiceImpl implements BookService {
 
     private final BookRepository bookRepository;
     private final BookAvailabilityManager bookAvailabilityManager;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookCompletionIndex bookCompletionIndex;
+    private final PublicationYearIndex publicationYearIndex;
+    private final BookQueryEngine bookQueryEngine;
 
     @Override
     public Book addBook(String isbn, String title, String author, Integer publicationYear, Integer availableCopies) throws BookAlreadyExistsException {
@@ -27,9 +44,16 @@ public class BookServiceServiceImpl implements BookService {
         return book;
     }
 
+    @Override
+    public List<Book> addBooks(List<Book> books) {
+        List<Book> duplicates = bookRepository.createBooks(books);
+        log.info("Successfully created books={} duplicates={}", books.size() - duplicates.size(), duplicates.size());
+        return duplicates;
+    }
+
     @Override
     public void deleteBook(String isbn) throws BookNotFoundException {
-        bookRepository.removeBook(isbn);
+        bookAvailabilityManager.removeBook(isbn);
         log.info("Successfully deleted book with isbn={}", isbn);
     }
 
@@ -43,13 +67,79 @@ public class BookServiceServiceImpl implements BookService {
         return bookRepository.getByAuthor(auth);
     }
 
+    @Override
+    public BookPage findBooksByAuthor(String auth, String afterIsbn, int limit) {
+        return BookPage.of(bookRepository.getByAuthor(auth, afterIsbn, limit + 1), limit);
+    }
+
+    /*
+    The index only ranks, books are read back through the repository so that the copy counts
+    returned are current.
+     */
+    @Override
+    public List<Book> searchBooks(String query, int limit) {
+        return bookSearchIndex.search(query, limit).stream()
+                .map(bookRepository::getByIsbn)
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    @Override
+    public List<Completion> completeBooks(String prefix, int limit) {
+        return bookCompletionIndex.complete(prefix, limit);
+    }
+
+    /*
+    The page is cut from limit + 1 positions of the index rather than from the books read
+    back, so a book deleted in between shortens the page without ending the pagination.
+     */
+    @Override
+    public YearRangePage findBooksByPublicationYear(int fromYear, int toYear, String author, YearPosition after, int limit) {
+        List<YearPosition> positions = publicationYearIndex.range(fromYear, toYear, author, after, limit + 1);
+        YearPosition next = null;
+        if (positions.size() > limit) {
+            positions = positions.subList(0, limit);
+            next = positions.get(limit - 1);
+        }
+        List<Book> books = positions.stream()
+                .map(position -> bookRepository.getByIsbn(position.isbn()))
+                .flatMap(Optional::stream)
+                .toList();
+        return new YearRangePage(books, next, publicationYearIndex.count(fromYear, toYear, author));
+    }
+
+    @Override
+    public List<Book> queryBooks(BookQuery query, int limit) {
+        return bookQueryEngine.execute(query, limit);
+    }
+
+    @Override
+    public QueryPlan explainQuery(BookQuery query) {
+        return bookQueryEngine.explain(query);
+    }
+
     @Override
     public Book borrowBook(String isbn) throws BookNotFoundException, InsufficientBookCopiesException {
         return bookAvailabilityManager.checkAndBorrowBook(isbn);
     }
 
+    @Override
+    public CompletableFuture<Book> borrowBookWhenAvailable(String isbn, Duration timeout) {
+        return bookAvailabilityManager.borrowBookWhenAvailable(isbn, timeout);
+    }
+
     @Override
     public Book returnBook(String isbn) throws BookNotFoundException, ReturnExceededException {
         return bookAvailabilityManager.checkAndReturnBook(isbn);
     }
+
+    @Override
+    public List<Book> borrowBooks(List<String> isbns) throws BatchOperationException {
+        return bookAvailabilityManager.checkAndBorrowBooks(isbns);
+    }
+
+    @Override
+    public List<Book> returnBooks(List<String> isbns) throws BatchOperationException {
+        return bookAvailabilityManager.checkAndReturnBooks(isbns);
+    }
 }
@@ -0,0 +1,174 @@
+package com.identitye2e.library.book.service;
+
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.service.exceptions.BookNotFoundException;
+import com.identitye2e.library.book.service.exceptions.InsufficientBookCopiesException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/*
+Borrows waiting for a copy to come back, one FIFO queue per ISBN. A waiter is only a future:
+no thread blocks or polls while it waits. Whoever frees a copy borrows it on behalf of the
+first waiter and completes that waiter's future once the borrow is durable, and a shared
+timer fails the waiters still queued when their timeout expires.
+
+Enqueues, hand-offs and expiries of an ISBN are serialised by the lock the manager maps the
+ISBN to. The striped manager passes its stripes, so a return hands its copy over before it
+releases the stripe and nothing can take the copy in between. While a book has waiters the
+managers refuse plain borrows of it, see hasWaiters, so copies go to waiters in arrival
+order. A queue that runs empty is dropped, so a return of a book nobody waits for costs one
+map lookup.
+ */
+@Slf4j
+class BorrowWaitQueues {
+    private final Map<String, ArrayDeque<CompletableFuture<Book>>> queues = new ConcurrentHashMap<>();
+    private final Borrow borrow;
+    private final Function<String, ReentrantLock> lockFor;
+    private final Runnable awaitDurable;
+
+    /*
+    borrow takes a copy for a waiter while the ISBN's lock is held, without waiting for
+    durability, which awaitDurable provides before any waiter is completed.
+     */
+    BorrowWaitQueues(Borrow borrow, Function<String, ReentrantLock> lockFor, Runnable awaitDurable) {
+        this.borrow = borrow;
+        this.lockFor = lockFor;
+        this.awaitDurable = awaitDurable;
+    }
+
+    /*
+    Whether borrows of the book are queued, a plain borrow must then leave the copies to them.
+     */
+    boolean hasWaiters(String isbn) {
+        return queues.containsKey(isbn);
+    }
+
+    /*
+    Joins the back of the book's queue and is served straight away when a copy is on the
+    shelf and nobody queued earlier.
+     */
+    CompletableFuture<Book> borrowWhenAvailable(String isbn, Duration timeout) {
+        CompletableFuture<Book> waiter = new CompletableFuture<>();
+        HandOffs handOffs;
+        ReentrantLock lock = lockFor.apply(isbn);
+        lock.lock();
+        try {
+            queues.computeIfAbsent(isbn, key -> new ArrayDeque<>()).add(waiter);
+            handOffs = handOff(isbn);
+        } finally {
+            lock.unlock();
+        }
+        if (handOffs.serves(waiter)) {
+            awaitDurable.run();
+        } else {
+            log.debug("No copy of book with isbn={} available, waiting up to {}", isbn, timeout);
+            CompletableFuture.delayedExecutor(timeout.toNanos(), TimeUnit.NANOSECONDS)
+                    .execute(() -> expire(isbn, waiter, timeout));
+        }
+        handOffs.complete();
+        return waiter;
+    }
+
+    /*
+    Borrows the available copies of the book for its waiters in arrival order. Returns call
+    it while they still hold the ISBN's lock, and complete the result once their own change
+    is durable and the lock is released.
+     */
+    HandOffs handOff(String isbn) {
+        if (!queues.containsKey(isbn)) {
+            return HandOffs.NONE;
+        }
+        List<Outcome> outcomes = new ArrayList<>();
+        ReentrantLock lock = lockFor.apply(isbn);
+        lock.lock();
+        try {
+            ArrayDeque<CompletableFuture<Book>> waiters = queues.get(isbn);
+            CompletableFuture<Book> waiter;
+            while (waiters != null && (waiter = waiters.peek()) != null) {
+                try {
+                    outcomes.add(new Outcome(waiter, borrow.borrow(isbn), null));
+                } catch (InsufficientBookCopiesException e) {
+                    break;
+                } catch (BookNotFoundException e) {
+                    outcomes.add(new Outcome(waiter, null, e));
+                }
+                waiters.poll();
+            }
+            removeIfEmpty(isbn, waiters);
+        } finally {
+            lock.unlock();
+        }
+        return outcomes.isEmpty() ? HandOffs.NONE : new HandOffs(outcomes);
+    }
+
+    private void expire(String isbn, CompletableFuture<Book> waiter, Duration timeout) {
+        boolean expired = false;
+        ReentrantLock lock = lockFor.apply(isbn);
+        lock.lock();
+        try {
+            ArrayDeque<CompletableFuture<Book>> waiters = queues.get(isbn);
+            if (waiters != null) {
+                expired = waiters.remove(waiter);
+                removeIfEmpty(isbn, waiters);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (expired) {
+            waiter.completeExceptionally(new InsufficientBookCopiesException(
+                    "No copy of the book with ISBN %s became available within %s.".formatted(isbn, timeout)));
+        }
+    }
+
+    private void removeIfEmpty(String isbn, ArrayDeque<CompletableFuture<Book>> waiters) {
+        if (waiters != null && waiters.isEmpty()) {
+            queues.remove(isbn);
+        }
+    }
+
+    @FunctionalInterface
+    interface Borrow {
+        Book borrow(String isbn) throws BookNotFoundException, InsufficientBookCopiesException;
+    }
+
+    /*
+    Waiters served by a hand-off. Their futures are completed outside every lock, their
+    callbacks resume responses.
+     */
+    static final class HandOffs {
+        static final HandOffs NONE = new HandOffs(List.of());
+        private final List<Outcome> outcomes;
+
+        private HandOffs(List<Outcome> outcomes) {
+            this.outcomes = outcomes;
+        }
+
+        void complete() {
+            outcomes.forEach(Outcome::complete);
+        }
+
+        private boolean serves(CompletableFuture<Book> waiter) {
+            return outcomes.stream().anyMatch(outcome -> outcome.waiter() == waiter);
+        }
+    }
+
+    private record Outcome(CompletableFuture<Book> waiter, Book book, Exception failure) {
+        private void complete() {
+            if (failure == null) {
+                waiter.complete(book);
+            } else {
+                waiter.completeExceptionally(failure);
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.identitye2e.library.book.service;
+
+import com.identitye2e.library.book.model.Book;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/*
+Runs BookService calls on two fixed pools, one for reads and one for writes, each with a
+bounded queue. Reads are cache hits that finish in microseconds, writes take stripe locks
+and may wait on each other, so keeping them apart stops a burst of contended borrows from
+queueing in front of lookups.
+
+A full queue rejects the call straight away instead of letting latency grow without bound,
+and a call still queued after the configured timeout fails with a TimeoutException and is
+skipped when its turn comes. The timeout stops once the call starts: a write that has begun
+may already be applied, failing it would have the client retry a borrow that went through.
+ */
+@Slf4j
+public class ExecutorAsyncBookService implements AsyncBookService, Closeable {
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+    private final BookService bookService;
+    private final ThreadPoolExecutor readExecutor;
+    private final ThreadPoolExecutor writeExecutor;
+    private final long timeoutNanos;
+
+    public ExecutorAsyncBookService(BookService bookService, int readThreads, int readQueue, int writeThreads, int writeQueue,
+                                    Duration timeout) {
+        this.bookService = bookService;
+        this.readExecutor = boundedExecutor("book-service-read-", readThreads, readQueue);
+        this.writeExecutor = boundedExecutor("book-service-write-", writeThreads, writeQueue);
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    @Override
+    public CompletableFuture<Optional<Book>> findBookByISBN(String isbn) {
+        return submit(readExecutor, () -> bookService.findBookByISBN(isbn));
+    }
+
+    @Override
+    public CompletableFuture<Book> borrowBook(String isbn) {
+        return submit(writeExecutor, () -> bookService.borrowBook(isbn));
+    }
+
+    /*
+    Only the first borrow attempt runs on the write pool and is bound by the service timeout,
+    the write thread is released as soon as the borrow is queued.
+     */
+    @Override
+    public CompletableFuture<Book> borrowBookWhenAvailable(String isbn, Duration waitTimeout) {
+        return submit(writeExecutor, () -> bookService.borrowBookWhenAvailable(isbn, waitTimeout))
+                .thenCompose(Function.identity());
+    }
+
+    @Override
+    public CompletableFuture<Book> returnBook(String isbn) {
+        return submit(writeExecutor, () -> bookService.returnBook(isbn));
+    }
+
+    @Override
+    public CompletableFuture<List<Book>> borrowBooks(List<String> isbns) {
+        return submit(writeExecutor, () -> bookService.borrowBooks(isbns));
+    }
+
+    @Override
+    public CompletableFuture<List<Book>> returnBooks(List<String> isbns) {
+        return submit(writeExecutor, () -> bookService.returnBooks(isbns));
+    }
+
+    @Override
+    public void close() {
+        readExecutor.shutdown();
+        writeExecutor.shutdown();
+        try {
+            if (!readExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    || !writeExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Book service calls still running after {}s", SHUTDOWN_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /*
+    The call and its timeout race to complete started, only the winner touches the future.
+     */
+    private <T> CompletableFuture<T> submit(ThreadPoolExecutor executor, ServiceCall<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        CompletableFuture<Void> started = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                if (!started.complete(null)) {
+                    return;
+                }
+                try {
+                    future.complete(call.call());
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        started.orTimeout(timeoutNanos, TimeUnit.NANOSECONDS)
+                .exceptionally(timeout -> {
+                    future.completeExceptionally(timeout);
+                    return null;
+                });
+        return future;
+    }
+
+    private static ThreadPoolExecutor boundedExecutor(String threadNamePrefix, int threads, int queueCapacity) {
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name(threadNamePrefix, 1).daemon(true).factory(), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @FunctionalInterface
+    private interface ServiceCall<T> {
+        T call() throws Exception;
+    }
+}
@@ -0,0 +1,199 @@
+package com.identitye2e.library.book.service;
+
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.repository.BookChangeEvent;
+import com.identitye2e.library.book.repository.BookChangeListener;
+import com.identitye2e.library.book.repository.BookRepository;
+import com.identitye2e.library.book.service.exceptions.BatchOperationException;
+import com.identitye2e.library.book.service.exceptions.BookNotFoundException;
+import com.identitye2e.library.book.service.exceptions.InsufficientBookCopiesException;
+import com.identitye2e.library.book.service.exceptions.ReturnExceededException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+Lock-free alternative to BookAvailabilityManagerImpl. Available copies per ISBN live in an
+AtomicInteger changed with compare-and-set, so 0 <= availableCopies <= totalCopies holds
+without a mutex. The counter is the source of truth, the repository receives it afterwards
+through a single update that reads the counter inside the book's atomic section. The last
+update applied always follows the last compare-and-set, so concurrent publishers converge on
+the latest value, and a book deleted meanwhile is refused instead of re-created. Subscribe
+it to the repository so counters of deleted or re-created books are dropped.
+
+Only waiting borrows take a lock, a stripe per ISBN that serialises their queue. A return
+hands its copy to the first waiter right after its compare-and-set, and plain borrows of a
+book with waiters fail, so they cannot take a copy a waiter queued for.
+ */
+@Slf4j
+public class LockFreeBookAvailabilityManager implements BookAvailabilityManager, BookChangeListener {
+    private final BookRepository bookRepository;
+    private final Map<String, AtomicInteger> availableCopiesByIsbn = new ConcurrentHashMap<>();
+    private final BorrowWaitQueues waitQueues;
+
+    public LockFreeBookAvailabilityManager(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+        this.waitQueues = new BorrowWaitQueues(this::borrowCopy,
+                new StripedLocks(BookAvailabilityManagerImpl.DEFAULT_LOCK_STRIPES)::lockFor, bookRepository::awaitDurable);
+    }
+
+    @Override
+    public Book checkAndBorrowBook(String isbn) throws BookNotFoundException, InsufficientBookCopiesException {
+        if (waitQueues.hasWaiters(isbn)) {
+            throw new InsufficientBookCopiesException("Copies of the book with ISBN %s are reserved for waiting borrowers.".formatted(isbn));
+        }
+        Book borrowedBook = borrowCopy(isbn);
+        bookRepository.awaitDurable();
+        log.info("Successfully borrowed a book={}", borrowedBook);
+        return borrowedBook;
+    }
+
+    /*
+    Takes a copy regardless of waiters and without waiting for durability, for hand-offs to
+    waiters and for compensating a failed batch return.
+     */
+    private Book borrowCopy(String isbn) throws BookNotFoundException, InsufficientBookCopiesException {
+        Book book = getBook(isbn);
+        AtomicInteger availableCopies = availableCopiesFor(book);
+        int current;
+        do {
+            current = availableCopies.get();
+            if (current == 0) {
+                throw new InsufficientBookCopiesException("No copies of the book with ISBN %s are available for borrowing.".formatted(isbn));
+            }
+        } while (!availableCopies.compareAndSet(current, current - 1));
+        return publish(isbn, availableCopies, current - 1);
+    }
+
+    @Override
+    public Book checkAndReturnBook(String isbn) throws BookNotFoundException, ReturnExceededException {
+        Book book = getBook(isbn);
+        AtomicInteger availableCopies = availableCopiesFor(book);
+        int current;
+        do {
+            current = availableCopies.get();
+            if (current >= book.getTotalCopies()) {
+                throw new ReturnExceededException("Cannot return the book. All copies of the book with ISBN %s are already in the library.".formatted(isbn));
+            }
+        } while (!availableCopies.compareAndSet(current, current + 1));
+        Book returnedBook = publish(isbn, availableCopies, current + 1);
+        BorrowWaitQueues.HandOffs handOffs = waitQueues.handOff(isbn);
+        bookRepository.awaitDurable();
+        log.info("Successfully return a book={}", returnedBook);
+        handOffs.complete();
+        return returnedBook;
+    }
+
+    @Override
+    public CompletableFuture<Book> borrowBookWhenAvailable(String isbn, Duration timeout) {
+        return waitQueues.borrowWhenAvailable(isbn, timeout);
+    }
+
+    /*
+    Without locks a batch cannot be isolated: each borrow is applied in turn and, if any
+    fails, the ones already applied are compensated by returning them.
+     */
+    @Override
+    public List<Book> checkAndBorrowBooks(List<String> isbns) throws BatchOperationException {
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        List<Book> borrowedBooks = new ArrayList<>(isbns.size());
+        for (String isbn : isbns) {
+            try {
+                borrowedBooks.add(checkAndBorrowBook(isbn));
+            } catch (BookNotFoundException | InsufficientBookCopiesException e) {
+                failures.putIfAbsent(isbn, e);
+            }
+        }
+        if (!failures.isEmpty()) {
+            for (Book borrowedBook : borrowedBooks) {
+                try {
+                    checkAndReturnBook(borrowedBook.getIsbn());
+                } catch (BookNotFoundException | ReturnExceededException e) {
+                    log.error("Failed to compensate borrow of book with isbn={}", borrowedBook.getIsbn(), e);
+                }
+            }
+            throw new BatchOperationException(failures, isbns.size());
+        }
+        return borrowedBooks;
+    }
+
+    @Override
+    public List<Book> checkAndReturnBooks(List<String> isbns) throws BatchOperationException {
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        List<Book> returnedBooks = new ArrayList<>(isbns.size());
+        for (String isbn : isbns) {
+            try {
+                returnedBooks.add(checkAndReturnBook(isbn));
+            } catch (BookNotFoundException | ReturnExceededException e) {
+                failures.putIfAbsent(isbn, e);
+            }
+        }
+        if (!failures.isEmpty()) {
+            for (Book returnedBook : returnedBooks) {
+                try {
+                    borrowCopy(returnedBook.getIsbn());
+                } catch (BookNotFoundException | InsufficientBookCopiesException e) {
+                    log.error("Failed to compensate return of book with isbn={}", returnedBook.getIsbn(), e);
+                }
+            }
+            bookRepository.awaitDurable();
+            throw new BatchOperationException(failures, isbns.size());
+        }
+        return returnedBooks;
+    }
+
+    /*
+    Nothing to serialise with, a borrow or return racing the removal is refused by the
+    repository and its counter is dropped by the DELETED event.
+     */
+    @Override
+    public void removeBook(String isbn) throws BookNotFoundException {
+        bookRepository.removeBook(isbn);
+    }
+
+    @Override
+    public void onBookChange(BookChangeEvent event) {
+        if (event.type() != BookChangeEvent.Type.UPDATED) {
+            availableCopiesByIsbn.remove(event.isbn());
+        }
+    }
+
+    private AtomicInteger availableCopiesFor(Book book) {
+        AtomicInteger availableCopies = availableCopiesByIsbn.get(book.getIsbn());
+        if (availableCopies != null) {
+            return availableCopies;
+        }
+        return availableCopiesByIsbn.computeIfAbsent(book.getIsbn(), isbn -> new AtomicInteger(book.getAvailableCopies()));
+    }
+
+    /*
+    The ISBN cache is left to the repository's UPDATED event, which it keeps publishing until
+    listeners hold the stored book; a write from here could land after a newer one. Returns
+    the book as seen by this operation, reusing the stored book when nothing raced with it
+    so the uncontended path allocates a single Book. Callers wait for durability themselves.
+     */
+    private Book publish(String isbn, AtomicInteger availableCopies, int resultingCopies) throws BookNotFoundException {
+        Book stored = bookRepository.update(isbn, book -> copyOf(book, availableCopies.get()));
+        return stored.getAvailableCopies() == resultingCopies ? stored : copyOf(stored, resultingCopies);
+    }
+
+    private static Book copyOf(Book book, int availableCopies) {
+        return new Book(book.getIsbn(), book.getTitle(), book.getAuthor(), book.getPublicationYear(), book.getTotalCopies(), availableCopies);
+    }
+
+    private Book getBook(String isbn) throws BookNotFoundException {
+        Optional<Book> bookOpt = bookRepository.getByIsbn(isbn);
+        if(bookOpt.isEmpty()){
+            throw new BookNotFoundException("Book with ISBN %s not found.".formatted(isbn));
+        }
+        return bookOpt.get();
+    }
+}
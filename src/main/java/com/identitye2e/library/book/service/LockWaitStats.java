@@ -0,0 +1,8 @@
+package com.identitye2e.library.book.service;
+
+/*
+Cumulative lock acquisitions, the ones that found the lock held, and the total time those
+spent waiting for it.
+ */
+public record LockWaitStats(long acquisitions, long contendedAcquisitions, long waitNanos) {
+}
@@ -0,0 +1,79 @@
+package com.identitye2e.library.book.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+Fixed set of locks indexed by key hash. Operations on keys that map to different stripes
+never contend, operations on the same key always share a lock. A single stripe behaves like
+one global lock.
+
+Acquisitions made through lock are counted and the time spent waiting for a held lock is
+summed. An uncontended acquisition reads no clock, only a failed tryLock is timed.
+ */
+class StripedLocks {
+    private final ReentrantLock[] locks;
+    private final int mask;
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contendedAcquisitions = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    StripedLocks(int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Lock stripes must be at least 1");
+        }
+        int size = stripes == 1 ? 1 : Integer.highestOneBit((stripes - 1) << 1);
+        this.locks = new ReentrantLock[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    ReentrantLock lockFor(String key) {
+        return locks[indexFor(key)];
+    }
+
+    /*
+    Distinct locks covering all keys in ascending stripe order, acquiring them in this order
+    from every caller rules out deadlock.
+     */
+    List<ReentrantLock> orderedLocksFor(Collection<String> keys) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (String key : keys) {
+            indexes.add(indexFor(key));
+        }
+        List<ReentrantLock> orderedLocks = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            orderedLocks.add(locks[index]);
+        }
+        return orderedLocks;
+    }
+
+    void lock(ReentrantLock lock) {
+        if (!lock.tryLock()) {
+            long start = System.nanoTime();
+            lock.lock();
+            waitNanos.add(System.nanoTime() - start);
+            contendedAcquisitions.increment();
+        }
+        acquisitions.increment();
+    }
+
+    LockWaitStats stats() {
+        return new LockWaitStats(acquisitions.sum(), contendedAcquisitions.sum(), waitNanos.sum());
+    }
+
+    int indexFor(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    int size() {
+        return locks.length;
+    }
+}
@@ -0,0 +1,22 @@
+package com.identitye2e.library.book.service.exceptions;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+Raised when any book of a batch borrow/return fails, nothing of the batch is applied.
+Holds the failure for each offending ISBN in request order.
+ */
+public class BatchOperationException extends Exception {
+    private final Map<String, Exception> failures;
+
+    public BatchOperationException(Map<String, Exception> failures, int batchSize) {
+        super("Batch operation failed for %d of %d books.".formatted(failures.size(), batchSize));
+        this.failures = Collections.unmodifiableMap(new LinkedHashMap<>(failures));
+    }
+
+    public Map<String, Exception> getFailures() {
+        return failures;
+    }
+}
@@ -1,50 +1,202 @@
 package com.identitye2e.library.configuration;
 
+import com.identitye2e.library.book.availability.AvailabilityFeed;
 import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.model.StringDictionary;
+import com.identitye2e.library.book.query.BookQueryEngine;
 import com.identitye2e.library.book.repository.BookRepository;
+import com.identitye2e.library.book.search.BookCompletionIndex;
+import com.identitye2e.library.book.search.BookSearchIndex;
+import com.identitye2e.library.book.search.PublicationYearIndex;
+import com.identitye2e.library.book.service.AsyncBookService;
 import com.identitye2e.library.book.service.BookAvailabilityManager;
 import com.identitye2e.library.book.service.BookAvailabilityManagerImpl;
 import com.identitye2e.library.book.service.BookService;
 import com.identitye2e.library.book.service.BookServiceServiceImpl;
+import com.identitye2e.library.book.service.ExecutorAsyncBookService;
+import com.identitye2e.library.book.service.LockFreeBookAvailabilityManager;
+import com.identitye2e.library.infrastructure.availability.CoalescingAvailabilityFeed;
 import com.identitye2e.library.infrastructure.cache.BookCache;
+import com.identitye2e.library.infrastructure.cache.CaffeineBookCache;
+import com.identitye2e.library.infrastructure.cache.IsbnBookCache;
+import com.identitye2e.library.infrastructure.cache.SegmentedBookCache;
 import com.identitye2e.library.infrastructure.cache.SimpleBookCache;
+import com.identitye2e.library.infrastructure.metrics.MeteredBookService;
 import com.identitye2e.library.infrastructure.persistance.BookRepositoryImpl;
+import com.identitye2e.library.infrastructure.persistance.BookStoreCheckpointer;
+import com.identitye2e.library.infrastructure.persistance.journal.BookJournal;
+import com.identitye2e.library.infrastructure.persistance.journal.FileBookJournal;
+import com.identitye2e.library.infrastructure.persistance.offheap.OffHeapBookRepository;
+import com.identitye2e.library.infrastructure.query.IndexSelectingQueryEngine;
+import com.identitye2e.library.infrastructure.search.AvailabilityIndex;
+import com.identitye2e.library.infrastructure.search.BookAutocomplete;
+import com.identitye2e.library.infrastructure.search.InvertedBookIndex;
+import com.identitye2e.library.infrastructure.search.SortedYearIndex;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Configuration
+@EnableConfigurationProperties(LibraryProperties.class)
 public class ApplicationConfig {
     @Bean
     Validator validator() {
         return Validation.buildDefaultValidatorFactory().getValidator();
     }
 
+    /*
+    Author names of the heap store, shared with the indexes that key books by author.
+     */
     @Bean
-    public BookRepository bookRepository(BookCache<String, Book> bookCacheByIsbn, BookCache<String, List<Book>> booksCacheByAuthor){
-        return new BookRepositoryImpl(bookCacheByIsbn, booksCacheByAuthor);
+    public StringDictionary authorDictionary() {
+        return new StringDictionary();
     }
 
     @Bean
-    public BookCache<String, Book> bookCacheByIsbn(){
-        return new SimpleBookCache<>(16);
+    public BookRepository bookRepository(BookCache<String, Book> bookCacheByIsbn, BookCache<String, List<Book>> booksCacheByAuthor,
+                                         BookJournal bookJournal, StringDictionary authorDictionary,
+                                         LibraryProperties libraryProperties){
+        LibraryProperties.Store store = libraryProperties.getStore();
+        return switch (store.getType()) {
+            case HEAP -> new BookRepositoryImpl(bookCacheByIsbn, booksCacheByAuthor, bookJournal, authorDictionary);
+            case OFF_HEAP -> {
+                if (libraryProperties.getJournal().isEnabled()) {
+                    throw new IllegalStateException("library.journal is only supported by the heap store");
+                }
+                yield new OffHeapBookRepository(bookCacheByIsbn, booksCacheByAuthor, store.getSlabBytes());
+            }
+        };
     }
 
+    @Bean(destroyMethod = "close")
+    public BookJournal bookJournal(LibraryProperties libraryProperties){
+        LibraryProperties.Journal journal = libraryProperties.getJournal();
+        return journal.isEnabled() ? new FileBookJournal(journal.getDirectory(), journal.isFsync()) : BookJournal.NO_OP;
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "library.journal", name = "enabled", havingValue = "true")
+    public BookStoreCheckpointer bookStoreCheckpointer(BookRepository bookRepository, LibraryProperties libraryProperties){
+        return new BookStoreCheckpointer((BookRepositoryImpl) bookRepository, libraryProperties.getJournal().getSnapshotInterval());
+    }
+
+    @Bean
+    public BookCache<String, Book> bookCacheByIsbn(LibraryProperties libraryProperties){
+        LibraryProperties.CacheSpec cacheSpec = libraryProperties.getCache().getIsbn();
+        if (cacheSpec.getType() == LibraryProperties.CacheType.ISBN) {
+            return new IsbnBookCache(cacheSpec.getMaximumSize(), cacheSpec.getSegments());
+        }
+        return createCache(cacheSpec);
+    }
+
+    @Bean
+    public BookCache<String, List<Book>> booksCacheByAuthor(LibraryProperties libraryProperties){
+        return createCache(libraryProperties.getCache().getAuthor());
+    }
+
+    @Bean
+    public BookAvailabilityManager bookAvailabilityManager(BookRepository bookRepository, BookCache<String, Book> bookCacheByIsbn,
+                                                           LibraryProperties libraryProperties){
+        LibraryProperties.Availability availability = libraryProperties.getAvailability();
+        return switch (availability.getMode()) {
+            case STRIPED -> new BookAvailabilityManagerImpl(bookRepository, bookCacheByIsbn, availability.getLockStripes());
+            case LOCK_FREE -> {
+                LockFreeBookAvailabilityManager lockFreeBookAvailabilityManager = new LockFreeBookAvailabilityManager(bookRepository);
+                bookRepository.subscribe(lockFreeBookAvailabilityManager);
+                yield lockFreeBookAvailabilityManager;
+            }
+        };
+    }
+
+    /*
+    Subscribes before seeding from the store so that no change made in between is missed.
+     */
     @Bean
-    public BookCache<String, List<Book>> booksCacheByAuthor(){
-        return new SimpleBookCache<>(16);
+    public BookSearchIndex bookSearchIndex(BookRepository bookRepository) {
+        InvertedBookIndex invertedBookIndex = new InvertedBookIndex();
+        bookRepository.subscribe(invertedBookIndex);
+        bookRepository.forEachBook(invertedBookIndex::indexIfAbsent);
+        return invertedBookIndex;
     }
 
+    /*
+    Counts are additive, a book seen both by the seeding walk and as an event would count
+    twice, so the store is walked before subscribing. Beans are created before the
+    application serves requests, nothing changes the store in between.
+     */
     @Bean
-    public BookAvailabilityManager bookAvailabilityManager(BookRepository bookRepository, BookCache<String, Book> bookCacheByIsbn){
-        return new BookAvailabilityManagerImpl(bookRepository, bookCacheByIsbn);
+    public BookCompletionIndex bookCompletionIndex(BookRepository bookRepository) {
+        BookAutocomplete bookAutocomplete = new BookAutocomplete();
+        bookRepository.forEachBook(bookAutocomplete::add);
+        bookRepository.subscribe(bookAutocomplete);
+        return bookAutocomplete;
     }
 
+    /*
+    Seeded in one batch so the index can sort it once, like the completion index nothing
+    changes the store before the application serves requests.
+     */
     @Bean
-    public BookService bookService(BookRepository bookRepository, BookAvailabilityManager bookAvailabilityManager) {
-        return new BookServiceServiceImpl(bookRepository, bookAvailabilityManager);
+    public PublicationYearIndex publicationYearIndex(BookRepository bookRepository, StringDictionary authorDictionary) {
+        SortedYearIndex sortedYearIndex = new SortedYearIndex(authorDictionary);
+        List<Book> books = new ArrayList<>();
+        bookRepository.forEachBook(books::add);
+        sortedYearIndex.addAll(books);
+        bookRepository.subscribe(sortedYearIndex);
+        return sortedYearIndex;
+    }
+
+    /*
+    The availability index is only read by the query engine and lives with it. A book seeded
+    twice would be harmless here, but one seeded after its change event would be filed under
+    its stale state, so the store is walked before subscribing.
+     */
+    @Bean
+    public BookQueryEngine bookQueryEngine(BookRepository bookRepository, PublicationYearIndex publicationYearIndex) {
+        AvailabilityIndex availabilityIndex = new AvailabilityIndex();
+        bookRepository.forEachBook(availabilityIndex::add);
+        bookRepository.subscribe(availabilityIndex);
+        return new IndexSelectingQueryEngine(bookRepository, publicationYearIndex, availabilityIndex);
+    }
+
+    @Bean
+    public BookService bookService(BookRepository bookRepository, BookAvailabilityManager bookAvailabilityManager,
+                                   BookSearchIndex bookSearchIndex, BookCompletionIndex bookCompletionIndex,
+                                   PublicationYearIndex publicationYearIndex, BookQueryEngine bookQueryEngine,
+                                   MeterRegistry meterRegistry) {
+        return new MeteredBookService(new BookServiceServiceImpl(bookRepository, bookAvailabilityManager, bookSearchIndex,
+                bookCompletionIndex, publicationYearIndex, bookQueryEngine), meterRegistry);
+    }
+
+    @Bean(destroyMethod = "close")
+    public AvailabilityFeed availabilityFeed(BookRepository bookRepository, LibraryProperties libraryProperties) {
+        CoalescingAvailabilityFeed coalescingAvailabilityFeed = new CoalescingAvailabilityFeed(bookRepository,
+                libraryProperties.getAvailabilityStream().getHeartbeatInterval());
+        bookRepository.subscribe(coalescingAvailabilityFeed);
+        return coalescingAvailabilityFeed;
+    }
+
+    @Bean(destroyMethod = "close")
+    public AsyncBookService asyncBookService(BookService bookService, LibraryProperties libraryProperties) {
+        LibraryProperties.Async async = libraryProperties.getAsync();
+        return new ExecutorAsyncBookService(bookService, async.getReadThreads(), async.getReadQueue(),
+                async.getWriteThreads(), async.getWriteQueue(), async.getTimeout());
+    }
+
+    private static <K, V> BookCache<K, V> createCache(LibraryProperties.CacheSpec cacheSpec) {
+        return switch (cacheSpec.getType()) {
+            case SIMPLE -> new SimpleBookCache<>(cacheSpec.getMaximumSize());
+            case SEGMENTED -> new SegmentedBookCache<>(cacheSpec.getMaximumSize(), cacheSpec.getSegments());
+            case CAFFEINE -> new CaffeineBookCache<>(cacheSpec.getMaximumSize(),
+                    cacheSpec.getExpireAfterWrite(), cacheSpec.getExpireAfterAccess());
+            case ISBN -> throw new IllegalArgumentException("The isbn cache type only supports the ISBN cache");
+        };
     }
 }
@@ -1,5 +1,6 @@
 package com.identitye2e.library.configuration;
 
+import com.identitye2e.library.book.service.exceptions.BatchOperationException;
 import com.identitye2e.library.book.service.exceptions.BookAlreadyExistsException;
 import com.identitye2e.library.book.service.exceptions.BookNotFoundException;
 import com.identitye2e.library.book.service.exceptions.InsufficientBookCopiesException;
@@ -15,6 +16,8 @@ import org.hibernate.validator.internal.engine.path.PathImpl;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -92,4 +95,55 @@ public class ExceptionHandlersConfig {
                     .build();
         }
     }
+
+    @Provider
+    @Component
+    public static class BatchOperationExceptionMapper implements ExceptionMapper<BatchOperationException> {
+        @Override
+        public Response toResponse(BatchOperationException exception) {
+            log.error("Batch operation failed: {}", exception.getMessage());
+            return Response.status(Response.Status.PRECONDITION_FAILED)
+                    .entity(new ErrorListResponse(exception.getFailures().values().stream()
+                            .map(failure -> new ErrorListResponse.ErrorResponse(errorCode(failure), failure.getMessage()))
+                            .collect(Collectors.toList())))
+                    .build();
+        }
+
+        private static String errorCode(Exception failure) {
+            if (failure instanceof BookNotFoundException) {
+                return "book.not.found";
+            }
+            if (failure instanceof InsufficientBookCopiesException) {
+                return "insufficient.book.copies";
+            }
+            if (failure instanceof ReturnExceededException) {
+                return "return.book.exceeded";
+            }
+            return "batch.operation.failed";
+        }
+    }
+
+    @Provider
+    @Component
+    public static class RejectedExecutionExceptionMapper implements ExceptionMapper<RejectedExecutionException> {
+        @Override
+        public Response toResponse(RejectedExecutionException exception) {
+            log.warn("Book service saturated: {}", exception.getMessage());
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .entity(new ErrorListResponse("service.overloaded", "Too many requests in progress, retry later."))
+                    .build();
+        }
+    }
+
+    @Provider
+    @Component
+    public static class TimeoutExceptionMapper implements ExceptionMapper<TimeoutException> {
+        @Override
+        public Response toResponse(TimeoutException exception) {
+            log.warn("Book service call timed out");
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .entity(new ErrorListResponse("service.timeout", "The request did not complete in time, retry later."))
+                    .build();
+        }
+    }
 }
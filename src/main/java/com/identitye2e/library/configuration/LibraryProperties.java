@@ -0,0 +1,98 @@
+package com.identitye2e.library.configuration;
+
+import com.identitye2e.library.book.service.BookAvailabilityManagerImpl;
+import com.identitye2e.library.infrastructure.persistance.offheap.OffHeapBookRepository;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "library")
+public class LibraryProperties {
+    private Availability availability = new Availability();
+    private Async async = new Async();
+    private AvailabilityStream availabilityStream = new AvailabilityStream();
+    private Cache cache = new Cache();
+    private Journal journal = new Journal();
+    private Store store = new Store();
+
+    @Getter
+    @Setter
+    public static class Availability {
+        private AvailabilityMode mode = AvailabilityMode.STRIPED;
+        private int lockStripes = BookAvailabilityManagerImpl.DEFAULT_LOCK_STRIPES;
+    }
+
+    @Getter
+    @Setter
+    public static class Async {
+        private int readThreads = Runtime.getRuntime().availableProcessors();
+        private int readQueue = 10_000;
+        private int writeThreads = Runtime.getRuntime().availableProcessors();
+        private int writeQueue = 1_000;
+        private Duration timeout = Duration.ofSeconds(5);
+    }
+
+    /*
+    Heartbeats keep idle streams within the 30s Jetty idle timeout and reveal closed ones.
+     */
+    @Getter
+    @Setter
+    public static class AvailabilityStream {
+        private Duration heartbeatInterval = Duration.ofSeconds(15);
+    }
+
+    @Getter
+    @Setter
+    public static class Cache {
+        private CacheSpec isbn = new CacheSpec();
+        private CacheSpec author = new CacheSpec();
+    }
+
+    @Getter
+    @Setter
+    public static class CacheSpec {
+        private CacheType type = CacheType.SIMPLE;
+        private int maximumSize = 16;
+        private int segments = 16;
+        private Duration expireAfterWrite;
+        private Duration expireAfterAccess;
+    }
+
+    @Getter
+    @Setter
+    public static class Journal {
+        private boolean enabled;
+        private Path directory = Path.of("data");
+        private boolean fsync = true;
+        private Duration snapshotInterval = Duration.ofMinutes(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Store {
+        private StoreType type = StoreType.HEAP;
+        private int slabBytes = OffHeapBookRepository.DEFAULT_SLAB_BYTES;
+    }
+
+    public enum StoreType {
+        HEAP,
+        OFF_HEAP
+    }
+
+    public enum CacheType {
+        SIMPLE,
+        SEGMENTED,
+        CAFFEINE,
+        ISBN
+    }
+
+    public enum AvailabilityMode {
+        STRIPED,
+        LOCK_FREE
+    }
+}
@@ -0,0 +1,57 @@
+package com.identitye2e.library.configuration;
+
+import com.identitye2e.library.book.availability.AvailabilityFeed;
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.repository.BookRepository;
+import com.identitye2e.library.book.service.BookAvailabilityManager;
+import com.identitye2e.library.book.service.BookAvailabilityManagerImpl;
+import com.identitye2e.library.infrastructure.cache.BookCache;
+import com.identitye2e.library.infrastructure.metrics.BookCacheMetrics;
+import com.identitye2e.library.infrastructure.metrics.BookStoreMetrics;
+import com.identitye2e.library.infrastructure.metrics.LockWaitMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/*
+Meter binders are bound to the actuator's registry, Prometheus, when it is created. The
+service timers are registered by MeteredBookService, see ApplicationConfig.bookService.
+ */
+@Configuration
+public class MetricsConfig {
+    @Bean
+    public MeterBinder bookCacheByIsbnMetrics(BookCache<String, Book> bookCacheByIsbn) {
+        return new BookCacheMetrics("isbn", bookCacheByIsbn);
+    }
+
+    @Bean
+    public MeterBinder booksCacheByAuthorMetrics(BookCache<String, List<Book>> booksCacheByAuthor) {
+        return new BookCacheMetrics("author", booksCacheByAuthor);
+    }
+
+    @Bean
+    public MeterBinder bookStoreMetrics(BookRepository bookRepository) {
+        return new BookStoreMetrics(bookRepository);
+    }
+
+    /*
+    Only the striped manager locks, the lock-free one has no wait to report.
+     */
+    @Bean
+    public MeterBinder lockWaitMetrics(BookAvailabilityManager bookAvailabilityManager) {
+        if (bookAvailabilityManager instanceof BookAvailabilityManagerImpl stripedManager) {
+            return new LockWaitMetrics(stripedManager);
+        }
+        return meterRegistry -> { };
+    }
+
+    @Bean
+    public MeterBinder availabilityFeedMetrics(AvailabilityFeed availabilityFeed) {
+        return meterRegistry -> Gauge.builder("library.availability.subscribers", availabilityFeed, AvailabilityFeed::subscriberCount)
+                .description("Open availability streams")
+                .register(meterRegistry);
+    }
+}
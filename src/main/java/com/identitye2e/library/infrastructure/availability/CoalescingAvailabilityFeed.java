@@ -0,0 +1,251 @@
+package com.identitye2e.library.infrastructure.availability;
+
+import com.identitye2e.library.book.availability.AvailabilityFeed;
+import com.identitye2e.library.book.availability.AvailabilitySubscriber;
+import com.identitye2e.library.book.availability.AvailabilityUpdate;
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.repository.BookChangeEvent;
+import com.identitye2e.library.book.repository.BookChangeListener;
+import com.identitye2e.library.book.repository.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+Fans availability changes out to the subscribers following the book, by ISBN or by author.
+Every borrow and return of either availability manager is written through the repository,
+so its change events carry them all. A book moved to another author leaves the streams of
+its former author with a removed event.
+
+Each subscription keeps only the latest pending update per ISBN, a change replaces the one
+still waiting for the same book. A subscriber that reads slowly therefore costs at most one
+entry per book it follows and receives the state it missed, not every step in between.
+
+The listener runs on the mutating thread, inside the stripe lock of the borrow or return, so
+it only records the update and schedules delivery. Delivery runs on a virtual thread per
+subscription while it has updates pending, a client slow to read blocks its own stream only.
+ */
+@Slf4j
+public class CoalescingAvailabilityFeed implements AvailabilityFeed, BookChangeListener, Closeable {
+    private final BookRepository bookRepository;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<Subscription>> subscriptionsByIsbn = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscription>> subscriptionsByAuthor = new ConcurrentHashMap<>();
+    private final ExecutorService deliveryExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService heartbeatExecutor;
+
+    public CoalescingAvailabilityFeed(BookRepository bookRepository, Duration heartbeatInterval) {
+        this.bookRepository = bookRepository;
+        this.heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("availability-heartbeat").daemon(true).factory());
+        long intervalNanos = heartbeatInterval.toNanos();
+        heartbeatExecutor.scheduleAtFixedRate(this::heartbeat, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /*
+    Registers before reading the current state so no change made in between is missed, and
+    seeds without replacing updates that arrived meanwhile since those are newer.
+     */
+    @Override
+    public void subscribe(Set<String> isbns, Set<String> authors, AvailabilitySubscriber subscriber) {
+        Subscription subscription = new Subscription(isbns, authors, subscriber);
+        subscriptions.add(subscription);
+        isbns.forEach(isbn -> register(subscriptionsByIsbn, isbn, subscription));
+        authors.forEach(author -> register(subscriptionsByAuthor, author, subscription));
+        for (String isbn : isbns) {
+            bookRepository.getByIsbn(isbn).ifPresent(subscription::seed);
+        }
+        for (String author : authors) {
+            bookRepository.getByAuthor(author).forEach(subscription::seed);
+        }
+        subscription.startDelivery();
+    }
+
+    @Override
+    public int subscriberCount() {
+        return subscriptions.size();
+    }
+
+    @Override
+    public void onBookChange(BookChangeEvent event) {
+        if (subscriptions.isEmpty() || !availabilityChanged(event)) {
+            return;
+        }
+        Book book = event.current() != null ? event.current() : event.previous();
+        AvailabilityUpdate update = event.current() != null
+                ? AvailabilityUpdate.of(event.current())
+                : AvailabilityUpdate.removed(event.isbn());
+        offer(subscriptionsByIsbn.get(book.getIsbn()), update);
+        offer(subscriptionsByAuthor.get(book.getAuthor()), update);
+        if (authorChanged(event)) {
+            offerRemoval(subscriptionsByAuthor.get(event.previous().getAuthor()), event.current());
+        }
+    }
+
+    @Override
+    public void close() {
+        heartbeatExecutor.shutdownNow();
+        subscriptions.forEach(Subscription::cancel);
+        deliveryExecutor.shutdownNow();
+    }
+
+    private void heartbeat() {
+        subscriptions.forEach(Subscription::requestHeartbeat);
+    }
+
+    private static boolean availabilityChanged(BookChangeEvent event) {
+        return event.type() != BookChangeEvent.Type.UPDATED || event.previous() == null
+                || !event.previous().getAvailableCopies().equals(event.current().getAvailableCopies())
+                || !event.previous().getTotalCopies().equals(event.current().getTotalCopies())
+                || authorChanged(event);
+    }
+
+    private static boolean authorChanged(BookChangeEvent event) {
+        return event.type() == BookChangeEvent.Type.UPDATED && event.previous() != null
+                && !event.previous().getAuthor().equals(event.current().getAuthor());
+    }
+
+    /*
+    Subscriptions still following the book, by its ISBN or its new author, were just sent its
+    current state and keep it.
+     */
+    private static void offerRemoval(Set<Subscription> previousAuthorSubscriptions, Book book) {
+        if (previousAuthorSubscriptions == null) {
+            return;
+        }
+        AvailabilityUpdate removed = AvailabilityUpdate.removed(book.getIsbn());
+        for (Subscription subscription : previousAuthorSubscriptions) {
+            if (!subscription.follows(book)) {
+                subscription.offer(removed);
+            }
+        }
+    }
+
+    private static void offer(Set<Subscription> subscriptions, AvailabilityUpdate update) {
+        if (subscriptions != null) {
+            subscriptions.forEach(subscription -> subscription.offer(update));
+        }
+    }
+
+    private static void register(Map<String, Set<Subscription>> index, String key, Subscription subscription) {
+        index.compute(key, (ignored, keySubscriptions) -> {
+            Set<Subscription> updated = keySubscriptions == null ? ConcurrentHashMap.newKeySet() : keySubscriptions;
+            updated.add(subscription);
+            return updated;
+        });
+    }
+
+    private static void unregister(Map<String, Set<Subscription>> index, String key, Subscription subscription) {
+        index.computeIfPresent(key, (ignored, keySubscriptions) -> {
+            keySubscriptions.remove(subscription);
+            return keySubscriptions.isEmpty() ? null : keySubscriptions;
+        });
+    }
+
+    private final class Subscription {
+        private final Set<String> isbns;
+        private final Set<String> authors;
+        private final AvailabilitySubscriber subscriber;
+        private final Map<String, AvailabilityUpdate> pending = new ConcurrentHashMap<>();
+        private final AtomicBoolean heartbeatDue = new AtomicBoolean();
+        /*
+        Set while a delivery is scheduled or running, and while the subscription is seeded so
+        that its current state goes out before the first change.
+         */
+        private final AtomicBoolean delivering = new AtomicBoolean(true);
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+
+        private Subscription(Set<String> isbns, Set<String> authors, AvailabilitySubscriber subscriber) {
+            this.isbns = isbns;
+            this.authors = authors;
+            this.subscriber = subscriber;
+        }
+
+        private boolean follows(Book book) {
+            return isbns.contains(book.getIsbn()) || authors.contains(book.getAuthor());
+        }
+
+        private void seed(Book book) {
+            pending.putIfAbsent(book.getIsbn(), AvailabilityUpdate.of(book));
+        }
+
+        private void offer(AvailabilityUpdate update) {
+            pending.put(update.isbn(), update);
+            scheduleDelivery();
+        }
+
+        private void requestHeartbeat() {
+            heartbeatDue.set(true);
+            scheduleDelivery();
+        }
+
+        private void startDelivery() {
+            delivering.set(false);
+            if (hasWork()) {
+                scheduleDelivery();
+            }
+        }
+
+        private void scheduleDelivery() {
+            if (cancelled.get() || !delivering.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                deliveryExecutor.execute(this::deliver);
+            } catch (RejectedExecutionException e) {
+                cancel();
+            }
+        }
+
+        /*
+        Drains what is pending, then stands down unless more arrived while it did. Removing
+        an entry takes the latest update of that book, a later one starts a new entry.
+         */
+        private void deliver() {
+            try {
+                do {
+                    for (String isbn : pending.keySet()) {
+                        AvailabilityUpdate update = pending.remove(isbn);
+                        if (update != null && !subscriber.deliver(update)) {
+                            cancel();
+                            return;
+                        }
+                    }
+                    if (heartbeatDue.getAndSet(false) && !subscriber.heartbeat()) {
+                        cancel();
+                        return;
+                    }
+                    delivering.set(false);
+                } while (hasWork() && !cancelled.get() && delivering.compareAndSet(false, true));
+            } catch (RuntimeException e) {
+                log.warn("Availability delivery failed, closing the stream", e);
+                cancel();
+            }
+        }
+
+        private boolean hasWork() {
+            return !pending.isEmpty() || heartbeatDue.get();
+        }
+
+        private void cancel() {
+            if (!cancelled.compareAndSet(false, true)) {
+                return;
+            }
+            subscriptions.remove(this);
+            isbns.forEach(isbn -> unregister(subscriptionsByIsbn, isbn, this));
+            authors.forEach(author -> unregister(subscriptionsByAuthor, author, this));
+            pending.clear();
+            subscriber.close();
+        }
+    }
+}
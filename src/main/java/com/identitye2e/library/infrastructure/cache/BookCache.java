@@ -8,4 +8,6 @@ public interface BookCache<K, V> {
     void update(K key, V value);
 
     void invalidate(K key);
+
+    BookCacheStats stats();
 }
@@ -0,0 +1,54 @@
+package com.identitye2e.library.infrastructure.cache;
+
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.repository.BookChangeEvent;
+import com.identitye2e.library.book.repository.BookChangeListener;
+import lombok.RequiredArgsConstructor;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/*
+Keeps the ISBN and author caches coherent with the store: the ISBN entry is patched on
+update and dropped on delete, author lists touched by a change are invalidated.
+ */
+@RequiredArgsConstructor
+public class BookCacheInvalidator implements BookChangeListener {
+    private final BookCache<String, Book> bookCacheByIsbn;
+    private final BookCache<String, List<Book>> booksCacheByAuthor;
+
+    @Override
+    public void onBookChange(BookChangeEvent event) {
+        apply(event, booksCacheByAuthor::invalidate);
+    }
+
+    /*
+    A batch invalidates each author list it touches once, an import of an author's titles
+    does not drop the same list for every book.
+     */
+    @Override
+    public void onBookChanges(List<BookChangeEvent> events) {
+        Set<String> authors = new HashSet<>();
+        events.forEach(event -> apply(event, authors::add));
+        authors.forEach(booksCacheByAuthor::invalidate);
+    }
+
+    private void apply(BookChangeEvent event, Consumer<String> authorInvalidation) {
+        switch (event.type()) {
+            case CREATED -> authorInvalidation.accept(event.current().getAuthor());
+            case UPDATED -> {
+                bookCacheByIsbn.update(event.isbn(), event.current());
+                authorInvalidation.accept(event.current().getAuthor());
+                if (event.previous() != null && !event.previous().getAuthor().equals(event.current().getAuthor())) {
+                    authorInvalidation.accept(event.previous().getAuthor());
+                }
+            }
+            case DELETED -> {
+                bookCacheByIsbn.invalidate(event.isbn());
+                authorInvalidation.accept(event.previous().getAuthor());
+            }
+        }
+    }
+}
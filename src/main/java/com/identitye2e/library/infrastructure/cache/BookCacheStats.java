@@ -0,0 +1,4 @@
+package com.identitye2e.library.infrastructure.cache;
+
+public record BookCacheStats(long hitCount, long missCount, long evictionCount) {
+}
@@ -0,0 +1,63 @@
+package com.identitye2e.library.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/*
+Production cache backed by Caffeine: lock-free reads, W-TinyLFU admission and size based
+eviction, with optional expire-after-write/access TTLs. Statistics are always recorded.
+ */
+public class CaffeineBookCache<K, V> implements BookCache<K, V> {
+    private final Cache<K, V> cache;
+
+    public CaffeineBookCache(long maximumSize, Duration expireAfterWrite, Duration expireAfterAccess) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats();
+        if (expireAfterWrite != null) {
+            builder.expireAfterWrite(expireAfterWrite);
+        }
+        if (expireAfterAccess != null) {
+            builder.expireAfterAccess(expireAfterAccess);
+        }
+        this.cache = builder.build();
+    }
+
+    @Override
+    public Optional<V> get(K key) {
+        return Optional.ofNullable(cache.getIfPresent(key));
+    }
+
+    @Override
+    public void put(K key, V value) {
+        cache.put(key, value);
+    }
+
+    @Override
+    public void update(K key, V value) {
+        put(key, value);
+    }
+
+    @Override
+    public void invalidate(K key) {
+        cache.invalidate(key);
+    }
+
+    @Override
+    public BookCacheStats stats() {
+        CacheStats stats = cache.stats();
+        return new BookCacheStats(stats.hitCount(), stats.missCount(), stats.evictionCount());
+    }
+
+    /*
+    Applies pending maintenance (evictions, expirations) immediately, Caffeine otherwise
+    performs it asynchronously.
+     */
+    public void cleanUp() {
+        cache.cleanUp();
+    }
+}
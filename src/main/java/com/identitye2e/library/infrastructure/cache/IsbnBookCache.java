@@ -0,0 +1,115 @@
+package com.identitye2e.library.infrastructure.cache;
+
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.model.Isbn;
+import com.identitye2e.library.infrastructure.collection.LongObjectHashMap;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/*
+ISBN cache keyed by the encoded ISBN in primitive open-addressing segments, so a hit costs a
+digit parse and a probe of long keys with no String hashing or boxing. Gets read each
+segment optimistically and fall back to its read lock, writes take the write lock. A hit
+marks its entry referenced only once the read it came from is known to be valid. Every
+segment evicts with CLOCK once it holds its share of maxSize, an approximation of LRU.
+ */
+public class IsbnBookCache implements BookCache<String, Book> {
+    private final Segment[] segments;
+    private final int mask;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    public IsbnBookCache(int maxSize, int segmentCount) {
+        if (segmentCount < 1 || Integer.bitCount(segmentCount) != 1) {
+            throw new IllegalArgumentException("Segment count must be a positive power of two");
+        }
+        this.segments = new Segment[segmentCount];
+        this.mask = segmentCount - 1;
+        int segmentSize = Math.max(1, (maxSize + segmentCount - 1) / segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    @Override
+    public Optional<Book> get(String isbn) {
+        long key = Isbn.encode(isbn);
+        Segment segment = segmentFor(key);
+        Book book = null;
+        long stamp = segment.lock.tryOptimisticRead();
+        if (stamp != 0) {
+            book = segment.books.get(key);
+        }
+        if (stamp == 0 || !segment.lock.validate(stamp)) {
+            stamp = segment.lock.readLock();
+            try {
+                book = segment.books.get(key);
+                if (book != null) {
+                    segment.books.reference(key);
+                }
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        } else if (book != null) {
+            segment.books.reference(key);
+        }
+        (book == null ? missCount : hitCount).increment();
+        return Optional.ofNullable(book);
+    }
+
+    @Override
+    public void put(String isbn, Book book) {
+        long key = Isbn.encode(isbn);
+        Segment segment = segmentFor(key);
+        long stamp = segment.lock.writeLock();
+        try {
+            if (segment.books.get(key) == null && segment.books.size() >= segment.maxSize) {
+                segment.books.evict();
+                evictionCount.increment();
+            }
+            segment.books.put(key, book);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void update(String isbn, Book book) {
+        put(isbn, book);
+    }
+
+    @Override
+    public void invalidate(String isbn) {
+        long key = Isbn.encode(isbn);
+        Segment segment = segmentFor(key);
+        long stamp = segment.lock.writeLock();
+        try {
+            segment.books.remove(key);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public BookCacheStats stats() {
+        return new BookCacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum());
+    }
+
+    private Segment segmentFor(long key) {
+        return segments[(LongObjectHashMap.hash(key) >>> 16) & mask];
+    }
+
+    private static final class Segment {
+        private final StampedLock lock = new StampedLock();
+        private final LongObjectHashMap<Book> books;
+        private final int maxSize;
+
+        private Segment(int maxSize) {
+            this.maxSize = maxSize;
+            this.books = new LongObjectHashMap<>(maxSize + 1);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.identitye2e.library.infrastructure.cache;
+
+import java.util.Optional;
+
+/*
+LRU cache partitioned into independently locked SimpleBookCache segments. A key always maps
+to the same segment, so concurrent operations on keys in different segments never block
+each other. Recency is tracked per segment, eviction is therefore approximate LRU across
+the whole cache.
+ */
+public class SegmentedBookCache<K, V> implements BookCache<K, V> {
+    private final SimpleBookCache<K, V>[] segments;
+    private final int mask;
+
+    @SuppressWarnings("unchecked")
+    public SegmentedBookCache(int maxSize, int segmentCount) {
+        if (segmentCount < 1 || Integer.bitCount(segmentCount) != 1) {
+            throw new IllegalArgumentException("Segment count must be a positive power of two");
+        }
+        this.segments = new SimpleBookCache[segmentCount];
+        this.mask = segmentCount - 1;
+        int segmentSize = Math.max(1, (maxSize + segmentCount - 1) / segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new SimpleBookCache<>(segmentSize);
+        }
+    }
+
+    @Override
+    public Optional<V> get(K key) {
+        return segmentFor(key).get(key);
+    }
+
+    @Override
+    public void put(K key, V value) {
+        segmentFor(key).put(key, value);
+    }
+
+    @Override
+    public void update(K key, V value) {
+        segmentFor(key).update(key, value);
+    }
+
+    @Override
+    public void invalidate(K key) {
+        segmentFor(key).invalidate(key);
+    }
+
+    @Override
+    public BookCacheStats stats() {
+        long hitCount = 0;
+        long missCount = 0;
+        long evictionCount = 0;
+        for (SimpleBookCache<K, V> segment : segments) {
+            BookCacheStats stats = segment.stats();
+            hitCount += stats.hitCount();
+            missCount += stats.missCount();
+            evictionCount += stats.evictionCount();
+        }
+        return new BookCacheStats(hitCount, missCount, evictionCount);
+    }
+
+    private SimpleBookCache<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & mask];
+    }
+}
@@ -4,51 +4,56 @@ package com.identitye2e.library.infrastructure.cache;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
 
 /*
 Basic LRU cache, eviction is base on removing the eldest entry if size
 exceeds the maxSize. Base on accessOrder.
 
-//TODO: Further optimisation use Caffeine
-Caffeine is a highly efficient and feature-rich Java cache library. It provides:
-
-Concurrent access: It handles thread safety and concurrent updates internally, making it suitable for high-performance caching in multi-threaded environments.
-Eviction policies: Caffeine supports different eviction strategies such as:
-Size-based eviction: Evicts entries when the cache reaches a certain size.
-Time-based eviction: Evicts entries that haven't been accessed for a specified time.
-Access order: Evicts the least recently used (LRU) entries.
+A get in access order relinks the entry, so every operation takes the exclusive lock.
+Use SegmentedBookCache to spread that lock over several segments, or CaffeineBookCache
+for production.
  */
 public class SimpleBookCache<K,V> implements BookCache<K, V> {
     private final Map<K,V> cache;
-    private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
     public SimpleBookCache(int maxSize) {
         this.cache = new LinkedHashMap<>(maxSize, 0.75f, true) {
             @Override
             protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
-                return size() > maxSize;
+                boolean evict = size() > maxSize;
+                if (evict) {
+                    evictionCount.increment();
+                }
+                return evict;
             }
         };
     }
 
     @Override
     public Optional<V> get(K key) {
-        readWriteLock.readLock().lock();
+        lock.lock();
         try{
-            return Optional.ofNullable(cache.get(key));
+            V value = cache.get(key);
+            (value == null ? missCount : hitCount).increment();
+            return Optional.ofNullable(value);
         } finally {
-            readWriteLock.readLock().unlock();
+            lock.unlock();
         }
     }
 
     @Override
     public void put(K key, V value) {
-        readWriteLock.writeLock().lock();
+        lock.lock();
         try{
             cache.put(key, value);
         } finally {
-            readWriteLock.writeLock().unlock();
+            lock.unlock();
         }
     }
 
@@ -59,11 +64,16 @@ public class SimpleBookCache<K,V> implements BookCache<K, V> {
 
     @Override
     public void invalidate(K key) {
-        readWriteLock.writeLock().lock();
+        lock.lock();
         try{
             cache.remove(key);
         } finally {
-            readWriteLock.writeLock().unlock();
+            lock.unlock();
         }
     }
+
+    @Override
+    public BookCacheStats stats() {
+        return new BookCacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum());
+    }
 }
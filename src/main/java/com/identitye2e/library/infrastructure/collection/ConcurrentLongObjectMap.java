@@ -0,0 +1,216 @@
+package com.identitye2e.library.infrastructure.collection;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/*
+Concurrent long-keyed map made of LongObjectHashMap segments, each behind its own
+StampedLock. A get first reads optimistically without locking and only takes the read lock
+when a writer got in the way, the compute operations run their function under the segment's
+write lock, which makes them atomic per key like ConcurrentHashMap's. The functions must not
+touch the map themselves.
+ */
+public class ConcurrentLongObjectMap<V> {
+    public static final int DEFAULT_SEGMENTS = 64;
+    private final Segment<V>[] segments;
+    private final int mask;
+
+    public ConcurrentLongObjectMap() {
+        this(DEFAULT_SEGMENTS, 1024);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentLongObjectMap(int segmentCount, int expectedSize) {
+        if (segmentCount < 1 || Integer.bitCount(segmentCount) != 1) {
+            throw new IllegalArgumentException("Segment count must be a positive power of two");
+        }
+        this.segments = new Segment[segmentCount];
+        this.mask = segmentCount - 1;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(Math.max(1, expectedSize / segmentCount));
+        }
+    }
+
+    public V get(long key) {
+        Segment<V> segment = segmentFor(key);
+        long stamp = segment.lock.tryOptimisticRead();
+        if (stamp != 0) {
+            V value = segment.map.get(key);
+            if (segment.lock.validate(stamp)) {
+                return value;
+            }
+        }
+        stamp = segment.lock.readLock();
+        try {
+            return segment.map.get(key);
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    public V put(long key, V value) {
+        Segment<V> segment = segmentFor(key);
+        long stamp = segment.lock.writeLock();
+        try {
+            return segment.map.put(key, value);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    public V remove(long key) {
+        Segment<V> segment = segmentFor(key);
+        long stamp = segment.lock.writeLock();
+        try {
+            return segment.map.remove(key);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /*
+    Maps the key to the function's result for the current value (null when absent), a null
+    result removes the key. Returns the new value.
+     */
+    public V compute(long key, UnaryOperator<V> remapping) {
+        Segment<V> segment = segmentFor(key);
+        long stamp = segment.lock.writeLock();
+        try {
+            V value = remapping.apply(segment.map.get(key));
+            if (value == null) {
+                segment.map.remove(key);
+            } else {
+                segment.map.put(key, value);
+            }
+            return value;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /*
+    Returns the existing value, or maps the key to the supplier's value when absent.
+     */
+    public V computeIfAbsent(long key, Supplier<V> supplier) {
+        Segment<V> segment = segmentFor(key);
+        long stamp = segment.lock.writeLock();
+        try {
+            V existing = segment.map.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            V value = supplier.get();
+            if (value != null) {
+                segment.map.put(key, value);
+            }
+            return value;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /*
+    Remaps a present key, a null result removes it. Returns the new value.
+     */
+    public V computeIfPresent(long key, UnaryOperator<V> remapping) {
+        Segment<V> segment = segmentFor(key);
+        long stamp = segment.lock.writeLock();
+        try {
+            V existing = segment.map.get(key);
+            if (existing == null) {
+                return null;
+            }
+            V value = remapping.apply(existing);
+            if (value == null) {
+                segment.map.remove(key);
+            } else {
+                segment.map.put(key, value);
+            }
+            return value;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            long stamp = segment.lock.readLock();
+            try {
+                size += segment.map.size();
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    /*
+    Weakly consistent view: iteration copies one segment at a time under its read lock, so
+    it never blocks writers of other segments and reflects each segment as of the moment it
+    was reached.
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new SegmentIterator();
+            }
+
+            @Override
+            public int size() {
+                return ConcurrentLongObjectMap.this.size();
+            }
+        };
+    }
+
+    private Segment<V> segmentFor(long key) {
+        return segments[(LongObjectHashMap.hash(key) >>> 16) & mask];
+    }
+
+    private static final class Segment<V> {
+        private final StampedLock lock = new StampedLock();
+        private final LongObjectHashMap<V> map;
+
+        private Segment(int expectedSize) {
+            this.map = new LongObjectHashMap<>(expectedSize);
+        }
+    }
+
+    private final class SegmentIterator implements Iterator<V> {
+        private int nextSegment;
+        private Iterator<V> current = Collections.emptyIterator();
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext() && nextSegment < segments.length) {
+                Segment<V> segment = segments[nextSegment++];
+                long stamp = segment.lock.readLock();
+                try {
+                    List<V> values = new ArrayList<>(segment.map.size());
+                    segment.map.forEachValue(values::add);
+                    current = values.iterator();
+                } finally {
+                    segment.lock.unlockRead(stamp);
+                }
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public V next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+    }
+}
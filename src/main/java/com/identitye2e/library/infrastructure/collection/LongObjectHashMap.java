@@ -0,0 +1,220 @@
+package com.identitye2e.library.infrastructure.collection;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.Consumer;
+
+/*
+Open-addressing map from a primitive long to a value, with linear probing over parallel key
+and value arrays, so neither keys nor entries are ever boxed. Key 0 marks an empty slot and
+cannot be stored. Removal shifts the following run of the probe sequence back instead of
+leaving tombstones, so lookups never walk over dead slots.
+
+A reference bit per slot supports CLOCK eviction for callers that use the map as a bounded
+cache: reference sets it, evict clears bits from a rotating hand until it finds an
+entry that was not referenced since the hand last passed.
+
+Not thread-safe. get and reference stay safe to call without a lock while another thread
+mutates the map. get may then return a wrong or missing value that the caller has to
+discard, which is what ConcurrentLongObjectMap does with its optimistic reads.
+ */
+public class LongObjectHashMap<V> {
+    public static final long EMPTY_KEY = 0;
+    private static final float LOAD_FACTOR = 0.6f;
+    private static final VarHandle REFERENCED = MethodHandles.arrayElementVarHandle(boolean[].class);
+    private Table table;
+    private int size;
+    private int clockHand;
+
+    public LongObjectHashMap(int expectedSize) {
+        this.table = new Table(capacityFor(expectedSize));
+    }
+
+    public V get(long key) {
+        Table current = table;
+        int slot = current.find(key);
+        return slot < 0 ? null : current.value(slot);
+    }
+
+    /*
+    Sets the reference bit of the key. Safe to call without a lock like get: the bit is only
+    stored, with a relaxed store, on a slot re-checked to still hold the key. A writer racing
+    with it can at worst drop the bit or move it to a neighbour, which only skews the choice
+    of the next CLOCK victim.
+     */
+    public void reference(long key) {
+        Table current = table;
+        int slot = current.find(key);
+        if (slot >= 0 && current.keys[slot] == key) {
+            REFERENCED.setOpaque(current.referenced, slot, true);
+        }
+    }
+
+    /*
+    Returns the value the key was mapped to before, or null.
+     */
+    public V put(long key, V value) {
+        if (key == EMPTY_KEY) {
+            throw new IllegalArgumentException("Key 0 is reserved for empty slots");
+        }
+        int slot = table.find(key);
+        if (slot >= 0) {
+            V previous = table.value(slot);
+            table.values[slot] = value;
+            return previous;
+        }
+        if (size + 1 > table.keys.length * LOAD_FACTOR) {
+            resize(table.keys.length << 1);
+        }
+        table.insert(key, value);
+        size++;
+        return null;
+    }
+
+    public V remove(long key) {
+        int slot = table.find(key);
+        if (slot < 0) {
+            return null;
+        }
+        V previous = table.value(slot);
+        table.delete(slot);
+        size--;
+        return previous;
+    }
+
+    /*
+    Removes and returns the key of the next entry the CLOCK hand finds unreferenced, or
+    EMPTY_KEY if the map is empty.
+     */
+    public long evict() {
+        if (size == 0) {
+            return EMPTY_KEY;
+        }
+        Table current = table;
+        int mask = current.keys.length - 1;
+        while (true) {
+            int slot = clockHand;
+            clockHand = (clockHand + 1) & mask;
+            long key = current.keys[slot];
+            if (key == EMPTY_KEY) {
+                continue;
+            }
+            if (current.referenced[slot]) {
+                current.referenced[slot] = false;
+                continue;
+            }
+            current.delete(slot);
+            size--;
+            return key;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEachValue(Consumer<? super V> consumer) {
+        Table current = table;
+        for (int slot = 0; slot < current.keys.length; slot++) {
+            if (current.keys[slot] != EMPTY_KEY) {
+                consumer.accept(current.value(slot));
+            }
+        }
+    }
+
+    private void resize(int capacity) {
+        Table oldTable = table;
+        Table newTable = new Table(capacity);
+        for (int slot = 0; slot < oldTable.keys.length; slot++) {
+            if (oldTable.keys[slot] != EMPTY_KEY) {
+                newTable.insert(oldTable.keys[slot], oldTable.values[slot]);
+            }
+        }
+        table = newTable;
+        clockHand = 0;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int minimum = (int) Math.ceil(Math.max(expectedSize, 8) / LOAD_FACTOR);
+        return Integer.highestOneBit(minimum - 1) << 1;
+    }
+
+    /*
+    Murmur3 finaliser, ISBN keys are dense in their low digits and need spreading.
+     */
+    public static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    /*
+    The arrays are swapped together on resize, so a lock-free reader that took one Table
+    always sees arrays of matching length.
+     */
+    private static final class Table {
+        private final long[] keys;
+        private final Object[] values;
+        private final boolean[] referenced;
+
+        private Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+            this.referenced = new boolean[capacity];
+        }
+
+        private int find(long key) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            for (int probes = 0; probes < keys.length; probes++) {
+                long slotKey = keys[slot];
+                if (slotKey == key) {
+                    return slot;
+                }
+                if (slotKey == EMPTY_KEY) {
+                    return -1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private void insert(long key, Object value) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (keys[slot] != EMPTY_KEY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            referenced[slot] = false;
+        }
+
+        private void delete(int slot) {
+            int mask = keys.length - 1;
+            int hole = slot;
+            int next = (hole + 1) & mask;
+            while (keys[next] != EMPTY_KEY) {
+                int home = hash(keys[next]) & mask;
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    values[hole] = values[next];
+                    referenced[hole] = referenced[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[hole] = EMPTY_KEY;
+            values[hole] = null;
+            referenced[hole] = false;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <V> V value(int slot) {
+            return (V) values[slot];
+        }
+    }
+}
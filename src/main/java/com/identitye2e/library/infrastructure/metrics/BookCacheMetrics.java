@@ -0,0 +1,39 @@
+package com.identitye2e.library.infrastructure.metrics;
+
+import com.identitye2e.library.infrastructure.cache.BookCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/*
+Exports the hit, miss and eviction counts of a BookCache under Micrometer's cache meter
+names, tagged with the cache name. Every cache already counts into LongAdders, the counters
+only read them when scraped, so the cache's own get and put paths are untouched.
+ */
+public class BookCacheMetrics implements MeterBinder {
+    private final String cacheName;
+    private final BookCache<?, ?> bookCache;
+
+    public BookCacheMetrics(String cacheName, BookCache<?, ?> bookCache) {
+        this.cacheName = cacheName;
+        this.bookCache = bookCache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        FunctionCounter.builder("cache.gets", bookCache, cache -> cache.stats().hitCount())
+                .description("Cache lookups that found a value")
+                .tag("cache", cacheName)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.gets", bookCache, cache -> cache.stats().missCount())
+                .description("Cache lookups that found no value")
+                .tag("cache", cacheName)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", bookCache, cache -> cache.stats().evictionCount())
+                .description("Entries evicted to stay within the maximum size")
+                .tag("cache", cacheName)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,32 @@
+package com.identitye2e.library.infrastructure.metrics;
+
+import com.identitye2e.library.book.repository.BookRepository;
+import com.identitye2e.library.infrastructure.persistance.offheap.OffHeapBookRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/*
+Gauges of the book store, sampled when scraped: the number of books and, for the off-heap
+store, the direct memory its slabs and indexes reserve.
+ */
+public class BookStoreMetrics implements MeterBinder {
+    private final BookRepository bookRepository;
+
+    public BookStoreMetrics(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("library.store.books", bookRepository, BookRepository::size)
+                .description("Books in the store")
+                .register(meterRegistry);
+        if (bookRepository instanceof OffHeapBookRepository offHeapBookRepository) {
+            Gauge.builder("library.store.offheap", offHeapBookRepository, OffHeapBookRepository::offHeapBytes)
+                    .description("Direct memory reserved by the off-heap store")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+    }
+}
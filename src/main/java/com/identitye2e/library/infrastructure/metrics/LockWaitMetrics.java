@@ -0,0 +1,36 @@
+package com.identitye2e.library.infrastructure.metrics;
+
+import com.identitye2e.library.book.service.BookAvailabilityManagerImpl;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+Exports the borrow/return stripe lock statistics: every acquisition with the time it waited,
+uncontended ones counting as zero, and how many found the lock held. Read from the
+manager's counters when scraped.
+ */
+public class LockWaitMetrics implements MeterBinder {
+    private final BookAvailabilityManagerImpl bookAvailabilityManager;
+
+    public LockWaitMetrics(BookAvailabilityManagerImpl bookAvailabilityManager) {
+        this.bookAvailabilityManager = bookAvailabilityManager;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        FunctionTimer.builder("library.availability.lock.wait", bookAvailabilityManager,
+                        manager -> manager.lockWaitStats().acquisitions(),
+                        manager -> manager.lockWaitStats().waitNanos(),
+                        TimeUnit.NANOSECONDS)
+                .description("Time borrow and return spent waiting for their stripe lock")
+                .register(meterRegistry);
+        FunctionCounter.builder("library.availability.lock.contended", bookAvailabilityManager,
+                        manager -> manager.lockWaitStats().contendedAcquisitions())
+                .description("Stripe lock acquisitions that found the lock held")
+                .register(meterRegistry);
+    }
+}
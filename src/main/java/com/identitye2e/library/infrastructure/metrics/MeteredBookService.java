@@ -0,0 +1,300 @@
+package com.identitye2e.library.infrastructure.metrics;
+
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.model.BookPage;
+import com.identitye2e.library.book.query.BookQuery;
+import com.identitye2e.library.book.query.QueryPlan;
+import com.identitye2e.library.book.search.Completion;
+import com.identitye2e.library.book.search.YearPosition;
+import com.identitye2e.library.book.search.YearRangePage;
+import com.identitye2e.library.book.service.BookService;
+import com.identitye2e.library.book.service.exceptions.BatchOperationException;
+import com.identitye2e.library.book.service.exceptions.BookAlreadyExistsException;
+import com.identitye2e.library.book.service.exceptions.BookNotFoundException;
+import com.identitye2e.library.book.service.exceptions.InsufficientBookCopiesException;
+import com.identitye2e.library.book.service.exceptions.ReturnExceededException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/*
+Times every BookService operation into library.service, tagged with the operation and
+whether it returned or threw. The timers are registered up front and each call records
+one nanoTime difference into a pre-resolved Timer, so recording takes no registry lookup
+and allocates nothing: no Timer.Sample, no tags, no capturing lambda. The waiting borrow is
+the exception, it is timed until its future completes, time spent in the queue included.
+ */
+public class MeteredBookService implements BookService {
+    static final String TIMER_NAME = "library.service";
+    private final BookService delegate;
+    private final OperationTimer addBook;
+    private final OperationTimer addBooks;
+    private final OperationTimer deleteBook;
+    private final OperationTimer findBookByIsbn;
+    private final OperationTimer findBooksByAuthor;
+    private final OperationTimer findBooksByAuthorPage;
+    private final OperationTimer searchBooks;
+    private final OperationTimer completeBooks;
+    private final OperationTimer findBooksByPublicationYear;
+    private final OperationTimer queryBooks;
+    private final OperationTimer explainQuery;
+    private final OperationTimer borrowBook;
+    private final OperationTimer borrowBookWhenAvailable;
+    private final OperationTimer returnBook;
+    private final OperationTimer borrowBooks;
+    private final OperationTimer returnBooks;
+
+    public MeteredBookService(BookService delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.addBook = new OperationTimer(meterRegistry, "addBook");
+        this.addBooks = new OperationTimer(meterRegistry, "addBooks");
+        this.deleteBook = new OperationTimer(meterRegistry, "deleteBook");
+        this.findBookByIsbn = new OperationTimer(meterRegistry, "findBookByISBN");
+        this.findBooksByAuthor = new OperationTimer(meterRegistry, "findBooksByAuthor");
+        this.findBooksByAuthorPage = new OperationTimer(meterRegistry, "findBooksByAuthorPage");
+        this.searchBooks = new OperationTimer(meterRegistry, "searchBooks");
+        this.completeBooks = new OperationTimer(meterRegistry, "completeBooks");
+        this.findBooksByPublicationYear = new OperationTimer(meterRegistry, "findBooksByPublicationYear");
+        this.queryBooks = new OperationTimer(meterRegistry, "queryBooks");
+        this.explainQuery = new OperationTimer(meterRegistry, "explainQuery");
+        this.borrowBook = new OperationTimer(meterRegistry, "borrowBook");
+        this.borrowBookWhenAvailable = new OperationTimer(meterRegistry, "borrowBookWhenAvailable");
+        this.returnBook = new OperationTimer(meterRegistry, "returnBook");
+        this.borrowBooks = new OperationTimer(meterRegistry, "borrowBooks");
+        this.returnBooks = new OperationTimer(meterRegistry, "returnBooks");
+    }
+
+    @Override
+    public Book addBook(String isbn, String title, String author, Integer publicationYear, Integer availableCopies) throws BookAlreadyExistsException {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            Book book = delegate.addBook(isbn, title, author, publicationYear, availableCopies);
+            succeeded = true;
+            return book;
+        } finally {
+            addBook.record(start, succeeded);
+        }
+    }
+
+    @Override
+    public List<Book> addBooks(List<Book> books) {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            List<Book> duplicates = delegate.addBooks(books);
+            succeeded = true;
+            return duplicates;
+        } finally {
+            addBooks.record(start, succeeded);
+        }
+    }
+
+    @Override
+    public void deleteBook(String isbn) throws BookNotFoundException {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            delegate.deleteBook(isbn);
+            succeeded = true;
+        } finally {
+            deleteBook.record(start, succeeded);
+        }
+    }
+
+    @Override
+    public Optional<Book> findBookByISBN(String isbn) {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            Optional<Book> book = delegate.findBookByISBN(isbn);
+            succeeded = true;
+            return book;
+        } finally {
+            findBookByIsbn.record(start, succeeded);
+        }
+    }
+
+    @Override
+    public List<Book> findBooksByAuthor(String auth) {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            List<Book> books = delegate.findBooksByAuthor(auth);
+            succeeded = true;
+            return books;
+        } finally {
+            findBooksByAuthor.record(start, succeeded);
+        }
+    }
+
+    @Override
+    public BookPage findBooksByAuthor(String auth, String afterIsbn, int limit) {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            BookPage page = delegate.findBooksByAuthor(auth, afterIsbn, limit);
+            succeeded = true;
+            return page;
+        } finally {
+            findBooksByAuthorPage.record(start, succeeded);
+        }
+    }
+
+    @Override
+    public List<Book> searchBooks(String query, int limit) {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            List<Book> books = delegate.searchBooks(query, limit);
+            succeeded = true;
+            return books;
+        } finally {
+            searchBooks.record(start, succeeded);
+        }
+    }
+
+    @Override
+    public List<Completion> completeBooks(String prefix, int limit) {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            List<Completion> completions = delegate.completeBooks(prefix, limit);
+            succeeded = true;
+            return completions;
+        } finally {
+            completeBooks.record(start, succeeded);
+        }
+    }
+
+    @Override
+    public YearRangePage findBooksByPublicationYear(int fromYear, int toYear, String author, YearPosition after, int limit) {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            YearRangePage page = delegate.findBooksByPublicationYear(fromYear, toYear, author, after, limit);
+            succeeded = true;
+            return page;
+        } finally {
+            findBooksByPublicationYear.record(start, succeeded);
+        }
+    }
+
+    @Override
+    public List<Book> queryBooks(BookQuery query, int limit) {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            List<Book> books = delegate.queryBooks(query, limit);
+            succeeded = true;
+            return books;
+        } finally {
+            queryBooks.record(start, succeeded);
+        }
+    }
+
+    @Override
+    public QueryPlan explainQuery(BookQuery query) {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            QueryPlan queryPlan = delegate.explainQuery(query);
+            succeeded = true;
+            return queryPlan;
+        } finally {
+            explainQuery.record(start, succeeded);
+        }
+    }
+
+    @Override
+    public Book borrowBook(String isbn) throws BookNotFoundException, InsufficientBookCopiesException {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            Book book = delegate.borrowBook(isbn);
+            succeeded = true;
+            return book;
+        } finally {
+            borrowBook.record(start, succeeded);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Book> borrowBookWhenAvailable(String isbn, Duration timeout) {
+        long start = System.nanoTime();
+        CompletableFuture<Book> borrowed;
+        try {
+            borrowed = delegate.borrowBookWhenAvailable(isbn, timeout);
+        } catch (RuntimeException e) {
+            borrowBookWhenAvailable.record(start, false);
+            throw e;
+        }
+        return borrowed.whenComplete((book, failure) -> borrowBookWhenAvailable.record(start, failure == null));
+    }
+
+    @Override
+    public Book returnBook(String isbn) throws BookNotFoundException, ReturnExceededException {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            Book book = delegate.returnBook(isbn);
+            succeeded = true;
+            return book;
+        } finally {
+            returnBook.record(start, succeeded);
+        }
+    }
+
+    @Override
+    public List<Book> borrowBooks(List<String> isbns) throws BatchOperationException {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            List<Book> books = delegate.borrowBooks(isbns);
+            succeeded = true;
+            return books;
+        } finally {
+            borrowBooks.record(start, succeeded);
+        }
+    }
+
+    @Override
+    public List<Book> returnBooks(List<String> isbns) throws BatchOperationException {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            List<Book> books = delegate.returnBooks(isbns);
+            succeeded = true;
+            return books;
+        } finally {
+            returnBooks.record(start, succeeded);
+        }
+    }
+
+    private static final class OperationTimer {
+        private final Timer success;
+        private final Timer failure;
+
+        private OperationTimer(MeterRegistry meterRegistry, String operation) {
+            this.success = timer(meterRegistry, operation, "success");
+            this.failure = timer(meterRegistry, operation, "failure");
+        }
+
+        private void record(long startNanos, boolean succeeded) {
+            (succeeded ? success : failure).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private static Timer timer(MeterRegistry meterRegistry, String operation, String outcome) {
+            return Timer.builder(TIMER_NAME)
+                    .description("Latency of book service operations")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+    }
+}
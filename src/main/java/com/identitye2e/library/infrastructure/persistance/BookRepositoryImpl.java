@@ -1,48 +1,150 @@
 package com.identitye2e.library.infrastructure.persistance;
 
-import com.identitye2e.library.infrastructure.cache.BookCache;
 import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.model.Isbn;
+import com.identitye2e.library.book.model.StringDictionary;
+import com.identitye2e.library.book.repository.BookChangeEvent;
+import com.identitye2e.library.book.repository.BookChangeListener;
 import com.identitye2e.library.book.repository.BookRepository;
 import com.identitye2e.library.book.service.exceptions.BookAlreadyExistsException;
 import com.identitye2e.library.book.service.exceptions.BookNotFoundException;
-import lombok.RequiredArgsConstructor;
+import com.identitye2e.library.infrastructure.cache.BookCache;
+import com.identitye2e.library.infrastructure.cache.BookCacheInvalidator;
+import com.identitye2e.library.infrastructure.collection.ConcurrentLongObjectMap;
+import com.identitye2e.library.infrastructure.persistance.journal.BookJournal;
+import com.identitye2e.library.infrastructure.persistance.journal.BookMutation;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 @Slf4j
-@RequiredArgsConstructor
 public class BookRepositoryImpl implements BookRepository {
-    private final Map<String, Book> bookStore = new ConcurrentHashMap<>();
+    /*
+    Keyed by the encoded ISBN, lookups compare longs instead of hashing and comparing Strings.
+     */
+    private final ConcurrentLongObjectMap<Book> bookStore = new ConcurrentLongObjectMap<>();
+    /*
+    Secondary index author -> ISBNs, maintained on every mutation so that author lookups
+    cost proportional to the author's titles instead of a scan of the whole store. Keyed by
+    the author's dictionary id, see authorKey.
+     */
+    private final ConcurrentLongObjectMap<NavigableSet<String>> isbnsByAuthor = new ConcurrentLongObjectMap<>();
+    /*
+    Bumped on every change to an author's books, a cache fill that raced with a change is
+    detected by comparing versions and dropped.
+     */
+    private final ConcurrentLongObjectMap<AtomicLong> authorVersions = new ConcurrentLongObjectMap<>();
+    private final List<BookChangeListener> listeners = new CopyOnWriteArrayList<>();
     private final BookCache<String, Book> bookCacheByIsbn;
     private final BookCache<String, List<Book>> booksCacheByAuthor;
+    /*
+    Authors repeat across thousands of books. Stored books hold the dictionary's instance of
+    their author, so each distinct name is on the heap once and authors of stored books are
+    compared by reference. The author indexes are keyed by its dictionary id.
+     */
+    private final StringDictionary authors;
+    /*
+    Mutations are appended to the journal inside the store's per-key atomic section so the
+    journal order of a key always matches the order its changes were applied in. Appending
+    only queues the record, the write and fsync happen in awaitDurable outside that section.
+     */
+    private final BookJournal journal;
+
+    public BookRepositoryImpl(BookCache<String, Book> bookCacheByIsbn, BookCache<String, List<Book>> booksCacheByAuthor) {
+        this(bookCacheByIsbn, booksCacheByAuthor, BookJournal.NO_OP);
+    }
+
+    public BookRepositoryImpl(BookCache<String, Book> bookCacheByIsbn, BookCache<String, List<Book>> booksCacheByAuthor,
+                              BookJournal journal) {
+        this(bookCacheByIsbn, booksCacheByAuthor, journal, new StringDictionary());
+    }
+
+    public BookRepositoryImpl(BookCache<String, Book> bookCacheByIsbn, BookCache<String, List<Book>> booksCacheByAuthor,
+                              BookJournal journal, StringDictionary authors) {
+        this.bookCacheByIsbn = bookCacheByIsbn;
+        this.booksCacheByAuthor = booksCacheByAuthor;
+        this.authors = authors;
+        this.journal = journal;
+        journal.replay(this::applyRecovered);
+        subscribe(new BookCacheInvalidator(bookCacheByIsbn, booksCacheByAuthor));
+    }
+
     @Override
     public void createBook(Book book) throws BookAlreadyExistsException {
-        if(bookStore.putIfAbsent(book.getIsbn(), book) != null){
+        if(!insert(book)){
             throw new BookAlreadyExistsException("Book with ISBN %s already exists.".formatted(book.getIsbn()));
         }
     }
 
+    /*
+    Stores and journals the whole batch first, then waits once for its last record, which
+    makes every earlier record of the batch durable too, and publishes the batch as one.
+     */
+    @Override
+    public List<Book> createBooks(List<Book> books) {
+        List<Book> duplicates = new ArrayList<>();
+        List<Book> createdBooks = new ArrayList<>(books.size());
+        long lastSequence = -1;
+        for (Book book : books) {
+            Book storedBook = canonical(book);
+            long sequence = store(storedBook);
+            if (sequence < 0) {
+                duplicates.add(book);
+            } else {
+                createdBooks.add(storedBook);
+                lastSequence = sequence;
+            }
+        }
+        if (createdBooks.isEmpty()) {
+            return duplicates;
+        }
+        journal.awaitDurable(lastSequence);
+        List<BookChangeEvent> events = new ArrayList<>(createdBooks.size());
+        for (Book book : createdBooks) {
+            indexAuthor(book);
+            events.add(BookChangeEvent.created(book));
+        }
+        publish(events);
+        return duplicates;
+    }
+
     @Override
     public void removeBook(String isbn) throws BookNotFoundException {
-        Book removedBook = bookStore.remove(isbn);
-        if(removedBook == null){
+        JournaledChange change = new JournaledChange();
+        bookStore.computeIfPresent(Isbn.encode(isbn), existingBook -> {
+            change.previous = existingBook;
+            change.sequence = journal.append(BookMutation.remove(isbn));
+            return null;
+        });
+        if(change.previous == null){
             throw new BookNotFoundException("Cannot remove the Book with ISBN %s does not exist.".formatted(isbn));
-        }else{
-            bookCacheByIsbn.invalidate(isbn);
         }
+        journal.awaitDurable(change.sequence);
+        unindexAuthor(change.previous);
+        publishLatest(BookChangeEvent.deleted(change.previous));
     }
 
     @Override
     public Optional<Book> getByIsbn(String isbn) {
         return bookCacheByIsbn.get(isbn)
                 .or(() -> {
-                    Optional<Book> actualBook = Optional.ofNullable(bookStore.get(isbn));
-                    actualBook.ifPresent(book -> bookCacheByIsbn.put(isbn, book));
+                    long key = Isbn.encode(isbn);
+                    Optional<Book> actualBook = Optional.ofNullable(bookStore.get(key));
+                    actualBook.ifPresent(book -> {
+                        bookCacheByIsbn.put(isbn, book);
+                        if (bookStore.get(key) != book) {
+                            bookCacheByIsbn.invalidate(isbn);
+                        }
+                    });
                     return actualBook;
                 });
     }
@@ -52,18 +154,250 @@ public class BookRepositoryImpl implements BookRepository {
     getByAuthor(String auth) {
         return booksCacheByAuthor.get(auth)
                 .or(() -> {
-                    List<Book> booksByAuthor = bookStore.values().stream()
-                            .filter(book -> book.getAuthor().equals(auth))
+                    int authorId = authors.find(auth);
+                    if (authorId == StringDictionary.NOT_FOUND) {
+                        return Optional.of(Collections.<Book>emptyList());
+                    }
+                    String author = authors.value(authorId);
+                    long version = currentAuthorVersion(authorId);
+                    List<Book> booksByAuthor = authorIsbns(authorId).stream()
+                            .map(this::storedBook)
+                            .filter(book -> book != null && book.getAuthor() == author)
                             .toList();
                     if (!booksByAuthor.isEmpty()) {
                         booksCacheByAuthor.put(auth, booksByAuthor);
+                        if (currentAuthorVersion(authorId) != version) {
+                            booksCacheByAuthor.invalidate(auth);
+                        }
                     }
                     return Optional.of(booksByAuthor);
                 }).orElseGet(Collections::emptyList);
     }
 
     @Override
-    public Book update(Book updatedBook) {
-        return bookStore.compute(updatedBook.getIsbn(), (key, oldBook) -> updatedBook);
+    public List<Book> getByAuthor(String auth, String afterIsbn, int limit) {
+        int authorId = authors.find(auth);
+        if (authorId == StringDictionary.NOT_FOUND) {
+            return Collections.emptyList();
+        }
+        String author = authors.value(authorId);
+        NavigableSet<String> isbns = authorIsbns(authorId);
+        NavigableSet<String> remainingIsbns = afterIsbn == null ? isbns : isbns.tailSet(afterIsbn, false);
+        return remainingIsbns.stream()
+                .map(this::storedBook)
+                .filter(book -> book != null && book.getAuthor() == author)
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public Book update(Book book) {
+        Book updatedBook = canonical(book);
+        JournaledChange change = new JournaledChange();
+        bookStore.compute(Isbn.encode(updatedBook.getIsbn()), existingBook -> {
+            change.previous = existingBook;
+            change.sequence = journal.append(BookMutation.update(updatedBook));
+            return updatedBook;
+        });
+        journal.awaitDurable(change.sequence);
+        updated(change.previous, updatedBook);
+        return updatedBook;
+    }
+
+    @Override
+    public Book update(String isbn, UnaryOperator<Book> change) throws BookNotFoundException {
+        JournaledChange journaledChange = new JournaledChange();
+        Book updatedBook = bookStore.computeIfPresent(Isbn.encode(isbn), existingBook -> {
+            Book changedBook = canonical(change.apply(existingBook));
+            journaledChange.previous = existingBook;
+            journaledChange.sequence = journal.append(BookMutation.update(changedBook));
+            return changedBook;
+        });
+        if (updatedBook == null) {
+            throw new BookNotFoundException("Book with ISBN %s not found.".formatted(isbn));
+        }
+        updated(journaledChange.previous, updatedBook);
+        return updatedBook;
+    }
+
+    @Override
+    public void awaitDurable() {
+        journal.awaitDurable(journal.appendedSequence());
+    }
+
+    @Override
+    public void subscribe(BookChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void forEachBook(Consumer<Book> action) {
+        bookStore.values().forEach(action);
+    }
+
+    @Override
+    public int size() {
+        return bookStore.size();
+    }
+
+    /*
+    Snapshots the store into the journal. The store is iterated in place, so writers are
+    never blocked while the snapshot is written.
+     */
+    public void checkpoint() {
+        journal.checkpoint(Collections.unmodifiableCollection(bookStore.values()));
+    }
+
+    private boolean insert(Book newBook) {
+        Book book = canonical(newBook);
+        long sequence = store(book);
+        if (sequence < 0) {
+            return false;
+        }
+        journal.awaitDurable(sequence);
+        indexAuthor(book);
+        publishLatest(BookChangeEvent.created(book));
+        return true;
+    }
+
+    /*
+    Stores a book whose ISBN is free and returns its journal sequence, -1 when it exists.
+     */
+    private long store(Book book) {
+        JournaledChange change = new JournaledChange();
+        bookStore.computeIfAbsent(Isbn.encode(book.getIsbn()), () -> {
+            change.sequence = journal.append(BookMutation.create(book));
+            return book;
+        });
+        return change.sequence;
+    }
+
+    private void updated(Book previousBook, Book updatedBook) {
+        if (previousBook == null) {
+            indexAuthor(updatedBook);
+        } else if (previousBook.getAuthor() != updatedBook.getAuthor()) {
+            unindexAuthor(previousBook);
+            indexAuthor(updatedBook);
+        } else {
+            authorVersion(authorId(updatedBook)).incrementAndGet();
+        }
+        publishLatest(BookChangeEvent.updated(previousBook, updatedBook));
+    }
+
+    private void applyRecovered(BookMutation mutation) {
+        Book recoveredBook = mutation.type() == BookMutation.Type.REMOVE ? null : canonical(mutation.book());
+        Book previousBook = recoveredBook == null
+                ? bookStore.remove(Isbn.encode(mutation.isbn()))
+                : bookStore.put(Isbn.encode(mutation.isbn()), recoveredBook);
+        if (previousBook != null) {
+            unindexAuthor(previousBook);
+        }
+        if (recoveredBook != null) {
+            indexAuthor(recoveredBook);
+        }
+    }
+
+    /*
+    The book with the dictionary's instance of its author, the same book when it already has it.
+     */
+    private Book canonical(Book book) {
+        String author = authors.value(authors.intern(book.getAuthor()));
+        return author == book.getAuthor() ? book : new Book(book.getIsbn(), book.getTitle(), author,
+                book.getPublicationYear(), book.getTotalCopies(), book.getAvailableCopies());
+    }
+
+    private int authorId(Book book) {
+        return authors.intern(book.getAuthor());
+    }
+
+    private Book storedBook(String isbn) {
+        return bookStore.get(Isbn.encode(isbn));
+    }
+
+    /*
+    A key's changes are applied in order inside its atomic section but published after it,
+    so a listener can receive an older event after a newer one and keep an outdated book;
+    the ISBN cache has no expiry to correct that. Having published, the writer re-reads the
+    store and publishes what changed since, until the store holds the book it last
+    published. The publication that finishes last is always followed by such a check, so
+    listeners settle on the stored book.
+     */
+    private void publishLatest(BookChangeEvent event) {
+        publish(event);
+        String isbn = event.isbn();
+        Book published = event.current();
+        for (Book stored = storedBook(isbn); stored != published; stored = storedBook(isbn)) {
+            if (stored == null) {
+                publish(BookChangeEvent.deleted(published));
+            } else if (published == null) {
+                publish(BookChangeEvent.created(stored));
+            } else {
+                publish(BookChangeEvent.updated(published, stored));
+            }
+            published = stored;
+        }
+    }
+
+    private void publish(BookChangeEvent event) {
+        for (BookChangeListener listener : listeners) {
+            try {
+                listener.onBookChange(event);
+            } catch (RuntimeException e) {
+                log.error("Book change listener failed for event={}", event, e);
+            }
+        }
+    }
+
+    private void publish(List<BookChangeEvent> events) {
+        for (BookChangeListener listener : listeners) {
+            try {
+                listener.onBookChanges(events);
+            } catch (RuntimeException e) {
+                log.error("Book change listener failed for a batch of events={}", events.size(), e);
+            }
+        }
+    }
+
+    private void indexAuthor(Book book) {
+        isbnsByAuthor.compute(authorKey(authorId(book)), isbns -> {
+            NavigableSet<String> authorIsbns = isbns == null ? new ConcurrentSkipListSet<>() : isbns;
+            authorIsbns.add(book.getIsbn());
+            return authorIsbns;
+        });
+        authorVersion(authorId(book)).incrementAndGet();
+    }
+
+    private void unindexAuthor(Book book) {
+        isbnsByAuthor.computeIfPresent(authorKey(authorId(book)), isbns -> {
+            isbns.remove(book.getIsbn());
+            return isbns.isEmpty() ? null : isbns;
+        });
+        authorVersion(authorId(book)).incrementAndGet();
+    }
+
+    private NavigableSet<String> authorIsbns(int authorId) {
+        NavigableSet<String> isbns = isbnsByAuthor.get(authorKey(authorId));
+        return isbns == null ? Collections.emptyNavigableSet() : isbns;
+    }
+
+    private long currentAuthorVersion(int authorId) {
+        AtomicLong version = authorVersions.get(authorKey(authorId));
+        return version == null ? 0 : version.get();
+    }
+
+    private AtomicLong authorVersion(int authorId) {
+        return authorVersions.computeIfAbsent(authorKey(authorId), AtomicLong::new);
+    }
+
+    /*
+    Dictionary ids start at 0, which the long-keyed maps reserve for empty slots.
+     */
+    private static long authorKey(int authorId) {
+        return authorId + 1L;
+    }
+
+    private static class JournaledChange {
+        private Book previous;
+        private long sequence = -1;
     }
 }
@@ -0,0 +1,49 @@
+package com.identitye2e.library.infrastructure.persistance;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+Checkpoints the repository on a fixed delay so that a restart only replays the journal
+written since the last snapshot.
+ */
+@Slf4j
+public class BookStoreCheckpointer implements Closeable {
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+    private final BookRepositoryImpl bookRepository;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "book-store-checkpointer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BookStoreCheckpointer(BookRepositoryImpl bookRepository, Duration interval) {
+        this.bookRepository = bookRepository;
+        executor.scheduleWithFixedDelay(this::checkpoint, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Book store checkpoint still running after {}s", SHUTDOWN_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void checkpoint() {
+        try {
+            bookRepository.checkpoint();
+        } catch (RuntimeException e) {
+            log.error("Book store checkpoint failed", e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.identitye2e.library.infrastructure.persistance.journal;
+
+import com.identitye2e.library.book.model.Book;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/*
+Compact binary form of a Book shared by journal records and snapshots.
+ */
+final class BookCodec {
+    private BookCodec() {
+    }
+
+    static void write(DataOutput output, Book book) throws IOException {
+        output.writeUTF(book.getIsbn());
+        output.writeUTF(book.getTitle());
+        output.writeUTF(book.getAuthor());
+        output.writeBoolean(book.getPublicationYear() != null);
+        output.writeInt(book.getPublicationYear() == null ? 0 : book.getPublicationYear());
+        output.writeInt(book.getTotalCopies());
+        output.writeInt(book.getAvailableCopies());
+    }
+
+    static Book read(DataInput input) throws IOException {
+        String isbn = input.readUTF();
+        String title = input.readUTF();
+        String author = input.readUTF();
+        boolean hasPublicationYear = input.readBoolean();
+        int publicationYear = input.readInt();
+        int totalCopies = input.readInt();
+        int availableCopies = input.readInt();
+        return new Book(isbn, title, author, hasPublicationYear ? publicationYear : null, totalCopies, availableCopies);
+    }
+}
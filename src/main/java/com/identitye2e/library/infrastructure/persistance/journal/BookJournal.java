@@ -0,0 +1,67 @@
+package com.identitye2e.library.infrastructure.persistance.journal;
+
+import com.identitye2e.library.book.model.Book;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/*
+Append-only log of store mutations. append only orders the record and does no I/O, it is
+written and durable once awaitDurable returns for its sequence or a later one, which lets
+concurrent writers share one write and one fsync.
+ */
+public interface BookJournal extends Closeable {
+    BookJournal NO_OP = new BookJournal() {
+        @Override
+        public long append(BookMutation mutation) {
+            return 0;
+        }
+
+        @Override
+        public long appendedSequence() {
+            return 0;
+        }
+
+        @Override
+        public void awaitDurable(long sequence) {
+        }
+
+        @Override
+        public void replay(Consumer<BookMutation> consumer) {
+        }
+
+        @Override
+        public void checkpoint(Collection<Book> books) {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    long append(BookMutation mutation);
+
+    /*
+    Sequence of the latest append, awaiting it covers every record appended so far.
+     */
+    long appendedSequence();
+
+    void awaitDurable(long sequence);
+
+    /*
+    Feeds every intact record to the consumer in append order, a torn or corrupt tail left by
+    a crash is discarded.
+     */
+    void replay(Consumer<BookMutation> consumer);
+
+    /*
+    Writes a snapshot of the given live view of the store and drops the history it makes
+    redundant. The view is iterated while writers keep appending, replay copes with changes
+    that land mid-iteration because every record carries the full resulting book.
+     */
+    void checkpoint(Collection<Book> books);
+
+    @Override
+    void close();
+}
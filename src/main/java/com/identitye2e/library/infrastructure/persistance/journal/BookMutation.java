@@ -0,0 +1,27 @@
+package com.identitye2e.library.infrastructure.persistance.journal;
+
+import com.identitye2e.library.book.model.Book;
+
+/*
+Journal record of a store mutation. CREATE and UPDATE carry the full resulting book so that
+replaying a record is idempotent, REMOVE only carries the ISBN.
+ */
+public record BookMutation(Type type, String isbn, Book book) {
+    public enum Type {
+        CREATE,
+        UPDATE,
+        REMOVE
+    }
+
+    public static BookMutation create(Book book) {
+        return new BookMutation(Type.CREATE, book.getIsbn(), book);
+    }
+
+    public static BookMutation update(Book book) {
+        return new BookMutation(Type.UPDATE, book.getIsbn(), book);
+    }
+
+    public static BookMutation remove(String isbn) {
+        return new BookMutation(Type.REMOVE, isbn, null);
+    }
+}
@@ -0,0 +1,102 @@
+package com.identitye2e.library.infrastructure.persistance.journal;
+
+import com.identitye2e.library.book.model.Book;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/*
+Point-in-time copy of the store laid out as
+
+    [int magic][int version]([boolean true][book])*[boolean false][long count][int CRC32C]
+
+The books are streamed straight from the live collection so the count is only known at the
+end. A snapshot is written to a temporary file and renamed into place once synced, so a
+snapshot file that exists is always complete.
+ */
+final class BookSnapshot {
+    private static final int MAGIC = 0x4C425353;
+    private static final int VERSION = 1;
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private BookSnapshot() {
+    }
+
+    static long write(Path file, Collection<Book> books) throws IOException {
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        CRC32C crc = new CRC32C();
+        long count = 0;
+        try (OutputStream fileOutput = Files.newOutputStream(temporaryFile);
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(fileOutput, crc), BUFFER_BYTES))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            for (Book book : books) {
+                output.writeBoolean(true);
+                BookCodec.write(output, book);
+                count++;
+            }
+            output.writeBoolean(false);
+            output.writeLong(count);
+            output.flush();
+            fileOutput.write(intBytes((int) crc.getValue()));
+        }
+        try (FileChannel syncChannel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+            syncChannel.force(true);
+        }
+        Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory(file.getParent());
+        return count;
+    }
+
+    static long read(Path file, Consumer<Book> consumer) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (InputStream fileInput = new BufferedInputStream(Files.newInputStream(file), BUFFER_BYTES);
+             DataInputStream input = new DataInputStream(new CheckedInputStream(fileInput, crc))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("Not a book snapshot " + file);
+            }
+            long count = 0;
+            while (input.readBoolean()) {
+                consumer.accept(BookCodec.read(input));
+                count++;
+            }
+            long expectedCount = input.readLong();
+            int expectedChecksum = (int) crc.getValue();
+            if (expectedCount != count || new DataInputStream(fileInput).readInt() != expectedChecksum) {
+                throw new IOException("Corrupt book snapshot " + file);
+            }
+            return count;
+        }
+    }
+
+    /*
+    Persists the rename before the journal deletes the history the snapshot replaces. Some
+    platforms cannot open a directory for syncing, there the rename is left to the OS.
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        } catch (IOException e) {
+            // not supported on this platform
+        }
+    }
+
+    private static byte[] intBytes(int value) {
+        return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+    }
+}
@@ -0,0 +1,422 @@
+package com.identitye2e.library.infrastructure.persistance.journal;
+
+import com.identitye2e.library.book.model.Book;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/*
+Journal backed by numbered append-only segment files plus point-in-time snapshots. Each
+segment record is framed as
+
+    [int payload length][int CRC32C of payload][payload]
+
+Appends only queue the encoded record in memory under a lock, so a caller appending inside
+its own atomic section does no I/O there. Durability uses group commit: the first writer
+waiting on an unwritten sequence writes everything queued so far in append order and, with
+fsync, forces it, all outside the lock, while later writers wait for it. Under load one
+write and one fsync cover many mutations.
+
+A write or fsync that fails leaves it unknown which of the records taken for it reached the
+segment, writing them again could tear the records after them. The journal then fails for
+good: every later append and every wait for a sequence not yet durable throws, so nothing
+is ever reported durable that was not written, and the store refuses further mutations.
+
+A checkpoint rolls appends over to a fresh segment and then writes a snapshot of the store
+while writers keep going. Snapshot N holds the store as seen at some point after segment N
+stopped taking appends, so startup loads it and replays segments N onwards; older segments
+and snapshots are deleted.
+ */
+@Slf4j
+public class FileBookJournal implements BookJournal {
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+    private final Path directory;
+    private final boolean fsync;
+    private final SegmentOpener segmentOpener;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition durable = lock.newCondition();
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+    private FileChannel channel;
+    private long segment;
+    /*
+    Records appended but not taken by a writer yet, in append order.
+     */
+    private List<ByteBuffer> pending = new ArrayList<>();
+    private long appendedSequence;
+    private long durableSequence;
+    private boolean syncing;
+    private IOException failure;
+
+    public FileBookJournal(Path directory, boolean fsync) {
+        this(directory, fsync, segmentFile -> FileChannel.open(segmentFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+    }
+
+    FileBookJournal(Path directory, boolean fsync, SegmentOpener segmentOpener) {
+        this.directory = directory;
+        this.fsync = fsync;
+        this.segmentOpener = segmentOpener;
+        try {
+            Files.createDirectories(directory);
+            this.segment = Math.max(0, Math.max(last(segments()), last(snapshots())));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open journal directory " + directory, e);
+        }
+    }
+
+    @Override
+    public long append(BookMutation mutation) {
+        ByteBuffer record = encode(mutation);
+        lock.lock();
+        try {
+            checkNotFailed();
+            pending.add(record);
+            return ++appendedSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long appendedSequence() {
+        lock.lock();
+        try {
+            return appendedSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void awaitDurable(long sequence) {
+        lock.lock();
+        try {
+            while (durableSequence < sequence) {
+                checkNotFailed();
+                if (syncing) {
+                    durable.awaitUninterruptibly();
+                    continue;
+                }
+                FileChannel syncChannel;
+                try {
+                    syncChannel = openChannel();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot open journal " + segmentFile(directory, segment), e);
+                }
+                syncing = true;
+                long target = appendedSequence;
+                List<ByteBuffer> records = takePending();
+                boolean synced = false;
+                IOException writeFailure = null;
+                lock.unlock();
+                try {
+                    write(syncChannel, records);
+                    if (fsync) {
+                        syncChannel.force(false);
+                    }
+                    synced = true;
+                } catch (IOException e) {
+                    writeFailure = e;
+                    throw new UncheckedIOException("Cannot write journal " + segmentFile(directory, segment), e);
+                } finally {
+                    lock.lock();
+                    syncing = false;
+                    if (synced) {
+                        durableSequence = Math.max(durableSequence, target);
+                    } else if (failure == null) {
+                        failure = writeFailure != null ? writeFailure
+                                : new IOException("Journal write to " + segmentFile(directory, segment) + " did not complete");
+                    }
+                    durable.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void replay(Consumer<BookMutation> consumer) {
+        lock.lock();
+        try {
+            long snapshot = last(snapshots());
+            if (snapshot >= 0) {
+                BookSnapshot.read(snapshotFile(directory, snapshot), book -> consumer.accept(BookMutation.create(book)));
+            }
+            for (long replaySegment : segments()) {
+                if (replaySegment >= snapshot) {
+                    replaySegment(segmentFile(directory, replaySegment), consumer);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot replay journal " + directory, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void checkpoint(Collection<Book> books) {
+        checkpointLock.lock();
+        try {
+            long snapshot = rollSegment();
+            long startNanos = System.nanoTime();
+            long count = BookSnapshot.write(snapshotFile(directory, snapshot), books);
+            compact(snapshot);
+            log.info("Journal checkpoint snapshot={} books={} tookMs={}", snapshot, count, (System.nanoTime() - startNanos) / 1_000_000);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot checkpoint journal " + directory, e);
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            while (syncing) {
+                durable.awaitUninterruptibly();
+            }
+            if (failure == null) {
+                writePending();
+                closeChannel();
+            } else if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close journal " + directory, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static Path segmentFile(Path directory, long segment) {
+        return directory.resolve(SEGMENT_PREFIX + "%020d".formatted(segment) + SEGMENT_SUFFIX);
+    }
+
+    static Path snapshotFile(Path directory, long snapshot) {
+        return directory.resolve(SNAPSHOT_PREFIX + "%020d".formatted(snapshot) + SNAPSHOT_SUFFIX);
+    }
+
+    /*
+    Returns the number of bytes holding intact records, reading stops at the first record
+    that is short or fails its checksum.
+     */
+    static long replayFile(Path file, Consumer<BookMutation> consumer) throws IOException {
+        long validBytes = 0;
+        try (InputStream fileInput = Files.newInputStream(file);
+             DataInputStream input = new DataInputStream(new BufferedInputStream(fileInput))) {
+            while (true) {
+                int length;
+                int checksum;
+                byte[] payload;
+                try {
+                    length = input.readInt();
+                    checksum = input.readInt();
+                    if (length <= 0 || length > MAX_RECORD_BYTES) {
+                        return validBytes;
+                    }
+                    payload = input.readNBytes(length);
+                } catch (EOFException e) {
+                    return validBytes;
+                }
+                if (payload.length < length || checksum(payload) != checksum) {
+                    return validBytes;
+                }
+                consumer.accept(decode(payload));
+                validBytes += HEADER_BYTES + length;
+            }
+        }
+    }
+
+    private void replaySegment(Path segmentFile, Consumer<BookMutation> consumer) throws IOException {
+        long validBytes = replayFile(segmentFile, consumer);
+        long fileBytes = Files.size(segmentFile);
+        if (validBytes < fileBytes) {
+            log.warn("Discarding torn journal tail file={} validBytes={} fileBytes={}", segmentFile, validBytes, fileBytes);
+            try (FileChannel truncateChannel = FileChannel.open(segmentFile, StandardOpenOption.WRITE)) {
+                truncateChannel.truncate(validBytes);
+                truncateChannel.force(true);
+            }
+        }
+    }
+
+    /*
+    Makes everything appended so far durable, then points appends at the next segment.
+    Returns the segment that was current, which is the first one a snapshot taken from
+    now on has to be replayed with.
+     */
+    private long rollSegment() throws IOException {
+        lock.lock();
+        try {
+            while (syncing) {
+                durable.awaitUninterruptibly();
+            }
+            writePending();
+            closeChannel();
+            durableSequence = appendedSequence;
+            durable.signalAll();
+            return segment++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void compact(long snapshot) throws IOException {
+        for (long oldSegment : segments()) {
+            if (oldSegment < snapshot) {
+                Files.deleteIfExists(segmentFile(directory, oldSegment));
+            }
+        }
+        for (long oldSnapshot : snapshots()) {
+            if (oldSnapshot < snapshot) {
+                Files.deleteIfExists(snapshotFile(directory, oldSnapshot));
+            }
+        }
+    }
+
+    private void checkNotFailed() {
+        if (failure != null) {
+            throw new UncheckedIOException("Journal " + directory + " failed on an earlier write", failure);
+        }
+    }
+
+    private List<ByteBuffer> takePending() {
+        List<ByteBuffer> records = pending;
+        pending = new ArrayList<>();
+        return records;
+    }
+
+    /*
+    Writes what is queued under the lock, for the rare paths that close the segment.
+     */
+    private void writePending() throws IOException {
+        checkNotFailed();
+        if (!pending.isEmpty()) {
+            try {
+                write(openChannel(), takePending());
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+        }
+    }
+
+    private static void write(FileChannel writeChannel, List<ByteBuffer> records) throws IOException {
+        ByteBuffer[] buffers = records.toArray(ByteBuffer[]::new);
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+        }
+        while (remaining > 0) {
+            remaining -= writeChannel.write(buffers);
+        }
+    }
+
+    private FileChannel openChannel() throws IOException {
+        if (channel == null) {
+            channel = segmentOpener.open(segmentFile(directory, segment));
+        }
+        return channel;
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private List<Long> segments() throws IOException {
+        return numberedFiles(SEGMENT_PREFIX, SEGMENT_SUFFIX);
+    }
+
+    private List<Long> snapshots() throws IOException {
+        return numberedFiles(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+    }
+
+    private List<Long> numberedFiles(String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .map(name -> Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long last(List<Long> numbers) {
+        return numbers.isEmpty() ? -1 : numbers.get(numbers.size() - 1);
+    }
+
+    static ByteBuffer encode(BookMutation mutation) {
+        try {
+            ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream(128);
+            DataOutputStream payload = new DataOutputStream(payloadBytes);
+            payload.writeByte(mutation.type().ordinal());
+            if (mutation.type() == BookMutation.Type.REMOVE) {
+                payload.writeUTF(mutation.isbn());
+            } else {
+                BookCodec.write(payload, mutation.book());
+            }
+            byte[] payloadArray = payloadBytes.toByteArray();
+            ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payloadArray.length);
+            record.putInt(payloadArray.length);
+            record.putInt(checksum(payloadArray));
+            record.put(payloadArray);
+            return record.flip();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static BookMutation decode(byte[] payload) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload));
+        BookMutation.Type type = BookMutation.Type.values()[input.readByte()];
+        return switch (type) {
+            case CREATE -> BookMutation.create(BookCodec.read(input));
+            case UPDATE -> BookMutation.update(BookCodec.read(input));
+            case REMOVE -> BookMutation.remove(input.readUTF());
+        };
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    @FunctionalInterface
+    interface SegmentOpener {
+        FileChannel open(Path segmentFile) throws IOException;
+    }
+}
@@ -0,0 +1,282 @@
+package com.identitye2e.library.infrastructure.persistance.offheap;
+
+import com.identitye2e.library.book.model.Book;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+Book records packed into direct buffer slabs, allocated by bumping a pointer through the
+current slab. A record is laid out as
+
+    [int record bytes][int publication year][int total copies][int available copies]
+    [short isbn bytes][isbn][short title bytes][title][short author bytes][author]
+
+with strings in UTF-8. The slabs also hold address lists, the records of one author in ISBN
+order, laid out as
+
+    [int record bytes][int size][long address] * capacity
+
+A list outgrowing a slab gets a direct buffer of its own. An address is (slab + 1) << 32 |
+offset so that 0 never names a record. Space of removed or rewritten records and of outgrown
+lists is not reused, deadBytes tracks it.
+
+Not thread-safe, OffHeapBookRepository guards it with its store lock.
+ */
+class BookSlabs {
+    static final long NO_RECORD = 0;
+    private static final int RECORD_BYTES_OFFSET = 0;
+    private static final int PUBLICATION_YEAR_OFFSET = 4;
+    private static final int TOTAL_COPIES_OFFSET = 8;
+    private static final int AVAILABLE_COPIES_OFFSET = 12;
+    private static final int ISBN_OFFSET = 16;
+    private static final int LIST_SIZE_OFFSET = 4;
+    private static final int LIST_ADDRESSES_OFFSET = 8;
+    private static final int NO_PUBLICATION_YEAR = Integer.MIN_VALUE;
+    private static final int MAX_STRING_BYTES = 0xFFFF;
+    private final int slabBytes;
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private int currentSlab = -1;
+    private int slabPosition;
+    private long reservedBytes;
+    private long liveBytes;
+    private long deadBytes;
+
+    BookSlabs(int slabBytes) {
+        this.slabBytes = slabBytes;
+    }
+
+    long allocate(Book book) {
+        byte[] isbn = encode(book.getIsbn());
+        byte[] title = encode(book.getTitle());
+        byte[] author = encode(book.getAuthor());
+        int recordBytes = ISBN_OFFSET + 6 + isbn.length + title.length + author.length;
+        if (recordBytes > slabBytes) {
+            throw new IllegalArgumentException("Book with ISBN %s does not fit in a slab".formatted(book.getIsbn()));
+        }
+        long address = reserve(recordBytes);
+        ByteBuffer slab = slab(address);
+        int offset = offset(address);
+        writeCopies(slab, offset, book);
+        int position = putString(slab, offset + ISBN_OFFSET, isbn);
+        position = putString(slab, position, title);
+        putString(slab, position, author);
+        return address;
+    }
+
+    /*
+    Allocates an empty address list able to hold capacity addresses.
+     */
+    long allocateList(int capacity) {
+        long list = reserve(Math.toIntExact(LIST_ADDRESSES_OFFSET + (long) capacity * Long.BYTES));
+        slab(list).putInt(offset(list) + LIST_SIZE_OFFSET, 0);
+        return list;
+    }
+
+    /*
+    Copies the list into one of twice the capacity and releases the old one.
+     */
+    long growList(long list) {
+        int size = listSize(list);
+        long grown = allocateList(size << 1);
+        for (int i = 0; i < size; i++) {
+            listAddress(grown, i, listAddress(list, i));
+        }
+        slab(grown).putInt(offset(grown) + LIST_SIZE_OFFSET, size);
+        release(list);
+        return grown;
+    }
+
+    int listSize(long list) {
+        return slab(list).getInt(offset(list) + LIST_SIZE_OFFSET);
+    }
+
+    int listCapacity(long list) {
+        return (slab(list).getInt(offset(list) + RECORD_BYTES_OFFSET) - LIST_ADDRESSES_OFFSET) / Long.BYTES;
+    }
+
+    long listAddress(long list, int index) {
+        return slab(list).getLong(offset(list) + LIST_ADDRESSES_OFFSET + index * Long.BYTES);
+    }
+
+    /*
+    Inserts at index shifting the later addresses up, the list must have room for it.
+     */
+    void insertListAddress(long list, int index, long address) {
+        int size = listSize(list);
+        for (int i = size; i > index; i--) {
+            listAddress(list, i, listAddress(list, i - 1));
+        }
+        listAddress(list, index, address);
+        slab(list).putInt(offset(list) + LIST_SIZE_OFFSET, size + 1);
+    }
+
+    void removeListAddress(long list, int index) {
+        int size = listSize(list);
+        for (int i = index; i < size - 1; i++) {
+            listAddress(list, i, listAddress(list, i + 1));
+        }
+        slab(list).putInt(offset(list) + LIST_SIZE_OFFSET, size - 1);
+    }
+
+    void release(long address) {
+        int recordBytes = slab(address).getInt(offset(address) + RECORD_BYTES_OFFSET);
+        liveBytes -= recordBytes;
+        deadBytes += recordBytes;
+    }
+
+    Book read(long address) {
+        ByteBuffer slab = slab(address);
+        int offset = offset(address);
+        int isbnOffset = offset + ISBN_OFFSET;
+        int titleOffset = nextString(slab, isbnOffset);
+        int authorOffset = nextString(slab, titleOffset);
+        int publicationYear = slab.getInt(offset + PUBLICATION_YEAR_OFFSET);
+        return new Book(getString(slab, isbnOffset), getString(slab, titleOffset), getString(slab, authorOffset),
+                publicationYear == NO_PUBLICATION_YEAR ? null : publicationYear,
+                slab.getInt(offset + TOTAL_COPIES_OFFSET), slab.getInt(offset + AVAILABLE_COPIES_OFFSET));
+    }
+
+    /*
+    True when the record already holds the book's strings, so an update only has to
+    overwrite the copy counters in place.
+     */
+    boolean sameStrings(long address, byte[] title, byte[] author) {
+        ByteBuffer slab = slab(address);
+        int titleOffset = nextString(slab, offset(address) + ISBN_OFFSET);
+        return stringEquals(slab, titleOffset, title) && stringEquals(slab, nextString(slab, titleOffset), author);
+    }
+
+    void overwriteCopies(long address, Book book) {
+        writeCopies(slab(address), offset(address), book);
+    }
+
+    boolean isbnEquals(long address, byte[] isbn) {
+        return stringEquals(slab(address), offset(address) + ISBN_OFFSET, isbn);
+    }
+
+    /*
+    Orders the record's ISBN against the given one byte by byte, unsigned, which for UTF-8
+    is the order of the code points.
+     */
+    int compareIsbn(long address, byte[] isbn) {
+        ByteBuffer slab = slab(address);
+        int offset = offset(address) + ISBN_OFFSET;
+        int length = stringBytes(slab, offset);
+        for (int i = 0; i < Math.min(length, isbn.length); i++) {
+            int byCharacter = Integer.compare(slab.get(offset + 2 + i) & 0xFF, isbn[i] & 0xFF);
+            if (byCharacter != 0) {
+                return byCharacter;
+            }
+        }
+        return Integer.compare(length, isbn.length);
+    }
+
+    boolean authorEquals(long address, byte[] author) {
+        ByteBuffer slab = slab(address);
+        return stringEquals(slab, nextString(slab, nextString(slab, offset(address) + ISBN_OFFSET)), author);
+    }
+
+    String isbn(long address) {
+        return getString(slab(address), offset(address) + ISBN_OFFSET);
+    }
+
+
+    long liveBytes() {
+        return liveBytes;
+    }
+
+    long deadBytes() {
+        return deadBytes;
+    }
+
+    long reservedBytes() {
+        return reservedBytes;
+    }
+
+    static byte[] encode(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("Value exceeds %d UTF-8 bytes".formatted(MAX_STRING_BYTES));
+        }
+        return bytes;
+    }
+
+    private long reserve(int recordBytes) {
+        int slab;
+        int offset;
+        if (recordBytes > slabBytes) {
+            slab = addSlab(recordBytes);
+            offset = 0;
+        } else {
+            if (currentSlab < 0 || slabPosition + recordBytes > slabBytes) {
+                currentSlab = addSlab(slabBytes);
+                slabPosition = 0;
+            }
+            slab = currentSlab;
+            offset = slabPosition;
+            slabPosition += recordBytes;
+        }
+        slabs.get(slab).putInt(offset + RECORD_BYTES_OFFSET, recordBytes);
+        liveBytes += recordBytes;
+        return (long) (slab + 1) << 32 | offset;
+    }
+
+    private int addSlab(int bytes) {
+        slabs.add(ByteBuffer.allocateDirect(bytes));
+        reservedBytes += bytes;
+        return slabs.size() - 1;
+    }
+
+    private void listAddress(long list, int index, long address) {
+        slab(list).putLong(offset(list) + LIST_ADDRESSES_OFFSET + index * Long.BYTES, address);
+    }
+
+    private static void writeCopies(ByteBuffer slab, int offset, Book book) {
+        slab.putInt(offset + PUBLICATION_YEAR_OFFSET, book.getPublicationYear() == null ? NO_PUBLICATION_YEAR : book.getPublicationYear());
+        slab.putInt(offset + TOTAL_COPIES_OFFSET, book.getTotalCopies());
+        slab.putInt(offset + AVAILABLE_COPIES_OFFSET, book.getAvailableCopies());
+    }
+
+    private static int putString(ByteBuffer slab, int offset, byte[] value) {
+        slab.putShort(offset, (short) value.length);
+        slab.put(offset + 2, value);
+        return offset + 2 + value.length;
+    }
+
+    private static String getString(ByteBuffer slab, int offset) {
+        byte[] value = new byte[stringBytes(slab, offset)];
+        slab.get(offset + 2, value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static boolean stringEquals(ByteBuffer slab, int offset, byte[] value) {
+        if (stringBytes(slab, offset) != value.length) {
+            return false;
+        }
+        for (int i = 0; i < value.length; i++) {
+            if (slab.get(offset + 2 + i) != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int nextString(ByteBuffer slab, int offset) {
+        return offset + 2 + stringBytes(slab, offset);
+    }
+
+    private static int stringBytes(ByteBuffer slab, int offset) {
+        return slab.getShort(offset) & 0xFFFF;
+    }
+
+    private ByteBuffer slab(long address) {
+        return slabs.get((int) (address >>> 32) - 1);
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+}
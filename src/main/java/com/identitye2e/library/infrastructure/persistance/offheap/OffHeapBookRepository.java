@@ -0,0 +1,418 @@
+package com.identitye2e.library.infrastructure.persistance.offheap;
+
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.repository.BookChangeEvent;
+import com.identitye2e.library.book.repository.BookChangeListener;
+import com.identitye2e.library.book.repository.BookRepository;
+import com.identitye2e.library.book.service.exceptions.BookAlreadyExistsException;
+import com.identitye2e.library.book.service.exceptions.BookNotFoundException;
+import com.identitye2e.library.infrastructure.cache.BookCache;
+import com.identitye2e.library.infrastructure.cache.BookCacheInvalidator;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/*
+Book store kept outside the Java heap. Records live in direct buffer slabs (BookSlabs),
+an off-heap open-addressing index maps ISBN -> record and another maps author -> the list of
+the author's record addresses, kept in ISBN order in the slabs like the heap store's author
+index. A page of an author's books binary searches that list for the ISBN it follows and
+decodes only the records it returns. Book objects are only materialised for the caller on
+read, so heap usage does not grow with the catalog.
+
+Reads share a read lock and mutations take the write lock. A borrow or return that only
+changes copy counters is written into the existing record, any other update appends a new
+record.
+ */
+@Slf4j
+public class OffHeapBookRepository implements BookRepository {
+    public static final int DEFAULT_SLAB_BYTES = 16 << 20;
+    private static final int INITIAL_INDEX_CAPACITY = 1024;
+    private static final int INITIAL_AUTHOR_CAPACITY = 4;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final BookSlabs slabs;
+    private final OffHeapHashIndex isbnIndex;
+    private final OffHeapHashIndex authorIndex;
+    private final List<BookChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final BookCache<String, Book> bookCacheByIsbn;
+    private final BookCache<String, List<Book>> booksCacheByAuthor;
+    /*
+    Bumped by every mutation, a cache fill that raced with a mutation is detected by comparing
+    versions and dropped.
+     */
+    private volatile long version;
+
+    public OffHeapBookRepository(BookCache<String, Book> bookCacheByIsbn, BookCache<String, List<Book>> booksCacheByAuthor) {
+        this(bookCacheByIsbn, booksCacheByAuthor, DEFAULT_SLAB_BYTES);
+    }
+
+    public OffHeapBookRepository(BookCache<String, Book> bookCacheByIsbn, BookCache<String, List<Book>> booksCacheByAuthor,
+                                 int slabBytes) {
+        this.bookCacheByIsbn = bookCacheByIsbn;
+        this.booksCacheByAuthor = booksCacheByAuthor;
+        this.slabs = new BookSlabs(slabBytes);
+        this.isbnIndex = new OffHeapHashIndex(INITIAL_INDEX_CAPACITY, slabs::isbnEquals);
+        this.authorIndex = new OffHeapHashIndex(INITIAL_INDEX_CAPACITY,
+                (list, author) -> slabs.authorEquals(slabs.listAddress(list, 0), author));
+        subscribe(new BookCacheInvalidator(bookCacheByIsbn, booksCacheByAuthor));
+    }
+
+    @Override
+    public void createBook(Book book) throws BookAlreadyExistsException {
+        if (!insert(book)) {
+            throw new BookAlreadyExistsException("Book with ISBN %s already exists.".formatted(book.getIsbn()));
+        }
+    }
+
+    /*
+    Takes the write lock once for the whole batch and publishes it as one.
+     */
+    @Override
+    public List<Book> createBooks(List<Book> books) {
+        List<Book> duplicates = new ArrayList<>();
+        List<BookChangeEvent> events = new ArrayList<>(books.size());
+        lock.writeLock().lock();
+        try {
+            for (Book book : books) {
+                if (store(book)) {
+                    events.add(BookChangeEvent.created(book));
+                } else {
+                    duplicates.add(book);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!events.isEmpty()) {
+            publish(events);
+        }
+        return duplicates;
+    }
+
+    @Override
+    public void removeBook(String isbn) throws BookNotFoundException {
+        byte[] isbnKey = BookSlabs.encode(isbn);
+        Book removedBook;
+        lock.writeLock().lock();
+        try {
+            long address = isbnIndex.remove(isbnKey);
+            if (address == BookSlabs.NO_RECORD) {
+                removedBook = null;
+            } else {
+                removedBook = slabs.read(address);
+                unlinkAuthor(BookSlabs.encode(removedBook.getAuthor()), isbnKey);
+                slabs.release(address);
+                version++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (removedBook == null) {
+            throw new BookNotFoundException("Cannot remove the Book with ISBN %s does not exist.".formatted(isbn));
+        }
+        publish(BookChangeEvent.deleted(removedBook));
+    }
+
+    @Override
+    public Optional<Book> getByIsbn(String isbn) {
+        return bookCacheByIsbn.get(isbn)
+                .or(() -> {
+                    long fillVersion = version;
+                    Optional<Book> actualBook = read(isbn);
+                    actualBook.ifPresent(book -> {
+                        bookCacheByIsbn.put(isbn, book);
+                        if (version != fillVersion) {
+                            bookCacheByIsbn.invalidate(isbn);
+                        }
+                    });
+                    return actualBook;
+                });
+    }
+
+    @Override
+    public List<Book> getByAuthor(String auth) {
+        return booksCacheByAuthor.get(auth)
+                .or(() -> {
+                    long fillVersion = version;
+                    List<Book> booksByAuthor = readAuthor(auth);
+                    if (!booksByAuthor.isEmpty()) {
+                        booksCacheByAuthor.put(auth, booksByAuthor);
+                        if (version != fillVersion) {
+                            booksCacheByAuthor.invalidate(auth);
+                        }
+                    }
+                    return Optional.of(booksByAuthor);
+                }).orElseGet(List::of);
+    }
+
+    @Override
+    public List<Book> getByAuthor(String auth, String afterIsbn, int limit) {
+        byte[] authorKey = BookSlabs.encode(auth);
+        List<Book> page = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            long list = authorIndex.get(authorKey);
+            if (list == BookSlabs.NO_RECORD) {
+                return page;
+            }
+            int size = slabs.listSize(list);
+            int from = 0;
+            if (afterIsbn != null) {
+                int position = findIsbn(list, BookSlabs.encode(afterIsbn));
+                from = position >= 0 ? position + 1 : -position - 1;
+            }
+            for (int i = from; i < size && page.size() < limit; i++) {
+                page.add(slabs.read(slabs.listAddress(list, i)));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return page;
+    }
+
+    @Override
+    public Book update(Book updatedBook) {
+        byte[] isbnKey = BookSlabs.encode(updatedBook.getIsbn());
+        Book previousBook = null;
+        lock.writeLock().lock();
+        try {
+            long address = isbnIndex.get(isbnKey);
+            if (address != BookSlabs.NO_RECORD) {
+                previousBook = slabs.read(address);
+            }
+            write(isbnKey, address, previousBook, updatedBook);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        publish(BookChangeEvent.updated(previousBook, updatedBook));
+        return updatedBook;
+    }
+
+    @Override
+    public Book update(String isbn, UnaryOperator<Book> change) throws BookNotFoundException {
+        byte[] isbnKey = BookSlabs.encode(isbn);
+        Book previousBook;
+        Book updatedBook;
+        lock.writeLock().lock();
+        try {
+            long address = isbnIndex.get(isbnKey);
+            if (address == BookSlabs.NO_RECORD) {
+                throw new BookNotFoundException("Book with ISBN %s not found.".formatted(isbn));
+            }
+            previousBook = slabs.read(address);
+            updatedBook = change.apply(previousBook);
+            write(isbnKey, address, previousBook, updatedBook);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        publish(BookChangeEvent.updated(previousBook, updatedBook));
+        return updatedBook;
+    }
+
+    /*
+    Nothing outlives the process, every change is as durable as it gets once applied.
+     */
+    @Override
+    public void awaitDurable() {
+    }
+
+    @Override
+    public void subscribe(BookChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /*
+    Books are materialised under the read lock and handed to the action after it is released.
+     */
+    @Override
+    public void forEachBook(Consumer<Book> action) {
+        List<Book> books = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            isbnIndex.forEachAddress(address -> books.add(slabs.read(address)));
+        } finally {
+            lock.readLock().unlock();
+        }
+        books.forEach(action);
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return isbnIndex.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+    Direct memory held by slabs and indexes, whether or not it is in use.
+     */
+    public long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return slabs.reservedBytes() + isbnIndex.reservedBytes() + authorIndex.reservedBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean insert(Book book) {
+        lock.writeLock().lock();
+        try {
+            if (!store(book)) {
+                return false;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        publish(BookChangeEvent.created(book));
+        return true;
+    }
+
+    /*
+    Allocates a record for a book whose ISBN is free, false when it exists. Runs under the
+    write lock.
+     */
+    private boolean store(Book book) {
+        byte[] isbnKey = BookSlabs.encode(book.getIsbn());
+        if (isbnIndex.get(isbnKey) != BookSlabs.NO_RECORD) {
+            return false;
+        }
+        long address = slabs.allocate(book);
+        isbnIndex.put(isbnKey, address);
+        linkAuthor(address, BookSlabs.encode(book.getAuthor()), isbnKey);
+        version++;
+        return true;
+    }
+
+    /*
+    Writes the book over its record when only copy counters differ, otherwise replaces the
+    record. Runs under the write lock, previousBook is the record's book or null without one.
+     */
+    private void write(byte[] isbnKey, long address, Book previousBook, Book updatedBook) {
+        byte[] titleKey = BookSlabs.encode(updatedBook.getTitle());
+        byte[] authorKey = BookSlabs.encode(updatedBook.getAuthor());
+        if (address != BookSlabs.NO_RECORD && slabs.sameStrings(address, titleKey, authorKey)) {
+            slabs.overwriteCopies(address, updatedBook);
+        } else {
+            if (address != BookSlabs.NO_RECORD) {
+                unlinkAuthor(BookSlabs.encode(previousBook.getAuthor()), isbnKey);
+                slabs.release(address);
+            }
+            long newAddress = slabs.allocate(updatedBook);
+            isbnIndex.put(isbnKey, newAddress);
+            linkAuthor(newAddress, authorKey, isbnKey);
+        }
+        version++;
+    }
+
+    private Optional<Book> read(String isbn) {
+        byte[] isbnKey = BookSlabs.encode(isbn);
+        lock.readLock().lock();
+        try {
+            long address = isbnIndex.get(isbnKey);
+            return address == BookSlabs.NO_RECORD ? Optional.empty() : Optional.of(slabs.read(address));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Book> readAuthor(String auth) {
+        byte[] authorKey = BookSlabs.encode(auth);
+        List<Book> booksByAuthor = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            long list = authorIndex.get(authorKey);
+            int size = list == BookSlabs.NO_RECORD ? 0 : slabs.listSize(list);
+            for (int i = 0; i < size; i++) {
+                booksByAuthor.add(slabs.read(slabs.listAddress(list, i)));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return booksByAuthor;
+    }
+
+    /*
+    Inserts the record into its author's list at its ISBN's position, moving the list when
+    it is full.
+     */
+    private void linkAuthor(long address, byte[] authorKey, byte[] isbnKey) {
+        long list = authorIndex.get(authorKey);
+        if (list == BookSlabs.NO_RECORD) {
+            list = slabs.allocateList(INITIAL_AUTHOR_CAPACITY);
+            slabs.insertListAddress(list, 0, address);
+            authorIndex.put(authorKey, list);
+            return;
+        }
+        int position = -findIsbn(list, isbnKey) - 1;
+        if (slabs.listSize(list) == slabs.listCapacity(list)) {
+            list = slabs.growList(list);
+            authorIndex.put(authorKey, list);
+        }
+        slabs.insertListAddress(list, position, address);
+    }
+
+    /*
+    Takes the record out of its author's list, dropping the list with its last record.
+     */
+    private void unlinkAuthor(byte[] authorKey, byte[] isbnKey) {
+        long list = authorIndex.get(authorKey);
+        int position = findIsbn(list, isbnKey);
+        if (slabs.listSize(list) == 1) {
+            authorIndex.remove(authorKey);
+            slabs.release(list);
+        } else {
+            slabs.removeListAddress(list, position);
+        }
+    }
+
+    /*
+    Binary search of the author's list, the position of the ISBN or -(insertion point) - 1
+    like Arrays.binarySearch.
+     */
+    private int findIsbn(long list, byte[] isbnKey) {
+        int low = 0;
+        int high = slabs.listSize(list) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int byIsbn = slabs.compareIsbn(slabs.listAddress(list, middle), isbnKey);
+            if (byIsbn < 0) {
+                low = middle + 1;
+            } else if (byIsbn > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void publish(BookChangeEvent event) {
+        for (BookChangeListener listener : listeners) {
+            try {
+                listener.onBookChange(event);
+            } catch (RuntimeException e) {
+                log.error("Book change listener failed for event={}", event, e);
+            }
+        }
+    }
+
+    private void publish(List<BookChangeEvent> events) {
+        for (BookChangeListener listener : listeners) {
+            try {
+                listener.onBookChanges(events);
+            } catch (RuntimeException e) {
+                log.error("Book change listener failed for a batch of events={}", events.size(), e);
+            }
+        }
+    }
+}
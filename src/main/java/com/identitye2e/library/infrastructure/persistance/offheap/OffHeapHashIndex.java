@@ -0,0 +1,151 @@
+package com.identitye2e.library.infrastructure.persistance.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.function.LongConsumer;
+
+/*
+Open-addressing hash table from a UTF-8 key to a record address, held in a direct buffer.
+Keys are not stored in the table: every slot keeps the key's hash and the address of a
+record holding the key, and the matcher compares a candidate record with the probed key.
+Collisions are resolved by linear probing, removed slots become tombstones and the table
+is rebuilt once live and dead slots pass the load factor.
+
+Not thread-safe, OffHeapBookRepository guards it with its store lock.
+ */
+class OffHeapHashIndex {
+    @FunctionalInterface
+    interface KeyMatcher {
+        boolean matches(long address, byte[] key);
+    }
+
+    private static final int SLOT_BYTES = 16;
+    private static final int HASH_OFFSET = 8;
+    private static final long TOMBSTONE = -1;
+    private static final double MAX_LOAD = 0.75;
+    private static final int MAX_CAPACITY = 1 << 26;
+    private final KeyMatcher matcher;
+    private ByteBuffer slots;
+    private int capacity;
+    private int size;
+    private int usedSlots;
+
+    OffHeapHashIndex(int initialCapacity, KeyMatcher matcher) {
+        this.matcher = matcher;
+        this.capacity = Integer.highestOneBit(Math.max(16, initialCapacity - 1) << 1);
+        this.slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES);
+    }
+
+    long get(byte[] key) {
+        int slot = find(key, hash(key));
+        return slot < 0 ? BookSlabs.NO_RECORD : address(slot);
+    }
+
+    /*
+    Points the key at the address and returns the address it replaced.
+     */
+    long put(byte[] key, long address) {
+        int hash = hash(key);
+        int slot = find(key, hash);
+        if (slot >= 0) {
+            long previous = address(slot);
+            slots.putLong(slot * SLOT_BYTES, address);
+            return previous;
+        }
+        if ((usedSlots + 1) > capacity * MAX_LOAD) {
+            rehash(size + 1 > capacity * MAX_LOAD / 2 ? capacity << 1 : capacity);
+        }
+        insert(hash, address);
+        size++;
+        return BookSlabs.NO_RECORD;
+    }
+
+    long remove(byte[] key) {
+        int slot = find(key, hash(key));
+        if (slot < 0) {
+            return BookSlabs.NO_RECORD;
+        }
+        long previous = address(slot);
+        slots.putLong(slot * SLOT_BYTES, TOMBSTONE);
+        size--;
+        return previous;
+    }
+
+    void forEachAddress(LongConsumer action) {
+        for (int slot = 0; slot < capacity; slot++) {
+            long address = address(slot);
+            if (address != BookSlabs.NO_RECORD && address != TOMBSTONE) {
+                action.accept(address);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long reservedBytes() {
+        return (long) capacity * SLOT_BYTES;
+    }
+
+    private int find(byte[] key, int hash) {
+        int mask = capacity - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            long address = address(slot);
+            if (address == BookSlabs.NO_RECORD) {
+                return -1;
+            }
+            if (address != TOMBSTONE && slots.getInt(slot * SLOT_BYTES + HASH_OFFSET) == hash && matcher.matches(address, key)) {
+                return slot;
+            }
+        }
+    }
+
+    private void insert(int hash, long address) {
+        int mask = capacity - 1;
+        int slot = hash & mask;
+        while (address(slot) != BookSlabs.NO_RECORD && address(slot) != TOMBSTONE) {
+            slot = (slot + 1) & mask;
+        }
+        if (address(slot) == BookSlabs.NO_RECORD) {
+            usedSlots++;
+        }
+        slots.putLong(slot * SLOT_BYTES, address);
+        slots.putInt(slot * SLOT_BYTES + HASH_OFFSET, hash);
+    }
+
+    private void rehash(int newCapacity) {
+        if (newCapacity > MAX_CAPACITY) {
+            throw new IllegalStateException("Off-heap index cannot grow beyond %d slots".formatted(MAX_CAPACITY));
+        }
+        ByteBuffer oldSlots = slots;
+        int oldCapacity = capacity;
+        slots = ByteBuffer.allocateDirect(newCapacity * SLOT_BYTES);
+        capacity = newCapacity;
+        usedSlots = 0;
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            long address = oldSlots.getLong(slot * SLOT_BYTES);
+            if (address != BookSlabs.NO_RECORD && address != TOMBSTONE) {
+                insert(oldSlots.getInt(slot * SLOT_BYTES + HASH_OFFSET), address);
+            }
+        }
+    }
+
+    private long address(int slot) {
+        return slots.getLong(slot * SLOT_BYTES);
+    }
+
+    /*
+    FNV-1a over the UTF-8 bytes with a final avalanche, linear probing needs the low bits
+    to be well mixed.
+     */
+    static int hash(byte[] key) {
+        int hash = 0x811C9DC5;
+        for (byte b : key) {
+            hash = (hash ^ b) * 0x01000193;
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+}
@@ -0,0 +1,137 @@
+package com.identitye2e.library.infrastructure.query;
+
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.query.BookQuery;
+import com.identitye2e.library.book.query.BookQueryEngine;
+import com.identitye2e.library.book.query.QueryPlan.AccessPath;
+import com.identitye2e.library.book.query.QueryPlan.Index;
+import com.identitye2e.library.book.query.QueryPlan;
+import com.identitye2e.library.book.repository.BookRepository;
+import com.identitye2e.library.book.search.PublicationYearIndex;
+import com.identitye2e.library.book.search.YearPosition;
+import com.identitye2e.library.infrastructure.search.AvailabilityIndex;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/*
+Runs book queries by reading candidates through the most selective index one of the query's
+conjuncts can use and checking every candidate against the whole query. The repository
+answers ISBN and author lookups, the year and availability indexes answer the rest. Only a
+query none of them can serve is run as a scan, which copies the store once and filters the
+copy in parallel.
+
+Selectivity is estimated per conjunct from exact counts where they are cheap: an ISBN matches
+at most one book, and the year and availability indexes count their ranges without reading
+any book. The author index has no count, it is probed for one more book than the cheapest
+estimate so far, so a popular author never costs more than the path that beats it.
+
+Candidates are paged out of the indexes lazily and re-checked against the current book, so a
+change racing with the query can drop a book from the result but never add a wrong one.
+ */
+public class IndexSelectingQueryEngine implements BookQueryEngine {
+    static final int PAGE_SIZE = 1000;
+    private static final Comparator<AccessPath> CHEAPEST_FIRST = Comparator.comparingLong(AccessPath::estimatedBooks);
+    private final BookRepository bookRepository;
+    private final PublicationYearIndex publicationYearIndex;
+    private final AvailabilityIndex availabilityIndex;
+
+    public IndexSelectingQueryEngine(BookRepository bookRepository, PublicationYearIndex publicationYearIndex,
+                                     AvailabilityIndex availabilityIndex) {
+        this.bookRepository = bookRepository;
+        this.publicationYearIndex = publicationYearIndex;
+        this.availabilityIndex = availabilityIndex;
+    }
+
+    @Override
+    public List<Book> execute(BookQuery query, int limit) {
+        if (limit < 1) {
+            return List.of();
+        }
+        AccessPath accessPath = explain(query).accessPath();
+        if (accessPath.index() == Index.PARALLEL_SCAN) {
+            List<Book> books = new ArrayList<>(availabilityIndex.size());
+            bookRepository.forEachBook(books::add);
+            return books.parallelStream()
+                    .unordered()
+                    .filter(query::matches)
+                    .limit(limit)
+                    .toList();
+        }
+        return candidates(accessPath)
+                .filter(query::matches)
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public QueryPlan explain(BookQuery query) {
+        List<BookQuery> conjuncts = query instanceof BookQuery.And conjunction ? conjunction.operands() : List.of(query);
+        List<AccessPath> considered = new ArrayList<>();
+        long cheapest = availabilityIndex.size();
+        considered.add(new AccessPath(Index.PARALLEL_SCAN, null, cheapest));
+        List<BookQuery.AuthorIs> authors = new ArrayList<>();
+        for (BookQuery conjunct : conjuncts) {
+            AccessPath accessPath = switch (conjunct) {
+                case BookQuery.IsbnIs isbnIs -> new AccessPath(Index.ISBN, isbnIs, 1);
+                case BookQuery.PublishedBetween publishedBetween -> new AccessPath(Index.YEAR, publishedBetween,
+                        publicationYearIndex.count(publishedBetween.fromYear(), publishedBetween.toYear(), null));
+                case BookQuery.Available available -> new AccessPath(Index.AVAILABILITY, available,
+                        availabilityIndex.count(available.available()));
+                case BookQuery.AuthorIs authorIs -> {
+                    authors.add(authorIs);
+                    yield null;
+                }
+                case BookQuery.And conjunction -> null;
+            };
+            if (accessPath != null) {
+                considered.add(accessPath);
+                cheapest = Math.min(cheapest, accessPath.estimatedBooks());
+            }
+        }
+        for (BookQuery.AuthorIs authorIs : authors) {
+            int probeSize = (int) Math.min(cheapest + 1, Integer.MAX_VALUE);
+            long estimate = bookRepository.getByAuthor(authorIs.author(), null, probeSize).size();
+            considered.add(new AccessPath(Index.AUTHOR, authorIs, estimate));
+            cheapest = Math.min(cheapest, estimate);
+        }
+        considered.sort(CHEAPEST_FIRST);
+        return new QueryPlan(considered.get(0), query, List.copyOf(considered));
+    }
+
+    private Stream<Book> candidates(AccessPath accessPath) {
+        return switch (accessPath.predicate()) {
+            case BookQuery.IsbnIs isbnIs -> bookRepository.getByIsbn(isbnIs.isbn()).stream();
+            case BookQuery.AuthorIs authorIs -> authorBooks(authorIs.author());
+            case BookQuery.PublishedBetween publishedBetween -> yearIsbns(publishedBetween)
+                    .map(bookRepository::getByIsbn)
+                    .flatMap(Optional::stream);
+            case BookQuery.Available available -> availabilityIndex.isbns(available.available()).stream()
+                    .map(bookRepository::getByIsbn)
+                    .flatMap(Optional::stream);
+            case BookQuery.And conjunction -> throw new IllegalStateException("Conjunctions have no access path");
+        };
+    }
+
+    private Stream<Book> authorBooks(String author) {
+        return Stream.iterate(bookRepository.getByAuthor(author, null, PAGE_SIZE),
+                        page -> !page.isEmpty(),
+                        page -> page.size() < PAGE_SIZE ? List.of()
+                                : bookRepository.getByAuthor(author, page.get(page.size() - 1).getIsbn(), PAGE_SIZE))
+                .flatMap(List::stream);
+    }
+
+    private Stream<String> yearIsbns(BookQuery.PublishedBetween publishedBetween) {
+        int fromYear = publishedBetween.fromYear();
+        int toYear = publishedBetween.toYear();
+        return Stream.iterate(publicationYearIndex.range(fromYear, toYear, null, null, PAGE_SIZE),
+                        page -> !page.isEmpty(),
+                        page -> page.size() < PAGE_SIZE ? List.of()
+                                : publicationYearIndex.range(fromYear, toYear, null, page.get(page.size() - 1), PAGE_SIZE))
+                .flatMap(List::stream)
+                .map(YearPosition::isbn);
+    }
+}
@@ -0,0 +1,67 @@
+package com.identitye2e.library.infrastructure.search;
+
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.repository.BookChangeEvent;
+import com.identitye2e.library.book.repository.BookChangeListener;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ISBNs of the books with copies on the shelf and of those with every copy out, kept apart so
+either side can be counted and enumerated without touching the other. A book only moves
+between the sets when its last copy is borrowed or its first one comes back, the other
+borrows and returns leave the index alone.
+ */
+public class AvailabilityIndex implements BookChangeListener {
+    private final Set<String> availableIsbns = ConcurrentHashMap.newKeySet();
+    private final Set<String> unavailableIsbns = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void onBookChange(BookChangeEvent event) {
+        Book previous = event.previous();
+        Book current = event.current();
+        if (previous != null && current != null && isAvailable(previous) == isAvailable(current)) {
+            return;
+        }
+        if (previous != null) {
+            isbnSet(isAvailable(previous)).remove(previous.getIsbn());
+        }
+        if (current != null) {
+            add(current);
+        }
+    }
+
+    /*
+    Seeds the index with a book already in the store.
+     */
+    public void add(Book book) {
+        isbnSet(isAvailable(book)).add(book.getIsbn());
+        isbnSet(!isAvailable(book)).remove(book.getIsbn());
+    }
+
+    public int count(boolean available) {
+        return isbnSet(available).size();
+    }
+
+    /*
+    Weakly consistent view, a book changing state during iteration may be missed or seen on
+    both sides. Callers re-check the books they read.
+     */
+    public Set<String> isbns(boolean available) {
+        return Collections.unmodifiableSet(isbnSet(available));
+    }
+
+    public int size() {
+        return availableIsbns.size() + unavailableIsbns.size();
+    }
+
+    private Set<String> isbnSet(boolean available) {
+        return available ? availableIsbns : unavailableIsbns;
+    }
+
+    private static boolean isAvailable(Book book) {
+        return book.getAvailableCopies() > 0;
+    }
+}
@@ -0,0 +1,157 @@
+package com.identitye2e.library.infrastructure.search;
+
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.repository.BookChangeEvent;
+import com.identitye2e.library.book.repository.BookChangeListener;
+import com.identitye2e.library.book.search.BookCompletionIndex;
+import com.identitye2e.library.book.search.Completion;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+Typeahead over titles and authors, one CompletionTrie per kind keyed by the folded text.
+Entries aggregate every book sharing the title or author and rank by available copies, so
+the most borrowable suggestions come first.
+
+Kept in sync from the repository's change events by applying each event as a delta, the
+previous version's contribution is taken out and the current one's added. Borrows and returns
+keep title and author, their net copy delta goes to the entries' atomic counters without
+taking the lock, so they never contend with each other or with lookups. A lookup first
+re-ranks the entries whose copies moved, when the write lock is free; otherwise it ranks by
+the counts of the last settle and still reports the current ones.
+ */
+public class BookAutocomplete implements BookCompletionIndex, BookChangeListener {
+    public static final int DEFAULT_MAX_COMPLETIONS = 10;
+    private static final Comparator<Completion> BEST_FIRST = Comparator.comparingLong(Completion::availableCopies).reversed()
+            .thenComparing(Comparator.comparingInt(Completion::books).reversed())
+            .thenComparing(Completion::text);
+    final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final int maxCompletions;
+    private final CompletionTrie titles;
+    private final CompletionTrie authors;
+
+    public BookAutocomplete() {
+        this(DEFAULT_MAX_COMPLETIONS);
+    }
+
+    public BookAutocomplete(int maxCompletions) {
+        this.maxCompletions = maxCompletions;
+        this.titles = new CompletionTrie(maxCompletions);
+        this.authors = new CompletionTrie(maxCompletions);
+    }
+
+    @Override
+    public void onBookChange(BookChangeEvent event) {
+        Book previous = event.previous();
+        Book current = event.current();
+        if (previous != null && current != null && previous.getTitle().equals(current.getTitle())
+                && previous.getAuthor().equals(current.getAuthor())) {
+            long availableCopiesDelta = (long) current.getAvailableCopies() - previous.getAvailableCopies();
+            if (availableCopiesDelta != 0) {
+                adjustCopies(titles, current.getTitle(), availableCopiesDelta);
+                adjustCopies(authors, current.getAuthor(), availableCopiesDelta);
+            }
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (previous != null && current != null) {
+                replace(titles, previous.getTitle(), current.getTitle(), previous.getAvailableCopies(), current.getAvailableCopies());
+                replace(authors, previous.getAuthor(), current.getAuthor(), previous.getAvailableCopies(), current.getAvailableCopies());
+            } else if (previous != null) {
+                apply(previous, -1);
+            } else {
+                apply(current, 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+    Adds a book already in the store when the index is created.
+     */
+    public void add(Book book) {
+        lock.writeLock().lock();
+        try {
+            apply(book, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Completion> complete(String prefix, int limit) {
+        String key = TermTokenizer.fold(prefix);
+        int count = Math.min(limit, maxCompletions);
+        if (key.isEmpty() || count < 1) {
+            return List.of();
+        }
+        settleRankings();
+        List<Completion> completions = new ArrayList<>(count * 2);
+        lock.readLock().lock();
+        try {
+            for (CompletionTrie.Entry entry : titles.top(key, count)) {
+                completions.add(toCompletion(Completion.Type.TITLE, entry));
+            }
+            for (CompletionTrie.Entry entry : authors.top(key, count)) {
+                completions.add(toCompletion(Completion.Type.AUTHOR, entry));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        completions.sort(BEST_FIRST);
+        return List.copyOf(completions.subList(0, Math.min(count, completions.size())));
+    }
+
+    private void settleRankings() {
+        if ((titles.hasUnsettled() || authors.hasUnsettled()) && lock.writeLock().tryLock()) {
+            try {
+                titles.settle();
+                authors.settle();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void apply(Book book, int sign) {
+        adjust(titles, book.getTitle(), sign, book.getAvailableCopies());
+        adjust(authors, book.getAuthor(), sign, book.getAvailableCopies());
+    }
+
+    private static void replace(CompletionTrie trie, String previousText, String currentText,
+                                int previousCopies, int currentCopies) {
+        String previousKey = TermTokenizer.fold(previousText);
+        String currentKey = TermTokenizer.fold(currentText);
+        if (previousKey.equals(currentKey)) {
+            if (!currentKey.isEmpty() && previousCopies != currentCopies) {
+                trie.adjust(currentKey, currentText, 0, (long) currentCopies - previousCopies);
+            }
+            return;
+        }
+        adjust(trie, previousText, -1, previousCopies);
+        adjust(trie, currentText, 1, currentCopies);
+    }
+
+    private static void adjustCopies(CompletionTrie trie, String text, long availableCopiesDelta) {
+        String key = TermTokenizer.fold(text);
+        if (!key.isEmpty()) {
+            trie.adjustCopies(key, availableCopiesDelta);
+        }
+    }
+
+    private static void adjust(CompletionTrie trie, String text, int sign, int availableCopies) {
+        String key = TermTokenizer.fold(text);
+        if (!key.isEmpty()) {
+            trie.adjust(key, text, sign, (long) sign * availableCopies);
+        }
+    }
+
+    private static Completion toCompletion(Completion.Type type, CompletionTrie.Entry entry) {
+        return new Completion(type, entry.text(), entry.books(), entry.availableCopies());
+    }
+}
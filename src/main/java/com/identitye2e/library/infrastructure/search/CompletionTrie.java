@@ -0,0 +1,391 @@
+package com.identitye2e.library.infrastructure.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+Radix trie from folded keys to ranked entries. Edges carry whole runs of characters, a chain
+of single-child nodes is never kept, so the trie holds about two nodes per key. Every node
+whose subtree holds more than topCount entries caches its best topCount entries, which makes
+a lookup the walk down the prefix plus a copy of that cache. Smaller subtrees are cheaper to
+walk than to cache and are ranked on the fly.
+
+A change to an entry refreshes sizes and caches on the path from its node to the root, each
+node merging the caches of its children, so an update costs the key's depth times the
+branching of the nodes on the way.
+
+Rankings compare the copies each entry had when its path was last refreshed. adjustCopies
+moves an entry's live count without any lock and queues the entry, settle later re-ranks the
+queued entries. Everything but adjustCopies needs BookAutocomplete's lock, settle and adjust
+its write lock.
+ */
+final class CompletionTrie {
+    /*
+    Ranked text under one key. The counters are adjusted in place, callers refresh the path
+    after every change. rankedCopies is the count the cached rankings were built with, it
+    trails availableCopies until the entry is settled.
+     */
+    static final class Entry {
+        private final String key;
+        private final String text;
+        private int books;
+        private final AtomicLong availableCopies = new AtomicLong();
+        private long rankedCopies;
+        private final AtomicBoolean unsettled = new AtomicBoolean();
+
+        private Entry(String key, String text) {
+            this.key = key;
+            this.text = text;
+        }
+
+        String text() {
+            return text;
+        }
+
+        int books() {
+            return books;
+        }
+
+        long availableCopies() {
+            return availableCopies.get();
+        }
+    }
+
+    static final Comparator<Entry> BEST_FIRST = CompletionTrie::compare;
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final char[] NO_FIRST_CHARS = new char[0];
+    private final int topCount;
+    private final Node root = new Node("");
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> unsettled = new ConcurrentLinkedQueue<>();
+    private int nodes = 1;
+
+    CompletionTrie(int topCount) {
+        this.topCount = topCount;
+    }
+
+    /*
+    Adds the deltas to the key's entry, creating it with the given text when the key is new
+    and dropping it once no book carries it any more.
+     */
+    void adjust(String key, String text, int booksDelta, long availableCopiesDelta) {
+        List<Node> path = new ArrayList<>();
+        Node node = descendOrCreate(key, path);
+        if (node.entry == null) {
+            node.entry = new Entry(key, text);
+            entries.put(key, node.entry);
+        }
+        Entry entry = node.entry;
+        entry.books += booksDelta;
+        entry.rankedCopies = entry.availableCopies.addAndGet(availableCopiesDelta);
+        if (entry.books <= 0) {
+            node.entry = null;
+            entries.remove(key);
+        }
+        refreshPath(path, entry, booksDelta == 0 && node.entry != null);
+    }
+
+    /*
+    Adds to the copies of a key that has an entry, without the caller's lock, and queues the
+    entry for settle. Lookups report the new count at once, rankings follow once settled.
+     */
+    void adjustCopies(String key, long availableCopiesDelta) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return;
+        }
+        entry.availableCopies.addAndGet(availableCopiesDelta);
+        if (entry.unsettled.compareAndSet(false, true)) {
+            unsettled.add(entry);
+        }
+    }
+
+    boolean hasUnsettled() {
+        return !unsettled.isEmpty();
+    }
+
+    /*
+    Re-ranks the entries whose copies moved through adjustCopies, refreshing each one's path
+    like an adjust that leaves the shape alone.
+     */
+    void settle() {
+        for (Entry entry = unsettled.poll(); entry != null; entry = unsettled.poll()) {
+            entry.unsettled.set(false);
+            long availableCopies = entry.availableCopies.get();
+            if (availableCopies != entry.rankedCopies && entries.get(entry.key) == entry) {
+                List<Node> path = new ArrayList<>();
+                descendOrCreate(entry.key, path);
+                entry.rankedCopies = availableCopies;
+                refreshPath(path, entry, true);
+            }
+        }
+    }
+
+    private void refreshPath(List<Node> path, Entry entry, boolean shapeUnchanged) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node current = path.get(i);
+            Node parent = i == 0 ? null : path.get(i - 1);
+            if (shapeUnchanged) {
+                boolean wasRanked = ranks(current, entry);
+                refresh(current);
+                if (current.top != null && !wasRanked && !ranks(current, entry)) {
+                    // Ancestors only rank entries their children rank, nothing above changes.
+                    return;
+                }
+                continue;
+            }
+            if (parent != null && current.entry == null && current.childCount == 0) {
+                parent.removeChild(current);
+                nodes--;
+                continue;
+            }
+            if (parent != null && current.entry == null && current.childCount == 1) {
+                current.absorbOnlyChild();
+                nodes--;
+            }
+            refresh(current);
+        }
+    }
+
+    /*
+    Best entries under the prefix, best first.
+     */
+    List<Entry> top(String prefix, int limit) {
+        Node node = root;
+        int matched = 0;
+        while (matched < prefix.length()) {
+            Node child = node.child(prefix.charAt(matched));
+            if (child == null) {
+                return List.of();
+            }
+            int common = commonPrefixLength(child.label, prefix, matched);
+            if (common < child.label.length() && matched + common < prefix.length()) {
+                return List.of();
+            }
+            matched += common;
+            node = child;
+        }
+        List<Entry> ranked = node.top != null ? Arrays.asList(node.top) : rankSubtree(node);
+        return List.copyOf(ranked.subList(0, Math.min(limit, ranked.size())));
+    }
+
+    int size() {
+        return root.size;
+    }
+
+    int nodes() {
+        return nodes;
+    }
+
+    private Node descendOrCreate(String key, List<Node> path) {
+        Node node = root;
+        path.add(node);
+        int matched = 0;
+        while (matched < key.length()) {
+            int index = node.childIndex(key.charAt(matched));
+            if (index < 0) {
+                Node leaf = new Node(key.substring(matched));
+                node.addChild(leaf);
+                nodes++;
+                path.add(leaf);
+                return leaf;
+            }
+            Node child = node.children[index];
+            int common = commonPrefixLength(child.label, key, matched);
+            if (common < child.label.length()) {
+                Node split = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                split.addChild(child);
+                split.size = child.size;
+                split.top = child.top;
+                node.children[index] = split;
+                nodes++;
+                child = split;
+            }
+            matched += common;
+            node = child;
+            path.add(node);
+        }
+        return node;
+    }
+
+    private void refresh(Node node) {
+        int size = node.entry == null ? 0 : 1;
+        for (int i = 0; i < node.childCount; i++) {
+            size += node.children[i].size;
+        }
+        node.size = size;
+        if (size <= topCount) {
+            node.top = null;
+            return;
+        }
+        Entry[] best = new Entry[topCount];
+        int count = 0;
+        if (node.entry != null) {
+            best[count++] = node.entry;
+        }
+        for (int i = 0; i < node.childCount; i++) {
+            Node child = node.children[i];
+            if (child.top != null) {
+                for (Entry candidate : child.top) {
+                    if (count == topCount && compare(candidate, best[count - 1]) >= 0) {
+                        break;
+                    }
+                    count = insert(best, count, candidate);
+                }
+            }
+        }
+        for (int i = 0; i < node.childCount; i++) {
+            Node child = node.children[i];
+            if (child.top == null) {
+                count = offerSubtree(child, best, count);
+            }
+        }
+        node.top = best;
+    }
+
+    /*
+    Offers every entry of a subtree too small to cache its ranking, unordered, so each is
+    checked against the current worst.
+     */
+    private static int offerSubtree(Node node, Entry[] best, int count) {
+        if (node.entry != null && (count < best.length || compare(node.entry, best[count - 1]) < 0)) {
+            count = insert(best, count, node.entry);
+        }
+        for (int i = 0; i < node.childCount; i++) {
+            count = offerSubtree(node.children[i], best, count);
+        }
+        return count;
+    }
+
+    /*
+    Inserts into the first count slots of best keeping them ranked, the worst entry falls
+    off once the array is full. Returns the new count.
+     */
+    private static int insert(Entry[] best, int count, Entry candidate) {
+        int position = count;
+        while (position > 0 && compare(candidate, best[position - 1]) < 0) {
+            position--;
+        }
+        int last = Math.min(count, best.length - 1);
+        System.arraycopy(best, position, best, position + 1, last - position);
+        best[position] = candidate;
+        return Math.min(count + 1, best.length);
+    }
+
+    private static boolean ranks(Node node, Entry entry) {
+        if (node.top == null) {
+            return false;
+        }
+        for (Entry ranked : node.top) {
+            if (ranked == entry) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int compare(Entry first, Entry second) {
+        int byCopies = Long.compare(second.rankedCopies, first.rankedCopies);
+        if (byCopies != 0) {
+            return byCopies;
+        }
+        int byBooks = Integer.compare(second.books, first.books);
+        return byBooks != 0 ? byBooks : first.text.compareTo(second.text);
+    }
+
+    private List<Entry> rankSubtree(Node node) {
+        List<Entry> entries = new ArrayList<>(node.size);
+        collect(node, entries);
+        entries.sort(BEST_FIRST);
+        return entries;
+    }
+
+    private static void collect(Node node, List<Entry> entries) {
+        if (node.entry != null) {
+            entries.add(node.entry);
+        }
+        for (int i = 0; i < node.childCount; i++) {
+            collect(node.children[i], entries);
+        }
+    }
+
+    private static int commonPrefixLength(String label, String key, int from) {
+        int length = Math.min(label.length(), key.length() - from);
+        int common = 0;
+        while (common < length && label.charAt(common) == key.charAt(from + common)) {
+            common++;
+        }
+        return common;
+    }
+
+    private static final class Node {
+        private String label;
+        private char[] firstChars = NO_FIRST_CHARS;
+        private Node[] children = NO_CHILDREN;
+        private int childCount;
+        private Entry entry;
+        private int size;
+        private Entry[] top;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        private Node child(char firstChar) {
+            int index = childIndex(firstChar);
+            return index < 0 ? null : children[index];
+        }
+
+        private int childIndex(char firstChar) {
+            int index = Arrays.binarySearch(firstChars, 0, childCount, firstChar);
+            return index < 0 ? -1 : index;
+        }
+
+        private void addChild(Node child) {
+            char firstChar = child.label.charAt(0);
+            int insertAt = -Arrays.binarySearch(firstChars, 0, childCount, firstChar) - 1;
+            if (childCount == children.length) {
+                int capacity = Math.max(2, childCount << 1);
+                firstChars = Arrays.copyOf(firstChars, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(firstChars, insertAt, firstChars, insertAt + 1, childCount - insertAt);
+            System.arraycopy(children, insertAt, children, insertAt + 1, childCount - insertAt);
+            firstChars[insertAt] = firstChar;
+            children[insertAt] = child;
+            childCount++;
+        }
+
+        private void removeChild(Node child) {
+            int index = childIndex(child.label.charAt(0));
+            System.arraycopy(firstChars, index + 1, firstChars, index, childCount - index - 1);
+            System.arraycopy(children, index + 1, children, index, childCount - index - 1);
+            childCount--;
+            children[childCount] = null;
+        }
+
+        /*
+        Merges the only child into this node, keeping the trie compressed after removals.
+        The first character of the label does not change, so the parent's lookup still holds.
+         */
+        private void absorbOnlyChild() {
+            Node child = children[0];
+            label = label + child.label;
+            firstChars = child.firstChars;
+            children = child.children;
+            childCount = child.childCount;
+            entry = child.entry;
+            size = child.size;
+            top = child.top;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.identitye2e.library.infrastructure.search;
+
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.repository.BookChangeEvent;
+import com.identitye2e.library.book.repository.BookChangeListener;
+import com.identitye2e.library.book.search.BookSearchIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+In-memory inverted index over book titles and authors, kept up to date incrementally from the
+repository's change events. Every indexed book gets a document id, ids are handed out in
+increasing order so each term's posting list stays sorted by id just by appending, and a book
+whose title or author changes is re-indexed under a fresh id.
+
+A query matches the documents that contain all of its terms. Posting lists are intersected
+starting from the shortest, the longer lists are skipped through with a galloping search.
+Matches are ranked by tf-idf, title terms weighing more than author terms and the score being
+normalised by the document's length, and only the best limit matches are kept in a bounded
+heap rather than sorting every match.
+
+Documents keep the book's ISBN and its terms, never the book itself, callers read matches
+back from the store. Borrows and returns leave title and author alone, so their events are
+dropped before any lock is taken and never contend with each other or with searches.
+Searches share a read lock and the remaining index updates take the write lock.
+ */
+public class InvertedBookIndex implements BookSearchIndex, BookChangeListener {
+    static final int TITLE_WEIGHT = 3;
+    static final int AUTHOR_WEIGHT = 1;
+    private static final int INITIAL_DOCUMENTS = 1024;
+    private static final Comparator<ScoredDocument> WORST_FIRST = Comparator.comparingDouble(ScoredDocument::score)
+            .thenComparing(ScoredDocument::isbn, Comparator.reverseOrder());
+    final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postingsByTerm = new HashMap<>();
+    private final Map<String, Integer> documentsByIsbn = new HashMap<>();
+    private String[] documentIsbns = new String[INITIAL_DOCUMENTS];
+    private String[][] documentTerms = new String[INITIAL_DOCUMENTS][];
+    private int[] documentLengths = new int[INITIAL_DOCUMENTS];
+    private int nextDocument;
+
+    @Override
+    public void onBookChange(BookChangeEvent event) {
+        if (event.type() == BookChangeEvent.Type.UPDATED && event.previous() != null
+                && sameText(event.previous(), event.current())) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Integer document = documentsByIsbn.get(event.isbn());
+            switch (event.type()) {
+                case CREATED, UPDATED -> {
+                    if (document != null) {
+                        unindex(document);
+                    }
+                    index(event.current());
+                }
+                case DELETED -> {
+                    if (document != null) {
+                        unindex(document);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+    Seeds the index with a book already in the store when the index is created, a change
+    event that got in first wins.
+     */
+    public void indexIfAbsent(Book book) {
+        lock.writeLock().lock();
+        try {
+            if (!documentsByIsbn.containsKey(book.getIsbn())) {
+                index(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<String> search(String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(TermTokenizer.tokenize(query)));
+        if (terms.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        PriorityQueue<ScoredDocument> topMatches = new PriorityQueue<>(limit + 1, WORST_FIRST);
+        lock.readLock().lock();
+        try {
+            Postings[] postings = new Postings[terms.size()];
+            for (int i = 0; i < postings.length; i++) {
+                postings[i] = postingsByTerm.get(terms.get(i));
+                if (postings[i] == null) {
+                    return List.of();
+                }
+            }
+            Arrays.sort(postings, Comparator.comparingInt(Postings::size));
+            double[] idf = new double[postings.length];
+            for (int i = 0; i < postings.length; i++) {
+                idf[i] = Math.log(1 + (double) documentsByIsbn.size() / postings[i].size());
+            }
+            collectTopMatches(postings, idf, limit, topMatches);
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<ScoredDocument> matches = new ArrayList<>(topMatches);
+        matches.sort(WORST_FIRST.reversed());
+        return matches.stream().map(ScoredDocument::isbn).toList();
+    }
+
+    private void collectTopMatches(Postings[] postings, double[] idf, int limit, PriorityQueue<ScoredDocument> topMatches) {
+        Postings shortest = postings[0];
+        int[] cursors = new int[postings.length];
+        candidates:
+        for (int i = 0; i < shortest.size; i++) {
+            int document = shortest.documents[i];
+            double score = idf[0] * shortest.weights[i];
+            for (int j = 1; j < postings.length; j++) {
+                int position = postings[j].advance(cursors[j], document);
+                cursors[j] = position;
+                if (position == postings[j].size) {
+                    return;
+                }
+                if (postings[j].documents[position] != document) {
+                    continue candidates;
+                }
+                score += idf[j] * postings[j].weights[position];
+            }
+            ScoredDocument candidate = new ScoredDocument(documentIsbns[document], score / Math.sqrt(documentLengths[document]));
+            if (topMatches.size() < limit) {
+                topMatches.add(candidate);
+            } else if (WORST_FIRST.compare(candidate, topMatches.peek()) > 0) {
+                topMatches.poll();
+                topMatches.add(candidate);
+            }
+        }
+    }
+
+    private void index(Book book) {
+        Map<String, Integer> termWeights = termWeights(book);
+        int document = nextDocument++;
+        if (document == documentIsbns.length) {
+            documentIsbns = Arrays.copyOf(documentIsbns, document << 1);
+            documentTerms = Arrays.copyOf(documentTerms, document << 1);
+            documentLengths = Arrays.copyOf(documentLengths, document << 1);
+        }
+        documentIsbns[document] = book.getIsbn();
+        documentTerms[document] = termWeights.keySet().toArray(String[]::new);
+        documentLengths[document] = Math.max(1, termWeights.values().stream().mapToInt(Integer::intValue).sum());
+        termWeights.forEach((term, weight) -> postingsByTerm.computeIfAbsent(term, key -> new Postings()).append(document, weight));
+        documentsByIsbn.put(book.getIsbn(), document);
+    }
+
+    private void unindex(int document) {
+        for (String term : documentTerms[document]) {
+            Postings postings = postingsByTerm.get(term);
+            postings.remove(document);
+            if (postings.size == 0) {
+                postingsByTerm.remove(term);
+            }
+        }
+        documentsByIsbn.remove(documentIsbns[document]);
+        documentIsbns[document] = null;
+        documentTerms[document] = null;
+    }
+
+    private static Map<String, Integer> termWeights(Book book) {
+        Map<String, Integer> termWeights = new LinkedHashMap<>();
+        for (String term : TermTokenizer.tokenize(book.getTitle())) {
+            termWeights.merge(term, TITLE_WEIGHT, Integer::sum);
+        }
+        for (String term : TermTokenizer.tokenize(book.getAuthor())) {
+            termWeights.merge(term, AUTHOR_WEIGHT, Integer::sum);
+        }
+        return termWeights;
+    }
+
+    private static boolean sameText(Book previous, Book current) {
+        return previous.getAuthor().equals(current.getAuthor()) && previous.getTitle().equals(current.getTitle());
+    }
+
+    private record ScoredDocument(String isbn, double score) {
+    }
+
+    /*
+    Document ids in ascending order with the term's weight in each document.
+     */
+    private static final class Postings {
+        private int[] documents = new int[4];
+        private int[] weights = new int[4];
+        private int size;
+
+        private int size() {
+            return size;
+        }
+
+        private void append(int document, int weight) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size << 1);
+                weights = Arrays.copyOf(weights, size << 1);
+            }
+            documents[size] = document;
+            weights[size] = weight;
+            size++;
+        }
+
+        private void remove(int document) {
+            int position = Arrays.binarySearch(documents, 0, size, document);
+            if (position >= 0) {
+                System.arraycopy(documents, position + 1, documents, position, size - position - 1);
+                System.arraycopy(weights, position + 1, weights, position, size - position - 1);
+                size--;
+            }
+        }
+
+        /*
+        Position of the first document >= target at or after from, size if there is none.
+        Gallops ahead in doubling steps and binary searches the last step, so skipping far
+        through a long list costs a logarithm of the distance.
+         */
+        private int advance(int from, int target) {
+            int low = from;
+            int high = from;
+            int step = 1;
+            while (high < size && documents[high] < target) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            int position = Arrays.binarySearch(documents, low, Math.min(high + 1, size), target);
+            return position >= 0 ? position : -position - 1;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.identitye2e.library.infrastructure.search;
+
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.model.Isbn;
+import com.identitye2e.library.book.model.StringDictionary;
+import com.identitye2e.library.book.repository.BookChangeEvent;
+import com.identitye2e.library.book.repository.BookChangeListener;
+import com.identitye2e.library.book.search.PublicationYearIndex;
+import com.identitye2e.library.book.search.YearPosition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+Ordered index of books by publication year. Years are the keys of a TreeMap and every year
+holds its books as a sorted array of encoded ISBNs with the author ids alongside, so a range
+scan is a walk over consecutive years and, within a year, over a primitive array. Counting a
+range without an author only adds up the sizes of its years.
+
+Only the year, ISBN and author of a book are kept, borrows and returns leave the index alone
+and callers read the books back from the repository. Books without a publication year are not
+indexed.
+
+Author ids come from a StringDictionary, the repository's when it is shared so names are not
+kept twice.
+
+Queries share a read lock and updates take the write lock.
+ */
+public class SortedYearIndex implements PublicationYearIndex, BookChangeListener {
+    private static final int ANY_AUTHOR = -2;
+    private static final int INITIAL_YEAR_CAPACITY = 16;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<Integer, YearBooks> years = new TreeMap<>();
+    private final StringDictionary authors;
+
+    public SortedYearIndex() {
+        this(new StringDictionary());
+    }
+
+    public SortedYearIndex(StringDictionary authors) {
+        this.authors = authors;
+    }
+
+    @Override
+    public void onBookChange(BookChangeEvent event) {
+        Book previous = event.previous();
+        Book current = event.current();
+        if (previous != null && current != null && Objects.equals(previous.getPublicationYear(), current.getPublicationYear())
+                && Objects.equals(previous.getAuthor(), current.getAuthor())) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (previous != null) {
+                remove(previous);
+            }
+            if (current != null) {
+                add(current);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+    Seeds the index with books already in the store. They are added in ISBN order, so every
+    insert appends to its year instead of shifting the array.
+     */
+    public void addAll(Collection<Book> books) {
+        List<Book> sorted = new ArrayList<>(books);
+        sorted.sort(Comparator.comparing(Book::getIsbn));
+        lock.writeLock().lock();
+        try {
+            sorted.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<YearPosition> range(int fromYear, int toYear, String author, YearPosition after, int limit) {
+        int authorId = authorId(author);
+        if (authorId == StringDictionary.NOT_FOUND || limit < 1) {
+            return List.of();
+        }
+        List<YearPosition> positions = new ArrayList<>(Math.min(limit, INITIAL_YEAR_CAPACITY));
+        lock.readLock().lock();
+        try {
+            int startYear = after == null ? fromYear : Math.max(fromYear, after.year());
+            if (startYear > toYear) {
+                return List.of();
+            }
+            for (Map.Entry<Integer, YearBooks> entry : years.subMap(startYear, true, toYear, true).entrySet()) {
+                YearBooks yearBooks = entry.getValue();
+                int start = after != null && entry.getKey() == after.year() ? yearBooks.indexAfter(Isbn.encode(after.isbn())) : 0;
+                for (int i = start; i < yearBooks.size; i++) {
+                    if (authorId == ANY_AUTHOR || yearBooks.authorIds[i] == authorId) {
+                        positions.add(new YearPosition(entry.getKey(), Isbn.decode(yearBooks.isbns[i])));
+                        if (positions.size() == limit) {
+                            return positions;
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return positions;
+    }
+
+    @Override
+    public int count(int fromYear, int toYear, String author) {
+        int authorId = authorId(author);
+        if (authorId == StringDictionary.NOT_FOUND || fromYear > toYear) {
+            return 0;
+        }
+        int count = 0;
+        lock.readLock().lock();
+        try {
+            for (YearBooks yearBooks : years.subMap(fromYear, true, toYear, true).values()) {
+                count += authorId == ANY_AUTHOR ? yearBooks.size : yearBooks.count(authorId);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return count;
+    }
+
+    private void add(Book book) {
+        if (book.getPublicationYear() != null) {
+            years.computeIfAbsent(book.getPublicationYear(), year -> new YearBooks())
+                    .add(Isbn.encode(book.getIsbn()), authors.intern(book.getAuthor()));
+        }
+    }
+
+    private void remove(Book book) {
+        if (book.getPublicationYear() == null) {
+            return;
+        }
+        YearBooks yearBooks = years.get(book.getPublicationYear());
+        if (yearBooks != null && yearBooks.remove(Isbn.encode(book.getIsbn())) && yearBooks.size == 0) {
+            years.remove(book.getPublicationYear());
+        }
+    }
+
+    private int authorId(String author) {
+        return author == null ? ANY_AUTHOR : authors.find(author);
+    }
+
+    /*
+    Books of one year, ordered by encoded ISBN. Canonical ISBNs all have 13 digits, so this is
+    also their lexicographic order.
+     */
+    private static final class YearBooks {
+        private long[] isbns = new long[INITIAL_YEAR_CAPACITY];
+        private int[] authorIds = new int[INITIAL_YEAR_CAPACITY];
+        private int size;
+
+        private void add(long isbn, int authorId) {
+            int index = size == 0 || isbn > isbns[size - 1] ? -size - 1 : Arrays.binarySearch(isbns, 0, size, isbn);
+            if (index >= 0) {
+                authorIds[index] = authorId;
+                return;
+            }
+            int insertAt = -index - 1;
+            if (size == isbns.length) {
+                isbns = Arrays.copyOf(isbns, size << 1);
+                authorIds = Arrays.copyOf(authorIds, size << 1);
+            }
+            System.arraycopy(isbns, insertAt, isbns, insertAt + 1, size - insertAt);
+            System.arraycopy(authorIds, insertAt, authorIds, insertAt + 1, size - insertAt);
+            isbns[insertAt] = isbn;
+            authorIds[insertAt] = authorId;
+            size++;
+        }
+
+        private boolean remove(long isbn) {
+            int index = Arrays.binarySearch(isbns, 0, size, isbn);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(isbns, index + 1, isbns, index, size - index - 1);
+            System.arraycopy(authorIds, index + 1, authorIds, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        private int indexAfter(long isbn) {
+            int index = Arrays.binarySearch(isbns, 0, size, isbn);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+
+        private int count(int authorId) {
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (authorIds[i] == authorId) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.identitye2e.library.infrastructure.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/*
+Splits text into search terms: accents are folded away, text is lower-cased and cut at every
+character that is not a letter or digit, and a handful of English stop words is dropped.
+Titles and queries go through the same tokenizer so that they meet on the same terms.
+ */
+final class TermTokenizer {
+    private static final Set<String> STOP_WORDS = Set.of("a", "an", "and", "in", "of", "on", "the", "to");
+
+    private TermTokenizer() {
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD).toLowerCase(Locale.ROOT);
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                term.append(c);
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                addTerm(terms, term);
+            }
+        }
+        addTerm(terms, term);
+        return terms;
+    }
+
+    /*
+    The whole text folded the same way as its terms, with every run of other characters
+    collapsed into a single space. Used as the key of prefix lookups.
+     */
+    static String fold(String text) {
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD).toLowerCase(Locale.ROOT);
+        StringBuilder key = new StringBuilder(folded.length());
+        boolean separator = false;
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (separator && !key.isEmpty()) {
+                    key.append(' ');
+                }
+                key.append(c);
+                separator = false;
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                separator = true;
+            }
+        }
+        return key.toString();
+    }
+
+    private static void addTerm(List<String> terms, StringBuilder term) {
+        if (!term.isEmpty()) {
+            String value = term.toString();
+            if (!STOP_WORDS.contains(value)) {
+                terms.add(value);
+            }
+            term.setLength(0);
+        }
+    }
+}
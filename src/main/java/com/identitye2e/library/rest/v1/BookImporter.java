@@ -0,0 +1,133 @@
+package com.identitye2e.library.rest.v1;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.model.Isbn;
+import com.identitye2e.library.book.service.BookService;
+import com.identitye2e.library.rest.v1.request.BookRequest;
+import com.identitye2e.library.rest.v1.response.ImportSummaryResponse.ImportErrorResponse;
+import com.identitye2e.library.rest.v1.response.ImportSummaryResponse;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/*
+Reads BookRequests one at a time from NDJSON or a JSON array, so the body is never buffered
+as a whole, and hands them to the BookService in batches. Records are numbered from 1 in
+the order they appear, for NDJSON that is the line number.
+ */
+@Slf4j
+class BookImporter {
+    static final int BATCH_SIZE = 1000;
+    static final int MAX_REPORTED_ERRORS = 1000;
+    private final BookService bookService;
+    private final Validator validator;
+    private final ObjectReader bookRequestReader;
+
+    BookImporter(BookService bookService, Validator validator, ObjectMapper objectMapper) {
+        this.bookService = bookService;
+        this.validator = validator;
+        this.bookRequestReader = objectMapper.readerFor(BookRequest.class);
+    }
+
+    ImportSummaryResponse importBooks(InputStream body) throws IOException {
+        Summary summary = new Summary();
+        List<Book> batch = new ArrayList<>(BATCH_SIZE);
+        Map<Book, Long> recordsByBook = new IdentityHashMap<>(BATCH_SIZE);
+        long record = 0;
+        try (MappingIterator<BookRequest> bookRequests = bookRequestReader.readValues(body)) {
+            while (true) {
+                BookRequest bookRequest;
+                try {
+                    if (!bookRequests.hasNextValue()) {
+                        break;
+                    }
+                    record++;
+                    bookRequest = bookRequests.nextValue();
+                } catch (JsonProcessingException e) {
+                    summary.fail(record, "import.malformed.record", e.getOriginalMessage());
+                    break;
+                }
+                Book book = toBook(record, bookRequest, summary);
+                if (book != null) {
+                    batch.add(book);
+                    recordsByBook.put(book, record);
+                }
+                if (batch.size() == BATCH_SIZE) {
+                    flush(batch, recordsByBook, summary);
+                }
+            }
+        }
+        flush(batch, recordsByBook, summary);
+        log.info("Imported books={} failed={}", summary.imported, summary.failed);
+        return summary.toResponse();
+    }
+
+    private Book toBook(long record, BookRequest bookRequest, Summary summary) {
+        Set<ConstraintViolation<BookRequest>> violations = validator.validate(bookRequest);
+        if (!violations.isEmpty()) {
+            summary.fail(record, "import.validation.failed", violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+            return null;
+        }
+        String isbn;
+        try {
+            isbn = Isbn.normalize(bookRequest.getIsbn());
+        } catch (IllegalArgumentException e) {
+            summary.fail(record, "isbn.invalid", e.getMessage());
+            return null;
+        }
+        try {
+            return new Book(isbn, bookRequest.getTitle(), bookRequest.getAuthor(),
+                    bookRequest.getPublicationYear(), bookRequest.getAvailableCopies(), bookRequest.getAvailableCopies());
+        } catch (IllegalArgumentException e) {
+            summary.fail(record, "import.validation.failed", e.getMessage());
+            return null;
+        }
+    }
+
+    private void flush(List<Book> batch, Map<Book, Long> recordsByBook, Summary summary) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Book> duplicates = bookService.addBooks(batch);
+        summary.imported += batch.size() - duplicates.size();
+        for (Book duplicate : duplicates) {
+            summary.fail(recordsByBook.get(duplicate), "book.duplicate.exists",
+                    "Book with ISBN %s already exists.".formatted(duplicate.getIsbn()));
+        }
+        batch.clear();
+        recordsByBook.clear();
+    }
+
+    private static class Summary {
+        private long imported;
+        private long failed;
+        private final List<ImportErrorResponse> errors = new ArrayList<>();
+
+        private void fail(long record, String code, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportErrorResponse(record, code, message));
+            }
+        }
+
+        private ImportSummaryResponse toResponse() {
+            return new ImportSummaryResponse(imported, failed, errors);
+        }
+    }
+}
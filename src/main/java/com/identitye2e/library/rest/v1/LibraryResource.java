@@ -1,101 +1,456 @@
 package com.identitye2e.library.rest.v1;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.identitye2e.library.book.availability.AvailabilityFeed;
 import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.model.BookPage;
+import com.identitye2e.library.book.model.Isbn;
+import com.identitye2e.library.book.query.BookQuery;
+import com.identitye2e.library.book.search.YearPosition;
+import com.identitye2e.library.book.search.YearRangePage;
+import com.identitye2e.library.book.service.AsyncBookService;
 import com.identitye2e.library.book.service.BookService;
 import com.identitye2e.library.book.service.exceptions.BookAlreadyExistsException;
 import com.identitye2e.library.book.service.exceptions.BookNotFoundException;
-import com.identitye2e.library.book.service.exceptions.InsufficientBookCopiesException;
-import com.identitye2e.library.book.service.exceptions.ReturnExceededException;
 import com.identitye2e.library.rest.v1.request.BookRequest;
+import com.identitye2e.library.rest.v1.request.CheckoutRequest;
+import com.identitye2e.library.rest.v1.response.AvailabilityResponse;
+import com.identitye2e.library.rest.v1.response.BookPageResponse;
 import com.identitye2e.library.rest.v1.response.BookResponse;
+import com.identitye2e.library.rest.v1.response.CheckoutResponse;
+import com.identitye2e.library.rest.v1.response.CompletionResponse;
+import com.identitye2e.library.rest.v1.response.ErrorListResponse;
+import com.identitye2e.library.rest.v1.response.ImportSummaryResponse;
+import com.identitye2e.library.rest.v1.response.QueryPlanResponse;
 import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Validator;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 
+/*
+Point lookups and availability changes are served asynchronously: the request is suspended,
+the work runs on the AsyncBookService executors and the container thread goes back to the
+pool until the result resumes the response. Input is still validated on the container
+thread, so malformed requests fail before anything is queued.
+
+A single instance serves every request, the importer and the JSON writers are built once. All
+its state is immutable.
+ */
+@Singleton
 @Path("/v1")
 @Consumes(MediaType.APPLICATION_JSON)
 @Produces(MediaType.APPLICATION_JSON)
 @Slf4j
 public class LibraryResource {
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int DEFAULT_SEARCH_LIMIT = 20;
+    static final int DEFAULT_COMPLETION_LIMIT = 10;
+    /*
+    Kept below the 30s Jetty idle timeout, so a waiting borrow always gets its answer.
+     */
+    static final int MAX_BORROW_WAIT_SECONDS = 20;
+    static final int MAX_STREAM_SUBSCRIPTIONS = 1000;
     private final BookService bookService;
+    private final AsyncBookService asyncBookService;
+    private final AvailabilityFeed availabilityFeed;
     private final Validator validator;
+    private final BookImporter bookImporter;
+    private final ObjectWriter bookResponseWriter;
+    private final ObjectWriter availabilityResponseWriter;
 
     @Inject
-    public LibraryResource(BookService bookService, Validator validator) {
+    public LibraryResource(BookService bookService, AsyncBookService asyncBookService, AvailabilityFeed availabilityFeed,
+                           Validator validator, ObjectMapper objectMapper) {
         this.bookService = bookService;
+        this.asyncBookService = asyncBookService;
+        this.availabilityFeed = availabilityFeed;
         this.validator = validator;
+        this.bookImporter = new BookImporter(bookService, validator, objectMapper);
+        this.bookResponseWriter = objectMapper.writerFor(BookResponse.class);
+        this.availabilityResponseWriter = objectMapper.writerFor(AvailabilityResponse.class);
     }
 
     @POST
     @Path("/books")
     public Response createBook(BookRequest bookRequest) throws BookAlreadyExistsException {
         validateRequest(bookRequest);
-        Book book = bookService.addBook(bookRequest.getIsbn(), bookRequest.getTitle(), bookRequest.getAuthor(),
+        Book book = bookService.addBook(normalizeIsbn(bookRequest.getIsbn()), bookRequest.getTitle(), bookRequest.getAuthor(),
         bookRequest.getPublicationYear(), bookRequest.getAvailableCopies());
         BookResponse bookResponse = BookResponse.from(book);
         return Response.status(HttpStatus.CREATED.value())
                 .entity(bookResponse).build();
     }
 
+    @POST
+    @Path("/books/bulk")
+    @Consumes({APPLICATION_NDJSON, MediaType.APPLICATION_JSON})
+    public Response importBooks(InputStream body) throws IOException {
+        ImportSummaryResponse importSummaryResponse = bookImporter.importBooks(body);
+        return Response.status(HttpStatus.OK.value())
+                .entity(importSummaryResponse).build();
+    }
+
     @DELETE
     @Path("/books/{isbn}")
     public Response removeBook(@PathParam("isbn") String isbn) throws BookNotFoundException {
-        bookService.deleteBook(isbn);
+        bookService.deleteBook(normalizeIsbn(isbn));
         return Response.status(HttpStatus.NO_CONTENT.value())
                 .build();
     }
 
     @GET
     @Path("/books/{isbn}")
-    public Response findBookByIsbn(@PathParam("isbn") String isbn){
-        Optional<Book> book = bookService.findBookByISBN(isbn);
-        if(book.isPresent()){
-            BookResponse bookResponse = BookResponse.from(book.get());
+    public void findBookByIsbn(@PathParam("isbn") String isbn, @Suspended AsyncResponse asyncResponse){
+        resume(asyncResponse, asyncBookService.findBookByISBN(normalizeIsbn(isbn)), LibraryResource::toBookResponse);
+    }
+
+    /*
+    Without an author no book matches, the author caches and indexes are never asked for one.
+     */
+    @GET
+    @Path("/books")
+    public Response findBooksByAuthor(@QueryParam("author") String author, @QueryParam("cursor") String cursor,
+                                      @QueryParam("limit") Integer limit){
+        if (isBlank(author)) {
+            return Response.status(HttpStatus.OK.value())
+                    .entity(cursor == null && limit == null ? List.of() : BookPageResponse.builder().books(List.of()).build())
+                    .build();
+        }
+        if (cursor == null && limit == null) {
+            List<Book> booksByAuthor = bookService.findBooksByAuthor(author);
             return Response.status(HttpStatus.OK.value())
-                    .entity(bookResponse).build();
+                    .entity(booksByAuthor.stream().map(BookResponse::from).toList())
+                    .build();
         }
-        return Response.status(HttpStatus.NOT_FOUND.value()).build();
+        BookPage bookPage = bookService.findBooksByAuthor(author, PageCursor.decode(cursor), pageSize(limit));
+        return Response.status(HttpStatus.OK.value())
+                .entity(toPageResponse(bookPage))
+                .build();
     }
 
+    /*
+    Streams every book of the author as NDJSON, fetching one page at a time so neither the
+    full result nor the full response is ever held in memory. Only chosen when the client
+    asks for NDJSON explicitly, the lower qs keeps JSON the default.
+     */
     @GET
     @Path("/books")
-    public Response findBooksByAuthor(@QueryParam("author") String author){
-        List<Book> booksByAuthor = bookService.findBooksByAuthor(author);
+    @Produces(APPLICATION_NDJSON + ";qs=0.5")
+    public Response streamBooksByAuthor(@QueryParam("author") String author){
+        StreamingOutput streamingOutput = outputStream -> {
+            if (isBlank(author)) {
+                return;
+            }
+            String afterIsbn = null;
+            do {
+                BookPage bookPage = bookService.findBooksByAuthor(author, afterIsbn, MAX_PAGE_SIZE);
+                for (Book book : bookPage.books()) {
+                    outputStream.write(bookResponseWriter.writeValueAsBytes(BookResponse.from(book)));
+                    outputStream.write('\n');
+                }
+                outputStream.flush();
+                afterIsbn = bookPage.nextAfterIsbn();
+            } while (afterIsbn != null);
+        };
+        return Response.status(HttpStatus.OK.value())
+                .entity(streamingOutput)
+                .build();
+    }
+
+    @GET
+    @Path("/books/search")
+    public Response searchBooks(@QueryParam("q") String query, @QueryParam("limit") Integer limit){
+        if (query == null || query.isBlank()) {
+            throw badRequest("query.invalid", "Query q is required.");
+        }
+        List<Book> books = bookService.searchBooks(query, limit == null ? DEFAULT_SEARCH_LIMIT : pageSize(limit));
+        return Response.status(HttpStatus.OK.value())
+                .entity(books.stream().map(BookResponse::from).toList())
+                .build();
+    }
+
+    @GET
+    @Path("/books/autocomplete")
+    public Response completeBooks(@QueryParam("prefix") String prefix, @QueryParam("limit") Integer limit){
+        if (prefix == null || prefix.isBlank()) {
+            throw badRequest("prefix.invalid", "Prefix is required.");
+        }
+        List<CompletionResponse> completions = bookService.completeBooks(prefix,
+                limit == null ? DEFAULT_COMPLETION_LIMIT : pageSize(limit)).stream()
+                .map(CompletionResponse::from)
+                .toList();
         return Response.status(HttpStatus.OK.value())
-                .entity(booksByAuthor)
+                .entity(completions)
                 .build();
     }
 
+    /*
+    Books published between from and to inclusive, either bound may be left out, e.g.
+    ?from=2020 for new arrivals since 2020. Paginated by cursor like findBooksByAuthor, with
+    the total of the whole range on every page.
+     */
+    @GET
+    @Path("/books/published")
+    public Response findBooksByPublicationYear(@QueryParam("from") Integer fromYear, @QueryParam("to") Integer toYear,
+                                               @QueryParam("author") String author, @QueryParam("cursor") String cursor,
+                                               @QueryParam("limit") Integer limit){
+        BookQuery.PublishedBetween yearRange = yearRange(fromYear, toYear);
+        YearRangePage yearRangePage = bookService.findBooksByPublicationYear(yearRange.fromYear(), yearRange.toYear(), author,
+                decodeYearPosition(cursor), pageSize(limit));
+        return Response.status(HttpStatus.OK.value())
+                .entity(BookPageResponse.builder()
+                        .books(yearRangePage.books().stream().map(BookResponse::from).toList())
+                        .nextCursor(yearRangePage.next() == null ? null : PageCursor.encode(yearRangePage.next().encode()))
+                        .total(yearRangePage.total())
+                        .build())
+                .build();
+    }
+
+    /*
+    Books matching every given filter, e.g. ?author=X&from=1990&to=2000&available=true. The
+    filters are combined into one query and read through the most selective index.
+     */
+    @GET
+    @Path("/books/query")
+    public Response queryBooks(@QueryParam("isbn") String isbn, @QueryParam("author") String author,
+                               @QueryParam("from") Integer fromYear, @QueryParam("to") Integer toYear,
+                               @QueryParam("available") Boolean available, @QueryParam("limit") Integer limit){
+        List<Book> books = bookService.queryBooks(toQuery(isbn, author, fromYear, toYear, available), pageSize(limit));
+        return Response.status(HttpStatus.OK.value())
+                .entity(books.stream().map(BookResponse::from).toList())
+                .build();
+    }
+
+    /*
+    The plan /books/query would run with the same filters, without running it.
+     */
+    @GET
+    @Path("/books/query/explain")
+    public Response explainQuery(@QueryParam("isbn") String isbn, @QueryParam("author") String author,
+                                 @QueryParam("from") Integer fromYear, @QueryParam("to") Integer toYear,
+                                 @QueryParam("available") Boolean available){
+        return Response.status(HttpStatus.OK.value())
+                .entity(QueryPlanResponse.from(bookService.explainQuery(toQuery(isbn, author, fromYear, toYear, available))))
+                .build();
+    }
+
+    /*
+    With wait, a borrow of a book with no copy left waits up to that many seconds in line for
+    a returned copy instead of failing straight away, so clients need not retry in a loop.
+     */
     @PUT
     @Path("/books/{isbn}/borrow")
-    public Response borrowBook(@PathParam("isbn") String isbn) throws InsufficientBookCopiesException, BookNotFoundException {
-        Book book = bookService.borrowBook(isbn);
-        BookResponse bookResponse = BookResponse.from(book);
-        return Response.status(HttpStatus.OK.value())
-                .entity(bookResponse).build();
+    public void borrowBook(@PathParam("isbn") String isbn, @QueryParam("wait") Integer waitSeconds,
+                           @Suspended AsyncResponse asyncResponse) {
+        String normalizedIsbn = normalizeIsbn(isbn);
+        int wait = borrowWait(waitSeconds);
+        CompletableFuture<Book> borrowed = wait == 0
+                ? asyncBookService.borrowBook(normalizedIsbn)
+                : asyncBookService.borrowBookWhenAvailable(normalizedIsbn, Duration.ofSeconds(wait));
+        resume(asyncResponse, borrowed, LibraryResource::toBookResponse);
     }
 
     @PUT
     @Path("/books/{isbn}/return")
-    public Response returnBook(@PathParam("isbn") String isbn) throws BookNotFoundException, ReturnExceededException {
-        Book book = bookService.returnBook(isbn);
-        BookResponse bookResponse = BookResponse.from(book);
+    public void returnBook(@PathParam("isbn") String isbn, @Suspended AsyncResponse asyncResponse) {
+        resume(asyncResponse, asyncBookService.returnBook(normalizeIsbn(isbn)), LibraryResource::toBookResponse);
+    }
+
+    @POST
+    @Path("/checkouts")
+    public void borrowBooks(CheckoutRequest checkoutRequest, @Suspended AsyncResponse asyncResponse) {
+        validateRequest(checkoutRequest);
+        resume(asyncResponse, asyncBookService.borrowBooks(normalizeIsbns(checkoutRequest.getIsbns())),
+                LibraryResource::toCheckoutResponse);
+    }
+
+    @POST
+    @Path("/returns")
+    public void returnBooks(CheckoutRequest checkoutRequest, @Suspended AsyncResponse asyncResponse) {
+        validateRequest(checkoutRequest);
+        resume(asyncResponse, asyncBookService.returnBooks(normalizeIsbns(checkoutRequest.getIsbns())),
+                LibraryResource::toCheckoutResponse);
+    }
+
+    /*
+    Server-sent events with the available copies of the books with the given ISBNs and of the
+    books by the given authors, their current state first and then each change, so dashboards
+    need not poll. A client reading slower than the books change skips to the latest state.
+     */
+    @GET
+    @Path("/books/availability")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void streamAvailability(@QueryParam("isbn") List<String> isbns, @QueryParam("author") List<String> authors,
+                                   @Context SseEventSink eventSink, @Context Sse sse) {
+        Set<String> normalizedIsbns = new LinkedHashSet<>(normalizeIsbns(isbns));
+        Set<String> authorSet = new LinkedHashSet<>(authors);
+        authorSet.removeIf(String::isBlank);
+        int subscriptions = normalizedIsbns.size() + authorSet.size();
+        if (subscriptions == 0 || subscriptions > MAX_STREAM_SUBSCRIPTIONS) {
+            throw badRequest("subscription.invalid",
+                    "Between 1 and %d isbn and author parameters are required.".formatted(MAX_STREAM_SUBSCRIPTIONS));
+        }
+        availabilityFeed.subscribe(normalizedIsbns, authorSet,
+                new SseAvailabilitySubscriber(eventSink, sse, availabilityResponseWriter));
+    }
+
+    /*
+    Resumes with the mapped result, or with the failure so the exception mappers answer it
+    exactly as if it had been thrown by a synchronous method.
+     */
+    private static <T> void resume(AsyncResponse asyncResponse, CompletableFuture<T> result, Function<T, Response> toResponse) {
+        result.whenComplete((value, failure) -> {
+            if (failure == null) {
+                asyncResponse.resume(toResponse.apply(value));
+            } else {
+                asyncResponse.resume(failure instanceof CompletionException ? failure.getCause() : failure);
+            }
+        });
+    }
+
+    private static Response toBookResponse(Optional<Book> book) {
+        return book.map(LibraryResource::toBookResponse)
+                .orElseGet(() -> Response.status(HttpStatus.NOT_FOUND.value()).build());
+    }
+
+    private static Response toBookResponse(Book book) {
         return Response.status(HttpStatus.OK.value())
-                .entity(bookResponse).build();
+                .entity(BookResponse.from(book)).build();
+    }
+
+    private static Response toCheckoutResponse(List<Book> books) {
+        return Response.status(HttpStatus.OK.value())
+                .entity(CheckoutResponse.from(books)).build();
+    }
+
+    /*
+    A 400 carrying the error in the same ErrorListResponse body the exception mappers use.
+     */
+    static BadRequestException badRequest(String code, String message) {
+        return new BadRequestException(Response.status(HttpStatus.BAD_REQUEST.value())
+                .type(MediaType.APPLICATION_JSON)
+                .entity(new ErrorListResponse(code, message))
+                .build());
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static int borrowWait(Integer waitSeconds) {
+        if (waitSeconds == null) {
+            return 0;
+        }
+        if (waitSeconds < 0) {
+            throw badRequest("wait.invalid", "Wait must not be negative.");
+        }
+        return Math.min(waitSeconds, MAX_BORROW_WAIT_SECONDS);
+    }
+
+    private static int pageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1) {
+            throw badRequest("limit.invalid", "Limit must be at least 1.");
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    /*
+    ISBNs are validated and converted to ISBN-13 once here, everything behind the resource
+    only ever sees the canonical form.
+     */
+    private static String normalizeIsbn(String isbn) {
+        try {
+            return Isbn.normalize(isbn);
+        } catch (IllegalArgumentException e) {
+            throw badRequest("isbn.invalid", e.getMessage());
+        }
+    }
+
+    private static List<String> normalizeIsbns(List<String> isbns) {
+        return isbns.stream().map(LibraryResource::normalizeIsbn).toList();
+    }
+
+    private static BookQuery toQuery(String isbn, String author, Integer fromYear, Integer toYear, Boolean available) {
+        List<BookQuery> predicates = new ArrayList<>();
+        if (isbn != null) {
+            predicates.add(BookQuery.isbn(normalizeIsbn(isbn)));
+        }
+        if (author != null) {
+            predicates.add(BookQuery.author(author));
+        }
+        if (fromYear != null || toYear != null) {
+            predicates.add(yearRange(fromYear, toYear));
+        }
+        if (available != null) {
+            predicates.add(BookQuery.available(available));
+        }
+        return BookQuery.and(predicates);
+    }
+
+    /*
+    Either bound may be left out and then leaves the range open on that side.
+     */
+    private static BookQuery.PublishedBetween yearRange(Integer fromYear, Integer toYear) {
+        int from = fromYear == null ? Integer.MIN_VALUE : fromYear;
+        int to = toYear == null ? Integer.MAX_VALUE : toYear;
+        if (from > to) {
+            throw badRequest("year.range.invalid", "From %d is after to %d.".formatted(from, to));
+        }
+        return new BookQuery.PublishedBetween(from, to);
+    }
+
+    private static YearPosition decodeYearPosition(String cursor) {
+        String position = PageCursor.decode(cursor);
+        if (position == null) {
+            return null;
+        }
+        try {
+            YearPosition yearPosition = YearPosition.decode(position);
+            return new YearPosition(yearPosition.year(), Isbn.normalize(yearPosition.isbn()));
+        } catch (IllegalArgumentException e) {
+            throw badRequest("cursor.invalid", "Cursor %s is not valid.".formatted(cursor));
+        }
+    }
+
+    private static BookPageResponse toPageResponse(BookPage bookPage) {
+        return BookPageResponse.builder()
+                .books(bookPage.books().stream().map(BookResponse::from).toList())
+                .nextCursor(PageCursor.encode(bookPage.nextAfterIsbn()))
+                .build();
     }
 
-    private void validateRequest(BookRequest roundUpRequest) {
-        Set<ConstraintViolation<Object>> violations = validator.validate(roundUpRequest);
+    private void validateRequest(Object request) {
+        Set<ConstraintViolation<Object>> violations = validator.validate(request);
         if (!violations.isEmpty()) {
             throw new ConstraintViolationException("Validation failed", violations);
         }
@@ -0,0 +1,37 @@
+package com.identitye2e.library.rest.v1;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/*
+Opaque page cursor handed to clients, wraps the key the next page resumes after.
+ */
+final class PageCursor {
+    private static final String PREFIX = "v1:";
+
+    private PageCursor() {
+    }
+
+    static String encode(String afterKey) {
+        if (afterKey == null) {
+            return null;
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + afterKey).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decode(String cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (decoded.startsWith(PREFIX)) {
+                return decoded.substring(PREFIX.length());
+            }
+        } catch (IllegalArgumentException e) {
+            // fall through to the bad request below
+        }
+        throw LibraryResource.badRequest("cursor.invalid", "Cursor %s is not valid.".formatted(cursor));
+    }
+}
@@ -0,0 +1,72 @@
+package com.identitye2e.library.rest.v1;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.identitye2e.library.book.availability.AvailabilitySubscriber;
+import com.identitye2e.library.book.availability.AvailabilityUpdate;
+import com.identitye2e.library.rest.v1.response.AvailabilityResponse;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletionException;
+
+/*
+Writes availability updates to a server-sent events stream: an "availability" event per
+change, a "removed" event when the book left the catalog and a comment as heartbeat. Each
+send waits until the event is written, so a slow client holds back its own stream and the
+feed coalesces what piles up meanwhile.
+ */
+@Slf4j
+class SseAvailabilitySubscriber implements AvailabilitySubscriber {
+    static final String AVAILABILITY_EVENT = "availability";
+    static final String REMOVED_EVENT = "removed";
+    private final SseEventSink eventSink;
+    private final Sse sse;
+    private final ObjectWriter availabilityResponseWriter;
+
+    SseAvailabilitySubscriber(SseEventSink eventSink, Sse sse, ObjectWriter availabilityResponseWriter) {
+        this.eventSink = eventSink;
+        this.sse = sse;
+        this.availabilityResponseWriter = availabilityResponseWriter;
+    }
+
+    @Override
+    public boolean deliver(AvailabilityUpdate update) {
+        String data;
+        try {
+            data = availabilityResponseWriter.writeValueAsString(AvailabilityResponse.from(update));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        return send(sse.newEventBuilder()
+                .name(update.removed() ? REMOVED_EVENT : AVAILABILITY_EVENT)
+                .data(data)
+                .build());
+    }
+
+    @Override
+    public boolean heartbeat() {
+        return send(sse.newEventBuilder().comment("heartbeat").build());
+    }
+
+    @Override
+    public void close() {
+        eventSink.close();
+    }
+
+    private boolean send(OutboundSseEvent event) {
+        if (eventSink.isClosed()) {
+            return false;
+        }
+        try {
+            eventSink.send(event).toCompletableFuture().join();
+            return true;
+        } catch (CompletionException | IllegalStateException e) {
+            log.debug("Availability stream closed by the client", e);
+            return false;
+        }
+    }
+}
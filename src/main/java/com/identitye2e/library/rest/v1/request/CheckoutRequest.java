@@ -0,0 +1,21 @@
+package com.identitye2e.library.rest.v1.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Builder
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutRequest {
+    @NotEmpty(message = "Isbns are required")
+    @Size(max = 100, message = "At most 100 isbns per checkout")
+    private List<@NotNull(message = "Isbn is required") String> isbns;
+}
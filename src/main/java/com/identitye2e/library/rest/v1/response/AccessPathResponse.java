@@ -0,0 +1,27 @@
+package com.identitye2e.library.rest.v1.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.identitye2e.library.book.query.QueryPlan;
+import lombok.*;
+
+import java.util.Locale;
+
+@Builder
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AccessPathResponse {
+    private String index;
+    private String predicate;
+    private Long estimatedBooks;
+
+    public static AccessPathResponse from(QueryPlan.AccessPath accessPath) {
+        return AccessPathResponse.builder()
+                .index(accessPath.index().name().toLowerCase(Locale.ROOT))
+                .predicate(accessPath.predicate() == null ? null : accessPath.predicate().toString())
+                .estimatedBooks(accessPath.estimatedBooks())
+                .build();
+    }
+}
@@ -0,0 +1,31 @@
+package com.identitye2e.library.rest.v1.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.identitye2e.library.book.availability.AvailabilityUpdate;
+import lombok.*;
+
+@Builder
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AvailabilityResponse {
+    private String isbn;
+    private Integer availableCopies;
+    private Integer totalCopies;
+
+    /*
+    A removed book has no copies to report, only its ISBN.
+     */
+    public static AvailabilityResponse from(AvailabilityUpdate update) {
+        if (update.removed()) {
+            return AvailabilityResponse.builder().isbn(update.isbn()).build();
+        }
+        return AvailabilityResponse.builder()
+                .isbn(update.isbn())
+                .availableCopies(update.availableCopies())
+                .totalCopies(update.totalCopies())
+                .build();
+    }
+}
@@ -0,0 +1,18 @@
+package com.identitye2e.library.rest.v1.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.util.List;
+
+@Builder
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookPageResponse {
+    private List<BookResponse> books;
+    private String nextCursor;
+    private Integer total;
+}
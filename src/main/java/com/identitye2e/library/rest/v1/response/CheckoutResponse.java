@@ -0,0 +1,21 @@
+package com.identitye2e.library.rest.v1.response;
+
+import com.identitye2e.library.book.model.Book;
+import lombok.*;
+
+import java.util.List;
+
+@Builder
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+public class CheckoutResponse {
+    private List<BookResponse> books;
+
+    public static CheckoutResponse from(List<Book> books) {
+        return CheckoutResponse.builder()
+                .books(books.stream().map(BookResponse::from).toList())
+                .build();
+    }
+}
@@ -0,0 +1,29 @@
+package com.identitye2e.library.rest.v1.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.identitye2e.library.book.search.Completion;
+import lombok.*;
+
+import java.util.Locale;
+
+@Builder
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CompletionResponse {
+    private String type;
+    private String text;
+    private Integer books;
+    private Long availableCopies;
+
+    public static CompletionResponse from(Completion completion) {
+        return CompletionResponse.builder()
+                .type(completion.type().name().toLowerCase(Locale.ROOT))
+                .text(completion.text())
+                .books(completion.books())
+                .availableCopies(completion.availableCopies())
+                .build();
+    }
+}
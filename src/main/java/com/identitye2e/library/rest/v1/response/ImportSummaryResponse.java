@@ -0,0 +1,27 @@
+package com.identitye2e.library.rest.v1.response;
+
+import lombok.*;
+
+import java.util.List;
+
+@Builder
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+public class ImportSummaryResponse {
+    private long imported;
+    private long failed;
+    private List<ImportErrorResponse> errors;
+
+    @Builder
+    @Getter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @EqualsAndHashCode
+    public static class ImportErrorResponse {
+        private long record;
+        private String code;
+        private String message;
+    }
+}
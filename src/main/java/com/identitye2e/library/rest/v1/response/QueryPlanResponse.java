@@ -0,0 +1,25 @@
+package com.identitye2e.library.rest.v1.response;
+
+import com.identitye2e.library.book.query.QueryPlan;
+import lombok.*;
+
+import java.util.List;
+
+@Builder
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+public class QueryPlanResponse {
+    private AccessPathResponse accessPath;
+    private String filter;
+    private List<AccessPathResponse> considered;
+
+    public static QueryPlanResponse from(QueryPlan queryPlan) {
+        return QueryPlanResponse.builder()
+                .accessPath(AccessPathResponse.from(queryPlan.accessPath()))
+                .filter(queryPlan.filter().toString())
+                .considered(queryPlan.considered().stream().map(AccessPathResponse::from).toList())
+                .build();
+    }
+}
@@ -1,12 +1,21 @@
 package com.identitye2e.library;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.identitye2e.library.rest.v1.request.BookRequest;
 import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 
 import static io.restassured.RestAssured.given;
 import static io.restassured.http.ContentType.JSON;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.notNullValue;
 
+/*
+Spring Boot tests switch the metrics exporters off, the annotation keeps /prometheus exposed.
+ */
+@AutoConfigureObservability
 class MetricsMediumTest extends AbstractMediumTest {
     @Test
     void testHealthCheck() {
@@ -20,4 +29,33 @@ class MetricsMediumTest extends AbstractMediumTest {
                 .assertThat().body("status", equalTo("UP"));
     }
 
+    @Test
+    void prometheus_afterBorrow_exportServiceCacheLockAndStoreMetrics() throws JsonProcessingException {
+        //Given
+        BookRequest bookRequest = BookRequest.builder()
+                .isbn("9780000000125")
+                .title("title")
+                .author("auth")
+                .publicationYear(2024)
+                .availableCopies(10)
+                .build();
+        given().body(om.writeValueAsString(bookRequest)).contentType(JSON)
+                .expect().statusCode(201)
+                .when().post("/v1/books");
+        given().contentType(JSON)
+                .expect().statusCode(200)
+                .when().put("/v1/books/9780000000125/borrow");
+        //When & Then
+        given().log().all()
+                .when()
+                .get("/prometheus")
+                .then().log().all()
+                .assertThat().statusCode(200)
+                .assertThat().body(allOf(
+                        containsString("library_service_seconds_count{operation=\"borrowBook\",outcome=\"success\"}"),
+                        containsString("cache_gets_total{cache=\"isbn\",result=\"hit\"}"),
+                        containsString("cache_evictions_total{cache=\"author\"}"),
+                        containsString("library_availability_lock_wait_seconds_count"),
+                        containsString("library_store_books 1.0")));
+    }
 }
@@ -0,0 +1,57 @@
+package com.identitye2e.library.book.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.core.Is.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IsbnTest {
+    @ParameterizedTest
+    @CsvSource({
+            "9780306406157, 9780306406157",
+            "978-0-306-40615-7, 9780306406157",
+            "0306406152, 9780306406157",
+            "0-306-40615-2, 9780306406157",
+            "080442957X, 9780804429573",
+            "080442957x, 9780804429573",
+            "9791234567896, 9791234567896"
+    })
+    void normalize_validIsbn_returnIsbn13(String rawIsbn, String expectedIsbn) {
+        assertThat(Isbn.normalize(rawIsbn), is(equalTo(expectedIsbn)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "123", "9780306406158", "0306406153", "9770306406150", "97803064061X7", "X306406152"})
+    void normalize_invalidIsbn_throwIllegalArgumentException(String rawIsbn) {
+        assertThrows(IllegalArgumentException.class, () -> Isbn.normalize(rawIsbn));
+    }
+
+    @Test
+    void normalize_null_throwIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> Isbn.normalize(null));
+    }
+
+    @Test
+    void encode_leadingZeros_keysStayDistinct() {
+        assertThat(Isbn.encode("0123"), is(not(equalTo(Isbn.encode("123")))));
+        assertThat(Isbn.encode("0"), is(not(equalTo(0L))));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"9780306406157", "0123", "0", "123456789012345"})
+    void decode_encodedIsbn_returnOriginal(String isbn) {
+        assertThat(Isbn.decode(Isbn.encode(isbn)), is(equalTo(isbn)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "97803064061X7", "1234567890123456"})
+    void encode_notEncodable_throwIllegalArgumentException(String isbn) {
+        assertThrows(IllegalArgumentException.class, () -> Isbn.encode(isbn));
+    }
+}
@@ -0,0 +1,70 @@
+package com.identitye2e.library.book.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.core.Is.is;
+
+class StringDictionaryTest {
+    @Test
+    void intern_equalStrings_returnSameIdAndCanonicalInstance() {
+        //Given
+        StringDictionary testObj = new StringDictionary();
+        String first = new String("author");
+        //When
+        int firstId = testObj.intern(first);
+        int secondId = testObj.intern(new String("author"));
+        //Then
+        assertThat(secondId, is(equalTo(firstId)));
+        assertThat(testObj.value(secondId), is(sameInstance(first)));
+        assertThat(testObj.size(), is(equalTo(1)));
+    }
+
+    @Test
+    void find_unknownValue_returnNotFoundWithoutRegistering() {
+        //Given
+        StringDictionary testObj = new StringDictionary();
+        //When
+        int id = testObj.find("author");
+        //Then
+        assertThat(id, is(equalTo(StringDictionary.NOT_FOUND)));
+        assertThat(testObj.size(), is(equalTo(0)));
+    }
+
+    @Test
+    void intern_concurrentRegistrations_everyValueGetsOneDenseId() throws Exception {
+        //Given
+        StringDictionary testObj = new StringDictionary();
+        List<Callable<Void>> operations = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            String value = "author-" + i % 1_000;
+            operations.add(() -> {
+                assertThat(testObj.value(testObj.intern(value)), is(equalTo(value)));
+                return null;
+            });
+        }
+        //When
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (Future<Void> operation : executor.invokeAll(operations)) {
+                operation.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        //Then
+        assertThat(testObj.size(), is(equalTo(1_000)));
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(testObj.find(testObj.value(i)), is(equalTo(i)));
+        }
+    }
+}
@@ -2,10 +2,13 @@ package com.identitye2e.library.book.service;
 
 import com.identitye2e.library.book.model.Book;
 import com.identitye2e.library.book.repository.BookRepository;
+import com.identitye2e.library.book.service.exceptions.BatchOperationException;
 import com.identitye2e.library.book.service.exceptions.BookNotFoundException;
 import com.identitye2e.library.book.service.exceptions.InsufficientBookCopiesException;
 import com.identitye2e.library.book.service.exceptions.ReturnExceededException;
 import com.identitye2e.library.infrastructure.cache.BookCache;
+import com.identitye2e.library.infrastructure.cache.BookCacheStats;
+import com.identitye2e.library.infrastructure.persistance.BookRepositoryImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,9 +16,25 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.UnaryOperator;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -44,10 +63,10 @@ public class BookAvailabilityManagerImplTest {
         testObj.checkAndBorrowBook("123");
         //Then
         ArgumentCaptor<Book> captor = forClass(Book.class);
-        verify(bookRepositoryMock).update(captor.capture());
+        verify(bookCacheByIsbnMock, times(1)).update(eq("123"), captor.capture());
         Book updatedBook = captor.getValue();
         assertThat(9, is(equalTo(updatedBook.getAvailableCopies())));
-        verify(bookCacheByIsbnMock, times(1)).update("123", updatedBook);
+        verify(bookRepositoryMock).update(eq("123"), argThat(change -> change.apply(book) == updatedBook));
     }
 
     @Test
@@ -78,10 +97,10 @@ public class BookAvailabilityManagerImplTest {
         testObj.checkAndReturnBook("123");
         //Then
         ArgumentCaptor<Book> captor = forClass(Book.class);
-        verify(bookRepositoryMock).update(captor.capture());
+        verify(bookCacheByIsbnMock, times(1)).update(eq("123"), captor.capture());
         Book updatedBook = captor.getValue();
         assertThat(9, is(equalTo(updatedBook.getAvailableCopies())));
-        verify(bookCacheByIsbnMock, times(1)).update("123", updatedBook);
+        verify(bookRepositoryMock).update(eq("123"), argThat(change -> change.apply(book) == updatedBook));
     }
 
     @Test
@@ -102,4 +121,264 @@ public class BookAvailabilityManagerImplTest {
         assertThrows(ReturnExceededException.class, () -> testObj.checkAndReturnBook("123"));
         verify(bookCacheByIsbnMock, times(0)).update(anyString(), any(Book.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void checkAndBorrowBook_awaitingDurability_stripeAlreadyReleased() throws Exception {
+        //Given
+        BookAvailabilityManager singleStripeManager = new BookAvailabilityManagerImpl(bookRepositoryMock, bookCacheByIsbnMock, 1);
+        when(bookRepositoryMock.getByIsbn("123")).thenReturn(Optional.of(new Book("123", "title", "author", 2024, 10, 10)));
+        when(bookRepositoryMock.getByIsbn("124")).thenReturn(Optional.of(new Book("124", "title2", "author", 2024, 10, 10)));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicBoolean firstWait = new AtomicBoolean(true);
+        List<Book> borrowedWhileWaiting = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            if (firstWait.getAndSet(false)) {
+                borrowedWhileWaiting.add(executor.submit(() -> singleStripeManager.checkAndBorrowBook("124")).get(5, TimeUnit.SECONDS));
+            }
+            return null;
+        }).when(bookRepositoryMock).awaitDurable();
+        try {
+            //When
+            singleStripeManager.checkAndBorrowBook("123");
+        } finally {
+            executor.shutdown();
+        }
+        //Then
+        assertThat(borrowedWhileWaiting.size(), is(equalTo(1)));
+        verify(bookRepositoryMock, times(2)).awaitDurable();
+    }
+
+    @Test
+    void lockWaitStats_uncontendedBorrowAndReturn_countAcquisitionsWithoutWait() throws Exception {
+        //Given
+        Book book = new Book("123", "title", "author", 2024, 10, 10);
+        when(bookRepositoryMock.getByIsbn("123")).thenReturn(Optional.of(book));
+        BookAvailabilityManagerImpl stripedManager = new BookAvailabilityManagerImpl(bookRepositoryMock, bookCacheByIsbnMock);
+        //When
+        stripedManager.checkAndBorrowBook("123");
+        assertThrows(ReturnExceededException.class, () -> stripedManager.checkAndReturnBook("123"));
+        //Then
+        assertThat(stripedManager.lockWaitStats(), is(equalTo(new LockWaitStats(2, 0, 0))));
+    }
+
+    @Test
+    void checkAndBorrowBook_concurrentBorrowsAcrossIsbns_noLostUpdates() throws Exception {
+        //Given
+        BookCache<String, Book> bookCacheByIsbn = new ConcurrentMapBookCache<>();
+        BookRepository bookRepository = new BookRepositoryImpl(bookCacheByIsbn, new ConcurrentMapBookCache<>());
+        BookAvailabilityManager stripedManager = new BookAvailabilityManagerImpl(bookRepository, bookCacheByIsbn, 8);
+        int isbnCount = 16;
+        int borrowsPerIsbn = 200;
+        for (int i = 0; i < isbnCount; i++) {
+            bookRepository.createBook(new Book("100" + i, "title", "author", 2024, borrowsPerIsbn, borrowsPerIsbn));
+        }
+        List<Callable<Book>> borrows = new ArrayList<>();
+        for (int i = 0; i < isbnCount * borrowsPerIsbn; i++) {
+            String isbn = "100" + (i % isbnCount);
+            borrows.add(() -> stripedManager.checkAndBorrowBook(isbn));
+        }
+        //When
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            for (Future<Book> borrow : executor.invokeAll(borrows)) {
+                borrow.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        //Then
+        for (int i = 0; i < isbnCount; i++) {
+            assertThat(bookRepository.getByIsbn("100" + i).orElseThrow().getAvailableCopies(), is(equalTo(0)));
+        }
+        assertThrows(InsufficientBookCopiesException.class, () -> stripedManager.checkAndBorrowBook("1000"));
+    }
+
+    @Test
+    void borrowBookWhenAvailable_copyReturned_waitersServedInArrivalOrder() throws Exception {
+        //Given
+        BookCache<String, Book> bookCacheByIsbn = new ConcurrentMapBookCache<>();
+        BookRepository bookRepository = new BookRepositoryImpl(bookCacheByIsbn, new ConcurrentMapBookCache<>());
+        BookAvailabilityManager stripedManager = new BookAvailabilityManagerImpl(bookRepository, bookCacheByIsbn);
+        bookRepository.createBook(new Book("123", "title", "author", 2024, 2, 0));
+        CompletableFuture<Book> first = stripedManager.borrowBookWhenAvailable("123", Duration.ofSeconds(5));
+        CompletableFuture<Book> second = stripedManager.borrowBookWhenAvailable("123", Duration.ofSeconds(5));
+        //When
+        stripedManager.checkAndReturnBook("123");
+        //Then
+        assertThat(first.get(5, TimeUnit.SECONDS).getAvailableCopies(), is(equalTo(0)));
+        assertThat(second.isDone(), is(equalTo(false)));
+        stripedManager.checkAndReturnBooks(List.of("123"));
+        assertThat(second.get(5, TimeUnit.SECONDS).getAvailableCopies(), is(equalTo(0)));
+    }
+
+    @Test
+    void checkAndReturnBook_plainBorrowRacesWaiter_copyHandedToWaiter() throws Exception {
+        //Given
+        BookCache<String, Book> bookCacheByIsbn = new ConcurrentMapBookCache<>();
+        BookRepository bookRepository = spy(new BookRepositoryImpl(bookCacheByIsbn, new ConcurrentMapBookCache<>()));
+        BookAvailabilityManager stripedManager = new BookAvailabilityManagerImpl(bookRepository, bookCacheByIsbn);
+        bookRepository.createBook(new Book("123", "title", "author", 2024, 1, 0));
+        CompletableFuture<Book> waiting = stripedManager.borrowBookWhenAvailable("123", Duration.ofSeconds(5));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicBoolean firstWait = new AtomicBoolean(true);
+        List<Future<Book>> racingBorrows = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            if (firstWait.getAndSet(false)) {
+                Future<Book> racingBorrow = executor.submit(() -> stripedManager.checkAndBorrowBook("123"));
+                racingBorrows.add(racingBorrow);
+                try {
+                    racingBorrow.get(5, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    //asserted below
+                }
+            }
+            return invocation.callRealMethod();
+        }).when(bookRepository).awaitDurable();
+        try {
+            //When
+            stripedManager.checkAndReturnBook("123");
+        } finally {
+            executor.shutdown();
+        }
+        //Then
+        assertThat(waiting.get(5, TimeUnit.SECONDS).getAvailableCopies(), is(equalTo(0)));
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> racingBorrows.get(0).get());
+        assertThat(failure.getCause() instanceof InsufficientBookCopiesException, is(equalTo(true)));
+        assertThat(bookRepository.getByIsbn("123").orElseThrow().getAvailableCopies(), is(equalTo(0)));
+    }
+
+    @Test
+    void borrowBookWhenAvailable_noCopyReturnedInTime_failWithInsufficientBookCopiesException() throws Exception {
+        //Given
+        BookCache<String, Book> bookCacheByIsbn = new ConcurrentMapBookCache<>();
+        BookRepository bookRepository = new BookRepositoryImpl(bookCacheByIsbn, new ConcurrentMapBookCache<>());
+        BookAvailabilityManager stripedManager = new BookAvailabilityManagerImpl(bookRepository, bookCacheByIsbn);
+        bookRepository.createBook(new Book("123", "title", "author", 2024, 1, 0));
+        //When
+        CompletableFuture<Book> waiting = stripedManager.borrowBookWhenAvailable("123", Duration.ofMillis(50));
+        //Then
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> waiting.get(5, TimeUnit.SECONDS));
+        assertThat(failure.getCause() instanceof InsufficientBookCopiesException, is(equalTo(true)));
+        stripedManager.checkAndReturnBook("123");
+        assertThat(bookRepository.getByIsbn("123").orElseThrow().getAvailableCopies(), is(equalTo(1)));
+    }
+
+    @Test
+    void borrowBookWhenAvailable_bookDoesNotExist_failWithBookNotFoundException() {
+        //Given
+        when(bookRepositoryMock.getByIsbn("123")).thenReturn(Optional.empty());
+        //When
+        CompletableFuture<Book> waiting = testObj.borrowBookWhenAvailable("123", Duration.ofSeconds(5));
+        //Then
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> waiting.get(5, TimeUnit.SECONDS));
+        assertThat(failure.getCause() instanceof BookNotFoundException, is(equalTo(true)));
+    }
+
+    private static class ConcurrentMapBookCache<K, V> implements BookCache<K, V> {
+        private final ConcurrentHashMap<K, V> cache = new ConcurrentHashMap<>();
+
+        @Override
+        public Optional<V> get(K key) {
+            return Optional.ofNullable(cache.get(key));
+        }
+
+        @Override
+        public void put(K key, V value) {
+            cache.put(key, value);
+        }
+
+        @Override
+        public void update(K key, V value) {
+            cache.put(key, value);
+        }
+
+        @Override
+        public void invalidate(K key) {
+            cache.remove(key);
+        }
+
+        @Override
+        public BookCacheStats stats() {
+            return new BookCacheStats(0, 0, 0);
+        }
+    }
+
+    @Test
+    void checkAndBorrowBooks_allBooksAvailable_allUpdated() throws BatchOperationException, BookNotFoundException {
+        //Given
+        Book book1 = new Book("123", "title", "author", 2024, 10, 10);
+        Book book2 = new Book("124", "title2", "author", 2024, 10, 5);
+        when(bookRepositoryMock.getByIsbn("123")).thenReturn(Optional.of(book1));
+        when(bookRepositoryMock.getByIsbn("124")).thenReturn(Optional.of(book2));
+        //When
+        List<Book> borrowedBooks = testObj.checkAndBorrowBooks(List.of("123", "124", "123"));
+        //Then
+        assertThat(borrowedBooks.size(), is(equalTo(3)));
+        assertThat(borrowedBooks.get(2).getAvailableCopies(), is(equalTo(8)));
+        verify(bookRepositoryMock, times(2)).update(anyString(), any());
+        verify(bookRepositoryMock).update(eq("123"), argThat(change -> change.apply(book1).getAvailableCopies() == 8));
+        verify(bookRepositoryMock).update(eq("124"), argThat(change -> change.apply(book2).getAvailableCopies() == 4));
+        verify(bookCacheByIsbnMock, never()).update(anyString(), any(Book.class));
+    }
+
+    @Test
+    void removeBook_duringBatch_waitForBatchToBeWritten() throws Exception {
+        //Given
+        Book book = new Book("123", "title", "author", 2024, 10, 10);
+        when(bookRepositoryMock.getByIsbn("123")).thenReturn(Optional.of(book));
+        List<String> writes = new CopyOnWriteArrayList<>();
+        CountDownLatch batchValidated = new CountDownLatch(1);
+        CountDownLatch removalStarted = new CountDownLatch(1);
+        when(bookRepositoryMock.update(eq("123"), any())).thenAnswer(invocation -> {
+            batchValidated.countDown();
+            removalStarted.await(5, TimeUnit.SECONDS);
+            Thread.sleep(100);
+            writes.add("update");
+            return invocation.<UnaryOperator<Book>>getArgument(1).apply(book);
+        });
+        doAnswer(invocation -> writes.add("remove")).when(bookRepositoryMock).removeBook("123");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<List<Book>> batch = executor.submit(() -> testObj.checkAndBorrowBooks(List.of("123")));
+        batchValidated.await(5, TimeUnit.SECONDS);
+        //When
+        Future<?> removal = executor.submit(() -> {
+            removalStarted.countDown();
+            testObj.removeBook("123");
+            return null;
+        });
+        //Then
+        assertThat(batch.get(5, TimeUnit.SECONDS).get(0).getAvailableCopies(), is(equalTo(9)));
+        removal.get(5, TimeUnit.SECONDS);
+        assertThat(writes, contains("update", "remove"));
+        executor.shutdown();
+    }
+
+    @Test
+    void checkAndBorrowBooks_oneBookUnavailable_nothingUpdated() throws BookNotFoundException {
+        //Given
+        Book book1 = new Book("123", "title", "author", 2024, 10, 10);
+        Book book2 = new Book("124", "title2", "author", 2024, 1, 0);
+        when(bookRepositoryMock.getByIsbn("123")).thenReturn(Optional.of(book1));
+        when(bookRepositoryMock.getByIsbn("124")).thenReturn(Optional.of(book2));
+        when(bookRepositoryMock.getByIsbn("125")).thenReturn(Optional.empty());
+        //When
+        var batchException = assertThrows(BatchOperationException.class,
+                () -> testObj.checkAndBorrowBooks(List.of("123", "124", "125")));
+        //Then
+        assertThat(batchException.getFailures().keySet(), contains("124", "125"));
+        assertThat(batchException.getFailures().get("124") instanceof InsufficientBookCopiesException, is(equalTo(true)));
+        assertThat(batchException.getFailures().get("125") instanceof BookNotFoundException, is(equalTo(true)));
+        verify(bookRepositoryMock, never()).update(anyString(), any());
+        verify(bookCacheByIsbnMock, never()).update(anyString(), any(Book.class));
+    }
+
+    @Test
+    void checkAndReturnBooks_oneBookBreachesTotalCopies_nothingUpdated() throws BookNotFoundException {
+        //Given
+        Book book1 = new Book("123", "title", "author", 2024, 10, 9);
+        when(bookRepositoryMock.getByIsbn("123")).thenReturn(Optional.of(book1));
+        //When & Then
+        assertThrows(BatchOperationException.class, () -> testObj.checkAndReturnBooks(List.of("123", "123")));
+        verify(bookRepositoryMock, never()).update(anyString(), any());
+    }
+}
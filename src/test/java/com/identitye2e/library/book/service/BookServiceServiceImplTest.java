@@ -2,7 +2,16 @@ package com.identitye2e.library.book.service;
 
 
 import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.model.BookPage;
+import com.identitye2e.library.book.query.BookQuery;
+import com.identitye2e.library.book.query.BookQueryEngine;
 import com.identitye2e.library.book.repository.BookRepository;
+import com.identitye2e.library.book.search.BookCompletionIndex;
+import com.identitye2e.library.book.search.BookSearchIndex;
+import com.identitye2e.library.book.search.PublicationYearIndex;
+import com.identitye2e.library.book.search.YearPosition;
+import com.identitye2e.library.book.search.YearRangePage;
+import com.identitye2e.library.book.service.exceptions.BatchOperationException;
 import com.identitye2e.library.book.service.exceptions.BookAlreadyExistsException;
 import com.identitye2e.library.book.service.exceptions.BookNotFoundException;
 import com.identitye2e.library.book.service.exceptions.InsufficientBookCopiesException;
@@ -31,11 +40,24 @@ class BookServiceServiceImplTest {
 
     @Mock
     private BookAvailabilityManager bookAvailabilityManagerMock;
+
+    @Mock
+    private BookSearchIndex bookSearchIndexMock;
+
+    @Mock
+    private BookCompletionIndex bookCompletionIndexMock;
+
+    @Mock
+    private PublicationYearIndex publicationYearIndexMock;
+
+    @Mock
+    private BookQueryEngine bookQueryEngineMock;
     private BookService testObj;
 
     @BeforeEach
     void setup() {
-        testObj = new BookServiceServiceImpl(bookRepositoryMock, bookAvailabilityManagerMock);
+        testObj = new BookServiceServiceImpl(bookRepositoryMock, bookAvailabilityManagerMock, bookSearchIndexMock,
+                bookCompletionIndexMock, publicationYearIndexMock, bookQueryEngineMock);
     }
 
     @Test
@@ -66,13 +88,13 @@ class BookServiceServiceImplTest {
     void deleteBook_bookExists_removeBookSuccessfully() throws BookNotFoundException {
         testObj.deleteBook("123");
 
-        verify(bookRepositoryMock, times(1)).removeBook("123");
+        verify(bookAvailabilityManagerMock, times(1)).removeBook("123");
     }
 
     @Test
     void deleteBook_bookDoesNotExists_throwBookNotFoundException() throws BookNotFoundException {
         //Given
-        doThrow(BookNotFoundException.class).when(bookRepositoryMock).removeBook("123");
+        doThrow(BookNotFoundException.class).when(bookAvailabilityManagerMock).removeBook("123");
         //When & Then
         assertThrows(BookNotFoundException.class,
                 () -> testObj.deleteBook("123"));
@@ -183,4 +205,101 @@ class BookServiceServiceImplTest {
                 () -> testObj.returnBook("123"));
     }
 
-}
\ No newline at end of file
+    @Test
+    void borrowBooks_allBooksAvailable_success() throws BatchOperationException {
+        //Given & When
+        testObj.borrowBooks(List.of("123", "124"));
+        //Then
+        verify(bookAvailabilityManagerMock, times(1)).checkAndBorrowBooks(List.of("123", "124"));
+    }
+
+    @Test
+    void returnBooks_oneBookFails_throwBatchOperationException() throws BatchOperationException {
+        //Given
+        doThrow(BatchOperationException.class).when(bookAvailabilityManagerMock).checkAndReturnBooks(List.of("123", "124"));
+        // When & Then
+        assertThrows(BatchOperationException.class,
+                () -> testObj.returnBooks(List.of("123", "124")));
+    }
+
+    @Test
+    void addBooks_someDuplicates_returnDuplicates() {
+        //Given
+        Book book = new Book("123", "title", "auth", 2024, 10, 10);
+        Book duplicate = new Book("124", "title2", "auth", 2024, 10, 10);
+        when(bookRepositoryMock.createBooks(List.of(book, duplicate))).thenReturn(List.of(duplicate));
+        //When
+        List<Book> duplicates = testObj.addBooks(List.of(book, duplicate));
+        //Then
+        assertThat(duplicates, contains(duplicate));
+    }
+
+    @Test
+    void findBooksByAuthorPaged_moreBooksThanLimit_returnPageWithNextAfterIsbn() {
+        //Given
+        Book authBook1 = new Book("123", "title", "auth", 2024, 10, 10);
+        Book authBook2 = new Book("124", "title2", "auth", 2024, 10, 10);
+        Book authBook3 = new Book("125", "title3", "auth", 2024, 10, 10);
+        when(bookRepositoryMock.getByAuthor("auth", null, 3)).thenReturn(List.of(authBook1, authBook2, authBook3));
+        //When
+        BookPage bookPage = testObj.findBooksByAuthor("auth", null, 2);
+        //Then
+        assertThat(bookPage.books(), contains(authBook1, authBook2));
+        assertThat(bookPage.nextAfterIsbn(), is(equalTo("124")));
+    }
+
+    @Test
+    void findBooksByAuthorPaged_lastPage_returnPageWithoutNextAfterIsbn() {
+        //Given
+        Book authBook1 = new Book("125", "title3", "auth", 2024, 10, 10);
+        when(bookRepositoryMock.getByAuthor("auth", "124", 3)).thenReturn(List.of(authBook1));
+        //When
+        BookPage bookPage = testObj.findBooksByAuthor("auth", "124", 2);
+        //Then
+        assertThat(bookPage.books(), contains(authBook1));
+        assertThat(bookPage.nextAfterIsbn(), is(nullValue()));
+    }
+
+    @Test
+    void searchBooks_matchesFound_returnCurrentBooksInRankOrder() {
+        //Given
+        Book book1 = new Book("123", "title", "auth", 2024, 10, 9);
+        Book book2 = new Book("124", "title2", "auth", 2024, 10, 10);
+        when(bookSearchIndexMock.search("title", 10)).thenReturn(List.of("124", "125", "123"));
+        when(bookRepositoryMock.getByIsbn("124")).thenReturn(Optional.of(book2));
+        when(bookRepositoryMock.getByIsbn("125")).thenReturn(Optional.empty());
+        when(bookRepositoryMock.getByIsbn("123")).thenReturn(Optional.of(book1));
+        //When
+        List<Book> books = testObj.searchBooks("title", 10);
+        //Then
+        assertThat(books, is(equalTo(List.of(book2, book1))));
+    }
+
+    @Test
+    void findBooksByPublicationYear_moreThanLimit_returnPageWithNextPositionAndTotal() {
+        //Given
+        Book book1 = new Book("123", "title", "auth", 1990, 10, 10);
+        YearPosition lastPosition = new YearPosition(1995, "124");
+        when(publicationYearIndexMock.range(1990, 2000, null, null, 3)).thenReturn(List.of(
+                new YearPosition(1990, "123"), lastPosition, new YearPosition(1999, "125")));
+        when(publicationYearIndexMock.count(1990, 2000, null)).thenReturn(3);
+        when(bookRepositoryMock.getByIsbn("123")).thenReturn(Optional.of(book1));
+        when(bookRepositoryMock.getByIsbn("124")).thenReturn(Optional.empty());
+        //When
+        YearRangePage yearRangePage = testObj.findBooksByPublicationYear(1990, 2000, null, null, 2);
+        //Then
+        assertThat(yearRangePage.books(), is(equalTo(List.of(book1))));
+        assertThat(yearRangePage.next(), is(equalTo(lastPosition)));
+        assertThat(yearRangePage.total(), is(equalTo(3)));
+    }
+
+    @Test
+    void queryBooks_query_delegateToQueryEngine() {
+        //Given
+        Book book = new Book("123", "title", "auth", 1990, 10, 10);
+        BookQuery query = BookQuery.and(BookQuery.author("auth"), BookQuery.available(true));
+        when(bookQueryEngineMock.execute(query, 10)).thenReturn(List.of(book));
+        //When & Then
+        assertThat(testObj.queryBooks(query, 10), is(equalTo(List.of(book))));
+    }
+}
@@ -0,0 +1,113 @@
+package com.identitye2e.library.book.service;
+
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.service.exceptions.BookNotFoundException;
+import com.identitye2e.library.book.service.exceptions.InsufficientBookCopiesException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ExecutorAsyncBookServiceTest {
+    private static final Book BOOK = new Book("9780000000125", "title", "auth", 2024, 10, 10);
+    @Mock
+    private BookService bookServiceMock;
+    private final CountDownLatch writeStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseWrites = new CountDownLatch(1);
+    private ExecutorAsyncBookService testObj;
+
+    @AfterEach
+    void tearDown() {
+        releaseWrites.countDown();
+        testObj.close();
+    }
+
+    @Test
+    void borrowBook_serviceThrows_failWithSameException() throws Exception {
+        //Given
+        testObj = new ExecutorAsyncBookService(bookServiceMock, 1, 10, 1, 10, Duration.ofSeconds(5));
+        when(bookServiceMock.borrowBook("9780000000125")).thenThrow(new BookNotFoundException("not found"));
+        //When
+        CompletableFuture<Book> borrowed = testObj.borrowBook("9780000000125");
+        //Then
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> borrowed.get(5, TimeUnit.SECONDS));
+        assertThat(failure.getCause(), is(instanceOf(BookNotFoundException.class)));
+    }
+
+    @Test
+    void borrowBook_writeQueueFull_rejectWritesAndKeepServingReads() throws Exception {
+        //Given
+        testObj = new ExecutorAsyncBookService(bookServiceMock, 1, 10, 1, 1, Duration.ofSeconds(5));
+        blockBorrows();
+        when(bookServiceMock.findBookByISBN("9780000000125")).thenReturn(Optional.of(BOOK));
+        testObj.borrowBook("9780000000125");
+        writeStarted.await(5, TimeUnit.SECONDS);
+        testObj.borrowBook("9780000000125");
+        //When
+        CompletableFuture<Book> rejected = testObj.borrowBook("9780000000125");
+        CompletableFuture<Optional<Book>> read = testObj.findBookByISBN("9780000000125");
+        //Then
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+        assertThat(failure.getCause(), is(instanceOf(RejectedExecutionException.class)));
+        assertThat(read.get(5, TimeUnit.SECONDS), is(equalTo(Optional.of(BOOK))));
+    }
+
+    @Test
+    void borrowBook_queuedLongerThanTimeout_failWithTimeoutAndSkipCall() throws Exception {
+        //Given
+        testObj = new ExecutorAsyncBookService(bookServiceMock, 1, 10, 1, 10, Duration.ofMillis(50));
+        blockBorrows();
+        testObj.borrowBook("9780000000125");
+        writeStarted.await(5, TimeUnit.SECONDS);
+        //When
+        CompletableFuture<Book> queued = testObj.borrowBook("9780000000125");
+        //Then
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertThat(failure.getCause(), is(instanceOf(TimeoutException.class)));
+        releaseWrites.countDown();
+        testObj.close();
+        verify(bookServiceMock, times(1)).borrowBook("9780000000125");
+    }
+
+    @Test
+    void borrowBook_runningLongerThanTimeout_completeWithResult() throws Exception {
+        //Given
+        testObj = new ExecutorAsyncBookService(bookServiceMock, 1, 10, 1, 10, Duration.ofMillis(50));
+        blockBorrows();
+        CompletableFuture<Book> borrowed = testObj.borrowBook("9780000000125");
+        writeStarted.await(5, TimeUnit.SECONDS);
+        assertThrows(TimeoutException.class, () -> borrowed.get(200, TimeUnit.MILLISECONDS));
+        //When
+        releaseWrites.countDown();
+        //Then
+        assertThat(borrowed.get(5, TimeUnit.SECONDS), is(equalTo(BOOK)));
+    }
+
+    private void blockBorrows() throws BookNotFoundException, InsufficientBookCopiesException {
+        when(bookServiceMock.borrowBook("9780000000125")).thenAnswer(invocation -> {
+            writeStarted.countDown();
+            releaseWrites.await();
+            return BOOK;
+        });
+    }
+}
@@ -0,0 +1,224 @@
+package com.identitye2e.library.book.service;
+
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.repository.BookRepository;
+import com.identitye2e.library.book.service.exceptions.BatchOperationException;
+import com.identitye2e.library.book.service.exceptions.BookNotFoundException;
+import com.identitye2e.library.book.service.exceptions.InsufficientBookCopiesException;
+import com.identitye2e.library.book.service.exceptions.ReturnExceededException;
+import com.identitye2e.library.infrastructure.cache.CaffeineBookCache;
+import com.identitye2e.library.infrastructure.cache.IsbnBookCache;
+import com.identitye2e.library.infrastructure.persistance.BookRepositoryImpl;
+import com.identitye2e.library.infrastructure.search.AvailabilityIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LockFreeBookAvailabilityManagerTest {
+    @Mock
+    private BookRepository bookRepositoryMock;
+    private BookAvailabilityManager testObj;
+
+    @BeforeEach
+    void setup() {
+        testObj = new LockFreeBookAvailabilityManager(bookRepositoryMock);
+    }
+
+    @Test
+    void checkAndBorrowBook_availableCopiesUpdated_success() throws BookNotFoundException, InsufficientBookCopiesException {
+        //Given
+        Book book = new Book("123", "title", "author", 2024, 10, 10);
+        when(bookRepositoryMock.getByIsbn("123")).thenReturn(Optional.of(book));
+        stubUpdateOf(book);
+        //When
+        Book borrowedBook = testObj.checkAndBorrowBook("123");
+        //Then
+        assertThat(borrowedBook.getAvailableCopies(), is(equalTo(9)));
+        verify(bookRepositoryMock, times(1)).update(eq("123"), any());
+    }
+
+    @Test
+    void checkAndBorrowBook_bookByIsbnDoesNotExist_throwBookNotFoundException() {
+        //Given
+        when(bookRepositoryMock.getByIsbn("123")).thenReturn(Optional.empty());
+        //When & Then
+        assertThrows(BookNotFoundException.class, () -> testObj.checkAndBorrowBook("123"));
+    }
+
+    @Test
+    void checkAndBorrowBook_noMoreCopiesAvailable_throwInsufficientBookCopiesException() throws BookNotFoundException {
+        //Given
+        Book book = new Book("123", "title", "author", 2024, 0, 0);
+        when(bookRepositoryMock.getByIsbn("123")).thenReturn(Optional.of(book));
+        //When & Then
+        assertThrows(InsufficientBookCopiesException.class, () -> testObj.checkAndBorrowBook("123"));
+        verify(bookRepositoryMock, never()).update(anyString(), any());
+    }
+
+    @Test
+    void checkAndReturnBook_availableCopiesUpdated_success() throws BookNotFoundException, ReturnExceededException {
+        //Given
+        Book book = new Book("123", "title", "author", 2024, 10, 8);
+        when(bookRepositoryMock.getByIsbn("123")).thenReturn(Optional.of(book));
+        stubUpdateOf(book);
+        //When
+        Book returnedBook = testObj.checkAndReturnBook("123");
+        //Then
+        assertThat(returnedBook.getAvailableCopies(), is(equalTo(9)));
+        verify(bookRepositoryMock, times(1)).update(eq("123"), any());
+    }
+
+    @Test
+    void checkAndReturnBook_breachedTotalCopies_throwReturnExceededException() throws BookNotFoundException {
+        //Given
+        Book book = new Book("123", "title", "author", 2024, 10, 10);
+        when(bookRepositoryMock.getByIsbn("123")).thenReturn(Optional.of(book));
+        //When & Then
+        assertThrows(ReturnExceededException.class, () -> testObj.checkAndReturnBook("123"));
+        verify(bookRepositoryMock, never()).update(anyString(), any());
+    }
+
+    @Test
+    void checkAndBorrowBook_concurrentBorrows_neverBorrowsMoreThanTotalCopies() throws InterruptedException, BookNotFoundException {
+        //Given
+        Book book = new Book("123", "title", "author", 2024, 100, 100);
+        when(bookRepositoryMock.getByIsbn("123")).thenReturn(Optional.of(book));
+        stubUpdateOf(book);
+        List<Callable<Book>> borrows = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            borrows.add(() -> testObj.checkAndBorrowBook("123"));
+        }
+        //When
+        int borrowed = 0;
+        int rejected = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (Future<Book> borrow : executor.invokeAll(borrows)) {
+                try {
+                    borrow.get();
+                    borrowed++;
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause() instanceof InsufficientBookCopiesException, is(equalTo(true)));
+                    rejected++;
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        //Then
+        assertThat(borrowed, is(equalTo(100)));
+        assertThat(rejected, is(equalTo(50)));
+        verify(bookRepositoryMock, times(100)).update(eq("123"), any());
+    }
+
+    @Test
+    void checkAndBorrowBook_bookRemovedWhileBorrowing_throwBookNotFoundExceptionWithoutRecreating() throws BookNotFoundException {
+        //Given
+        Book book = new Book("123", "title", "author", 2024, 10, 10);
+        when(bookRepositoryMock.getByIsbn("123")).thenReturn(Optional.of(book));
+        when(bookRepositoryMock.update(eq("123"), any())).thenThrow(new BookNotFoundException("Book with ISBN 123 not found."));
+        //When & Then
+        assertThrows(BookNotFoundException.class, () -> testObj.checkAndBorrowBook("123"));
+        verify(bookRepositoryMock, never()).update(any(Book.class));
+    }
+
+    @Test
+    void checkAndBorrowBooks_oneBookUnavailable_appliedBorrowsCompensated() throws BookNotFoundException, InsufficientBookCopiesException {
+        //Given
+        Book book1 = new Book("123", "title", "author", 2024, 10, 10);
+        Book book2 = new Book("124", "title2", "author", 2024, 1, 0);
+        when(bookRepositoryMock.getByIsbn("123")).thenReturn(Optional.of(book1));
+        when(bookRepositoryMock.getByIsbn("124")).thenReturn(Optional.of(book2));
+        stubUpdateOf(book1);
+        //When
+        var batchException = assertThrows(BatchOperationException.class,
+                () -> testObj.checkAndBorrowBooks(List.of("123", "124")));
+        //Then
+        assertThat(batchException.getFailures().containsKey("124"), is(equalTo(true)));
+        assertThat(testObj.checkAndBorrowBook("123").getAvailableCopies(), is(equalTo(9)));
+    }
+
+    @Test
+    void borrowBookWhenAvailable_copyReturned_handCopyToWaiter() throws Exception {
+        //Given
+        Book book = new Book("123", "title", "author", 2024, 1, 0);
+        when(bookRepositoryMock.getByIsbn("123")).thenReturn(Optional.of(book));
+        stubUpdateOf(book);
+        CompletableFuture<Book> waiting = testObj.borrowBookWhenAvailable("123", Duration.ofSeconds(5));
+        //When
+        testObj.checkAndReturnBook("123");
+        //Then
+        assertThat(waiting.get(5, TimeUnit.SECONDS).getAvailableCopies(), is(equalTo(0)));
+        assertThrows(InsufficientBookCopiesException.class, () -> testObj.checkAndBorrowBook("123"));
+    }
+
+    @Test
+    void checkAndBorrowBook_borrowPublishedAfterLaterReturn_cacheAndAvailabilityIndexEndOnStoredBook() throws Exception {
+        //Given
+        IsbnBookCache bookCacheByIsbn = spy(new IsbnBookCache(64, 4));
+        CountDownLatch borrowPublishing = new CountDownLatch(1);
+        CountDownLatch returned = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            if (invocation.<Book>getArgument(1).getAvailableCopies() == 0) {
+                borrowPublishing.countDown();
+                returned.await(5, TimeUnit.SECONDS);
+            }
+            return invocation.callRealMethod();
+        }).when(bookCacheByIsbn).update(eq("123"), any(Book.class));
+        BookRepository bookRepository = new BookRepositoryImpl(bookCacheByIsbn,
+                new CaffeineBookCache<>(64, Duration.ofMinutes(10), null));
+        AvailabilityIndex availabilityIndex = new AvailabilityIndex();
+        LockFreeBookAvailabilityManager manager = new LockFreeBookAvailabilityManager(bookRepository);
+        bookRepository.subscribe(manager);
+        bookRepository.subscribe(availabilityIndex);
+        bookRepository.createBook(new Book("123", "title", "author", 2024, 1, 1));
+        availabilityIndex.add(bookRepository.getByIsbn("123").orElseThrow());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Book> borrow = executor.submit(() -> manager.checkAndBorrowBook("123"));
+            borrowPublishing.await(5, TimeUnit.SECONDS);
+            //When
+            manager.checkAndReturnBook("123");
+            returned.countDown();
+            borrow.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+        //Then
+        List<Book> stored = new ArrayList<>();
+        bookRepository.forEachBook(stored::add);
+        assertThat(stored.get(0).getAvailableCopies(), is(equalTo(1)));
+        assertThat(bookCacheByIsbn.get("123").orElseThrow(), is(sameInstance(stored.get(0))));
+        assertThat(availabilityIndex.isbns(true).contains("123"), is(equalTo(true)));
+        assertThat(availabilityIndex.isbns(false).contains("123"), is(equalTo(false)));
+    }
+
+    private void stubUpdateOf(Book book) throws BookNotFoundException {
+        when(bookRepositoryMock.update(eq(book.getIsbn()), any())).thenAnswer(invocation ->
+                invocation.<UnaryOperator<Book>>getArgument(1).apply(book));
+    }
+}
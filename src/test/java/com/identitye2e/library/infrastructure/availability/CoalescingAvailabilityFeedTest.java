@@ -0,0 +1,214 @@
+package com.identitye2e.library.infrastructure.availability;
+
+import com.identitye2e.library.book.availability.AvailabilitySubscriber;
+import com.identitye2e.library.book.availability.AvailabilityUpdate;
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.repository.BookChangeEvent;
+import com.identitye2e.library.book.repository.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CoalescingAvailabilityFeedTest {
+    private static final long POLL_SECONDS = 5;
+    @Mock
+    private BookRepository bookRepositoryMock;
+    private CoalescingAvailabilityFeed testObj;
+
+    @BeforeEach
+    void setup() {
+        testObj = new CoalescingAvailabilityFeed(bookRepositoryMock, Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        testObj.close();
+    }
+
+    @Test
+    void subscribe_bookExists_deliverCurrentStateFirst() throws InterruptedException {
+        //Given
+        Book book = new Book("123", "title", "author", 2024, 10, 7);
+        when(bookRepositoryMock.getByIsbn("123")).thenReturn(Optional.of(book));
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        //When
+        testObj.subscribe(Set.of("123"), Set.of(), subscriber);
+        //Then
+        assertThat(subscriber.next(), is(equalTo(new AvailabilityUpdate("123", 7, 10, false))));
+    }
+
+    @Test
+    void onBookChange_followedIsbnAndAuthor_deliverOnlyTheirChanges() throws InterruptedException {
+        //Given
+        when(bookRepositoryMock.getByIsbn("123")).thenReturn(Optional.empty());
+        when(bookRepositoryMock.getByAuthor("author2")).thenReturn(List.of());
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        testObj.subscribe(Set.of("123"), Set.of("author2"), subscriber);
+        //When
+        testObj.onBookChange(borrowed(new Book("999", "title", "author", 2024, 10, 10)));
+        testObj.onBookChange(borrowed(new Book("123", "title", "author", 2024, 10, 10)));
+        testObj.onBookChange(borrowed(new Book("124", "title", "author2", 2024, 5, 5)));
+        //Then
+        assertThat(Set.of(subscriber.next(), subscriber.next()), is(equalTo(Set.of(
+                new AvailabilityUpdate("123", 9, 10, false),
+                new AvailabilityUpdate("124", 4, 5, false)))));
+        assertThat(subscriber.updates.poll(100, TimeUnit.MILLISECONDS), is(nullValue()));
+    }
+
+    @Test
+    void onBookChange_subscriberSlowToRead_coalesceToLatestState() throws InterruptedException {
+        //Given
+        when(bookRepositoryMock.getByIsbn("123")).thenReturn(Optional.empty());
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        subscriber.blockFirstDelivery();
+        testObj.subscribe(Set.of("123"), Set.of(), subscriber);
+        BookChangeEvent firstBorrow = borrowed(new Book("123", "title", "author", 2024, 10, 10));
+        testObj.onBookChange(firstBorrow);
+        subscriber.firstDeliveryStarted.await(POLL_SECONDS, TimeUnit.SECONDS);
+        //When
+        Book book = firstBorrow.current();
+        for (int i = 0; i < 5; i++) {
+            BookChangeEvent borrow = borrowed(book);
+            testObj.onBookChange(borrow);
+            book = borrow.current();
+        }
+        subscriber.releaseFirstDelivery.countDown();
+        //Then
+        assertThat(subscriber.next().availableCopies(), is(equalTo(9)));
+        assertThat(subscriber.next().availableCopies(), is(equalTo(4)));
+        assertThat(subscriber.updates.poll(100, TimeUnit.MILLISECONDS), is(nullValue()));
+    }
+
+    @Test
+    void onBookChange_bookDeleted_deliverRemoval() throws InterruptedException {
+        //Given
+        when(bookRepositoryMock.getByIsbn("123")).thenReturn(Optional.empty());
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        testObj.subscribe(Set.of("123"), Set.of(), subscriber);
+        //When
+        testObj.onBookChange(BookChangeEvent.deleted(new Book("123", "title", "author", 2024, 10, 10)));
+        //Then
+        assertThat(subscriber.next(), is(equalTo(AvailabilityUpdate.removed("123"))));
+    }
+
+    @Test
+    void onBookChange_authorChanged_deliverRemovalToPreviousAuthorOnly() throws InterruptedException {
+        //Given
+        when(bookRepositoryMock.getByAuthor("author")).thenReturn(List.of());
+        when(bookRepositoryMock.getByAuthor("author2")).thenReturn(List.of());
+        when(bookRepositoryMock.getByIsbn("123")).thenReturn(Optional.empty());
+        RecordingSubscriber previousAuthorSubscriber = new RecordingSubscriber();
+        RecordingSubscriber newAuthorSubscriber = new RecordingSubscriber();
+        RecordingSubscriber isbnAndPreviousAuthorSubscriber = new RecordingSubscriber();
+        testObj.subscribe(Set.of(), Set.of("author"), previousAuthorSubscriber);
+        testObj.subscribe(Set.of(), Set.of("author2"), newAuthorSubscriber);
+        testObj.subscribe(Set.of("123"), Set.of("author"), isbnAndPreviousAuthorSubscriber);
+        Book book = new Book("123", "title", "author", 2024, 10, 10);
+        Book movedBook = new Book("123", "title", "author2", 2024, 10, 10);
+        //When
+        testObj.onBookChange(BookChangeEvent.updated(book, movedBook));
+        //Then
+        assertThat(previousAuthorSubscriber.next(), is(equalTo(AvailabilityUpdate.removed("123"))));
+        assertThat(newAuthorSubscriber.next(), is(equalTo(AvailabilityUpdate.of(movedBook))));
+        assertThat(isbnAndPreviousAuthorSubscriber.next(), is(equalTo(AvailabilityUpdate.of(movedBook))));
+        assertThat(isbnAndPreviousAuthorSubscriber.updates.poll(100, TimeUnit.MILLISECONDS), is(nullValue()));
+    }
+
+    @Test
+    void onBookChange_clientGone_unsubscribeAndClose() throws InterruptedException {
+        //Given
+        when(bookRepositoryMock.getByIsbn("123")).thenReturn(Optional.empty());
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        subscriber.connected = false;
+        testObj.subscribe(Set.of("123"), Set.of(), subscriber);
+        //When
+        testObj.onBookChange(borrowed(new Book("123", "title", "author", 2024, 10, 10)));
+        //Then
+        assertThat(subscriber.closed.await(POLL_SECONDS, TimeUnit.SECONDS), is(equalTo(true)));
+        assertThat(testObj.subscriberCount(), is(equalTo(0)));
+    }
+
+    @Test
+    void heartbeat_idleSubscriber_sendHeartbeat() throws InterruptedException {
+        //Given
+        testObj.close();
+        testObj = new CoalescingAvailabilityFeed(bookRepositoryMock, Duration.ofMillis(10));
+        when(bookRepositoryMock.getByIsbn("123")).thenReturn(Optional.empty());
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        //When
+        testObj.subscribe(Set.of("123"), Set.of(), subscriber);
+        //Then
+        assertThat(subscriber.heartbeats.await(POLL_SECONDS, TimeUnit.SECONDS), is(equalTo(true)));
+    }
+
+    private static BookChangeEvent borrowed(Book book) {
+        return BookChangeEvent.updated(book, withAvailableCopies(book, book.getAvailableCopies() - 1));
+    }
+
+    private static Book withAvailableCopies(Book book, int availableCopies) {
+        return new Book(book.getIsbn(), book.getTitle(), book.getAuthor(), book.getPublicationYear(), book.getTotalCopies(), availableCopies);
+    }
+
+    private static class RecordingSubscriber implements AvailabilitySubscriber {
+        private final BlockingQueue<AvailabilityUpdate> updates = new LinkedBlockingQueue<>();
+        private final CountDownLatch heartbeats = new CountDownLatch(1);
+        private final CountDownLatch closed = new CountDownLatch(1);
+        private final CountDownLatch firstDeliveryStarted = new CountDownLatch(1);
+        private final CountDownLatch releaseFirstDelivery = new CountDownLatch(1);
+        private volatile boolean blockFirstDelivery;
+        private volatile boolean connected = true;
+
+        private void blockFirstDelivery() {
+            blockFirstDelivery = true;
+        }
+
+        private AvailabilityUpdate next() throws InterruptedException {
+            return updates.poll(POLL_SECONDS, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public boolean deliver(AvailabilityUpdate update) {
+            if (blockFirstDelivery && firstDeliveryStarted.getCount() > 0) {
+                firstDeliveryStarted.countDown();
+                try {
+                    releaseFirstDelivery.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            updates.add(update);
+            return connected;
+        }
+
+        @Override
+        public boolean heartbeat() {
+            heartbeats.countDown();
+            return connected;
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.identitye2e.library.infrastructure.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+
+class ConcurrentLongObjectMapTest {
+    @Test
+    void compute_nullResult_removeKey() {
+        //Given
+        ConcurrentLongObjectMap<String> testObj = new ConcurrentLongObjectMap<>(4, 16);
+        testObj.put(1, "one");
+        //When
+        testObj.compute(1, value -> null);
+        //Then
+        assertThat(testObj.get(1), is(nullValue()));
+        assertThat(testObj.size(), is(equalTo(0)));
+    }
+
+    @Test
+    void computeIfAbsent_keyExists_keepExistingValue() {
+        //Given
+        ConcurrentLongObjectMap<String> testObj = new ConcurrentLongObjectMap<>(4, 16);
+        testObj.put(1, "one");
+        //When
+        String value = testObj.computeIfAbsent(1, () -> "uno");
+        //Then
+        assertThat(value, is(equalTo("one")));
+    }
+
+    @Test
+    void computeIfPresent_keyMissing_returnNullAndDoNotInsert() {
+        //Given
+        ConcurrentLongObjectMap<String> testObj = new ConcurrentLongObjectMap<>(4, 16);
+        //When
+        String value = testObj.computeIfPresent(1, existing -> "one");
+        //Then
+        assertThat(value, is(nullValue()));
+        assertThat(testObj.get(1), is(nullValue()));
+    }
+
+    @Test
+    void compute_concurrentIncrements_noUpdateIsLost() throws Exception {
+        //Given
+        ConcurrentLongObjectMap<Integer> testObj = new ConcurrentLongObjectMap<>();
+        List<Callable<Void>> operations = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            long key = 1 + i % 100;
+            operations.add(() -> {
+                testObj.compute(key, value -> value == null ? 1 : value + 1);
+                return null;
+            });
+        }
+        //When
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (Future<Void> operation : executor.invokeAll(operations)) {
+                operation.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        //Then
+        assertThat(testObj.size(), is(equalTo(100)));
+        for (long key = 1; key <= 100; key++) {
+            assertThat(testObj.get(key), is(equalTo(100)));
+        }
+    }
+
+    @Test
+    void values_multipleSegments_returnEveryValue() {
+        //Given
+        ConcurrentLongObjectMap<Long> testObj = new ConcurrentLongObjectMap<>(8, 16);
+        for (long key = 1; key <= 50; key++) {
+            testObj.put(key, key);
+        }
+        //When & Then
+        assertThat(new ArrayList<>(testObj.values()), containsInAnyOrder(
+                LongStream.rangeClosed(1, 50).boxed().toArray()));
+    }
+}
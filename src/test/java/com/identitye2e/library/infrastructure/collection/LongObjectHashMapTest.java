@@ -0,0 +1,81 @@
+package com.identitye2e.library.infrastructure.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LongObjectHashMapTest {
+    @Test
+    void put_existingKey_replaceValueAndReturnPrevious() {
+        //Given
+        LongObjectHashMap<String> testObj = new LongObjectHashMap<>(4);
+        testObj.put(1, "one");
+        //When
+        String previous = testObj.put(1, "uno");
+        //Then
+        assertThat(previous, is(equalTo("one")));
+        assertThat(testObj.get(1), is(equalTo("uno")));
+        assertThat(testObj.size(), is(equalTo(1)));
+    }
+
+    @Test
+    void put_emptyKey_throwIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new LongObjectHashMap<String>(4).put(LongObjectHashMap.EMPTY_KEY, "zero"));
+    }
+
+    @Test
+    void operations_randomWorkload_matchHashMap() {
+        //Given
+        LongObjectHashMap<Long> testObj = new LongObjectHashMap<>(8);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(13);
+        //When
+        for (int i = 0; i < 200_000; i++) {
+            long key = 1 + random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertThat(testObj.remove(key), is(equalTo(expected.remove(key))));
+            } else {
+                assertThat(testObj.put(key, (long) i), is(equalTo(expected.put(key, (long) i))));
+            }
+        }
+        //Then
+        assertThat(testObj.size(), is(equalTo(expected.size())));
+        for (long key = 1; key <= 5_000; key++) {
+            assertThat(testObj.get(key), is(equalTo(expected.get(key))));
+        }
+        List<Long> values = new ArrayList<>();
+        testObj.forEachValue(values::add);
+        assertThat(values, containsInAnyOrder(expected.values().toArray()));
+    }
+
+    @Test
+    void evict_referencedEntry_evictUnreferencedFirst() {
+        //Given
+        LongObjectHashMap<String> testObj = new LongObjectHashMap<>(4);
+        testObj.put(1, "one");
+        testObj.put(2, "two");
+        testObj.reference(1);
+        //When
+        long evicted = testObj.evict();
+        //Then
+        assertThat(evicted, is(equalTo(2L)));
+        assertThat(testObj.get(2), is(nullValue()));
+        assertThat(testObj.get(1), is(equalTo("one")));
+    }
+
+    @Test
+    void evict_emptyMap_returnEmptyKey() {
+        assertThat(new LongObjectHashMap<String>(4).evict(), is(equalTo(LongObjectHashMap.EMPTY_KEY)));
+    }
+}
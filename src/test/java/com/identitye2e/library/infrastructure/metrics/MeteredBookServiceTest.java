@@ -0,0 +1,89 @@
+package com.identitye2e.library.infrastructure.metrics;
+
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.service.BookService;
+import com.identitye2e.library.book.service.exceptions.BookNotFoundException;
+import com.identitye2e.library.book.service.exceptions.InsufficientBookCopiesException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MeteredBookServiceTest {
+    @Mock
+    private BookService bookServiceMock;
+    private MeterRegistry meterRegistry;
+    private BookService testObj;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        testObj = new MeteredBookService(bookServiceMock, meterRegistry);
+    }
+
+    @Test
+    void findBookByISBN_delegate_recordSuccess() {
+        //Given
+        Book book = new Book("123", "title", "auth", 2024, 10, 10);
+        when(bookServiceMock.findBookByISBN("123")).thenReturn(Optional.of(book));
+        //When
+        Optional<Book> actualBook = testObj.findBookByISBN("123");
+        //Then
+        assertThat(actualBook, is(equalTo(Optional.of(book))));
+        assertThat(timer("findBookByISBN", "success").count(), is(equalTo(1L)));
+        assertThat(timer("findBookByISBN", "failure").count(), is(equalTo(0L)));
+    }
+
+    @Test
+    void borrowBook_delegateThrows_recordFailureAndRethrow() throws BookNotFoundException, InsufficientBookCopiesException {
+        //Given
+        when(bookServiceMock.borrowBook("123")).thenThrow(new InsufficientBookCopiesException("none left"));
+        //When & Then
+        assertThrows(InsufficientBookCopiesException.class, () -> testObj.borrowBook("123"));
+        assertThat(timer("borrowBook", "success").count(), is(equalTo(0L)));
+        assertThat(timer("borrowBook", "failure").count(), is(equalTo(1L)));
+    }
+
+    @Test
+    void borrowBookWhenAvailable_futureCompletes_recordWhenCompleted() {
+        //Given
+        Book book = new Book("123", "title", "auth", 2024, 10, 0);
+        CompletableFuture<Book> waiting = new CompletableFuture<>();
+        when(bookServiceMock.borrowBookWhenAvailable("123", Duration.ofSeconds(5))).thenReturn(waiting);
+        //When
+        testObj.borrowBookWhenAvailable("123", Duration.ofSeconds(5));
+        long recordedBeforeCompletion = timer("borrowBookWhenAvailable", "success").count();
+        waiting.complete(book);
+        //Then
+        assertThat(recordedBeforeCompletion, is(equalTo(0L)));
+        assertThat(timer("borrowBookWhenAvailable", "success").count(), is(equalTo(1L)));
+    }
+
+    @Test
+    void constructor_everyOperation_registerTimersUpFront() {
+        //Given & When & Then
+        assertThat(meterRegistry.find(MeteredBookService.TIMER_NAME).timers().size(), is(equalTo(32)));
+    }
+
+    private Timer timer(String operation, String outcome) {
+        return meterRegistry.get(MeteredBookService.TIMER_NAME)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .timer();
+    }
+}
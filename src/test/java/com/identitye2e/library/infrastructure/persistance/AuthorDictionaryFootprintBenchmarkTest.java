@@ -0,0 +1,93 @@
+package com.identitye2e.library.infrastructure.persistance;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.model.StringDictionary;
+import com.identitye2e.library.infrastructure.cache.SimpleBookCache;
+import com.identitye2e.library.infrastructure.persistance.journal.BookJournal;
+import com.identitye2e.library.rest.v1.request.BookRequest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+/*
+Heap saved by the author dictionary on a catalog import. Records are deserialised from JSON
+like the import endpoint does, authors follow a skewed distribution where a few authors own
+most titles. The per-record author Strings the deserialiser produces are what every Book
+pinned before authors were interned, they are retained on their own to measure that cost.
+Excluded from the default build, run with
+
+    mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class AuthorDictionaryFootprintBenchmarkTest {
+    private static final int DISTINCT_AUTHORS = 200_000;
+    private static final int BATCH_SIZE = 10_000;
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+    private final ObjectReader bookRequestReader = new ObjectMapper().readerFor(BookRequest.class);
+
+    @ParameterizedTest
+    @ValueSource(ints = {1_000_000, 5_000_000})
+    void footprint_authorStrings(int books) throws IOException {
+        long baseline = usedHeapAfterGc();
+        StringDictionary authors = new StringDictionary();
+        BookRepositoryImpl repository = new BookRepositoryImpl(new SimpleBookCache<>(16), new SimpleBookCache<>(16),
+                BookJournal.NO_OP, authors);
+        String[] perRecordAuthors = new String[books];
+        long arrayBytes = usedHeapAfterGc() - baseline;
+
+        Random random = new Random(14);
+        List<Book> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < books; i++) {
+            BookRequest request = bookRequestReader.readValue(record(i, random));
+            perRecordAuthors[i] = request.getAuthor();
+            batch.add(new Book(request.getIsbn(), request.getTitle(), request.getAuthor(),
+                    request.getPublicationYear(), request.getAvailableCopies(), request.getAvailableCopies()));
+            if (batch.size() == BATCH_SIZE) {
+                repository.createBooks(batch);
+                batch.clear();
+            }
+        }
+        repository.createBooks(batch);
+        long withPerRecordAuthors = usedHeapAfterGc() - baseline - arrayBytes;
+        assertThat(perRecordAuthors[books - 1], is(equalTo(repository.getByIsbn(isbn(books - 1)).orElseThrow().getAuthor())));
+
+        perRecordAuthors = null;
+        long withDictionary = usedHeapAfterGc() - baseline;
+
+        System.out.printf("footprint authors books=%d distinctAuthors=%d dictionaryHeapMb=%d perRecordAuthorsHeapMb=%d savedMb=%d savedBytesPerBook=%d%n",
+                books, authors.size(), withDictionary >> 20, withPerRecordAuthors >> 20,
+                (withPerRecordAuthors - withDictionary) >> 20, (withPerRecordAuthors - withDictionary) / books);
+        assertThat(repository.getByIsbn(isbn(books - 1)).isPresent(), is(equalTo(true)));
+    }
+
+    private static String record(int index, Random random) {
+        int author = (int) (DISTINCT_AUTHORS * Math.pow(random.nextDouble(), 3));
+        return """
+                {"isbn": "%s", "title": "Title %d", "author": "Author Name %d", "publicationYear": %d, "availableCopies": 3}"""
+                .formatted(isbn(index), index, author, 1950 + index % 75);
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+    private static String isbn(int index) {
+        return Long.toString(9_780_000_000_000L + index);
+    }
+}
@@ -1,24 +1,33 @@
 package com.identitye2e.library.infrastructure.persistance;
 
 import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.repository.BookChangeEvent;
+import com.identitye2e.library.book.repository.BookChangeListener;
 import com.identitye2e.library.book.repository.BookRepository;
 import com.identitye2e.library.book.service.exceptions.BookAlreadyExistsException;
 import com.identitye2e.library.book.service.exceptions.BookNotFoundException;
 import com.identitye2e.library.book.service.exceptions.InsufficientBookCopiesException;
 import com.identitye2e.library.infrastructure.cache.BookCache;
+import com.identitye2e.library.infrastructure.persistance.journal.BookJournal;
+import com.identitye2e.library.infrastructure.persistance.journal.BookMutation;
+import com.identitye2e.library.infrastructure.persistance.journal.FileBookJournal;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -169,6 +178,50 @@ class BookRepositoryImplTest {
         inOrder.verify(booksCacheByAuthorMock, never()).put(anyString(), any(List.class));
     }
 
+    @Test
+    void getByAuthor_bookRemoved_authorIndexNoLongerReturnsBook() throws BookAlreadyExistsException, BookNotFoundException {
+        //Given
+        testObj.createBook(new Book("123", "title", "auth", 2024, 10, 10));
+        testObj.createBook(new Book("124", "title2", "auth", 2024, 10, 10));
+        testObj.removeBook("123");
+        when(booksCacheByAuthorMock.get("auth")).thenReturn(Optional.empty());
+        //When
+        List<Book> booksByAuthor = testObj.getByAuthor("auth");
+        //Then
+        assertThat(booksByAuthor.size(), is(equalTo(1)));
+        assertThat(booksByAuthor.get(0).getIsbn(), is(equalTo("124")));
+    }
+
+    @Test
+    void getByAuthor_authorChangedOnUpdate_authorIndexMovesBook() throws BookAlreadyExistsException {
+        //Given
+        testObj.createBook(new Book("123", "title", "auth", 2024, 10, 10));
+        testObj.update(new Book("123", "title", "auth2", 2024, 10, 10));
+        when(booksCacheByAuthorMock.get(anyString())).thenReturn(Optional.empty());
+        //When
+        List<Book> booksByOldAuthor = testObj.getByAuthor("auth");
+        List<Book> booksByNewAuthor = testObj.getByAuthor("auth2");
+        //Then
+        assertThat(booksByOldAuthor.isEmpty(), is(equalTo(true)));
+        assertThat(booksByNewAuthor.size(), is(equalTo(1)));
+    }
+
+    @Test
+    void getByAuthor_authorFromSeparateString_matchStoredAuthorInstance() throws BookAlreadyExistsException {
+        //Given
+        testObj.createBook(new Book("123", "title", new String("shared author"), 2024, 10, 10));
+        testObj.update(new Book("124", "title2", new String("shared author"), 2024, 10, 10));
+        String author = new String("shared author");
+        when(booksCacheByAuthorMock.get(author)).thenReturn(Optional.empty());
+        //When
+        List<Book> booksByAuthor = testObj.getByAuthor(author);
+        List<Book> pageByAuthor = testObj.getByAuthor(author, "123", 10);
+        //Then
+        assertThat(booksByAuthor.size(), is(equalTo(2)));
+        assertThat(pageByAuthor.size(), is(equalTo(1)));
+        assertThat(pageByAuthor.get(0).getIsbn(), is(equalTo("124")));
+    }
+
     @Test
     void update_bookAlreadyExistUpdateBorrowAmount_bookUpdated() throws BookAlreadyExistsException, InsufficientBookCopiesException {
         //Given
@@ -193,4 +246,184 @@ class BookRepositoryImplTest {
         assertThat(actualBookUpdate.getAvailableCopies(), is(equalTo(9)));
         assertThat(actualBookUpdate, is(equalTo(updateBook)));
     }
-}
\ No newline at end of file
+
+    @Test
+    void update_changeOfExistingBook_appliedToStoredBookAndPublishedOnce() throws BookAlreadyExistsException, BookNotFoundException {
+        //Given
+        List<BookChangeEvent> events = new ArrayList<>();
+        Book book = new Book("123", "title", "auth", 2024, 10, 10);
+        testObj.createBook(book);
+        testObj.subscribe(events::add);
+        Book updatedBook = new Book("123", "title", "auth", 2024, 10, 9);
+        //When
+        Book actualBookUpdate = testObj.update("123", stored -> updatedBook);
+        //Then
+        assertThat(actualBookUpdate, is(equalTo(updatedBook)));
+        assertThat(events, is(equalTo(List.of(BookChangeEvent.updated(book, updatedBook)))));
+    }
+
+    @Test
+    void update_changeOfMissingBook_throwBookNotFoundExceptionWithoutCreating() {
+        //Given
+        Book book = new Book("123", "title", "auth", 2024, 10, 10);
+        //When
+        var notFoundException = assertThrows(BookNotFoundException.class, () -> testObj.update("123", stored -> book));
+        //Then
+        assertThat(notFoundException.getMessage(), is(equalTo("Book with ISBN 123 not found.")));
+        assertThat(testObj.size(), is(equalTo(0)));
+    }
+
+    @Test
+    void subscribe_mutations_listenerReceivesEventsInOrder() throws BookAlreadyExistsException, BookNotFoundException {
+        //Given
+        List<BookChangeEvent> events = new ArrayList<>();
+        testObj.subscribe(events::add);
+        Book book = new Book("123", "title", "auth", 2024, 10, 10);
+        Book updatedBook = new Book("123", "title", "auth", 2024, 10, 9);
+        //When
+        testObj.createBook(book);
+        testObj.update(updatedBook);
+        testObj.removeBook("123");
+        //Then
+        assertThat(events.size(), is(equalTo(3)));
+        assertThat(events.get(0), is(equalTo(BookChangeEvent.created(book))));
+        assertThat(events.get(1), is(equalTo(BookChangeEvent.updated(book, updatedBook))));
+        assertThat(events.get(2), is(equalTo(BookChangeEvent.deleted(updatedBook))));
+    }
+
+    @Test
+    void update_bookUpdated_authorListInvalidated() throws BookAlreadyExistsException, InsufficientBookCopiesException {
+        //Given
+        Book book = new Book("123", "title", "auth", 2024, 10, 10);
+        testObj.createBook(book);
+        //When
+        testObj.update(book.borrowBook());
+        //Then
+        verify(booksCacheByAuthorMock, times(2)).invalidate("auth");
+    }
+
+    @Test
+    void createBooks_someDuplicates_returnDuplicatesAndCreateRest() throws BookAlreadyExistsException {
+        //Given
+        testObj.createBook(new Book("123", "title", "auth", 2024, 10, 10));
+        Book duplicate = new Book("123", "title", "auth", 2024, 10, 10);
+        Book newBook = new Book("124", "title2", "auth", 2024, 10, 10);
+        //When
+        List<Book> duplicates = testObj.createBooks(List.of(duplicate, newBook));
+        //Then
+        assertThat(duplicates.size(), is(equalTo(1)));
+        assertThat(duplicates.get(0), is(equalTo(duplicate)));
+        assertThat(testObj.getByIsbn("124").isPresent(), is(equalTo(true)));
+    }
+
+    @Test
+    void createBooks_sameAuthorFromSeparateStrings_storeOneAuthorInstance() {
+        //Given
+        Book firstBook = new Book("123", "xxx", new String("shared author"), 2017, 5, 5);
+        Book secondBook = new Book("124", "yyy", new String("shared author"), 2017, 5, 5);
+        //When
+        testObj.createBooks(List.of(firstBook, secondBook));
+        //Then
+        assertThat(testObj.getByIsbn("124").orElseThrow().getAuthor(),
+                is(sameInstance(testObj.getByIsbn("123").orElseThrow().getAuthor())));
+    }
+
+    @Test
+    void createBooks_journaledBatch_awaitDurableOnceAndPublishBatch() {
+        //Given
+        BookJournal journalMock = mock(BookJournal.class);
+        when(journalMock.append(any(BookMutation.class))).thenReturn(1L, 2L, 3L);
+        BookRepository repository = new BookRepositoryImpl(bookCacheByIsbnMock, booksCacheByAuthorMock, journalMock);
+        List<List<BookChangeEvent>> batches = new ArrayList<>();
+        repository.subscribe(new BookChangeListener() {
+            @Override
+            public void onBookChange(BookChangeEvent event) {
+                batches.add(List.of(event));
+            }
+
+            @Override
+            public void onBookChanges(List<BookChangeEvent> events) {
+                batches.add(events);
+            }
+        });
+        List<Book> books = List.of(
+                new Book("123", "title", "auth", 2024, 10, 10),
+                new Book("124", "title2", "auth", 2024, 10, 10),
+                new Book("125", "title3", "auth2", 2024, 10, 10));
+        //When
+        List<Book> duplicates = repository.createBooks(books);
+        //Then
+        assertThat(duplicates.isEmpty(), is(equalTo(true)));
+        verify(journalMock, times(1)).awaitDurable(anyLong());
+        verify(journalMock).awaitDurable(3L);
+        assertThat(batches, is(equalTo(List.of(books.stream().map(BookChangeEvent::created).toList()))));
+    }
+
+    @Test
+    void getByAuthorPaged_afterIsbn_returnNextBooksInIsbnOrder() throws BookAlreadyExistsException {
+        //Given
+        testObj.createBook(new Book("125", "title3", "auth", 2024, 10, 10));
+        testObj.createBook(new Book("123", "title", "auth", 2024, 10, 10));
+        testObj.createBook(new Book("124", "title2", "auth", 2024, 10, 10));
+        testObj.createBook(new Book("126", "title4", "auth2", 2024, 10, 10));
+        //When
+        List<Book> firstPage = testObj.getByAuthor("auth", null, 2);
+        List<Book> secondPage = testObj.getByAuthor("auth", "124", 2);
+        //Then
+        assertThat(firstPage.stream().map(Book::getIsbn).toList(), is(equalTo(List.of("123", "124"))));
+        assertThat(secondPage.stream().map(Book::getIsbn).toList(), is(equalTo(List.of("125"))));
+    }
+
+    @Test
+    void constructor_journalWithMutations_restoreStoreAndAuthorIndex(@TempDir Path journalDirectory)
+            throws BookAlreadyExistsException, BookNotFoundException, InsufficientBookCopiesException {
+        //Given
+        Book book = new Book("123", "title", "auth", 2024, 10, 10);
+        try (FileBookJournal journal = new FileBookJournal(journalDirectory, true)) {
+            BookRepository repository = new BookRepositoryImpl(bookCacheByIsbnMock, booksCacheByAuthorMock, journal);
+            repository.createBook(book);
+            repository.createBook(new Book("124", "title2", "auth", 2024, 10, 10));
+            repository.update(book.borrowBook());
+            repository.removeBook("124");
+        }
+        when(booksCacheByAuthorMock.get("auth")).thenReturn(Optional.empty());
+        //When
+        List<Book> booksByAuthor;
+        Optional<Book> recoveredBook;
+        try (FileBookJournal journal = new FileBookJournal(journalDirectory, true)) {
+            BookRepository recoveredRepository = new BookRepositoryImpl(bookCacheByIsbnMock, booksCacheByAuthorMock, journal);
+            booksByAuthor = recoveredRepository.getByAuthor("auth");
+            recoveredBook = recoveredRepository.getByIsbn("123");
+        }
+        //Then
+        assertThat(booksByAuthor.size(), is(equalTo(1)));
+        assertThat(recoveredBook.isPresent(), is(equalTo(true)));
+        assertThat(recoveredBook.get().getAvailableCopies(), is(equalTo(9)));
+    }
+
+    @Test
+    void checkpoint_mutationsAfterSnapshot_restoreSnapshotAndTail(@TempDir Path journalDirectory)
+            throws BookAlreadyExistsException, InsufficientBookCopiesException {
+        //Given
+        Book book = new Book("123", "title", "auth", 2024, 10, 10);
+        try (FileBookJournal journal = new FileBookJournal(journalDirectory, true)) {
+            BookRepositoryImpl repository = new BookRepositoryImpl(bookCacheByIsbnMock, booksCacheByAuthorMock, journal);
+            repository.createBook(book);
+            repository.checkpoint();
+            repository.update(book.borrowBook());
+            repository.createBook(new Book("124", "title2", "auth", 2024, 10, 10));
+        }
+        when(booksCacheByAuthorMock.get("auth")).thenReturn(Optional.empty());
+        //When
+        List<Book> booksByAuthor;
+        Optional<Book> recoveredBook;
+        try (FileBookJournal journal = new FileBookJournal(journalDirectory, true)) {
+            BookRepository recoveredRepository = new BookRepositoryImpl(bookCacheByIsbnMock, booksCacheByAuthorMock, journal);
+            booksByAuthor = recoveredRepository.getByAuthor("auth");
+            recoveredBook = recoveredRepository.getByIsbn("123");
+        }
+        //Then
+        assertThat(booksByAuthor.size(), is(equalTo(2)));
+        assertThat(recoveredBook.get().getAvailableCopies(), is(equalTo(9)));
+    }
+}
@@ -0,0 +1,116 @@
+package com.identitye2e.library.infrastructure.persistance;
+
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.infrastructure.cache.SimpleBookCache;
+import com.identitye2e.library.infrastructure.persistance.journal.BookMutation;
+import com.identitye2e.library.infrastructure.persistance.journal.FileBookJournal;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.file.Path;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+/*
+Cold start of BookRepositoryImpl from a journal holding N books, once recovered from the
+full mutation log and once from a snapshot plus a tail of borrows. Excluded from the default
+build, run with
+
+    mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class BookRepositoryStartupBenchmarkTest {
+    private static final int TAIL_MUTATIONS = 100_000;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1_000_000, 10_000_000})
+    void startup_fullLog(int books, @TempDir Path directory) {
+        //Given
+        try (FileBookJournal journal = new FileBookJournal(directory, false)) {
+            for (Book book : books(books)) {
+                journal.append(BookMutation.create(book));
+            }
+            appendTail(journal, books);
+        }
+        //When & Then
+        recover("full log", books, directory);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1_000_000, 10_000_000})
+    void startup_snapshotAndTail(int books, @TempDir Path directory) {
+        //Given
+        try (FileBookJournal journal = new FileBookJournal(directory, false)) {
+            journal.checkpoint(books(books));
+            appendTail(journal, books);
+        }
+        //When & Then
+        recover("snapshot + tail", books, directory);
+    }
+
+    private static void recover(String mode, int books, Path directory) {
+        long startNanos = System.nanoTime();
+        try (FileBookJournal journal = new FileBookJournal(directory, false)) {
+            BookRepositoryImpl repository = new BookRepositoryImpl(new SimpleBookCache<>(16), new SimpleBookCache<>(16), journal);
+            long elapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
+            System.out.printf("startup mode=%s books=%d tailMutations=%d tookMs=%d%n", mode, books, TAIL_MUTATIONS, elapsedMs);
+            assertThat(repository.getByIsbn(isbn(0)).map(Book::getAvailableCopies).orElse(-1), is(equalTo(0)));
+        }
+    }
+
+    private static void appendTail(FileBookJournal journal, int books) {
+        for (int i = 0; i < TAIL_MUTATIONS; i++) {
+            int index = (int) ((long) i * 7919 % books);
+            journal.append(BookMutation.update(new Book(isbn(index), "title-" + index, author(index), 2024, 1, 0)));
+        }
+    }
+
+    /*
+    Generated on iteration so that writing the journal does not need the books in memory.
+     */
+    private static Collection<Book> books(int count) {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Book> iterator() {
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < count;
+                    }
+
+                    @Override
+                    public Book next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        int index = next++;
+                        return new Book(isbn(index), "title-" + index, author(index), 2024, 1, 1);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    private static String isbn(int index) {
+        return "%013d".formatted(index);
+    }
+
+    private static String author(int index) {
+        return "author-" + index % 50_000;
+    }
+}
@@ -0,0 +1,87 @@
+package com.identitye2e.library.infrastructure.persistance.cache;
+
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.repository.BookChangeEvent;
+import com.identitye2e.library.infrastructure.cache.BookCache;
+import com.identitye2e.library.infrastructure.cache.BookCacheInvalidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookCacheInvalidatorTest {
+    @Mock
+    private BookCache<String, Book> bookCacheByIsbnMock;
+    @Mock
+    private BookCache<String, List<Book>> booksCacheByAuthorMock;
+    private BookCacheInvalidator testObj;
+
+    @BeforeEach
+    void setup() {
+        testObj = new BookCacheInvalidator(bookCacheByIsbnMock, booksCacheByAuthorMock);
+    }
+
+    @Test
+    void onBookChange_bookCreated_authorListInvalidated() {
+        //Given
+        Book book = new Book("123", "title", "auth", 2024, 10, 10);
+        //When
+        testObj.onBookChange(BookChangeEvent.created(book));
+        //Then
+        verify(booksCacheByAuthorMock, times(1)).invalidate("auth");
+        verifyNoInteractions(bookCacheByIsbnMock);
+    }
+
+    @Test
+    void onBookChange_bookUpdated_isbnEntryPatchedAndAuthorListInvalidated() {
+        //Given
+        Book book = new Book("123", "title", "auth", 2024, 10, 10);
+        Book updatedBook = new Book("123", "title", "auth", 2024, 10, 9);
+        //When
+        testObj.onBookChange(BookChangeEvent.updated(book, updatedBook));
+        //Then
+        verify(bookCacheByIsbnMock, times(1)).update("123", updatedBook);
+        verify(booksCacheByAuthorMock, times(1)).invalidate("auth");
+    }
+
+    @Test
+    void onBookChange_authorChanged_bothAuthorListsInvalidated() {
+        //Given
+        Book book = new Book("123", "title", "auth", 2024, 10, 10);
+        Book updatedBook = new Book("123", "title", "auth2", 2024, 10, 10);
+        //When
+        testObj.onBookChange(BookChangeEvent.updated(book, updatedBook));
+        //Then
+        verify(booksCacheByAuthorMock, times(1)).invalidate("auth");
+        verify(booksCacheByAuthorMock, times(1)).invalidate("auth2");
+    }
+
+    @Test
+    void onBookChange_bookDeleted_isbnEntryAndAuthorListInvalidated() {
+        //Given
+        Book book = new Book("123", "title", "auth", 2024, 10, 10);
+        //When
+        testObj.onBookChange(BookChangeEvent.deleted(book));
+        //Then
+        verify(bookCacheByIsbnMock, times(1)).invalidate("123");
+        verify(booksCacheByAuthorMock, times(1)).invalidate("auth");
+    }
+
+    @Test
+    void onBookChanges_batchOfOneAuthor_authorListInvalidatedOnce() {
+        //Given
+        Book book1 = new Book("123", "title", "auth", 2024, 10, 10);
+        Book book2 = new Book("124", "title2", "auth", 2024, 10, 10);
+        //When
+        testObj.onBookChanges(List.of(BookChangeEvent.created(book1), BookChangeEvent.created(book2)));
+        //Then
+        verify(booksCacheByAuthorMock, times(1)).invalidate("auth");
+        verifyNoInteractions(bookCacheByIsbnMock);
+    }
+}
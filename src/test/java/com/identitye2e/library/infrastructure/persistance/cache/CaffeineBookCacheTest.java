@@ -0,0 +1,80 @@
+package com.identitye2e.library.infrastructure.persistance.cache;
+
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.infrastructure.cache.BookCacheStats;
+import com.identitye2e.library.infrastructure.cache.CaffeineBookCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.core.Is.is;
+
+class CaffeineBookCacheTest {
+    private CaffeineBookCache<String, Book> testObj;
+
+    @BeforeEach
+    void setup() {
+        testObj = new CaffeineBookCache<>(10, Duration.ofMinutes(10), null);
+    }
+
+    @Test
+    void get_keyExists_returnValueAndRecordHit() {
+        //Given
+        Book book = new Book("123", "title", "author", 2024, 10, 10);
+        testObj.put("123", book);
+        //When
+        Optional<Book> actualValueCache = testObj.get("123");
+        //Then
+        assertThat(actualValueCache.isPresent(), is(equalTo(true)));
+        assertThat(actualValueCache.get(), is(equalTo(book)));
+        assertThat(testObj.stats().hitCount(), is(equalTo(1L)));
+    }
+
+    @Test
+    void get_keyDoesNotExists_returnEmptyValueAndRecordMiss() {
+        //Given & When
+        Optional<Book> actualValueCache = testObj.get("123");
+        //Then
+        assertThat(actualValueCache.isEmpty(), is(equalTo(true)));
+        assertThat(testObj.stats().missCount(), is(equalTo(1L)));
+    }
+
+    @Test
+    void update_keyExistsUpdateValues_cacheUpdated() {
+        //Given
+        testObj.put("123", new Book("123", "title", "author", 2024, 10, 10));
+        Book updatedBook = new Book("123", "title", "author", 2024, 10, 9);
+        //When
+        testObj.update("123", updatedBook);
+        //Then
+        assertThat(testObj.get("123").orElseThrow().getAvailableCopies(), is(equalTo(9)));
+    }
+
+    @Test
+    void invalidate_keyExists_keyIsRemovedFromTheCache() {
+        //Given
+        testObj.put("123", new Book("123", "title", "author", 2024, 10, 10));
+        //When
+        testObj.invalidate("123");
+        //Then
+        assertThat(testObj.get("123").isEmpty(), is(equalTo(true)));
+    }
+
+    @Test
+    void put_exceedsMaximumSize_entriesEvicted() {
+        //Given & When
+        for (int i = 0; i < 100; i++) {
+            String isbn = String.valueOf(i);
+            testObj.put(isbn, new Book(isbn, "title", "author", 2024, 10, 10));
+        }
+        testObj.cleanUp();
+        //Then
+        BookCacheStats stats = testObj.stats();
+        assertThat(stats.evictionCount(), is(greaterThan(0L)));
+    }
+}
@@ -0,0 +1,120 @@
+package com.identitye2e.library.infrastructure.persistance.cache;
+
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.infrastructure.cache.BookCache;
+import com.identitye2e.library.infrastructure.cache.IsbnBookCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IsbnBookCacheTest {
+    private BookCache<String, Book> testObj;
+
+    @BeforeEach
+    void setup() {
+        testObj = new IsbnBookCache(64, 4);
+    }
+
+    @Test
+    void get_keyExists_returnValue() {
+        //Given
+        Book book = new Book("9780306406157", "title", "author", 2024, 10, 10);
+        testObj.put("9780306406157", book);
+        //When
+        Optional<Book> actualValueCache = testObj.get("9780306406157");
+        //Then
+        assertThat(actualValueCache.isPresent(), is(equalTo(true)));
+        assertThat(actualValueCache.get(), is(equalTo(book)));
+    }
+
+    @Test
+    void invalidate_keyExists_keyIsRemovedFromTheCache() {
+        //Given
+        testObj.put("9780306406157", new Book("9780306406157", "title", "author", 2024, 10, 10));
+        //When
+        testObj.invalidate("9780306406157");
+        //Then
+        assertThat(testObj.get("9780306406157").isEmpty(), is(equalTo(true)));
+    }
+
+    @Test
+    void put_exceedsMaximumSize_cacheStaysBounded() {
+        //Given & When
+        for (int i = 0; i < 1000; i++) {
+            String isbn = isbn(i);
+            testObj.put(isbn, new Book(isbn, "title", "author", 2024, 10, 10));
+        }
+        //Then
+        int cached = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (testObj.get(isbn(i)).isPresent()) {
+                cached++;
+            }
+        }
+        assertThat(cached, is(lessThanOrEqualTo(64)));
+        assertThat(testObj.stats().evictionCount(), is(equalTo(1000L - cached)));
+    }
+
+    @Test
+    void put_recentlyReadEntry_survivesEviction() {
+        //Given
+        IsbnBookCache cache = new IsbnBookCache(4, 1);
+        for (int i = 0; i < 4; i++) {
+            cache.put(isbn(i), new Book(isbn(i), "title", "author", 2024, 10, 10));
+        }
+        cache.get(isbn(0));
+        //When
+        cache.put(isbn(4), new Book(isbn(4), "title", "author", 2024, 10, 10));
+        //Then
+        assertThat(cache.get(isbn(0)).isPresent(), is(equalTo(true)));
+        assertThat(cache.get(isbn(4)).isPresent(), is(equalTo(true)));
+        assertThat(cache.stats().evictionCount(), is(equalTo(1L)));
+    }
+
+    @Test
+    void get_concurrentReadersAndWriters_cacheStaysConsistent() throws Exception {
+        //Given
+        List<Callable<Void>> operations = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            String isbn = isbn(i % 128);
+            operations.add(() -> {
+                testObj.put(isbn, new Book(isbn, "title", "author", 2024, 10, 10));
+                assertThat(testObj.get(isbn).map(Book::getIsbn).orElse(isbn), is(equalTo(isbn)));
+                return null;
+            });
+        }
+        //When
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (Future<Void> operation : executor.invokeAll(operations)) {
+                operation.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        //Then
+        assertThat(testObj.stats().hitCount() + testObj.stats().missCount(), is(equalTo(10_000L)));
+    }
+
+    @Test
+    void constructor_segmentCountNotPowerOfTwo_throwIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new IsbnBookCache(64, 3));
+    }
+
+    private static String isbn(int index) {
+        return "%013d".formatted(9_780_000_000_000L + index);
+    }
+}
@@ -0,0 +1,100 @@
+package com.identitye2e.library.infrastructure.persistance.cache;
+
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.infrastructure.cache.BookCache;
+import com.identitye2e.library.infrastructure.cache.SegmentedBookCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SegmentedBookCacheTest {
+    private BookCache<String, Book> testObj;
+
+    @BeforeEach
+    void setup() {
+        testObj = new SegmentedBookCache<>(64, 4);
+    }
+
+    @Test
+    void get_keyExists_returnValue() {
+        //Given
+        Book book = new Book("123", "title", "author", 2024, 10, 10);
+        testObj.put("123", book);
+        //When
+        Optional<Book> actualValueCache = testObj.get("123");
+        //Then
+        assertThat(actualValueCache.isPresent(), is(equalTo(true)));
+        assertThat(actualValueCache.get(), is(equalTo(book)));
+    }
+
+    @Test
+    void invalidate_keyExists_keyIsRemovedFromTheCache() {
+        //Given
+        testObj.put("123", new Book("123", "title", "author", 2024, 10, 10));
+        //When
+        testObj.invalidate("123");
+        //Then
+        assertThat(testObj.get("123").isEmpty(), is(equalTo(true)));
+    }
+
+    @Test
+    void put_exceedsMaximumSize_cacheStaysBounded() {
+        //Given & When
+        for (int i = 0; i < 1000; i++) {
+            String isbn = String.valueOf(i);
+            testObj.put(isbn, new Book(isbn, "title", "author", 2024, 10, 10));
+        }
+        //Then
+        int cached = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (testObj.get(String.valueOf(i)).isPresent()) {
+                cached++;
+            }
+        }
+        assertThat(cached, is(lessThanOrEqualTo(64)));
+        assertThat(testObj.stats().evictionCount(), is(equalTo(1000L - cached)));
+    }
+
+    @Test
+    void get_concurrentReadersAndWriters_cacheStaysConsistent() throws Exception {
+        //Given
+        List<Callable<Void>> operations = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            String isbn = String.valueOf(i % 128);
+            operations.add(() -> {
+                testObj.put(isbn, new Book(isbn, "title", "author", 2024, 10, 10));
+                testObj.get(isbn);
+                return null;
+            });
+        }
+        //When
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (Future<Void> operation : executor.invokeAll(operations)) {
+                operation.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        //Then
+        assertThat(testObj.stats().hitCount() + testObj.stats().missCount(), is(equalTo(10_000L)));
+    }
+
+    @Test
+    void constructor_segmentCountNotPowerOfTwo_throwIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new SegmentedBookCache<String, Book>(64, 3));
+    }
+}
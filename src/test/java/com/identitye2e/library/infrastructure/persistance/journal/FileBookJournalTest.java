@@ -0,0 +1,280 @@
+package com.identitye2e.library.infrastructure.persistance.journal;
+
+import com.identitye2e.library.book.model.Book;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FileBookJournalTest {
+    @TempDir
+    private Path directory;
+
+    @Test
+    void replay_reopenedJournal_returnMutationsInAppendOrder() {
+        //Given
+        Book book = new Book("123", "title", "auth", 2024, 10, 10);
+        Book borrowedBook = new Book("123", "title", "auth", 2024, 10, 9);
+        Book bookWithoutYear = new Book("124", "title2", "auth2", null, 1, 1);
+        try (FileBookJournal journal = new FileBookJournal(directory, true)) {
+            journal.awaitDurable(journal.append(BookMutation.create(book)));
+            journal.awaitDurable(journal.append(BookMutation.update(borrowedBook)));
+            journal.awaitDurable(journal.append(BookMutation.create(bookWithoutYear)));
+            journal.awaitDurable(journal.append(BookMutation.remove("124")));
+        }
+        //When
+        List<BookMutation> mutations = replay();
+        //Then
+        assertThat(mutations.size(), is(equalTo(4)));
+        assertThat(mutations.get(0).type(), is(equalTo(BookMutation.Type.CREATE)));
+        assertThat(mutations.get(1).type(), is(equalTo(BookMutation.Type.UPDATE)));
+        assertThat(mutations.get(1).book().getAvailableCopies(), is(equalTo(9)));
+        assertThat(mutations.get(2).book().getPublicationYear(), is(equalTo(null)));
+        assertThat(mutations.get(3), is(equalTo(BookMutation.remove("124"))));
+    }
+
+    @Test
+    void replay_logTruncatedMidRecord_discardTornRecordAndKeepAppending() throws IOException {
+        //Given
+        appendAndClose(BookMutation.create(new Book("123", "title", "auth", 2024, 10, 10)),
+                BookMutation.create(new Book("124", "title2", "auth", 2024, 10, 10)));
+        Path journalFile = FileBookJournal.segmentFile(directory, 0);
+        truncate(journalFile, Files.size(journalFile) - 5);
+        //When
+        List<BookMutation> recovered = replay();
+        appendAndClose(BookMutation.remove("123"));
+        List<BookMutation> afterAppend = replay();
+        //Then
+        assertThat(recovered.size(), is(equalTo(1)));
+        assertThat(recovered.get(0).isbn(), is(equalTo("123")));
+        assertThat(afterAppend.size(), is(equalTo(2)));
+        assertThat(afterAppend.get(1), is(equalTo(BookMutation.remove("123"))));
+    }
+
+    @Test
+    void replay_logTruncatedInsideHeader_discardPartialHeader() throws IOException {
+        //Given
+        appendAndClose(BookMutation.create(new Book("123", "title", "auth", 2024, 10, 10)));
+        Path journalFile = FileBookJournal.segmentFile(directory, 0);
+        long intactBytes = Files.size(journalFile);
+        appendAndClose(BookMutation.remove("123"));
+        truncate(journalFile, intactBytes + 3);
+        //When
+        List<BookMutation> recovered = replay();
+        //Then
+        assertThat(recovered.size(), is(equalTo(1)));
+        assertThat(Files.size(journalFile), is(equalTo(intactBytes)));
+    }
+
+    @Test
+    void replay_corruptPayload_stopAtChecksumMismatch() throws IOException {
+        //Given
+        appendAndClose(BookMutation.create(new Book("123", "title", "auth", 2024, 10, 10)),
+                BookMutation.create(new Book("124", "title2", "auth", 2024, 10, 10)));
+        Path journalFile = FileBookJournal.segmentFile(directory, 0);
+        try (RandomAccessFile file = new RandomAccessFile(journalFile.toFile(), "rw")) {
+            file.seek(file.length() - 1);
+            int lastByte = file.read();
+            file.seek(file.length() - 1);
+            file.write(lastByte ^ 0xFF);
+        }
+        //When
+        List<BookMutation> recovered = replay();
+        //Then
+        assertThat(recovered.size(), is(equalTo(1)));
+        assertThat(recovered.get(0).isbn(), is(equalTo("123")));
+    }
+
+    @Test
+    void awaitDurable_concurrentWriters_everyMutationRecovered() throws Exception {
+        //Given
+        int writers = 8;
+        int mutationsPerWriter = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try (FileBookJournal journal = new FileBookJournal(directory, true)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int writer = 0; writer < writers; writer++) {
+                String prefix = "w" + writer + "-";
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < mutationsPerWriter; i++) {
+                        journal.awaitDurable(journal.append(BookMutation.create(new Book(prefix + i, "title", "auth", 2024, 1, 1))));
+                    }
+                }));
+            }
+            //When
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        //Then
+        assertThat(replay().size(), is(equalTo(writers * mutationsPerWriter)));
+    }
+
+    @Test
+    void replay_afterCheckpoint_loadSnapshotThenTail() {
+        //Given
+        Book book = new Book("123", "title", "auth", 2024, 10, 10);
+        Book otherBook = new Book("124", "title2", "auth", 2024, 10, 10);
+        try (FileBookJournal journal = new FileBookJournal(directory, true)) {
+            journal.awaitDurable(journal.append(BookMutation.create(book)));
+            journal.awaitDurable(journal.append(BookMutation.create(otherBook)));
+            journal.checkpoint(List.of(book, otherBook));
+            journal.awaitDurable(journal.append(BookMutation.remove("124")));
+        }
+        //When
+        Map<String, Book> books = replayBooks();
+        //Then
+        assertThat(books, is(equalTo(Map.of("123", book))));
+    }
+
+    @Test
+    void checkpoint_repeated_compactOlderSegmentsAndSnapshots() throws IOException {
+        //Given
+        Book book = new Book("123", "title", "auth", 2024, 10, 10);
+        try (FileBookJournal journal = new FileBookJournal(directory, true)) {
+            journal.awaitDurable(journal.append(BookMutation.create(book)));
+            journal.checkpoint(List.of(book));
+            journal.awaitDurable(journal.append(BookMutation.update(book)));
+            //When
+            journal.checkpoint(List.of(book));
+        }
+        //Then
+        assertThat(Files.exists(FileBookJournal.segmentFile(directory, 0)), is(equalTo(false)));
+        assertThat(Files.exists(FileBookJournal.snapshotFile(directory, 0)), is(equalTo(false)));
+        assertThat(Files.exists(FileBookJournal.segmentFile(directory, 1)), is(equalTo(true)));
+        assertThat(Files.exists(FileBookJournal.snapshotFile(directory, 1)), is(equalTo(true)));
+        assertThat(replay().size(), is(equalTo(2)));
+    }
+
+    @Test
+    void append_reopenedAfterCheckpointWithoutTail_replayedAfterSnapshot() {
+        //Given
+        Book book = new Book("123", "title", "auth", 2024, 10, 10);
+        try (FileBookJournal journal = new FileBookJournal(directory, true)) {
+            journal.awaitDurable(journal.append(BookMutation.create(book)));
+            journal.checkpoint(List.of(book));
+            journal.checkpoint(List.of(book));
+        }
+        //When
+        appendAndClose(BookMutation.remove("123"));
+        List<BookMutation> mutations = replay();
+        //Then
+        assertThat(mutations.size(), is(equalTo(2)));
+        assertThat(mutations.get(1), is(equalTo(BookMutation.remove("123"))));
+    }
+
+    @Test
+    void replay_corruptSnapshot_throwUncheckedIOException() throws IOException {
+        //Given
+        Book book = new Book("123", "title", "auth", 2024, 10, 10);
+        try (FileBookJournal journal = new FileBookJournal(directory, true)) {
+            journal.checkpoint(List.of(book));
+        }
+        Path snapshotFile = FileBookJournal.snapshotFile(directory, 0);
+        truncate(snapshotFile, Files.size(snapshotFile) - 2);
+        //When & Then
+        assertThrows(UncheckedIOException.class, this::replay);
+    }
+
+    @Test
+    void append_withoutAwaitDurable_recordWrittenOnlyByAwaitDurable() throws IOException {
+        //Given
+        Path journalFile = FileBookJournal.segmentFile(directory, 0);
+        try (FileBookJournal journal = new FileBookJournal(directory, false)) {
+            //When
+            long first = journal.append(BookMutation.create(new Book("123", "title", "auth", 2024, 10, 10)));
+            long second = journal.append(BookMutation.remove("123"));
+            boolean writtenOnAppend = Files.exists(journalFile) && Files.size(journalFile) > 0;
+            journal.awaitDurable(first);
+            //Then
+            assertThat(writtenOnAppend, is(equalTo(false)));
+            assertThat(journal.appendedSequence(), is(equalTo(second)));
+            assertThat(Files.size(journalFile) > 0, is(equalTo(true)));
+        }
+        assertThat(replay().size(), is(equalTo(2)));
+    }
+
+    @Test
+    void close_pendingAppends_writtenBeforeClosing() {
+        //Given
+        try (FileBookJournal journal = new FileBookJournal(directory, true)) {
+            journal.append(BookMutation.create(new Book("123", "title", "auth", 2024, 10, 10)));
+        }
+        //When
+        List<BookMutation> mutations = replay();
+        //Then
+        assertThat(mutations.size(), is(equalTo(1)));
+    }
+
+    @Test
+    void awaitDurable_writeFails_failEveryLaterAppendAndAwait() {
+        //Given
+        FileBookJournal journal = new FileBookJournal(directory, true, segmentFile -> {
+            FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            channel.close();
+            return channel;
+        });
+        long first = journal.append(BookMutation.create(new Book("123", "title", "auth", 2024, 10, 10)));
+        //When
+        assertThrows(UncheckedIOException.class, () -> journal.awaitDurable(first));
+        //Then
+        assertThrows(UncheckedIOException.class, () -> journal.awaitDurable(first));
+        assertThrows(UncheckedIOException.class, () -> journal.append(BookMutation.remove("123")));
+        journal.close();
+        assertThat(replay().size(), is(equalTo(0)));
+    }
+
+    private void appendAndClose(BookMutation... mutations) {
+        try (FileBookJournal journal = new FileBookJournal(directory, true)) {
+            for (BookMutation mutation : mutations) {
+                journal.awaitDurable(journal.append(mutation));
+            }
+        }
+    }
+
+    private List<BookMutation> replay() {
+        List<BookMutation> mutations = new ArrayList<>();
+        try (FileBookJournal journal = new FileBookJournal(directory, true)) {
+            journal.replay(mutations::add);
+        }
+        return mutations;
+    }
+
+    private Map<String, Book> replayBooks() {
+        Map<String, Book> books = new HashMap<>();
+        for (BookMutation mutation : replay()) {
+            if (mutation.type() == BookMutation.Type.REMOVE) {
+                books.remove(mutation.isbn());
+            } else {
+                books.put(mutation.isbn(), mutation.book());
+            }
+        }
+        return books;
+    }
+
+    private static void truncate(Path file, long size) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "rw")) {
+            randomAccessFile.setLength(size);
+        }
+    }
+}
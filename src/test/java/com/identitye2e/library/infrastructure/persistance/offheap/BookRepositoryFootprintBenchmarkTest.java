@@ -0,0 +1,77 @@
+package com.identitye2e.library.infrastructure.persistance.offheap;
+
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.repository.BookRepository;
+import com.identitye2e.library.infrastructure.cache.SimpleBookCache;
+import com.identitye2e.library.infrastructure.persistance.BookRepositoryImpl;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+/*
+Retained heap of BookRepositoryImpl against OffHeapBookRepository holding the same catalog,
+plus the direct memory the off-heap store reserves. Excluded from the default build, run with
+
+    mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class BookRepositoryFootprintBenchmarkTest {
+    private static final int BATCH_SIZE = 10_000;
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    @ParameterizedTest
+    @ValueSource(ints = {1_000_000, 5_000_000})
+    void footprint_heapStore(int books) {
+        long baseline = usedHeapAfterGc();
+        BookRepositoryImpl repository = new BookRepositoryImpl(new SimpleBookCache<>(16), new SimpleBookCache<>(16));
+        load(repository, books);
+        long heapBytes = usedHeapAfterGc() - baseline;
+        System.out.printf("footprint store=heap books=%d heapMb=%d bytesPerBook=%d%n",
+                books, heapBytes >> 20, heapBytes / books);
+        assertThat(repository.getByIsbn(isbn(books - 1)).isPresent(), is(equalTo(true)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1_000_000, 5_000_000})
+    void footprint_offHeapStore(int books) {
+        long baseline = usedHeapAfterGc();
+        OffHeapBookRepository repository = new OffHeapBookRepository(new SimpleBookCache<>(16), new SimpleBookCache<>(16));
+        load(repository, books);
+        long heapBytes = usedHeapAfterGc() - baseline;
+        System.out.printf("footprint store=off-heap books=%d heapMb=%d offHeapMb=%d bytesPerBook=%d%n",
+                books, heapBytes >> 20, repository.offHeapBytes() >> 20, repository.offHeapBytes() / books);
+        assertThat(repository.getByIsbn(isbn(books - 1)).isPresent(), is(equalTo(true)));
+    }
+
+    private static void load(BookRepository repository, int books) {
+        List<Book> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < books; i++) {
+            batch.add(new Book(isbn(i), "title-" + i, "author-" + i % 50_000, 2024, 3, 3));
+            if (batch.size() == BATCH_SIZE) {
+                repository.createBooks(batch);
+                batch.clear();
+            }
+        }
+        repository.createBooks(batch);
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+    private static String isbn(int index) {
+        return "%013d".formatted(index);
+    }
+}
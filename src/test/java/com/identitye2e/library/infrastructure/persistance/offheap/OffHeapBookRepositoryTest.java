@@ -0,0 +1,254 @@
+package com.identitye2e.library.infrastructure.persistance.offheap;
+
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.repository.BookChangeEvent;
+import com.identitye2e.library.book.service.exceptions.BookAlreadyExistsException;
+import com.identitye2e.library.book.service.exceptions.BookNotFoundException;
+import com.identitye2e.library.book.service.exceptions.InsufficientBookCopiesException;
+import com.identitye2e.library.infrastructure.cache.BookCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OffHeapBookRepositoryTest {
+    private static final int SMALL_SLAB_BYTES = 256;
+    @Mock
+    private BookCache<String, Book> bookCacheByIsbnMock;
+    @Mock
+    private BookCache<String, List<Book>> booksCacheByAuthorMock;
+    private OffHeapBookRepository testObj;
+
+    @BeforeEach
+    void setup() {
+        testObj = new OffHeapBookRepository(bookCacheByIsbnMock, booksCacheByAuthorMock, SMALL_SLAB_BYTES);
+    }
+
+    @Test
+    void createBook_duplicateBook_throwBookAlreadyExistsException() throws BookAlreadyExistsException {
+        //Given
+        Book book = new Book("123", "title", "auth", 2024, 10, 10);
+        testObj.createBook(book);
+        //When
+        var duplicateException = assertThrows(BookAlreadyExistsException.class,
+                () -> testObj.createBook(book));
+        //Then
+        assertThat(duplicateException.getMessage(), is(equalTo("Book with ISBN 123 already exists.")));
+    }
+
+    @Test
+    void getByIsbn_bookExistButNotInCache_materialiseAllFields() throws BookAlreadyExistsException {
+        //Given
+        testObj.createBook(new Book("123", "tïtle", "äuth", null, 10, 7));
+        //When
+        Optional<Book> bookOptional = testObj.getByIsbn("123");
+        //Then
+        assertThat(bookOptional.isPresent(), is(equalTo(true)));
+        assertThat(bookOptional.get().getTitle(), is(equalTo("tïtle")));
+        assertThat(bookOptional.get().getAuthor(), is(equalTo("äuth")));
+        assertThat(bookOptional.get().getPublicationYear(), is(equalTo(null)));
+        assertThat(bookOptional.get().getTotalCopies(), is(equalTo(10)));
+        assertThat(bookOptional.get().getAvailableCopies(), is(equalTo(7)));
+        verify(bookCacheByIsbnMock, times(1)).put("123", bookOptional.get());
+    }
+
+    @Test
+    void removeBook_bookDoesNotExist_throwBookNotFoundException() {
+        //Given & When
+        var removeBookNotFoundException = assertThrows(BookNotFoundException.class, () -> testObj.removeBook("123"));
+        //Then
+        assertThat(removeBookNotFoundException.getMessage(), is(equalTo("Cannot remove the Book with ISBN 123 does not exist.")));
+    }
+
+    @Test
+    void removeBook_bookInMiddleOfAuthorChain_otherBooksOfAuthorKept() throws BookAlreadyExistsException, BookNotFoundException {
+        //Given
+        testObj.createBook(new Book("123", "title", "auth", 2024, 10, 10));
+        testObj.createBook(new Book("124", "title2", "auth", 2024, 10, 10));
+        testObj.createBook(new Book("125", "title3", "auth", 2024, 10, 10));
+        when(booksCacheByAuthorMock.get("auth")).thenReturn(Optional.empty());
+        //When
+        testObj.removeBook("124");
+        //Then
+        assertThat(isbns(testObj.getByAuthor("auth")), is(equalTo(List.of("123", "125"))));
+        assertThat(testObj.getByIsbn("124").isPresent(), is(equalTo(false)));
+        verify(bookCacheByIsbnMock, times(1)).invalidate("124");
+    }
+
+    @Test
+    void update_borrowBook_counterRewrittenInPlace() throws BookAlreadyExistsException, InsufficientBookCopiesException {
+        //Given
+        Book book = new Book("123", "title", "auth", 2024, 10, 10);
+        testObj.createBook(book);
+        long offHeapBytes = testObj.offHeapBytes();
+        //When
+        for (int i = 0; i < 10; i++) {
+            book = testObj.update(book.borrowBook());
+        }
+        //Then
+        assertThat(testObj.getByIsbn("123").get().getAvailableCopies(), is(equalTo(0)));
+        assertThat(testObj.offHeapBytes(), is(equalTo(offHeapBytes)));
+    }
+
+    @Test
+    void update_authorChanged_authorChainMovesBook() throws BookAlreadyExistsException {
+        //Given
+        testObj.createBook(new Book("123", "title", "auth", 2024, 10, 10));
+        testObj.createBook(new Book("124", "title2", "auth", 2024, 10, 10));
+        when(booksCacheByAuthorMock.get(anyString())).thenReturn(Optional.empty());
+        //When
+        testObj.update(new Book("123", "title", "auth2", 2024, 10, 10));
+        //Then
+        assertThat(isbns(testObj.getByAuthor("auth")), is(equalTo(List.of("124"))));
+        assertThat(isbns(testObj.getByAuthor("auth2")), is(equalTo(List.of("123"))));
+        assertThat(testObj.size(), is(equalTo(2)));
+    }
+
+    @Test
+    void update_changeOfExistingBook_appliedToStoredBookAndPublishedOnce() throws BookAlreadyExistsException, BookNotFoundException {
+        //Given
+        List<BookChangeEvent> events = new ArrayList<>();
+        Book book = new Book("123", "title", "auth", 2024, 10, 10);
+        testObj.createBook(book);
+        testObj.subscribe(events::add);
+        Book updatedBook = new Book("123", "title", "auth", 2024, 10, 9);
+        //When
+        Book actualBookUpdate = testObj.update("123", stored -> updatedBook);
+        //Then
+        assertThat(actualBookUpdate, is(equalTo(updatedBook)));
+        assertThat(events, is(equalTo(List.of(BookChangeEvent.updated(book, updatedBook)))));
+    }
+
+    @Test
+    void update_changeOfMissingBook_throwBookNotFoundExceptionWithoutCreating() {
+        //Given
+        Book book = new Book("123", "title", "auth", 2024, 10, 10);
+        //When
+        var notFoundException = assertThrows(BookNotFoundException.class, () -> testObj.update("123", stored -> book));
+        //Then
+        assertThat(notFoundException.getMessage(), is(equalTo("Book with ISBN 123 not found.")));
+        assertThat(testObj.size(), is(equalTo(0)));
+    }
+
+    @Test
+    void subscribe_mutations_listenerReceivesEventsInOrder() throws BookAlreadyExistsException, BookNotFoundException {
+        //Given
+        List<BookChangeEvent> events = new ArrayList<>();
+        testObj.subscribe(events::add);
+        Book book = new Book("123", "title", "auth", 2024, 10, 10);
+        Book updatedBook = new Book("123", "title", "auth", 2024, 10, 9);
+        //When
+        testObj.createBook(book);
+        testObj.update(updatedBook);
+        testObj.removeBook("123");
+        //Then
+        assertThat(events.size(), is(equalTo(3)));
+        assertThat(events.get(0), is(equalTo(BookChangeEvent.created(book))));
+        assertThat(events.get(1), is(equalTo(BookChangeEvent.updated(book, updatedBook))));
+        assertThat(events.get(2), is(equalTo(BookChangeEvent.deleted(updatedBook))));
+        assertThat(events.get(2).previous().getAvailableCopies(), is(equalTo(9)));
+    }
+
+    @Test
+    void createBooks_manyBooksAcrossSlabsAndIndexGrowth_everyBookFound() {
+        //Given
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            books.add(new Book("isbn-" + i, "title-" + i, "author-" + i % 7, 2024, 1, 1));
+        }
+        //When
+        List<Book> duplicates = testObj.createBooks(books);
+        //Then
+        assertThat(duplicates.isEmpty(), is(equalTo(true)));
+        assertThat(testObj.size(), is(equalTo(5_000)));
+        for (int i = 0; i < 5_000; i++) {
+            assertThat(testObj.getByIsbn("isbn-" + i).get().getTitle(), is(equalTo("title-" + i)));
+        }
+    }
+
+    @Test
+    void removeBook_manyRemovalsAndReinserts_indexStaysConsistent() throws BookAlreadyExistsException, BookNotFoundException {
+        //Given
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 500; i++) {
+                testObj.createBook(new Book("isbn-" + i, "title", "auth", 2024, 1, 1));
+            }
+            //When
+            for (int i = 0; i < 500; i += 2) {
+                testObj.removeBook("isbn-" + i);
+            }
+            for (int i = 1; i < 500; i += 2) {
+                testObj.removeBook("isbn-" + i);
+            }
+        }
+        //Then
+        assertThat(testObj.size(), is(equalTo(0)));
+        assertThat(testObj.getByAuthor("auth", null, 10).isEmpty(), is(equalTo(true)));
+    }
+
+    @Test
+    void getByAuthorPaged_afterIsbn_returnNextBooksInIsbnOrder() throws BookAlreadyExistsException {
+        //Given
+        testObj.createBook(new Book("125", "title3", "auth", 2024, 10, 10));
+        testObj.createBook(new Book("123", "title", "auth", 2024, 10, 10));
+        testObj.createBook(new Book("124", "title2", "auth", 2024, 10, 10));
+        testObj.createBook(new Book("126", "title4", "auth2", 2024, 10, 10));
+        //When
+        List<Book> firstPage = testObj.getByAuthor("auth", null, 2);
+        List<Book> secondPage = testObj.getByAuthor("auth", "124", 2);
+        //Then
+        assertThat(isbns(firstPage), is(equalTo(List.of("123", "124"))));
+        assertThat(isbns(secondPage), is(equalTo(List.of("125"))));
+    }
+
+    @Test
+    void getByAuthorPaged_booksAddedOutOfOrderAndRemoved_pageFromIsbnAfterMissingOne() throws Exception {
+        //Given
+        List<String> expected = new ArrayList<>();
+        List<Integer> numbers = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            numbers.add(i);
+        }
+        Collections.shuffle(numbers, new Random(12));
+        for (int number : numbers) {
+            testObj.createBook(new Book("%03d".formatted(number), "title", "auth", 2024, 1, 1));
+        }
+        for (int i = 0; i < 30; i++) {
+            if (i % 3 == 0) {
+                testObj.removeBook("%03d".formatted(i));
+            } else if (i % 5 == 0) {
+                testObj.update(new Book("%03d".formatted(i), "title", "auth2", 2024, 1, 1));
+            } else if (i > 12) {
+                expected.add("%03d".formatted(i));
+            }
+        }
+        //When
+        List<String> pages = new ArrayList<>();
+        String afterIsbn = "012";
+        for (List<Book> page = testObj.getByAuthor("auth", afterIsbn, 4); !page.isEmpty(); page = testObj.getByAuthor("auth", afterIsbn, 4)) {
+            pages.addAll(isbns(page));
+            afterIsbn = page.get(page.size() - 1).getIsbn();
+        }
+        //Then
+        assertThat(pages, is(equalTo(expected)));
+        assertThat(isbns(testObj.getByAuthor("auth2")), is(equalTo(List.of("005", "010", "020", "025"))));
+    }
+
+    private static List<String> isbns(List<Book> books) {
+        return books.stream().map(Book::getIsbn).toList();
+    }
+}
@@ -0,0 +1,100 @@
+package com.identitye2e.library.infrastructure.query;
+
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.query.BookQuery;
+import com.identitye2e.library.book.query.QueryPlan;
+import com.identitye2e.library.book.repository.BookRepository;
+import com.identitye2e.library.book.service.exceptions.BookAlreadyExistsException;
+import com.identitye2e.library.infrastructure.cache.SimpleBookCache;
+import com.identitye2e.library.infrastructure.persistance.BookRepositoryImpl;
+import com.identitye2e.library.infrastructure.search.AvailabilityIndex;
+import com.identitye2e.library.infrastructure.search.SortedYearIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.core.Is.is;
+
+class IndexSelectingQueryEngineTest {
+    private BookRepository bookRepository;
+    private IndexSelectingQueryEngine testObj;
+
+    @BeforeEach
+    void setup() throws BookAlreadyExistsException {
+        bookRepository = new BookRepositoryImpl(new SimpleBookCache<>(100), new SimpleBookCache<>(100));
+        SortedYearIndex sortedYearIndex = new SortedYearIndex();
+        AvailabilityIndex availabilityIndex = new AvailabilityIndex();
+        bookRepository.subscribe(sortedYearIndex);
+        bookRepository.subscribe(availabilityIndex);
+        testObj = new IndexSelectingQueryEngine(bookRepository, sortedYearIndex, availabilityIndex);
+        for (int i = 0; i < 20; i++) {
+            bookRepository.createBook(new Book(String.valueOf(100 + i), "title" + i, "Prolific Author", 1980 + i, 1, i % 2));
+        }
+        bookRepository.createBook(new Book("200", "rare", "Rare Author", 1995, 1, 1));
+        bookRepository.createBook(new Book("201", "rarer", "Rare Author", 2010, 1, 0));
+    }
+
+    @Test
+    void explain_selectiveAuthor_chooseAuthorIndex() {
+        //Given
+        BookQuery query = BookQuery.and(BookQuery.author("Rare Author"), BookQuery.publishedBetween(1990, 2000),
+                BookQuery.available(true));
+        //When
+        QueryPlan queryPlan = testObj.explain(query);
+        //Then
+        assertThat(queryPlan.accessPath(), is(equalTo(new QueryPlan.AccessPath(QueryPlan.Index.AUTHOR, BookQuery.author("Rare Author"), 2))));
+        assertThat(queryPlan.considered().size(), is(equalTo(4)));
+        assertThat(isbns(testObj.execute(query, 10)), containsInAnyOrder("200"));
+    }
+
+    @Test
+    void explain_narrowYearRangeOfProlificAuthor_chooseYearIndex() {
+        //Given
+        BookQuery query = BookQuery.and(BookQuery.author("Prolific Author"), BookQuery.publishedBetween(1990, 1991));
+        //When
+        QueryPlan queryPlan = testObj.explain(query);
+        //Then
+        assertThat(queryPlan.accessPath().index(), is(equalTo(QueryPlan.Index.YEAR)));
+        assertThat(queryPlan.accessPath().estimatedBooks(), is(equalTo(2L)));
+        assertThat(isbns(testObj.execute(query, 10)), containsInAnyOrder("110", "111"));
+    }
+
+    @Test
+    void execute_isbnAndAvailability_readOnlyThatBook() {
+        //Given
+        BookQuery query = BookQuery.and(BookQuery.isbn("201"), BookQuery.available(true));
+        //When & Then
+        assertThat(testObj.explain(query).accessPath().index(), is(equalTo(QueryPlan.Index.ISBN)));
+        assertThat(testObj.execute(query, 10), is(empty()));
+    }
+
+    @Test
+    void execute_noIndexedPredicate_fallBackToParallelScan() {
+        //Given
+        BookQuery query = BookQuery.and(List.of());
+        //When & Then
+        assertThat(testObj.explain(query).accessPath().index(), is(equalTo(QueryPlan.Index.PARALLEL_SCAN)));
+        assertThat(testObj.execute(query, 100).size(), is(equalTo(22)));
+        assertThat(testObj.execute(query, 5).size(), is(equalTo(5)));
+    }
+
+    @Test
+    void execute_borrowedLastCopy_followAvailabilityChange() {
+        //Given
+        BookQuery query = BookQuery.available(false);
+        //When
+        bookRepository.update(new Book("200", "rare", "Rare Author", 1995, 1, 0));
+        //Then
+        assertThat(testObj.explain(query).accessPath().index(), is(equalTo(QueryPlan.Index.AVAILABILITY)));
+        assertThat(testObj.execute(query, 100).size(), is(equalTo(12)));
+    }
+
+    private static List<String> isbns(List<Book> books) {
+        return books.stream().map(Book::getIsbn).toList();
+    }
+}
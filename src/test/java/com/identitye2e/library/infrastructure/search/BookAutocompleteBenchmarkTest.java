@@ -0,0 +1,54 @@
+package com.identitye2e.library.infrastructure.search;
+
+import com.identitye2e.library.book.model.Book;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+/*
+Keystroke latency of BookAutocomplete over N titles, every prefix of a random title being
+completed in turn as if typed. Excluded from the default build, run with
+
+    mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class BookAutocompleteBenchmarkTest {
+    private static final String[] WORDS = {"river", "night", "stone", "winter", "glass", "garden", "shadow", "city",
+            "empire", "letters", "north", "silent", "history", "love", "war", "sea"};
+    private static final int KEYSTROKES = 200_000;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1_000_000, 3_000_000})
+    void complete_keystrokeLatency(int books) {
+        Random random = new Random(16);
+        BookAutocomplete bookAutocomplete = new BookAutocomplete();
+        String[] titles = new String[books];
+        for (int i = 0; i < books; i++) {
+            titles[i] = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            bookAutocomplete.add(new Book(Long.toString(9_780_000_000_000L + i), titles[i], "author " + i % 50_000,
+                    2024, 3, random.nextInt(4)));
+        }
+        long[] latencies = new long[KEYSTROKES];
+        int keystroke = 0;
+        while (keystroke < KEYSTROKES) {
+            String title = titles[random.nextInt(books)];
+            for (int length = 1; length <= title.length() && keystroke < KEYSTROKES; length++) {
+                long start = System.nanoTime();
+                bookAutocomplete.complete(title.substring(0, length), BookAutocomplete.DEFAULT_MAX_COMPLETIONS);
+                latencies[keystroke++] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(latencies);
+        long p50 = latencies[KEYSTROKES / 2];
+        long p99 = latencies[KEYSTROKES * 99 / 100];
+        System.out.printf("autocomplete books=%d p50Us=%d p99Us=%d maxUs=%d%n",
+                books, p50 / 1_000, p99 / 1_000, latencies[KEYSTROKES - 1] / 1_000);
+        assertThat(p99, lessThan(1_000_000L));
+    }
+}
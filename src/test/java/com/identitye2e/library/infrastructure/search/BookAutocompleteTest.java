@@ -0,0 +1,115 @@
+package com.identitye2e.library.infrastructure.search;
+
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.repository.BookChangeEvent;
+import com.identitye2e.library.book.search.Completion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.core.Is.is;
+
+class BookAutocompleteTest {
+    private BookAutocomplete testObj;
+
+    @BeforeEach
+    void setup() {
+        testObj = new BookAutocomplete(3);
+    }
+
+    @Test
+    void complete_titlesAndAuthors_rankByAvailableCopies() {
+        //Given
+        created(new Book("1", "Dune", "Frank Herbert", 1965, 2, 2));
+        created(new Book("2", "Dune Messiah", "Frank Herbert", 1969, 5, 5));
+        created(new Book("3", "Duneland", "Someone Else", 2001, 1, 1));
+        //When
+        List<Completion> completions = testObj.complete("dun", 10);
+        //Then
+        assertThat(completions.stream().map(Completion::text).toList(), contains("Dune Messiah", "Dune", "Duneland"));
+        assertThat(testObj.complete("FRANK", 10), contains(new Completion(Completion.Type.AUTHOR, "Frank Herbert", 2, 7)));
+    }
+
+    @Test
+    void onBookChange_borrowed_moveCopiesOnly() {
+        //Given
+        Book book = new Book("1", "Dune", "Frank Herbert", 1965, 2, 2);
+        created(book);
+        //When
+        testObj.onBookChange(BookChangeEvent.updated(book, new Book("1", "Dune", "Frank Herbert", 1965, 2, 1)));
+        //Then
+        assertThat(testObj.complete("dune", 10), contains(new Completion(Completion.Type.TITLE, "Dune", 1, 1)));
+    }
+
+    @Test
+    void onBookChange_borrowsOfDifferentBooksWhileIndexLocked_applyWithoutWaitingForLockAndRerank() throws Exception {
+        //Given
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Book book = new Book(String.valueOf(i), "Dune " + i, "Frank Herbert", 1965, 2, 2);
+            created(book);
+            books.add(book);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        testObj.lock.writeLock().lock();
+        try {
+            //When
+            List<Future<?>> borrows = new ArrayList<>();
+            for (Book book : books.subList(0, 3)) {
+                Book borrowedBook = new Book(book.getIsbn(), book.getTitle(), book.getAuthor(), 1965, 2, 1);
+                borrows.add(executor.submit(() -> testObj.onBookChange(BookChangeEvent.updated(book, borrowedBook))));
+            }
+            //Then
+            for (Future<?> borrow : borrows) {
+                borrow.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            testObj.lock.writeLock().unlock();
+            executor.shutdown();
+        }
+        assertThat(testObj.complete("dune", 3).stream().map(Completion::text).toList(), contains("Dune 3", "Dune 0", "Dune 1"));
+        assertThat(testObj.complete("frank", 3), contains(new Completion(Completion.Type.AUTHOR, "Frank Herbert", 4, 5)));
+    }
+
+    @Test
+    void onBookChange_titleChangedAndDeleted_dropStaleSuggestions() {
+        //Given
+        Book book = new Book("1", "Old Title", "auth", 2024, 1, 1);
+        created(book);
+        Book updatedBook = new Book("1", "New Title", "auth", 2024, 1, 1);
+        //When
+        testObj.onBookChange(BookChangeEvent.updated(book, updatedBook));
+        //Then
+        assertThat(testObj.complete("old", 10), is(empty()));
+        assertThat(testObj.complete("new", 10).size(), is(equalTo(1)));
+        //When
+        testObj.onBookChange(BookChangeEvent.deleted(updatedBook));
+        //Then
+        assertThat(testObj.complete("new", 10), is(empty()));
+        assertThat(testObj.complete("auth", 10), is(empty()));
+    }
+
+    @Test
+    void complete_limitAboveMaximum_capAtMaximum() {
+        //Given
+        for (int i = 0; i < 10; i++) {
+            created(new Book(String.valueOf(i), "Series " + i, "auth", 2024, 1, 1));
+        }
+        //When & Then
+        assertThat(testObj.complete("series", 100).size(), is(equalTo(3)));
+    }
+
+    private void created(Book book) {
+        testObj.onBookChange(BookChangeEvent.created(book));
+    }
+}
@@ -0,0 +1,89 @@
+package com.identitye2e.library.infrastructure.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.core.Is.is;
+
+class CompletionTrieTest {
+    @Test
+    void top_prefixEndsInsideEdge_returnEntriesBelowEdge() {
+        //Given
+        CompletionTrie testObj = new CompletionTrie(2);
+        testObj.adjust("winter garden", "Winter Garden", 1, 5);
+        testObj.adjust("winter gardens", "Winter Gardens", 1, 7);
+        testObj.adjust("winterreise", "Winterreise", 1, 1);
+        //When & Then
+        assertThat(texts(testObj.top("winter g", 10)), contains("Winter Gardens", "Winter Garden"));
+        assertThat(texts(testObj.top("wint", 10)), contains("Winter Gardens", "Winter Garden"));
+        assertThat(texts(testObj.top("winterx", 10)), is(empty()));
+    }
+
+    @Test
+    void adjust_lastBookRemoved_pruneAndRecompressTrie() {
+        //Given
+        CompletionTrie testObj = new CompletionTrie(2);
+        testObj.adjust("abc", "abc", 1, 1);
+        testObj.adjust("abd", "abd", 1, 1);
+        //When
+        testObj.adjust("abd", "abd", -1, -1);
+        //Then
+        assertThat(testObj.size(), is(equalTo(1)));
+        assertThat(testObj.nodes(), is(equalTo(2)));
+        assertThat(texts(testObj.top("ab", 10)), contains("abc"));
+    }
+
+    @Test
+    void top_randomUpdates_matchBruteForceRanking() {
+        //Given
+        CompletionTrie testObj = new CompletionTrie(5);
+        Map<String, long[]> expected = new HashMap<>();
+        Random random = new Random(16);
+        String alphabet = "abc ";
+        //When
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder key = new StringBuilder("k");
+            for (int length = random.nextInt(6); length > 0; length--) {
+                key.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String text = key.toString();
+            long[] counters = expected.computeIfAbsent(text, k -> new long[2]);
+            int booksDelta = counters[0] > 0 && random.nextInt(3) == 0 ? -1 : 1;
+            long copiesDelta = booksDelta > 0 ? random.nextInt(10) : -counters[1] / counters[0];
+            testObj.adjust(text, text, booksDelta, copiesDelta);
+            counters[0] += booksDelta;
+            counters[1] += copiesDelta;
+            if (counters[0] == 0) {
+                expected.remove(text);
+            }
+        }
+        //Then
+        for (String prefix : List.of("k", "ka", "kab", "k ", "kcc", "kabc")) {
+            List<String> bruteForce = expected.entrySet().stream()
+                    .filter(entry -> entry.getKey().startsWith(prefix))
+                    .sorted(Map.Entry.<String, long[]>comparingByValue((a, b) -> Long.compare(b[1], a[1]))
+                            .thenComparing(Map.Entry.comparingByValue((a, b) -> Long.compare(b[0], a[0])))
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(5)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            assertThat(texts(testObj.top(prefix, 5)), is(equalTo(bruteForce)));
+        }
+        assertThat(testObj.size(), is(equalTo(expected.size())));
+    }
+
+    private static List<String> texts(List<CompletionTrie.Entry> entries) {
+        List<String> texts = new ArrayList<>();
+        entries.forEach(entry -> texts.add(entry.text()));
+        return texts;
+    }
+}
@@ -0,0 +1,176 @@
+package com.identitye2e.library.infrastructure.search;
+
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.repository.BookChangeEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.core.Is.is;
+
+class InvertedBookIndexTest {
+    private InvertedBookIndex testObj;
+
+    @BeforeEach
+    void setup() {
+        testObj = new InvertedBookIndex();
+    }
+
+    @Test
+    void search_allTermsPresent_returnOnlyBooksMatchingEveryTerm() {
+        //Given
+        created(new Book("1", "The Lord of the Rings", "J. R. R. Tolkien", 1954, 1, 1));
+        created(new Book("2", "The Rings of Saturn", "W. G. Sebald", 1995, 1, 1));
+        created(new Book("3", "Lord of the Flies", "William Golding", 1954, 1, 1));
+        //When
+        List<String> isbns = testObj.search("lord rings", 10);
+        //Then
+        assertThat(isbns, contains("1"));
+    }
+
+    @Test
+    void search_termOnlyInAuthor_matchAuthor() {
+        //Given
+        created(new Book("1", "The Hobbit", "J. R. R. Tolkien", 1937, 1, 1));
+        created(new Book("2", "Dune", "Frank Herbert", 1965, 1, 1));
+        //When & Then
+        assertThat(testObj.search("tolkien", 10), contains("1"));
+    }
+
+    @Test
+    void search_accentsCaseAndPunctuation_normalizedLikeTitles() {
+        //Given
+        created(new Book("1", "Les Misérables", "Victor Hugo", 1862, 1, 1));
+        //When & Then
+        assertThat(testObj.search("  MISERABLES!", 10), contains("1"));
+        assertThat(testObj.search("the of", 10), is(empty()));
+    }
+
+    @Test
+    void search_titleMatchAndAuthorMatch_rankTitleMatchFirst() {
+        //Given
+        created(new Book("1", "Collected Essays", "Herbert Read", 1938, 1, 1));
+        created(new Book("2", "Herbert", "Someone Else", 2001, 1, 1));
+        //When & Then
+        assertThat(testObj.search("herbert", 10), contains("2", "1"));
+    }
+
+    @Test
+    void search_moreMatchesThanLimit_returnBestLimitMatches() {
+        //Given
+        for (int i = 0; i < 100; i++) {
+            created(new Book("%03d".formatted(i), "common title " + i, "author", 2024, 1, 1));
+        }
+        created(new Book("999", "common", "author", 2024, 1, 1));
+        //When
+        List<String> isbns = testObj.search("common", 3);
+        //Then
+        assertThat(isbns, contains("999", "000", "001"));
+    }
+
+    @Test
+    void onBookChange_titleUpdated_reindexBook() {
+        //Given
+        Book book = new Book("1", "Old Title", "auth", 2024, 1, 1);
+        created(book);
+        Book updatedBook = new Book("1", "New Title", "auth", 2024, 1, 1);
+        //When
+        testObj.onBookChange(BookChangeEvent.updated(book, updatedBook));
+        //Then
+        assertThat(testObj.search("old", 10), is(empty()));
+        assertThat(testObj.search("new title", 10), contains("1"));
+    }
+
+    @Test
+    void onBookChange_borrowsOfDifferentBooksWhileIndexLocked_applyWithoutWaitingForLock() throws Exception {
+        //Given
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Book book = new Book(String.valueOf(i), "Dune " + i, "Frank Herbert", 1965, 2, 2);
+            created(book);
+            books.add(book);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(books.size());
+        testObj.lock.writeLock().lock();
+        try {
+            //When
+            List<Future<?>> borrows = new ArrayList<>();
+            for (Book book : books) {
+                Book borrowedBook = new Book(book.getIsbn(), book.getTitle(), book.getAuthor(), 1965, 2, 1);
+                borrows.add(executor.submit(() -> testObj.onBookChange(BookChangeEvent.updated(book, borrowedBook))));
+            }
+            //Then
+            for (Future<?> borrow : borrows) {
+                borrow.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            testObj.lock.writeLock().unlock();
+            executor.shutdown();
+        }
+        assertThat(testObj.search("dune", 10), contains("0", "1", "2", "3"));
+    }
+
+    @Test
+    void onBookChange_deleted_removeBookFromResults() {
+        //Given
+        Book book = new Book("1", "Dune", "Frank Herbert", 1965, 1, 1);
+        created(book);
+        created(new Book("2", "Dune Messiah", "Frank Herbert", 1969, 1, 1));
+        //When
+        testObj.onBookChange(BookChangeEvent.deleted(book));
+        //Then
+        assertThat(testObj.search("dune", 10), contains("2"));
+    }
+
+    @Test
+    void indexIfAbsent_bookAlreadyIndexedFromEvent_keepEventVersion() {
+        //Given
+        created(new Book("1", "New Title", "auth", 2024, 1, 1));
+        //When
+        testObj.indexIfAbsent(new Book("1", "Old Title", "auth", 2024, 1, 1));
+        //Then
+        assertThat(testObj.search("old", 10), is(empty()));
+        assertThat(testObj.search("new", 10), contains("1"));
+    }
+
+    @Test
+    void search_randomCatalogWithRemovals_matchBruteForce() {
+        //Given
+        Random random = new Random(15);
+        String[] words = {"red", "green", "blue", "river", "night", "stone", "winter", "glass"};
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            String title = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + " " + i;
+            Book book = new Book("%05d".formatted(i), title, "author", 2024, 1, 1);
+            created(book);
+            books.add(book);
+        }
+        for (int i = 0; i < 2_000; i += 3) {
+            testObj.onBookChange(BookChangeEvent.deleted(books.get(i)));
+        }
+        //When
+        List<String> isbns = testObj.search("river night", 10_000);
+        //Then
+        long expected = books.stream()
+                .filter(book -> Integer.parseInt(book.getIsbn()) % 3 != 0)
+                .filter(book -> book.getTitle().contains("river") && book.getTitle().contains("night"))
+                .count();
+        assertThat((long) isbns.size(), is(equalTo(expected)));
+        assertThat(isbns.stream().allMatch(isbn -> Integer.parseInt(isbn) % 3 != 0), is(equalTo(true)));
+    }
+
+    private void created(Book book) {
+        testObj.onBookChange(BookChangeEvent.created(book));
+    }
+}
@@ -0,0 +1,73 @@
+package com.identitye2e.library.infrastructure.search;
+
+import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.repository.BookChangeEvent;
+import com.identitye2e.library.book.search.YearPosition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.core.Is.is;
+
+class SortedYearIndexTest {
+    private SortedYearIndex testObj;
+
+    @BeforeEach
+    void setup() {
+        testObj = new SortedYearIndex();
+        testObj.addAll(List.of(
+                new Book("9780000000149", "title3", "auth", 1995, 1, 1),
+                new Book("9780000000125", "title", "auth", 1995, 1, 1),
+                new Book("9780000000132", "title2", "other", 1990, 1, 1),
+                new Book("9780000000996", "title4", "auth", 2005, 1, 1)));
+    }
+
+    @Test
+    void range_yearsInRange_returnYearThenIsbnOrder() {
+        //When
+        List<YearPosition> positions = testObj.range(1990, 2000, null, null, 10);
+        //Then
+        assertThat(positions, contains(
+                new YearPosition(1990, "9780000000132"),
+                new YearPosition(1995, "9780000000125"),
+                new YearPosition(1995, "9780000000149")));
+        assertThat(testObj.count(1990, 2000, null), is(equalTo(3)));
+    }
+
+    @Test
+    void range_afterPosition_resumeRightAfterIt() {
+        //When & Then
+        assertThat(testObj.range(1990, 2010, null, new YearPosition(1995, "9780000000125"), 2), contains(
+                new YearPosition(1995, "9780000000149"),
+                new YearPosition(2005, "9780000000996")));
+        assertThat(testObj.range(1990, 2010, null, new YearPosition(2005, "9780000000996"), 2), is(empty()));
+    }
+
+    @Test
+    void range_author_returnOnlyTheirBooks() {
+        //When & Then
+        assertThat(testObj.range(1990, 2000, "other", null, 10), contains(new YearPosition(1990, "9780000000132")));
+        assertThat(testObj.count(Integer.MIN_VALUE, Integer.MAX_VALUE, "auth"), is(equalTo(3)));
+        assertThat(testObj.range(1990, 2000, "nobody", null, 10), is(empty()));
+    }
+
+    @Test
+    void onBookChange_createdBorrowedAndDeleted_keepIndexInStep() {
+        //Given
+        Book book = new Book("9780000000101", "title5", "auth", 2000, 2, 2);
+        //When
+        testObj.onBookChange(BookChangeEvent.created(book));
+        testObj.onBookChange(BookChangeEvent.updated(book, new Book("9780000000101", "title5", "auth", 2000, 2, 1)));
+        //Then
+        assertThat(testObj.range(2000, 2000, null, null, 10), contains(new YearPosition(2000, "9780000000101")));
+        //When
+        testObj.onBookChange(BookChangeEvent.deleted(book));
+        //Then
+        assertThat(testObj.count(2000, 2000, null), is(equalTo(0)));
+    }
+}
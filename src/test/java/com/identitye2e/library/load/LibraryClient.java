@@ -0,0 +1,107 @@
+package com.identitye2e.library.load;
+
+import com.identitye2e.library.load.LoadGenerator.Call;
+import com.identitye2e.library.load.LoadGenerator.Operation;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+/*
+Synthetic catalog and production traffic mix shared by the load tests: 90% ISBN lookups,
+8% borrows and returns and 2% author lookups, spread uniformly over the catalog.
+ */
+class LibraryClient {
+    private static final int BOOKS_PER_AUTHOR = 20;
+    private static final int COPIES = 1_000;
+    private final HttpClient httpClient;
+    private final int port;
+    private final int catalogSize;
+    private final int authors;
+    private final Queue<String> borrowedIsbns = new ConcurrentLinkedQueue<>();
+
+    LibraryClient(HttpClient httpClient, int port, int catalogSize) {
+        this.httpClient = httpClient;
+        this.port = port;
+        this.catalogSize = catalogSize;
+        this.authors = Math.max(1, catalogSize / BOOKS_PER_AUTHOR);
+    }
+
+    void importCatalog() throws IOException, InterruptedException {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < catalogSize; i++) {
+            ndjson.append("""
+                    {"isbn":"%s","title":"title %d","author":"author-%d","publicationYear":%d,"availableCopies":%d}
+                    """.formatted(isbn(i), i, i % authors, 1925 + i % 100, COPIES));
+        }
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(uri("/v1/books/bulk"))
+                        .header("Content-Type", "application/x-ndjson")
+                        .POST(HttpRequest.BodyPublishers.ofString(ndjson.toString()))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode(), is(equalTo(200)));
+    }
+
+    List<Operation> productionMix() {
+        return List.of(
+                new Operation(90, () -> new Call("GET /books/{isbn}", get("/v1/books/" + randomIsbn()))),
+                new Operation(8, this::borrowOrReturn),
+                new Operation(2, () -> new Call("GET /books?author", get("/v1/books?author=" + randomAuthor()))));
+    }
+
+    /*
+    Returns a book an earlier arrival borrowed when there is one, so every return is for a
+    copy that is actually out and the mix stays half borrows, half returns.
+     */
+    private Call borrowOrReturn() {
+        String borrowedIsbn = ThreadLocalRandom.current().nextBoolean() ? borrowedIsbns.poll() : null;
+        if (borrowedIsbn != null) {
+            return new Call("PUT /books/{isbn}/return", put("/v1/books/" + borrowedIsbn + "/return"));
+        }
+        String isbn = randomIsbn();
+        return new Call("PUT /books/{isbn}/borrow", put("/v1/books/" + isbn + "/borrow"), () -> borrowedIsbns.add(isbn));
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(uri(path)).header("Accept", "application/json").GET().build();
+    }
+
+    private HttpRequest put(String path) {
+        return HttpRequest.newBuilder(uri(path)).header("Accept", "application/json")
+                .PUT(HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:%d/library-api%s".formatted(port, path));
+    }
+
+    private String randomIsbn() {
+        return isbn(ThreadLocalRandom.current().nextInt(catalogSize));
+    }
+
+    private String randomAuthor() {
+        return "author-" + ThreadLocalRandom.current().nextInt(authors);
+    }
+
+    /*
+    Valid ISBN-13s, the resource rejects a wrong check digit.
+     */
+    private static String isbn(int index) {
+        String first12Digits = Long.toString(978_000_000_000L + index);
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (first12Digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return first12Digits + (10 - sum % 10) % 10;
+    }
+}
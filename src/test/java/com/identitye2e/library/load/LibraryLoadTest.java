@@ -0,0 +1,52 @@
+package com.identitye2e.library.load;
+
+import com.identitye2e.library.AbstractMediumTest;
+import com.identitye2e.library.load.LoadGenerator.EndpointStats;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+/*
+Drives the REST API of the full application, Jetty and Jersey included, with the production
+traffic mix: 90% ISBN lookups, 8% borrows and returns and 2% author lookups, at a fixed
+arrival rate. Prints throughput, error rate and p50/p99/p99.9 latency per endpoint.
+Excluded from the default build, run with
+
+    mvn test -Pbenchmark -Dtest=LibraryLoadTest -Dload.rate=5000 -Dload.duration=60
+ */
+@Tag("benchmark")
+class LibraryLoadTest extends AbstractMediumTest {
+    private static final int RATE = Integer.getInteger("load.rate", 2_000);
+    private static final Duration WARMUP = Duration.ofSeconds(Integer.getInteger("load.warmup", 10));
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("load.duration", 30));
+    private static final int CATALOG_SIZE = Integer.getInteger("load.catalogSize", 100_000);
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void productionMix_openLoopArrivals_reportLatencyPerEndpoint() throws IOException, InterruptedException {
+        //Given
+        HttpClient httpClient = HttpClient.newHttpClient();
+        LibraryClient libraryClient = new LibraryClient(httpClient, port, CATALOG_SIZE);
+        libraryClient.importCatalog();
+        LoadGenerator loadGenerator = new LoadGenerator(httpClient, libraryClient.productionMix());
+        //When
+        Map<String, EndpointStats> report = loadGenerator.run(RATE, WARMUP, DURATION);
+        //Then
+        System.out.printf("load rate=%d/s duration=%ds catalog=%d%n", RATE, DURATION.toSeconds(), CATALOG_SIZE);
+        LoadGenerator.print(report, DURATION);
+        long requests = report.values().stream().mapToLong(EndpointStats::requests).sum();
+        assertThat(requests, is(greaterThan(0L)));
+        assertThat(report.values().stream().mapToLong(EndpointStats::errors).sum(), is(equalTo(0L)));
+    }
+}
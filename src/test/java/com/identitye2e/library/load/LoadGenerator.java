@@ -0,0 +1,204 @@
+package com.identitye2e.library.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/*
+Open-loop HTTP load generator. Requests are scheduled at a fixed arrival rate regardless of
+how fast the server answers, and every request runs on its own virtual thread, so a slow
+server builds up a queue of in-flight requests instead of quietly lowering the rate the way
+a pool of closed-loop clients would.
+
+Latency is measured from the moment a request was scheduled to be sent, not from when it was
+actually sent. A stall of the server or of the generator itself therefore shows up in the
+latency of every request that should have gone out during it, which corrects for coordinated
+omission without having to back-fill the histograms.
+
+runConcurrent is the closed-loop counterpart for comparing server configurations at a fixed
+number of connections, see there.
+ */
+class LoadGenerator {
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private final HttpClient httpClient;
+    private final List<Operation> operations;
+    private final int totalWeight;
+    private final Map<String, EndpointStats> statsByEndpoint = new ConcurrentHashMap<>();
+
+    LoadGenerator(HttpClient httpClient, List<Operation> operations) {
+        this.httpClient = httpClient;
+        this.operations = operations;
+        this.totalWeight = operations.stream().mapToInt(Operation::weight).sum();
+    }
+
+    /*
+    Sends requestsPerSecond requests for warmup plus duration and returns the statistics of
+    the requests scheduled after warmup. Waits for every request still in flight.
+     */
+    Map<String, EndpointStats> run(int requestsPerSecond, Duration warmup, Duration duration) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / requestsPerSecond;
+        SplittableRandom random = new SplittableRandom();
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long intendedStart = start + i * intervalNanos;
+                if (intendedStart >= end) {
+                    break;
+                }
+                long delay = intendedStart - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                Call call = next(random).calls().get();
+                boolean measured = intendedStart >= measureFrom;
+                executor.execute(() -> send(call, intendedStart, measured));
+            }
+        }
+        return report();
+    }
+
+    /*
+    Keeps connections requests in flight for warmup plus duration: as many virtual threads
+    each send their next request as soon as the previous one was answered, and the HTTP/1.1
+    client opens a connection for every request it cannot serve from its idle pool. Latency
+    is measured from the actual send, a stalled server slows the clients down instead of
+    showing up in full, so the figures are only comparable between runs at the same
+    concurrency. Needs a file descriptor limit of twice the connections, both ends run in
+    this JVM.
+     */
+    Map<String, EndpointStats> runConcurrent(int connections, Duration warmup, Duration duration) {
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < connections; i++) {
+                SplittableRandom random = new SplittableRandom();
+                executor.execute(() -> {
+                    for (long sendAt = System.nanoTime(); sendAt < end; sendAt = System.nanoTime()) {
+                        send(next(random).calls().get(), sendAt, sendAt >= measureFrom);
+                    }
+                });
+            }
+        }
+        return report();
+    }
+
+    static void print(Map<String, EndpointStats> report, Duration duration) {
+        report.forEach((endpoint, stats) -> System.out.printf(
+                "%-28s requests=%d throughput=%.1f/s errors=%d errorRate=%.4f p50=%.0fus p99=%.0fus p99.9=%.0fus max=%.0fus%n",
+                endpoint, stats.requests(), stats.throughput(duration), stats.errors(), stats.errorRate(),
+                stats.latencyMicros(50), stats.latencyMicros(99), stats.latencyMicros(99.9), stats.maxLatencyMicros()));
+    }
+
+    private Map<String, EndpointStats> report() {
+        Map<String, EndpointStats> report = new LinkedHashMap<>();
+        statsByEndpoint.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> report.put(entry.getKey(), entry.getValue()));
+        return report;
+    }
+
+    private void send(Call call, long intendedStart, boolean measured) {
+        boolean success;
+        try {
+            HttpResponse<Void> response = httpClient.send(call.request(), HttpResponse.BodyHandlers.discarding());
+            success = response.statusCode() / 100 == 2;
+        } catch (Exception e) {
+            success = false;
+        }
+        long latency = System.nanoTime() - intendedStart;
+        if (success) {
+            call.onSuccess().run();
+        }
+        if (measured) {
+            statsByEndpoint.computeIfAbsent(call.endpoint(), endpoint -> new EndpointStats()).record(latency, success);
+        }
+    }
+
+    private Operation next(SplittableRandom random) {
+        int pick = random.nextInt(totalWeight);
+        for (Operation operation : operations) {
+            pick -= operation.weight();
+            if (pick < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("Weights changed while running");
+    }
+
+    /*
+    A share of the traffic mix. Each arrival asks calls for the request to send, which lets an
+    operation pick its target, or even its endpoint, at the time it is scheduled.
+     */
+    record Operation(int weight, Supplier<Call> calls) {
+    }
+
+    /*
+    One request, recorded under endpoint. onSuccess runs on the request's thread once a 2xx
+    response arrived.
+     */
+    record Call(String endpoint, HttpRequest request, Runnable onSuccess) {
+        Call(String endpoint, HttpRequest request) {
+            this(endpoint, request, () -> { });
+        }
+    }
+
+    static final class EndpointStats {
+        private final Histogram latencies = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        private void record(long latencyNanos, boolean success) {
+            latencies.recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_NANOS));
+            requests.increment();
+            if (!success) {
+                errors.increment();
+            }
+        }
+
+        long requests() {
+            return requests.sum();
+        }
+
+        long errors() {
+            return errors.sum();
+        }
+
+        double errorRate() {
+            long requests = requests();
+            return requests == 0 ? 0 : (double) errors() / requests;
+        }
+
+        double throughput(Duration duration) {
+            return requests() * 1000.0 / duration.toMillis();
+        }
+
+        /*
+        Latency at the percentile, in microseconds.
+         */
+        double latencyMicros(double percentile) {
+            return latencies.getValueAtPercentile(percentile) / 1000.0;
+        }
+
+        double maxLatencyMicros() {
+            return latencies.getMaxValue() / 1000.0;
+        }
+    }
+}
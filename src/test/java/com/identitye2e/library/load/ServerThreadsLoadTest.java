@@ -0,0 +1,59 @@
+package com.identitye2e.library.load;
+
+import com.identitye2e.library.application.LibraryApplication;
+import com.identitye2e.library.load.LoadGenerator.EndpointStats;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+/*
+Throughput and latency of the production mix with Jetty serving Jersey on its platform
+thread pool against one virtual thread per request, spring.threads.virtual.enabled, at a
+fixed number of concurrent connections. Each mode gets a fresh application. Excluded from
+the default build, run with a raised descriptor limit, both ends live in this JVM:
+
+    ulimit -n 65536
+    mvn test -Pbenchmark -Dtest=ServerThreadsLoadTest -Dload.connections=10000
+ */
+@Tag("benchmark")
+class ServerThreadsLoadTest {
+    private static final int CONNECTIONS = Integer.getInteger("load.connections", 10_000);
+    private static final Duration WARMUP = Duration.ofSeconds(Integer.getInteger("load.warmup", 10));
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("load.duration", 30));
+    private static final int CATALOG_SIZE = Integer.getInteger("load.catalogSize", 100_000);
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void productionMix_fixedConnections_reportPerThreadMode(boolean virtualThreads) throws IOException, InterruptedException {
+        SpringApplicationBuilder application = new SpringApplicationBuilder(LibraryApplication.class)
+                .profiles("test")
+                .properties("server.port=0", "spring.threads.virtual.enabled=" + virtualThreads);
+        try (ServletWebServerApplicationContext context = (ServletWebServerApplicationContext) application.run()) {
+            //Given
+            HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            LibraryClient libraryClient = new LibraryClient(httpClient, context.getWebServer().getPort(), CATALOG_SIZE);
+            libraryClient.importCatalog();
+            LoadGenerator loadGenerator = new LoadGenerator(httpClient, libraryClient.productionMix());
+            //When
+            Map<String, EndpointStats> report = loadGenerator.runConcurrent(CONNECTIONS, WARMUP, DURATION);
+            //Then
+            long requests = report.values().stream().mapToLong(EndpointStats::requests).sum();
+            System.out.printf("serverThreads=%s connections=%d duration=%ds catalog=%d throughput=%.1f/s%n",
+                    virtualThreads ? "virtual" : "platform", CONNECTIONS, DURATION.toSeconds(), CATALOG_SIZE,
+                    requests * 1000.0 / DURATION.toMillis());
+            LoadGenerator.print(report, DURATION);
+            assertThat(requests, is(greaterThan(0L)));
+        }
+    }
+}
@@ -3,15 +3,27 @@ package com.identitye2e.library.rest.v1;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.identitye2e.library.AbstractMediumTest;
 import com.identitye2e.library.rest.v1.request.BookRequest;
+import com.identitye2e.library.rest.v1.request.CheckoutRequest;
 import com.identitye2e.library.rest.v1.response.BookResponse;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
 import io.restassured.response.Response;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.junit.jupiter.api.Test;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static io.restassured.RestAssured.given;
+import static io.restassured.config.EncoderConfig.encoderConfig;
 import static io.restassured.http.ContentType.JSON;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -21,7 +33,7 @@ public class LibraryResourceMediumTest extends AbstractMediumTest {
     void createBook_validBookRequest_return201Response() throws JsonProcessingException {
         //Given & When
         BookRequest bookRequest = BookRequest.builder()
-                .isbn("123")
+                .isbn("9780000000125")
                 .title("title")
                 .author("auth")
                 .publicationYear(2024)
@@ -39,7 +51,7 @@ public class LibraryResourceMediumTest extends AbstractMediumTest {
         JSONObject jsonObject = new JSONObject(response.getBody().asString());
         BookResponse actualBookResponse = om.readValue(jsonObject.toString(), BookResponse.class);
         assertThat(actualBookResponse, is(notNullValue()));
-        assertThat(actualBookResponse.getIsbn(), is(equalTo("123")));
+        assertThat(actualBookResponse.getIsbn(), is(equalTo("9780000000125")));
         assertThat(actualBookResponse.getTitle(), is(equalTo("title")));
         assertThat(actualBookResponse.getAuthor(), is(equalTo("auth")));
         assertThat(actualBookResponse.getPublicationYear(), is(equalTo(2024)));
@@ -50,7 +62,7 @@ public class LibraryResourceMediumTest extends AbstractMediumTest {
     void createBook_duplicateBookRequest_return412Response() throws JsonProcessingException {
         //Given
         BookRequest bookRequest = BookRequest.builder()
-                .isbn("123")
+                .isbn("9780000000125")
                 .title("title")
                 .author("auth")
                 .publicationYear(2024)
@@ -80,12 +92,12 @@ public class LibraryResourceMediumTest extends AbstractMediumTest {
     @Test
     void removeBook_bookExists_return204Response() throws JsonProcessingException {
         //Given
-        createBook("123", "title","auth", 2024, 10);
+        createBook("9780000000125", "title","auth", 2024, 10);
         //When & Then
         given()
                 .log().all()
                 .contentType(JSON)
-                .pathParam("isbn", "123")
+                .pathParam("isbn", "9780000000125")
                 .expect()
                 .statusCode(204)
                 .when()
@@ -98,7 +110,7 @@ public class LibraryResourceMediumTest extends AbstractMediumTest {
         given()
                 .log().all()
                 .contentType(JSON)
-                .pathParam("isbn", "123")
+                .pathParam("isbn", "9780000000125")
                 .expect()
                 .statusCode(404)
                 .when()
@@ -108,12 +120,12 @@ public class LibraryResourceMediumTest extends AbstractMediumTest {
     @Test
     void findBookByIsbn_bookExists_return200Response() throws JsonProcessingException {
         //Given
-        createBook("123", "title","auth", 2024, 10);
+        createBook("9780000000125", "title","auth", 2024, 10);
         //When
         Response response = given()
                 .log().all()
                 .contentType(JSON)
-                .pathParam("isbn", "123")
+                .pathParam("isbn", "9780000000125")
                 .expect()
                 .statusCode(200)
                 .when()
@@ -122,7 +134,7 @@ public class LibraryResourceMediumTest extends AbstractMediumTest {
         JSONObject jsonObject = new JSONObject(response.getBody().asString());
         BookResponse actualBookResponse = om.readValue(jsonObject.toString(), BookResponse.class);
         assertThat(actualBookResponse, is(notNullValue()));
-        assertThat(actualBookResponse.getIsbn(), is(equalTo("123")));
+        assertThat(actualBookResponse.getIsbn(), is(equalTo("9780000000125")));
         assertThat(actualBookResponse.getTitle(), is(equalTo("title")));
         assertThat(actualBookResponse.getAuthor(), is(equalTo("auth")));
         assertThat(actualBookResponse.getPublicationYear(), is(equalTo(2024)));
@@ -135,7 +147,7 @@ public class LibraryResourceMediumTest extends AbstractMediumTest {
         given()
                 .log().all()
                 .contentType(JSON)
-                .pathParam("isbn", "123")
+                .pathParam("isbn", "9780000000125")
                 .expect()
                 .statusCode(404)
                 .when()
@@ -145,9 +157,9 @@ public class LibraryResourceMediumTest extends AbstractMediumTest {
     @Test
     void findBooksByAuthor_booksByAuthor_return200Response() throws JsonProcessingException {
         //Given
-        createBook("123", "title","auth", 2024, 10);
-        createBook("124", "title2","auth", 2024, 10);
-        createBook("125", "title3","auth", 2024, 10);
+        createBook("9780000000125", "title","auth", 2024, 10);
+        createBook("9780000000132", "title2","auth", 2024, 10);
+        createBook("9780000000149", "title3","auth", 2024, 10);
         //When
         Response response = given()
                 .log().all()
@@ -182,15 +194,46 @@ public class LibraryResourceMediumTest extends AbstractMediumTest {
         assertThat(actualBooksByAuthorResponse.isEmpty(), is(equalTo(true)));
     }
 
+    @Test
+    void findBooksByAuthor_authorMissing_return200EmptyListResponse() throws JsonProcessingException {
+        //Given
+        createBook("9780000000125", "title","auth", 2024, 10);
+        //When
+        Response response = given()
+                .log().all()
+                .contentType(JSON)
+                .expect()
+                .statusCode(200)
+                .when()
+                .get("/v1/books").andReturn();
+        //Then
+        JSONArray jsonObjects = new JSONArray(response.getBody().asString());
+        assertThat(jsonObjects.isEmpty(), is(equalTo(true)));
+    }
+
+    @Test
+    void streamBooksByAuthor_authorMissing_return200EmptyBody() {
+        //Given & When & Then
+        given()
+                .log().all()
+                .accept("application/x-ndjson")
+                .expect()
+                .statusCode(200)
+                .when()
+                .get("/v1/books")
+                .then().log().all()
+                .assertThat().body(is(emptyString()));
+    }
+
     @Test
     void borrowBook_availableCopiesUpdated_return200Response() throws JsonProcessingException {
         //Given
-        createBook("123", "title","auth", 2024, 10);
+        createBook("9780000000125", "title","auth", 2024, 10);
         //When
         Response response = given()
                 .log().all()
                 .contentType(JSON)
-                .pathParam("isbn", "123")
+                .pathParam("isbn", "9780000000125")
                 .expect()
                 .statusCode(200)
                 .when()
@@ -199,18 +242,18 @@ public class LibraryResourceMediumTest extends AbstractMediumTest {
         JSONObject jsonObject = new JSONObject(response.getBody().asString());
         BookResponse actualBookResponse = om.readValue(jsonObject.toString(), BookResponse.class);
         assertThat(actualBookResponse, is(notNullValue()));
-        assertThat(actualBookResponse.getIsbn(), is(equalTo("123")));
+        assertThat(actualBookResponse.getIsbn(), is(equalTo("9780000000125")));
         assertThat(actualBookResponse.getAvailableCopies(), is(equalTo(9)));
     }
 
     @Test
     void borrowBook_noMoreCopiesAvailable_return412Response() throws JsonProcessingException {
         //Given
-        createBook("123", "title","auth", 2024, 1);
+        createBook("9780000000125", "title","auth", 2024, 1);
         given()
                 .log().all()
                 .contentType(JSON)
-                .pathParam("isbn", "123")
+                .pathParam("isbn", "9780000000125")
                 .expect()
                 .statusCode(200)
                 .when()
@@ -219,7 +262,7 @@ public class LibraryResourceMediumTest extends AbstractMediumTest {
         given()
                 .log().all()
                 .contentType(JSON)
-                .pathParam("isbn", "123")
+                .pathParam("isbn", "9780000000125")
                 .expect()
                 .when()
                 .put("/v1/books/{isbn}/borrow")
@@ -229,13 +272,108 @@ public class LibraryResourceMediumTest extends AbstractMediumTest {
                 .assertThat().body("errors[0].code", equalTo("insufficient.book.copies"));
     }
 
+    @Test
+    void borrowBook_waitAndCopyReturned_return200Response() throws Exception {
+        //Given
+        createBook("9780000000125", "title","auth", 2024, 1);
+        given()
+                .contentType(JSON)
+                .pathParam("isbn", "9780000000125")
+                .expect()
+                .statusCode(200)
+                .when()
+                .put("/v1/books/{isbn}/borrow");
+        CompletableFuture<Response> waitingBorrow = CompletableFuture.supplyAsync(() -> given()
+                .log().all()
+                .contentType(JSON)
+                .pathParam("isbn", "9780000000125")
+                .queryParam("wait", 10)
+                .when()
+                .put("/v1/books/{isbn}/borrow").andReturn());
+        //When
+        Thread.sleep(500);
+        given()
+                .contentType(JSON)
+                .pathParam("isbn", "9780000000125")
+                .expect()
+                .statusCode(200)
+                .when()
+                .put("/v1/books/{isbn}/return");
+        //Then
+        Response response = waitingBorrow.get(10, TimeUnit.SECONDS);
+        assertThat(response.getStatusCode(), is(equalTo(200)));
+        assertThat(om.readValue(response.getBody().asString(), BookResponse.class).getAvailableCopies(), is(equalTo(0)));
+    }
+
+    @Test
+    void borrowBook_waitExpires_return412Response() throws JsonProcessingException {
+        //Given
+        createBook("9780000000125", "title","auth", 2024, 1);
+        given()
+                .contentType(JSON)
+                .pathParam("isbn", "9780000000125")
+                .expect()
+                .statusCode(200)
+                .when()
+                .put("/v1/books/{isbn}/borrow");
+        //When & Then
+        given()
+                .log().all()
+                .contentType(JSON)
+                .pathParam("isbn", "9780000000125")
+                .queryParam("wait", 1)
+                .expect()
+                .when()
+                .put("/v1/books/{isbn}/borrow")
+                .then().log().all()
+                .assertThat().statusCode(412).contentType(JSON)
+                .assertThat().body("errors[0].code", equalTo("insufficient.book.copies"));
+    }
+
+    @Test
+    void streamAvailability_bookBorrowed_pushCurrentStateThenChange() throws Exception {
+        //Given
+        createBook("9780000000125", "title","auth", 2024, 10);
+        HttpResponse<Stream<String>> stream = HttpClient.newHttpClient().send(HttpRequest.newBuilder(URI.create(
+                                "http://localhost:%d/library-api/v1/books/availability?isbn=9780000000125".formatted(RestAssured.port)))
+                        .header("Accept", "text/event-stream")
+                        .GET().build(),
+                HttpResponse.BodyHandlers.ofLines());
+        Iterator<String> lines = stream.body().iterator();
+        assertThat(stream.statusCode(), is(equalTo(200)));
+        assertThat(nextEventData(lines), containsString("\"availableCopies\":10"));
+        //When
+        given()
+                .contentType(JSON)
+                .pathParam("isbn", "9780000000125")
+                .expect()
+                .statusCode(200)
+                .when()
+                .put("/v1/books/{isbn}/borrow");
+        //Then
+        assertThat(nextEventData(lines), containsString("\"availableCopies\":9"));
+        stream.body().close();
+    }
+
+    private static String nextEventData(Iterator<String> lines) throws Exception {
+        return CompletableFuture.supplyAsync(() -> {
+            while (lines.hasNext()) {
+                String line = lines.next();
+                if (line.startsWith("data:")) {
+                    return line;
+                }
+            }
+            return null;
+        }).get(10, TimeUnit.SECONDS);
+    }
+
     @Test
     void borrowBook_bookDoesNotExist_return404Response() {
         //Given & When & Then
         given()
                 .log().all()
                 .contentType(JSON)
-                .pathParam("isbn", "123")
+                .pathParam("isbn", "9780000000125")
                 .expect()
                 .when()
                 .put("/v1/books/{isbn}/borrow")
@@ -246,11 +384,11 @@ public class LibraryResourceMediumTest extends AbstractMediumTest {
     @Test
     void returnBook_availableCopiesUpdated_return200Response() throws JsonProcessingException {
         //Given
-        createBook("123", "title","auth", 2024, 10);
+        createBook("9780000000125", "title","auth", 2024, 10);
         given()
                 .log().all()
                 .contentType(JSON)
-                .pathParam("isbn", "123")
+                .pathParam("isbn", "9780000000125")
                 .expect()
                 .statusCode(200)
                 .when()
@@ -258,7 +396,7 @@ public class LibraryResourceMediumTest extends AbstractMediumTest {
         given()
                 .log().all()
                 .contentType(JSON)
-                .pathParam("isbn", "123")
+                .pathParam("isbn", "9780000000125")
                 .expect()
                 .statusCode(200)
                 .when()
@@ -267,7 +405,7 @@ public class LibraryResourceMediumTest extends AbstractMediumTest {
         Response response = given()
                 .log().all()
                 .contentType(JSON)
-                .pathParam("isbn", "123")
+                .pathParam("isbn", "9780000000125")
                 .expect()
                 .statusCode(200)
                 .when()
@@ -276,18 +414,18 @@ public class LibraryResourceMediumTest extends AbstractMediumTest {
         JSONObject jsonObject = new JSONObject(response.getBody().asString());
         BookResponse actualBookResponse = om.readValue(jsonObject.toString(), BookResponse.class);
         assertThat(actualBookResponse, is(notNullValue()));
-        assertThat(actualBookResponse.getIsbn(), is(equalTo("123")));
+        assertThat(actualBookResponse.getIsbn(), is(equalTo("9780000000125")));
         assertThat(actualBookResponse.getAvailableCopies(), is(equalTo(9)));
     }
 
     @Test
     void returnBook_breachedTotalCopies_return412Response() throws JsonProcessingException {
         //Given & When & Then
-        createBook("123", "title","auth", 2024, 10);
+        createBook("9780000000125", "title","auth", 2024, 10);
         given()
                 .log().all()
                 .contentType(JSON)
-                .pathParam("isbn", "123")
+                .pathParam("isbn", "9780000000125")
                 .expect()
                 .when()
                 .put("/v1/books/{isbn}/return")
@@ -303,7 +441,7 @@ public class LibraryResourceMediumTest extends AbstractMediumTest {
         given()
                 .log().all()
                 .contentType(JSON)
-                .pathParam("isbn", "123")
+                .pathParam("isbn", "9780000000125")
                 .expect()
                 .when()
                 .put("/v1/books/{isbn}/return")
@@ -328,4 +466,293 @@ public class LibraryResourceMediumTest extends AbstractMediumTest {
                 .when()
                 .post("/v1/books").andReturn();
     }
+
+    @Test
+    void borrowBooks_allBooksAvailable_return200Response() throws JsonProcessingException {
+        //Given
+        createBook("9780000000125", "title","auth", 2024, 2);
+        createBook("9780000000132", "title2","auth", 2024, 2);
+        CheckoutRequest checkoutRequest = CheckoutRequest.builder().isbns(List.of("9780000000125", "9780000000132")).build();
+        //When & Then
+        given()
+                .log().all()
+                .body(om.writeValueAsString(checkoutRequest))
+                .contentType(JSON)
+                .expect()
+                .when()
+                .post("/v1/checkouts")
+                .then().log().all()
+                .assertThat().statusCode(200).contentType(JSON)
+                .assertThat().body("books.size()", equalTo(2))
+                .assertThat().body("books[0].availableCopies", equalTo(1))
+                .assertThat().body("books[1].availableCopies", equalTo(1));
+    }
+
+    @Test
+    void borrowBooks_oneBookUnavailable_return412ResponseAndNothingBorrowed() throws JsonProcessingException {
+        //Given
+        createBook("9780000000125", "title","auth", 2024, 2);
+        CheckoutRequest checkoutRequest = CheckoutRequest.builder().isbns(List.of("9780000000125", "9780000000996")).build();
+        //When
+        given()
+                .log().all()
+                .body(om.writeValueAsString(checkoutRequest))
+                .contentType(JSON)
+                .expect()
+                .when()
+                .post("/v1/checkouts")
+                .then().log().all()
+                .assertThat().statusCode(412).contentType(JSON)
+                .assertThat().body("errors.size()", equalTo(1))
+                .assertThat().body("errors[0].code", equalTo("book.not.found"));
+        //Then
+        given()
+                .log().all()
+                .contentType(JSON)
+                .pathParam("isbn", "9780000000125")
+                .expect()
+                .when()
+                .get("/v1/books/{isbn}")
+                .then().log().all()
+                .assertThat().statusCode(200)
+                .assertThat().body("availableCopies", equalTo(2));
+    }
+
+    @Test
+    void importBooks_ndjson_return200SummaryAndBooksCreated() {
+        //Given
+        String body = """
+                {"isbn": "9780000000125", "title": "title", "author": "auth", "publicationYear": 2024, "availableCopies": 10}
+                {"isbn": "9780000000125", "title": "title", "author": "auth", "publicationYear": 2024, "availableCopies": 10}
+                {"isbn": "9780000000132", "title": "title2", "author": "auth", "publicationYear": 2024, "availableCopies": 5}
+                """;
+        //When
+        given()
+                .log().all()
+                .config(RestAssured.config().encoderConfig(encoderConfig().encodeContentTypeAs("application/x-ndjson", ContentType.TEXT)))
+                .body(body)
+                .contentType("application/x-ndjson")
+                .expect()
+                .when()
+                .post("/v1/books/bulk")
+                .then().log().all()
+                .assertThat().statusCode(200).contentType(JSON)
+                .assertThat().body("imported", equalTo(2))
+                .assertThat().body("failed", equalTo(1))
+                .assertThat().body("errors[0].record", equalTo(2))
+                .assertThat().body("errors[0].code", equalTo("book.duplicate.exists"));
+        //Then
+        given()
+                .log().all()
+                .contentType(JSON)
+                .pathParam("isbn", "9780000000132")
+                .expect()
+                .when()
+                .get("/v1/books/{isbn}")
+                .then().log().all()
+                .assertThat().statusCode(200)
+                .assertThat().body("availableCopies", equalTo(5));
+    }
+
+    @Test
+    void findBooksByAuthor_pagedWithCursor_return200PagesResponse() throws JsonProcessingException {
+        //Given
+        createBook("9780000000125", "title","auth", 2024, 10);
+        createBook("9780000000132", "title2","auth", 2024, 10);
+        createBook("9780000000149", "title3","auth", 2024, 10);
+        //When
+        String nextCursor = given()
+                .log().all()
+                .contentType(JSON)
+                .queryParam("author", "auth")
+                .queryParam("limit", 2)
+                .expect()
+                .when()
+                .get("/v1/books")
+                .then().log().all()
+                .assertThat().statusCode(200)
+                .assertThat().body("books.isbn", contains("9780000000125", "9780000000132"))
+                .extract().path("nextCursor");
+        //Then
+        given()
+                .log().all()
+                .contentType(JSON)
+                .queryParam("author", "auth")
+                .queryParam("limit", 2)
+                .queryParam("cursor", nextCursor)
+                .expect()
+                .when()
+                .get("/v1/books")
+                .then().log().all()
+                .assertThat().statusCode(200)
+                .assertThat().body("books.isbn", contains("9780000000149"))
+                .assertThat().body("nextCursor", nullValue());
+    }
+
+    @Test
+    void streamBooksByAuthor_acceptNdjson_return200OneLinePerBook() throws JsonProcessingException {
+        //Given
+        createBook("9780000000125", "title","auth", 2024, 10);
+        createBook("9780000000132", "title2","auth", 2024, 10);
+        //When
+        String body = given()
+                .log().all()
+                .accept("application/x-ndjson")
+                .queryParam("author", "auth")
+                .expect()
+                .when()
+                .get("/v1/books")
+                .then().log().all()
+                .assertThat().statusCode(200)
+                .extract().asString();
+        //Then
+        assertThat(body.lines().count(), is(equalTo(2L)));
+    }
+
+    @Test
+    void findBookByIsbn_hyphenatedIsbn10_returnBookStoredUnderIsbn13() throws JsonProcessingException {
+        //Given
+        createBook("0-306-40615-2", "title","auth", 2024, 10);
+        //When & Then
+        given()
+                .log().all()
+                .contentType(JSON)
+                .pathParam("isbn", "978-0-306-40615-7")
+                .when()
+                .get("/v1/books/{isbn}")
+                .then().log().all()
+                .assertThat().statusCode(200)
+                .assertThat().body("isbn", equalTo("9780306406157"));
+    }
+
+    @Test
+    void borrowBook_invalidIsbn_return400Response() {
+        //Given & When & Then
+        given()
+                .log().all()
+                .contentType(JSON)
+                .pathParam("isbn", "9780000000126")
+                .when()
+                .put("/v1/books/{isbn}/borrow")
+                .then().log().all()
+                .assertThat().statusCode(400).contentType(JSON)
+                .assertThat().body("errors[0].code", equalTo("isbn.invalid"));
+    }
+
+    @Test
+    void searchBooks_termsInTitleAndAuthor_return200RankedMatches() throws JsonProcessingException {
+        //Given
+        createBook("9780000000125", "The Winter Garden","auth", 2024, 10);
+        createBook("9780000000132", "Garden of Winter Stories","auth", 2024, 10);
+        createBook("9780000000149", "Summer","Winter Garden", 2024, 10);
+        createBook("9780000000996", "Winter","someone", 2024, 10);
+        //When & Then
+        given()
+                .log().all()
+                .queryParam("q", "winter garden")
+                .when()
+                .get("/v1/books/search")
+                .then().log().all()
+                .assertThat().statusCode(200)
+                .assertThat().body("isbn", contains("9780000000125", "9780000000132", "9780000000149"));
+    }
+
+    @Test
+    void searchBooks_missingQuery_return400Response() {
+        //Given & When & Then
+        given()
+                .log().all()
+                .when()
+                .get("/v1/books/search")
+                .then().log().all()
+                .assertThat().statusCode(400).contentType(JSON)
+                .assertThat().body("errors[0].code", equalTo("query.invalid"));
+    }
+
+    @Test
+    void completeBooks_prefixOfTitlesAndAuthor_return200MostAvailableFirst() throws JsonProcessingException {
+        //Given
+        createBook("9780000000125", "Dune","Frank Herbert", 1965, 2);
+        createBook("9780000000132", "Dune Messiah","Frank Herbert", 1969, 5);
+        createBook("9780000000149", "Dunkirk","Someone Else", 2017, 1);
+        //When & Then
+        given()
+                .log().all()
+                .queryParam("prefix", "dun")
+                .when()
+                .get("/v1/books/autocomplete")
+                .then().log().all()
+                .assertThat().statusCode(200)
+                .assertThat().body("text", contains("Dune Messiah", "Dune", "Dunkirk"))
+                .assertThat().body("type", contains("title", "title", "title"));
+    }
+
+    @Test
+    void findBooksByPublicationYear_pagedWithCursor_return200BooksInYearOrderWithTotal() throws JsonProcessingException {
+        //Given
+        createBook("9780000000125", "title","auth", 1999, 10);
+        createBook("9780000000132", "title2","auth", 1990, 10);
+        createBook("9780000000149", "title3","auth", 1995, 10);
+        createBook("9780000000996", "title4","auth", 2005, 10);
+        //When
+        String nextCursor = given()
+                .log().all()
+                .queryParam("from", 1990)
+                .queryParam("to", 2000)
+                .queryParam("limit", 2)
+                .when()
+                .get("/v1/books/published")
+                .then().log().all()
+                .assertThat().statusCode(200)
+                .assertThat().body("books.isbn", contains("9780000000132", "9780000000149"))
+                .assertThat().body("total", equalTo(3))
+                .extract().path("nextCursor");
+        //Then
+        given()
+                .log().all()
+                .queryParam("from", 1990)
+                .queryParam("to", 2000)
+                .queryParam("limit", 2)
+                .queryParam("cursor", nextCursor)
+                .when()
+                .get("/v1/books/published")
+                .then().log().all()
+                .assertThat().statusCode(200)
+                .assertThat().body("books.isbn", contains("9780000000125"))
+                .assertThat().body("nextCursor", nullValue());
+    }
+
+    @Test
+    void queryBooks_authorYearAndAvailability_return200MatchesAndExplainPlan() throws JsonProcessingException {
+        //Given
+        createBook("9780000000125", "title","auth", 1995, 1);
+        createBook("9780000000132", "title2","auth", 1995, 0);
+        createBook("9780000000149", "title3","other", 1995, 1);
+        createBook("9780000000996", "title4","auth", 2005, 1);
+        //When & Then
+        given()
+                .log().all()
+                .queryParam("author", "auth")
+                .queryParam("from", 1990)
+                .queryParam("to", 2000)
+                .queryParam("available", true)
+                .when()
+                .get("/v1/books/query")
+                .then().log().all()
+                .assertThat().statusCode(200)
+                .assertThat().body("isbn", contains("9780000000125"));
+        given()
+                .log().all()
+                .queryParam("author", "auth")
+                .queryParam("from", 1990)
+                .queryParam("to", 2000)
+                .queryParam("available", true)
+                .when()
+                .get("/v1/books/query/explain")
+                .then().log().all()
+                .assertThat().statusCode(200)
+                .assertThat().body("accessPath.index", equalTo("year"))
+                .assertThat().body("accessPath.estimatedBooks", equalTo(3))
+                .assertThat().body("filter", equalTo("author = 'auth' and publicationYear between 1990 and 2000 and availableCopies > 0"));
+    }
 }
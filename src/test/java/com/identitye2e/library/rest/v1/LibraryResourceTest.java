@@ -1,60 +1,111 @@
 package com.identitye2e.library.rest.v1;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.identitye2e.library.book.availability.AvailabilityFeed;
 import com.identitye2e.library.book.model.Book;
+import com.identitye2e.library.book.model.BookPage;
+import com.identitye2e.library.book.query.BookQuery;
 import com.identitye2e.library.book.service.BookService;
+import com.identitye2e.library.book.service.ExecutorAsyncBookService;
+import com.identitye2e.library.book.service.exceptions.BatchOperationException;
 import com.identitye2e.library.book.service.exceptions.BookAlreadyExistsException;
 import com.identitye2e.library.book.service.exceptions.BookNotFoundException;
 import com.identitye2e.library.book.service.exceptions.InsufficientBookCopiesException;
 import com.identitye2e.library.book.service.exceptions.ReturnExceededException;
 import com.identitye2e.library.rest.v1.request.BookRequest;
+import com.identitye2e.library.rest.v1.request.CheckoutRequest;
+import com.identitye2e.library.rest.v1.response.BookPageResponse;
+import com.identitye2e.library.rest.v1.response.BookResponse;
+import com.identitye2e.library.rest.v1.response.CheckoutResponse;
+import com.identitye2e.library.rest.v1.response.ImportSummaryResponse;
 import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.container.AsyncResponse;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class LibraryResourceTest {
+    private static final long RESUME_TIMEOUT_MILLIS = 5_000;
     @Mock
     private BookService bookServiceMock;
+    @Mock
+    private AsyncResponse asyncResponseMock;
+    @Mock
+    private AvailabilityFeed availabilityFeedMock;
+    @Mock
+    private SseEventSink eventSinkMock;
+    @Mock
+    private Sse sseMock;
     private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    private ExecutorAsyncBookService asyncBookService;
     private LibraryResource testObj;
 
     @BeforeEach
     void setup() {
-        testObj = new LibraryResource(bookServiceMock, validator);
+        asyncBookService = new ExecutorAsyncBookService(bookServiceMock, 1, 10, 1, 10, Duration.ofSeconds(5));
+        testObj = new LibraryResource(bookServiceMock, asyncBookService, availabilityFeedMock, validator, new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        asyncBookService.close();
     }
 
     @Test
     void createBook_validBookRequest_returnCreated201() throws BookAlreadyExistsException {
         //Given
         BookRequest bookRequest = BookRequest.builder()
-                .isbn("123")
+                .isbn("9780000000125")
                 .title("title")
                 .author("auth")
                 .publicationYear(2024)
                 .availableCopies(10)
                 .build();
-        Book expectedBook = new Book("123", "title", "auth", 2024, 10, 10);
-        when(bookServiceMock.addBook("123", "title", "auth", 2024, 10)).thenReturn(expectedBook);
+        Book expectedBook = new Book("9780000000125", "title", "auth", 2024, 10, 10);
+        when(bookServiceMock.addBook("9780000000125", "title", "auth", 2024, 10)).thenReturn(expectedBook);
         //When
         Response response = testObj.createBook(bookRequest);
         //Then
@@ -67,10 +118,33 @@ class LibraryResourceTest {
         assertThrows(ConstraintViolationException.class, () -> testObj.createBook(bookRequest));
     }
 
+    @Test
+    void createBook_isbn10_addBookWithIsbn13() throws BookAlreadyExistsException {
+        //Given
+        BookRequest bookRequest = BookRequest.builder()
+                .isbn("080442957X")
+                .title("title")
+                .author("auth")
+                .publicationYear(2024)
+                .availableCopies(10)
+                .build();
+        Book expectedBook = new Book("9780804429573", "title", "auth", 2024, 10, 10);
+        when(bookServiceMock.addBook("9780804429573", "title", "auth", 2024, 10)).thenReturn(expectedBook);
+        //When
+        Response response = testObj.createBook(bookRequest);
+        //Then
+        assertThat(response.getStatus(), is(equalTo(201)));
+    }
+
+    @Test
+    void findBookByIsbn_invalidCheckDigit_throwBadRequestException() {
+        assertThrows(BadRequestException.class, () -> testObj.findBookByIsbn("9780000000126", asyncResponseMock));
+    }
+
     @Test
     void removeBook_bookExist_returnNoContent204() throws BookNotFoundException {
         //Given & When
-        Response response = testObj.removeBook("isbn");
+        Response response = testObj.removeBook("9780000000125");
         //Then
         assertThat(response.getStatus(), is(equalTo(204)));
     }
@@ -78,46 +152,49 @@ class LibraryResourceTest {
     @Test
     void removeBook_bookDoesNotExist_throwBookNotFoundException() throws BookNotFoundException {
         //Given
-        doThrow(BookNotFoundException.class).when(bookServiceMock).deleteBook("isbn");
+        doThrow(BookNotFoundException.class).when(bookServiceMock).deleteBook("9780000000125");
         // When & Then
-        assertThrows(BookNotFoundException.class, () -> testObj.removeBook("isbn"));
+        assertThrows(BookNotFoundException.class, () -> testObj.removeBook("9780000000125"));
     }
 
     @Test
     void findBookByIsbn_bookDoesExist_return200() {
         //Given
-        Book book = new Book("123", "title", "auth", 2024, 10, 10);
-        when(bookServiceMock.findBookByISBN("123")).thenReturn(Optional.of(book));
+        Book book = new Book("9780000000125", "title", "auth", 2024, 10, 10);
+        when(bookServiceMock.findBookByISBN("9780000000125")).thenReturn(Optional.of(book));
         // When
-        Response response = testObj.findBookByIsbn("123");
+        testObj.findBookByIsbn("9780000000125", asyncResponseMock);
         //Then
-        assertThat(response.getStatus(), is(equalTo(200)));
+        assertThat(resumedResponse().getStatus(), is(equalTo(200)));
     }
 
     @Test
     void findBookByIsbn_bookDoesNotExist_return404() {
-        //Given & When
-        Response response = testObj.findBookByIsbn("123");
+        //Given
+        when(bookServiceMock.findBookByISBN("9780000000125")).thenReturn(Optional.empty());
+        //When
+        testObj.findBookByIsbn("9780000000125", asyncResponseMock);
         //Then
-        assertThat(response.getStatus(), is(equalTo(404)));
+        assertThat(resumedResponse().getStatus(), is(equalTo(404)));
     }
 
     @Test
     void findBooksByAuthor_booksForAuthorExist_return200() {
         //Given
-        Book book = new Book("123", "title", "auth", 2024, 10, 10);
+        Book book = new Book("9780000000125", "title", "auth", 2024, 10, 10);
         List<Book> books = List.of(book);
         when(bookServiceMock.findBooksByAuthor("auth")).thenReturn(books);
         // When
-        Response response = testObj.findBooksByAuthor("auth");
+        Response response = testObj.findBooksByAuthor("auth", null, null);
         //Then
         assertThat(response.getStatus(), is(equalTo(200)));
+        assertThat(response.getEntity(), is(equalTo(List.of(BookResponse.from(book)))));
     }
 
     @Test
     void findBooksByAuthor_booksForAuthorDoesNotExist_return200() {
         //Given & When
-        Response response = testObj.findBooksByAuthor("123");
+        Response response = testObj.findBooksByAuthor("9780000000125", null, null);
         //Then
         assertThat(response.getStatus(), is(equalTo(200)));
     }
@@ -125,55 +202,80 @@ class LibraryResourceTest {
     @Test
     void borrowBook_bookExist_return200() throws InsufficientBookCopiesException, BookNotFoundException {
         //Given
-        Book book = new Book("123", "title", "auth", 2024, 10, 10);
-        when(bookServiceMock.borrowBook("isbn")).thenReturn(book);
+        Book book = new Book("9780000000125", "title", "auth", 2024, 10, 10);
+        when(bookServiceMock.borrowBook("9780000000125")).thenReturn(book);
         //When
-        Response response = testObj.borrowBook("isbn");
+        testObj.borrowBook("9780000000125", null, asyncResponseMock);
         //Then
-        assertThat(response.getStatus(), is(equalTo(200)));
+        assertThat(resumedResponse().getStatus(), is(equalTo(200)));
     }
 
     @Test
-    void borrowBook_bookDoesNotExist_throwBookNotFoundException() throws InsufficientBookCopiesException, BookNotFoundException {
+    void borrowBook_bookDoesNotExist_resumeWithBookNotFoundException() throws InsufficientBookCopiesException, BookNotFoundException {
         //Given
-        doThrow(BookNotFoundException.class).when(bookServiceMock).borrowBook("isbn");
-        //When & Then
-        assertThrows(BookNotFoundException.class, () -> testObj.borrowBook("isbn"));
+        doThrow(BookNotFoundException.class).when(bookServiceMock).borrowBook("9780000000125");
+        //When
+        testObj.borrowBook("9780000000125", null, asyncResponseMock);
+        //Then
+        assertThat(resumedFailure(), is(instanceOf(BookNotFoundException.class)));
     }
 
     @Test
-    void borrowBook_bookHasNoMoreCopiesAvailable_throwInsufficientBookCopiesException() throws InsufficientBookCopiesException, BookNotFoundException {
+    void borrowBook_bookHasNoMoreCopiesAvailable_resumeWithInsufficientBookCopiesException() throws InsufficientBookCopiesException, BookNotFoundException {
         //Given
-        doThrow(InsufficientBookCopiesException.class).when(bookServiceMock).borrowBook("isbn");
-        //When & Then
-        assertThrows(InsufficientBookCopiesException.class, () -> testObj.borrowBook("isbn"));
+        doThrow(InsufficientBookCopiesException.class).when(bookServiceMock).borrowBook("9780000000125");
+        //When
+        testObj.borrowBook("9780000000125", null, asyncResponseMock);
+        //Then
+        assertThat(resumedFailure(), is(instanceOf(InsufficientBookCopiesException.class)));
+    }
+
+    @Test
+    void borrowBook_waitAboveMaximum_waitForAvailabilityUpToMaximum() {
+        //Given
+        Book book = new Book("9780000000125", "title", "auth", 2024, 10, 1);
+        when(bookServiceMock.borrowBookWhenAvailable("9780000000125", Duration.ofSeconds(LibraryResource.MAX_BORROW_WAIT_SECONDS)))
+                .thenReturn(CompletableFuture.completedFuture(book));
+        //When
+        testObj.borrowBook("9780000000125", 3600, asyncResponseMock);
+        //Then
+        assertThat(resumedResponse().getStatus(), is(equalTo(200)));
+    }
+
+    @Test
+    void borrowBook_negativeWait_throwBadRequestException() {
+        assertThrows(BadRequestException.class, () -> testObj.borrowBook("9780000000125", -1, asyncResponseMock));
     }
 
     @Test
     void returnBook_bookExist_return200() throws BookNotFoundException, ReturnExceededException {
         //Given
-        Book book = new Book("123", "title", "auth", 2024, 10, 10);
-        when(bookServiceMock.returnBook("isbn")).thenReturn(book);
+        Book book = new Book("9780000000125", "title", "auth", 2024, 10, 10);
+        when(bookServiceMock.returnBook("9780000000125")).thenReturn(book);
         //When
-        Response response = testObj.returnBook("isbn");
+        testObj.returnBook("9780000000125", asyncResponseMock);
         //Then
-        assertThat(response.getStatus(), is(equalTo(200)));
+        assertThat(resumedResponse().getStatus(), is(equalTo(200)));
     }
 
     @Test
-    void returnBook_bookDoesNotExist_throwBookNotFoundException() throws BookNotFoundException, ReturnExceededException {
+    void returnBook_bookDoesNotExist_resumeWithBookNotFoundException() throws BookNotFoundException, ReturnExceededException {
         //Given
-        doThrow(BookNotFoundException.class).when(bookServiceMock).returnBook("isbn");
-        //When & Then
-        assertThrows(BookNotFoundException.class, () -> testObj.returnBook("isbn"));
+        doThrow(BookNotFoundException.class).when(bookServiceMock).returnBook("9780000000125");
+        //When
+        testObj.returnBook("9780000000125", asyncResponseMock);
+        //Then
+        assertThat(resumedFailure(), is(instanceOf(BookNotFoundException.class)));
     }
 
     @Test
-    void returnBook_breachedTotalCopies_throwReturnExceededException() throws BookNotFoundException, ReturnExceededException {
+    void returnBook_breachedTotalCopies_resumeWithReturnExceededException() throws BookNotFoundException, ReturnExceededException {
         //Given
-        doThrow(ReturnExceededException.class).when(bookServiceMock).returnBook("isbn");
-        //When & Then
-        assertThrows(ReturnExceededException.class, () -> testObj.returnBook("isbn"));
+        doThrow(ReturnExceededException.class).when(bookServiceMock).returnBook("9780000000125");
+        //When
+        testObj.returnBook("9780000000125", asyncResponseMock);
+        //Then
+        assertThat(resumedFailure(), is(instanceOf(ReturnExceededException.class)));
     }
 
     private static Stream<Arguments> invalidFieldsForBookRequests() {
@@ -210,4 +312,202 @@ class LibraryResourceTest {
                         .publicationYear(2024)
                         .build()));
     }
+
+    @Test
+    void borrowBooks_allBooksAvailable_return200() throws BatchOperationException {
+        //Given
+        CheckoutRequest checkoutRequest = CheckoutRequest.builder().isbns(List.of("9780000000125", "9780000000132")).build();
+        when(bookServiceMock.borrowBooks(List.of("9780000000125", "9780000000132"))).thenReturn(List.of(
+                new Book("9780000000125", "title", "auth", 2024, 10, 9),
+                new Book("9780000000132", "title2", "auth", 2024, 10, 9)));
+        //When
+        testObj.borrowBooks(checkoutRequest, asyncResponseMock);
+        //Then
+        Response response = resumedResponse();
+        assertThat(response.getStatus(), is(equalTo(200)));
+        assertThat(((CheckoutResponse) response.getEntity()).getBooks().size(), is(equalTo(2)));
+    }
+
+    @Test
+    void borrowBooks_emptyIsbns_throwConstraintViolationException() {
+        assertThrows(ConstraintViolationException.class,
+                () -> testObj.borrowBooks(CheckoutRequest.builder().isbns(List.of()).build(), asyncResponseMock));
+    }
+
+    @Test
+    void returnBooks_oneBookFails_resumeWithBatchOperationException() throws BatchOperationException {
+        //Given
+        doThrow(BatchOperationException.class).when(bookServiceMock).returnBooks(List.of("9780000000125"));
+        //When
+        testObj.returnBooks(CheckoutRequest.builder().isbns(List.of("9780000000125")).build(), asyncResponseMock);
+        //Then
+        assertThat(resumedFailure(), is(instanceOf(BatchOperationException.class)));
+    }
+
+    @Test
+    void importBooks_ndjsonWithInvalidAndDuplicateRecords_returnSummary() throws IOException {
+        //Given
+        String body = """
+                {"isbn": "9780000000125", "title": "title", "author": "auth", "publicationYear": 2024, "availableCopies": 10}
+                {"isbn": "9780000000132", "title": "title2", "author": "auth", "publicationYear": 2024}
+                {"isbn": "9780000000149", "title": "title3", "author": "auth", "publicationYear": 2024, "availableCopies": 10}
+                """;
+        when(bookServiceMock.addBooks(anyList())).thenAnswer(invocation -> {
+            List<Book> books = invocation.getArgument(0);
+            return books.stream().filter(book -> book.getIsbn().equals("9780000000149")).toList();
+        });
+        //When
+        Response response = testObj.importBooks(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        //Then
+        ImportSummaryResponse summary = (ImportSummaryResponse) response.getEntity();
+        assertThat(response.getStatus(), is(equalTo(200)));
+        assertThat(summary.getImported(), is(equalTo(1L)));
+        assertThat(summary.getFailed(), is(equalTo(2L)));
+        assertThat(summary.getErrors().get(0).getRecord(), is(equalTo(2L)));
+        assertThat(summary.getErrors().get(0).getCode(), is(equalTo("import.validation.failed")));
+        assertThat(summary.getErrors().get(1).getRecord(), is(equalTo(3L)));
+        assertThat(summary.getErrors().get(1).getCode(), is(equalTo("book.duplicate.exists")));
+    }
+
+    @Test
+    void importBooks_jsonArray_allBooksImported() throws IOException {
+        //Given
+        String body = """
+                [{"isbn": "9780000000125", "title": "title", "author": "auth", "publicationYear": 2024, "availableCopies": 10},
+                 {"isbn": "9780000000132", "title": "title2", "author": "auth", "publicationYear": 2024, "availableCopies": 10}]
+                """;
+        when(bookServiceMock.addBooks(anyList())).thenReturn(List.of());
+        //When
+        Response response = testObj.importBooks(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        //Then
+        ImportSummaryResponse summary = (ImportSummaryResponse) response.getEntity();
+        assertThat(summary.getImported(), is(equalTo(2L)));
+        assertThat(summary.getFailed(), is(equalTo(0L)));
+    }
+
+    @Test
+    void importBooks_malformedRecord_stopAndReportRecord() throws IOException {
+        //Given
+        String body = """
+                {"isbn": "9780000000125", "title": "title", "author": "auth", "publicationYear": 2024, "availableCopies": 10}
+                {"isbn": "9780000000132", "title":
+                """;
+        when(bookServiceMock.addBooks(anyList())).thenReturn(List.of());
+        //When
+        Response response = testObj.importBooks(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        //Then
+        ImportSummaryResponse summary = (ImportSummaryResponse) response.getEntity();
+        assertThat(summary.getImported(), is(equalTo(1L)));
+        assertThat(summary.getErrors().get(0).getRecord(), is(equalTo(2L)));
+        assertThat(summary.getErrors().get(0).getCode(), is(equalTo("import.malformed.record")));
+    }
+
+    @Test
+    void findBooksByAuthor_limitGiven_returnPageWithOpaqueCursor() {
+        //Given
+        Book book = new Book("9780000000125", "title", "auth", 2024, 10, 10);
+        when(bookServiceMock.findBooksByAuthor("auth", null, 1)).thenReturn(new BookPage(List.of(book), "9780000000125"));
+        when(bookServiceMock.findBooksByAuthor("auth", "9780000000125", 1)).thenReturn(new BookPage(List.of(), null));
+        //When
+        BookPageResponse firstPage = (BookPageResponse) testObj.findBooksByAuthor("auth", null, 1).getEntity();
+        BookPageResponse secondPage = (BookPageResponse) testObj.findBooksByAuthor("auth", firstPage.getNextCursor(), 1).getEntity();
+        //Then
+        assertThat(firstPage.getBooks().size(), is(equalTo(1)));
+        assertThat(firstPage.getNextCursor().contains("9780000000125"), is(equalTo(false)));
+        assertThat(secondPage.getNextCursor(), is(nullValue()));
+    }
+
+    @Test
+    void findBooksByAuthor_invalidCursor_throwBadRequestException() {
+        assertThrows(BadRequestException.class, () -> testObj.findBooksByAuthor("auth", "not-a-cursor", 10));
+    }
+
+    @Test
+    void streamBooksByAuthor_multiplePages_writeOneJsonLinePerBook() throws IOException {
+        //Given
+        Book book1 = new Book("9780000000125", "title", "auth", 2024, 10, 10);
+        Book book2 = new Book("9780000000132", "title2", "auth", 2024, 10, 10);
+        when(bookServiceMock.findBooksByAuthor("auth", null, 1000)).thenReturn(new BookPage(List.of(book1), "9780000000125"));
+        when(bookServiceMock.findBooksByAuthor("auth", "9780000000125", 1000)).thenReturn(new BookPage(List.of(book2), null));
+        //When
+        Response response = testObj.streamBooksByAuthor("auth");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(outputStream);
+        //Then
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines.length, is(equalTo(2)));
+        assertThat(lines[0].contains("\"isbn\":\"9780000000125\""), is(equalTo(true)));
+        assertThat(lines[1].contains("\"isbn\":\"9780000000132\""), is(equalTo(true)));
+    }
+
+    @Test
+    void searchBooks_blankQuery_throwBadRequestException() {
+        assertThrows(BadRequestException.class, () -> testObj.searchBooks(" ", null));
+    }
+
+    @Test
+    void searchBooks_noLimit_searchWithDefaultLimit() {
+        //Given
+        Book book = new Book("9780000000125", "title", "auth", 2024, 10, 10);
+        when(bookServiceMock.searchBooks("title", LibraryResource.DEFAULT_SEARCH_LIMIT)).thenReturn(List.of(book));
+        //When
+        Response response = testObj.searchBooks("title", null);
+        //Then
+        assertThat(response.getStatus(), is(equalTo(200)));
+        assertThat(((List<?>) response.getEntity()).size(), is(equalTo(1)));
+    }
+
+    @Test
+    void completeBooks_blankPrefix_throwBadRequestException() {
+        assertThrows(BadRequestException.class, () -> testObj.completeBooks("", null));
+    }
+
+    @Test
+    void findBooksByPublicationYear_fromAfterTo_throwBadRequestException() {
+        assertThrows(BadRequestException.class, () -> testObj.findBooksByPublicationYear(2000, 1990, null, null, null));
+    }
+
+    @Test
+    void findBooksByPublicationYear_malformedCursor_throwBadRequestException() {
+        String cursor = Base64.getUrlEncoder().encodeToString("v1:1999".getBytes(StandardCharsets.UTF_8));
+        assertThrows(BadRequestException.class, () -> testObj.findBooksByPublicationYear(1990, 2000, null, cursor, null));
+    }
+
+    @Test
+    void queryBooks_filters_combineIntoOneQuery() {
+        //Given
+        BookQuery query = BookQuery.and(BookQuery.author("auth"), BookQuery.publishedBetween(1990, Integer.MAX_VALUE),
+                BookQuery.available(true));
+        when(bookServiceMock.queryBooks(query, LibraryResource.DEFAULT_PAGE_SIZE)).thenReturn(List.of());
+        //When
+        Response response = testObj.queryBooks(null, "auth", 1990, null, true, null);
+        //Then
+        assertThat(response.getStatus(), is(equalTo(200)));
+    }
+
+    @Test
+    void streamAvailability_isbnsAndAuthors_subscribeNormalizedIsbns() {
+        //When
+        testObj.streamAvailability(List.of("978-0-306-40615-7", "9780306406157"), List.of("auth", " "), eventSinkMock, sseMock);
+        //Then
+        verify(availabilityFeedMock).subscribe(eq(Set.of("9780306406157")), eq(Set.of("auth")), any(SseAvailabilitySubscriber.class));
+    }
+
+    @Test
+    void streamAvailability_nothingToFollow_throwBadRequestException() {
+        assertThrows(BadRequestException.class, () -> testObj.streamAvailability(List.of(), List.of(), eventSinkMock, sseMock));
+        verify(availabilityFeedMock, never()).subscribe(anySet(), anySet(), any());
+    }
+
+    private Response resumedResponse() {
+        ArgumentCaptor<Response> captor = ArgumentCaptor.forClass(Response.class);
+        verify(asyncResponseMock, timeout(RESUME_TIMEOUT_MILLIS)).resume(captor.capture());
+        return captor.getValue();
+    }
+
+    private Throwable resumedFailure() {
+        ArgumentCaptor<Throwable> captor = ArgumentCaptor.forClass(Throwable.class);
+        verify(asyncResponseMock, timeout(RESUME_TIMEOUT_MILLIS)).resume(captor.capture());
+        return captor.getValue();
+    }
 }